@@ -17,6 +17,7 @@ plugins {
   java
   application
   id("com.gradleup.shadow") version "8.3.8"
+  id("me.champeau.jmh") version "0.7.3"
   id("org.sonarqube") version "6.2.0.5505"
 }
 
@@ -54,6 +55,21 @@ dependencies {
   testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
+/**
+ * Benchmarks of the simulation core, in src/jmh/java, run with `./gradlew jmh`.
+ * A subset can be selected with e.g. `./gradlew jmh -Pjmh.includes=SimulationBenchmark.tick`.
+ * The results are written as JSON to build/reports/jmh/results.json, so runs can be compared.
+ */
+jmh {
+  jmhVersion.set("1.37")
+  findProperty("jmh.includes")?.let { includes.set(listOf(it as String)) }
+  // The "gc" profiler reports the allocation rate, per second and per operation.
+  profilers.set(listOf("gc"))
+  resultFormat.set("JSON")
+  resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+  jvmArgsAppend.set(listOf("-Djava.awt.headless=true"))
+}
+
 /**
  * Strings used as keys to reference shared variables (via `ext.*`)
  */
@@ -855,4 +871,7 @@ tasks {
   checkstyleTest {
     source = fileTree("src/test/java")
   }
+  named<Checkstyle>("checkstyleJmh") {
+    source = fileTree("src/jmh/java")
+  }
 }
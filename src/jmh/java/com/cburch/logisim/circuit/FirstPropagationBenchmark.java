@@ -0,0 +1,82 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time a headless run needs from a freshly built circuit to its first propagation,
+ * on the circuit of SimulationQueueBenchmark:
+ *
+ * <ul>
+ *   <li>connectivity: computing the connectivity of the circuit;
+ *   <li>firstPropagation: computing it, creating the state of the circuit and propagating it once.
+ * </ul>
+ *
+ * <p>The connectivity is kept by the circuit once computed, so every measurement is a single shot
+ * on a circuit built anew. It runs on the benchmark thread, as the command line tools do on the
+ * main thread, so it never involves the AWT thread.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FirstPropagationBenchmark {
+  @Param({"200"})
+  public int lanes;
+
+  @Param({"200"})
+  public int depth;
+
+  private Project proj;
+  private Circuit circuit;
+
+  @Setup(Level.Iteration)
+  public void build() {
+    Main.headless = true;
+    final var file = LogisimFile.createNew(new Loader(null), null);
+    proj = new Project(file);
+    circuit = file.getMainCircuit();
+    SimulationQueueBenchmark.buildInverterLanes(circuit, lanes, depth);
+  }
+
+  @Benchmark
+  public Object connectivity() {
+    return circuit.wires.getWidthIncompatibilityData();
+  }
+
+  @Benchmark
+  public Propagator firstPropagation() {
+    circuit.wires.getWidthIncompatibilityData();
+    final var state =
+        CircuitState.createRootState(proj, circuit, AppPreferences.SIM_QUEUE_DEFAULT);
+    state.getPropagator().propagate();
+    return state.getPropagator();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.instance.InstanceComponent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the access of components to the values of their ports, as done by every component
+ * on every propagation: readPorts reads all the ports of all the components of a propagated
+ * reference circuit through InstanceState.getPortValue, in passes per second, and
+ * readPortsByLocation the same values by looking up the location of each end in the state, as
+ * getPortValue did before ports were bound. The gate-level adder is the densest in port reads.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PortAccessBenchmark {
+  @Param({ReferenceCircuits.ADDER32, ReferenceCircuits.COUNTERS})
+  public String circuit;
+
+  private CircuitState state;
+  private Component[] components;
+
+  @Setup
+  public void load() throws IOException, LoadFailedException {
+    Main.headless = true;
+    final var proj = ReferenceCircuits.load(circuit);
+    final var main = proj.getLogisimFile().getMainCircuit();
+    state = CircuitState.createRootState(proj, main);
+    state.getPropagator().propagate();
+    final var comps = new ArrayList<Component>();
+    for (final var comp : main.getNonWires()) {
+      if (comp instanceof InstanceComponent) comps.add(comp);
+    }
+    components = comps.toArray(new Component[0]);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void readPorts(Blackhole bh) {
+    for (final var comp : components) {
+      final var instanceState = state.getInstanceState(comp);
+      final var count = comp.getEnds().size();
+      for (var i = 0; i < count; i++) {
+        bh.consume(instanceState.getPortValue(i));
+      }
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void readPortsByLocation(Blackhole bh) {
+    for (final var comp : components) {
+      state.getInstanceState(comp);
+      final var count = comp.getEnds().size();
+      for (var i = 0; i < count; i++) {
+        bh.consume(state.getValue(comp.getEnd(i).getLocation()));
+      }
+    }
+  }
+}
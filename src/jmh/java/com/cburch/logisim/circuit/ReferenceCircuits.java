@@ -0,0 +1,321 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.proj.ProjectActions;
+import com.cburch.logisim.std.arith.Adder;
+import com.cburch.logisim.std.arith.ArithmeticLibrary;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.Counter;
+import com.cburch.logisim.std.memory.Mem;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.memory.Ram;
+import com.cburch.logisim.std.memory.RamAppearance;
+import com.cburch.logisim.std.memory.Register;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Constant;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * The reference circuits of the simulation benchmarks. Each one is driven by a single clock:
+ *
+ * <ul>
+ *   <li>counters: a chain of 8-bit counters, the carry of each one enabling the next one;
+ *   <li>adder32: a 32-bit accumulator adding a counter to itself through a ripple-carry adder
+ *       made of gates, so every tick ripples a carry through 64 gates;
+ *   <li>ramCpu: a small accumulator machine, whose program counter addresses a RAM that is read
+ *       into the accumulator and written back from it on every cycle;
+ *   <li>hierarchy: a tree of nested subcircuits, each level holding two instances of the level
+ *       below, whose leaves are NOT gates.
+ * </ul>
+ *
+ * <p>The circuits are built programmatically, connecting components through labeled tunnels so
+ * that no wires need to be routed, then saved to a .circ file and loaded back the way the command
+ * line tools load a user's file. A benchmark thus measures a circuit as read from disk, and any
+ * other .circ file can be measured by passing its path instead of a reference circuit name.
+ */
+final class ReferenceCircuits {
+  static final String COUNTERS = "counters";
+  static final String ADDER32 = "adder32";
+  static final String RAM_CPU = "ramCpu";
+  static final String HIERARCHY = "hierarchy";
+
+  private static final int COUNTER_CHAIN_LENGTH = 64;
+  private static final int ADDER_WIDTH = 32;
+  private static final int RAM_ADDR_WIDTH = 8;
+  private static final int RAM_DATA_WIDTH = 16;
+  private static final int HIERARCHY_DEPTH = 8;
+
+  /** The carry output of a Counter, see Counter.CARRY. */
+  private static final int COUNTER_CARRY = 7;
+
+  private ReferenceCircuits() {
+    // utility class
+  }
+
+  /**
+   * Loads a circuit, headlessly.
+   *
+   * @param name the name of a reference circuit, or the path of a .circ file.
+   */
+  static Project load(String name) throws IOException, LoadFailedException {
+    if (name.endsWith(".circ")) {
+      return ProjectActions.doOpenNoWindow(null, new File(name));
+    }
+
+    // a file made from the template references the built-in libraries of its own loader, so it is
+    // saved with that one
+    final var file = ProjectActions.createNewFile(null);
+    switch (name) {
+      case COUNTERS -> buildCounters(file);
+      case ADDER32 -> buildAdder(file);
+      case RAM_CPU -> buildRamCpu(file);
+      case HIERARCHY -> buildHierarchy(file);
+      default -> throw new IllegalArgumentException("unknown reference circuit: " + name);
+    }
+    final var dir = Files.createTempDirectory("logisim-bench");
+    final var dest = dir.resolve(name + ".circ").toFile();
+    try {
+      if (!file.getLoader().save(file, dest)) {
+        throw new IOException("could not save " + dest);
+      }
+      return ProjectActions.doOpenNoWindow(null, dest);
+    } finally {
+      dest.delete();
+      dir.toFile().delete();
+    }
+  }
+
+  private static void buildCounters(LogisimFile file) {
+    final var b = new Builder(file.getMainCircuit());
+    b.connect(b.add(Clock.FACTORY, Clock.FACTORY.createAttributeSet()), 0, "clk");
+    final var counter = factory(file, MemoryLibrary._ID, Counter._ID);
+    for (var i = 0; i < COUNTER_CHAIN_LENGTH; i++) {
+      final var attrs = counter.createAttributeSet();
+      attrs.setValue(StdAttr.WIDTH, BitWidth.create(8));
+      final var comp = b.add(counter, attrs);
+      b.connect(comp, Counter.CK, "clk");
+      if (i > 0) {
+        b.connect(comp, Counter.EN, "en" + i);
+      }
+      b.connect(comp, COUNTER_CARRY, "en" + (i + 1));
+    }
+    b.execute();
+  }
+
+  private static void buildAdder(LogisimFile file) {
+    final var b = new Builder(file.getMainCircuit());
+    b.connect(b.add(Clock.FACTORY, Clock.FACTORY.createAttributeSet()), 0, "clk");
+    final var width = BitWidth.create(ADDER_WIDTH);
+
+    final var counter = factory(file, MemoryLibrary._ID, Counter._ID);
+    final var counterAttrs = counter.createAttributeSet();
+    counterAttrs.setValue(StdAttr.WIDTH, width);
+    final var count = b.add(counter, counterAttrs);
+    b.connect(count, Counter.CK, "clk");
+    b.connect(count, Counter.OUT, "a");
+
+    final var register = factory(file, MemoryLibrary._ID, Register._ID);
+    final var registerAttrs = register.createAttributeSet();
+    registerAttrs.setValue(StdAttr.WIDTH, width);
+    final var acc = b.add(register, registerAttrs);
+    b.connect(acc, Register.CK, "clk");
+    b.connect(acc, Register.IN, "s");
+    b.connect(acc, Register.OUT, "b");
+
+    for (final var bus : new String[] {"a", "b", "s"}) {
+      final var attrs = SplitterFactory.instance.createAttributeSet();
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, width);
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, ADDER_WIDTH);
+      final var splitter = b.add(SplitterFactory.instance, attrs);
+      b.connect(splitter, 0, bus);
+      for (var i = 0; i < ADDER_WIDTH; i++) {
+        b.connect(splitter, i + 1, bus + i);
+      }
+    }
+
+    final var zero = Constant.FACTORY.createAttributeSet();
+    zero.setValue(Constant.ATTR_VALUE, 0L);
+    b.connect(b.add(Constant.FACTORY, zero), 0, "c0");
+    final var xor = factory(file, GatesLibrary._ID, "XOR Gate");
+    final var and = factory(file, GatesLibrary._ID, "AND Gate");
+    final var or = factory(file, GatesLibrary._ID, "OR Gate");
+    for (var i = 0; i < ADDER_WIDTH; i++) {
+      // a full adder: s = a ^ b ^ c, carry = (a & b) | ((a ^ b) & c)
+      b.gate(xor, "p" + i, "a" + i, "b" + i);
+      b.gate(xor, "s" + i, "p" + i, "c" + i);
+      b.gate(and, "g" + i, "a" + i, "b" + i);
+      b.gate(and, "t" + i, "p" + i, "c" + i);
+      b.gate(or, "c" + (i + 1), "g" + i, "t" + i);
+    }
+    b.execute();
+  }
+
+  private static void buildRamCpu(LogisimFile file) {
+    final var b = new Builder(file.getMainCircuit());
+    b.connect(b.add(Clock.FACTORY, Clock.FACTORY.createAttributeSet()), 0, "clk");
+    b.connect(b.add(Constant.FACTORY, Constant.FACTORY.createAttributeSet()), 0, "one");
+
+    final var counter = factory(file, MemoryLibrary._ID, Counter._ID);
+    final var pcAttrs = counter.createAttributeSet();
+    pcAttrs.setValue(StdAttr.WIDTH, BitWidth.create(RAM_ADDR_WIDTH));
+    final var pc = b.add(counter, pcAttrs);
+    b.connect(pc, Counter.CK, "clk");
+    b.connect(pc, Counter.OUT, "pc");
+
+    final var ram = factory(file, MemoryLibrary._ID, Ram._ID);
+    final var ramAttrs = ram.createAttributeSet();
+    ramAttrs.setValue(Mem.ADDR_ATTR, BitWidth.create(RAM_ADDR_WIDTH));
+    ramAttrs.setValue(Mem.DATA_ATTR, BitWidth.create(RAM_DATA_WIDTH));
+    final var mem = b.add(ram, ramAttrs);
+    b.connect(mem, RamAppearance.getAddrIndex(0, ramAttrs), "pc");
+    b.connect(mem, RamAppearance.getDataInIndex(0, ramAttrs), "acc");
+    b.connect(mem, RamAppearance.getDataOutIndex(0, ramAttrs), "x");
+    b.connect(mem, RamAppearance.getWEIndex(0, ramAttrs), "one");
+    b.connect(mem, RamAppearance.getClkIndex(0, ramAttrs), "clk");
+
+    final var register = factory(file, MemoryLibrary._ID, Register._ID);
+    final var accAttrs = register.createAttributeSet();
+    accAttrs.setValue(StdAttr.WIDTH, BitWidth.create(RAM_DATA_WIDTH));
+    final var acc = b.add(register, accAttrs);
+    b.connect(acc, Register.CK, "clk");
+    b.connect(acc, Register.IN, "sum");
+    b.connect(acc, Register.OUT, "acc");
+
+    // acc = acc + mem[pc] + 1, while mem[pc] = acc
+    final var adder = factory(file, ArithmeticLibrary._ID, Adder._ID);
+    final var adderAttrs = adder.createAttributeSet();
+    adderAttrs.setValue(StdAttr.WIDTH, BitWidth.create(RAM_DATA_WIDTH));
+    final var add = b.add(adder, adderAttrs);
+    b.connect(add, Adder.IN0, "acc");
+    b.connect(add, Adder.IN1, "x");
+    b.connect(add, Adder.C_IN, "one");
+    b.connect(add, Adder.OUT, "sum");
+    b.execute();
+  }
+
+  private static void buildHierarchy(LogisimFile file) {
+    final var not = factory(file, GatesLibrary._ID, "NOT Gate");
+    final var or = factory(file, GatesLibrary._ID, "OR Gate");
+
+    // level 0 inverts its input, every other level ORs the outputs of two instances of the level
+    // below, so all of them toggle on every tick
+    Circuit below = null;
+    for (var level = 0; level <= HIERARCHY_DEPTH; level++) {
+      final var circuit = new Circuit("level" + level, file, null);
+      final var b = new Builder(circuit);
+      b.pin(false, "in");
+      b.pin(true, "out");
+      if (below == null) {
+        final var comp = b.add(not, not.createAttributeSet());
+        b.connect(comp, 1, "in");
+        b.connect(comp, 0, "out");
+      } else {
+        b.subcircuit(below, "in", "x");
+        b.subcircuit(below, "in", "y");
+        b.gate(or, "out", "x", "y");
+      }
+      b.execute();
+      file.addCircuit(circuit);
+      below = circuit;
+    }
+
+    final var b = new Builder(file.getMainCircuit());
+    b.connect(b.add(Clock.FACTORY, Clock.FACTORY.createAttributeSet()), 0, "clk");
+    b.subcircuit(below, "clk", "q");
+    b.pin(true, "q");
+    b.execute();
+  }
+
+  private static ComponentFactory factory(LogisimFile file, String library, String name) {
+    return ((AddTool) file.getLibrary(library).getTool(name)).getFactory();
+  }
+
+  /**
+   * Adds components to a circuit, each one in its own square of the grid so that the ends of
+   * different components never meet, and connects their ends to named nets through tunnels.
+   */
+  private static final class Builder {
+    private static final int CELL = 1000;
+    private static final int COLUMNS = 32;
+
+    private final CircuitMutation xn;
+    private int count;
+
+    Builder(Circuit circuit) {
+      xn = new CircuitMutation(circuit);
+    }
+
+    Component add(ComponentFactory factory, AttributeSet attrs) {
+      final var loc = Location.create(
+          CELL * (count % COLUMNS) + CELL / 2, CELL * (count / COLUMNS) + CELL / 2, false);
+      count++;
+      final var comp = factory.createComponent(loc, attrs);
+      xn.add(comp);
+      return comp;
+    }
+
+    void connect(Component comp, int end, String net) {
+      final var data = comp.getEnd(end);
+      final var attrs = Tunnel.FACTORY.createAttributeSet();
+      attrs.setValue(StdAttr.LABEL, net);
+      attrs.setValue(StdAttr.WIDTH, data.getWidth());
+      xn.add(Tunnel.FACTORY.createComponent(data.getLocation(), attrs));
+    }
+
+    /** Adds a two-input gate. */
+    void gate(ComponentFactory factory, String out, String in0, String in1) {
+      final var attrs = factory.createAttributeSet();
+      attrs.setValue(GateAttributes.ATTR_INPUTS, 2);
+      final var comp = add(factory, attrs);
+      connect(comp, 0, out);
+      connect(comp, 1, in0);
+      connect(comp, 2, in1);
+    }
+
+    /** Adds a 1-bit pin, named after its net. */
+    void pin(boolean output, String net) {
+      final var attrs = Pin.FACTORY.createAttributeSet();
+      attrs.setValue(Pin.ATTR_TYPE, output ? Pin.OUTPUT : Pin.INPUT);
+      attrs.setValue(StdAttr.FACING, output ? Direction.WEST : Direction.EAST);
+      attrs.setValue(StdAttr.LABEL, net);
+      connect(add(Pin.FACTORY, attrs), 0, net);
+    }
+
+    /** Adds an instance of a subcircuit having a single input and a single output. */
+    void subcircuit(Circuit circuit, String in, String out) {
+      final var factory = circuit.getSubcircuitFactory();
+      final var comp = add(factory, factory.createAttributeSet());
+      for (var i = 0; i < comp.getEnds().size(); i++) {
+        connect(comp, i, comp.getEnd(i).isOutput() ? out : in);
+      }
+    }
+
+    void execute() {
+      xn.execute();
+    }
+  }
+}
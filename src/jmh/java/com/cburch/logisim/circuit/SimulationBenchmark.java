@@ -0,0 +1,114 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the simulation core on the reference circuits, for every event queue of the
+ * SIMULATION_QUEUE preference:
+ *
+ * <ul>
+ *   <li>tick: clock ticks per second, a tick being a toggle of the clocks and the propagation
+ *       that follows;
+ *   <li>tickLatency: the distribution of the time a single tick takes to propagate;
+ *   <li>firstPropagation: the time from a loaded circuit to its first propagation, that is
+ *       creating its state and propagating it once.
+ * </ul>
+ *
+ * <p>The gc profiler configured in build.gradle.kts adds the allocation rate of each benchmark,
+ * in bytes per second and per operation. Run them with {@code ./gradlew jmh}; a circuit of
+ * one's own can be measured with {@code -p circuit=/path/to/file.circ} on the JMH command line.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimulationBenchmark {
+  @Param({
+    ReferenceCircuits.COUNTERS,
+    ReferenceCircuits.ADDER32,
+    ReferenceCircuits.RAM_CPU,
+    ReferenceCircuits.HIERARCHY,
+  })
+  public String circuit;
+
+  @Param({
+    AppPreferences.SIM_QUEUE_PRIORITY,
+    AppPreferences.SIM_QUEUE_SPLAY,
+    AppPreferences.SIM_QUEUE_LINKED,
+    AppPreferences.SIM_QUEUE_LIST_OF_QUEUES,
+    AppPreferences.SIM_QUEUE_TREE_OF_QUEUES,
+    AppPreferences.SIM_QUEUE_POOLED,
+  })
+  public String queue;
+
+  private Project proj;
+  private Circuit main;
+  private Propagator prop;
+
+  @Setup(Level.Trial)
+  public void load() throws IOException, LoadFailedException {
+    Main.headless = true;
+    proj = ReferenceCircuits.load(circuit);
+    main = proj.getLogisimFile().getMainCircuit();
+  }
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    prop = CircuitState.createRootState(proj, main, queue).getPropagator();
+    prop.propagate();
+    // let the queue reach its steady-state size before measuring
+    for (var i = 0; i < 10; i++) {
+      tick();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void tick() {
+    prop.toggleClocks();
+    prop.propagate();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void tickLatency() {
+    tick();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Propagator firstPropagation() {
+    final var state = CircuitState.createRootState(proj, main, queue);
+    state.getPropagator().propagate();
+    return state.getPropagator();
+  }
+}
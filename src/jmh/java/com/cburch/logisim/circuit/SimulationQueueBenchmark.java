@@ -0,0 +1,147 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the simulator event queue implementations on the same circuit.
+ *
+ * <p>The circuit is a clock driving a number of lanes, each one being a chain of NOT gates, so
+ * that every clock tick causes lanes * depth events. The benchmark measures the ticks per second
+ * for every queue type, and the gc profiler configured in build.gradle.kts the bytes allocated by
+ * the simulation per tick. Run it with {@code ./gradlew jmh -Pjmh.includes=SimulationQueue}; other
+ * sizes can be given with e.g. {@code -p lanes=10 -p depth=1000} on the JMH command line.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimulationQueueBenchmark {
+  @Param({"100"})
+  public int lanes;
+
+  @Param({"100"})
+  public int depth;
+
+  @Param({
+    AppPreferences.SIM_QUEUE_PRIORITY,
+    AppPreferences.SIM_QUEUE_SPLAY,
+    AppPreferences.SIM_QUEUE_LINKED,
+    AppPreferences.SIM_QUEUE_LIST_OF_QUEUES,
+    AppPreferences.SIM_QUEUE_TREE_OF_QUEUES,
+    AppPreferences.SIM_QUEUE_POOLED,
+  })
+  public String queue;
+
+  private Project proj;
+  private Circuit circuit;
+  private Propagator prop;
+
+  @Setup(Level.Trial)
+  public void build() {
+    Main.headless = true;
+    final var file = LogisimFile.createNew(new Loader(null), null);
+    proj = new Project(file);
+    circuit = file.getMainCircuit();
+    buildInverterLanes(circuit, lanes, depth);
+  }
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    prop = CircuitState.createRootState(proj, circuit, queue).getPropagator();
+    prop.propagate();
+    // let the queue reach its steady-state size before measuring
+    for (var i = 0; i < 10; i++) {
+      tick();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void tick() {
+    prop.toggleClocks();
+    prop.propagate();
+  }
+
+  /**
+   * Adds a clock and the given number of lanes of NOT gates to the circuit. Consecutive gates of a
+   * lane are placed so that the input of one sits on the output of the previous one, and the clock
+   * reaches the first gate of every lane through tunnels, so no wires are needed. The components
+   * are added in bulk, as when a file is loaded.
+   */
+  static void buildInverterLanes(Circuit circuit, int lanes, int depth) {
+    final var notGate = ((AddTool) new GatesLibrary().getTool("NOT Gate")).getFactory();
+    final var probe = create(notGate, Location.create(0, 0, false));
+    final var dx = probe.getEnd(0).getLocation().getX() - probe.getEnd(1).getLocation().getX();
+
+    final var comps = new ArrayList<Component>();
+    final var clockAt = Location.create(100, 50, false);
+    comps.add(create(Clock.FACTORY, clockAt));
+    comps.add(createTunnel(clockAt, "clk"));
+    for (var lane = 0; lane < lanes; lane++) {
+      final var y = 100 + 40 * lane;
+      final var firstInput = Location.create(200, y, false);
+      comps.add(createTunnel(firstInput, "clk"));
+      for (var i = 0; i < depth; i++) {
+        comps.add(create(notGate, Location.create(200 + dx * (i + 1), y, false)));
+      }
+    }
+    new CircuitTransaction() {
+      @Override
+      protected Map<Circuit, Integer> getAccessedCircuits() {
+        return Map.of(circuit, READ_WRITE);
+      }
+
+      @Override
+      protected void run(CircuitMutator mutator) {
+        mutator.addAll(circuit, comps);
+      }
+    }.execute();
+  }
+
+  private static Component create(ComponentFactory factory, Location loc) {
+    return factory.createComponent(loc, factory.createAttributeSet());
+  }
+
+  private static Component createTunnel(Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    return Tunnel.FACTORY.createComponent(loc, attrs);
+  }
+}
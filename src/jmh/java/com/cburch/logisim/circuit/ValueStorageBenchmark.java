@@ -0,0 +1,161 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the storage of propagated values in CircuitState before and after ValueMap: the former
+ * 200 x 200 grid and HashMap guarded by a lock, taken once per location, and the lock-free
+ * ValueMap.
+ *
+ * <ul>
+ *   <li>write and read: a single thread setting values the way propagation does, or reading them
+ *       the way the canvas painter does, so the cost of the lock shows uncontended;
+ *   <li>contended: both at the same time, the writer and the reader being reported separately.
+ * </ul>
+ *
+ * <p>The extent is the width and height of the circuit in grid points; the former grid only held
+ * 200 x 200 points, beyond which values went to the HashMap. More readers can be given with e.g.
+ * {@code -tg 1,3} on the JMH command line.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValueStorageBenchmark {
+  private interface Store {
+    Value get(Location p);
+
+    void set(Location p, Value v);
+  }
+
+  /** The former storage of CircuitState. */
+  private static final class LockedStore implements Store {
+    private static final int GRID = 200;
+    private final HashMap<Location, Value> slowpath = new HashMap<>();
+    private final Value[][] fastpath = new Value[GRID][GRID];
+    private final Object lock = new Object();
+
+    private static boolean isFast(Location p) {
+      return p.getX() >= 0 && p.getY() >= 0 && p.getX() % 10 == 0 && p.getY() % 10 == 0
+          && p.getX() < GRID * 10 && p.getY() < GRID * 10;
+    }
+
+    @Override
+    public Value get(Location p) {
+      synchronized (lock) {
+        return isFast(p) ? fastpath[p.getY() / 10][p.getX() / 10] : slowpath.get(p);
+      }
+    }
+
+    @Override
+    public void set(Location p, Value v) {
+      synchronized (lock) {
+        if (isFast(p)) {
+          fastpath[p.getY() / 10][p.getX() / 10] = v;
+        } else {
+          slowpath.put(p, v);
+        }
+      }
+    }
+  }
+
+  @Param({"400"})
+  public int extent;
+
+  @Param({"locked", "valueMap"})
+  public String storage;
+
+  private Store store;
+  private Location[] locs;
+  private final Value[] vals = {Value.TRUE, Value.FALSE, Value.createKnown(8, 0x5a)};
+
+  /** The position of a thread in the locations, each thread starting at its own. */
+  @State(Scope.Thread)
+  public static class Cursor {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    int next = 7919 * THREAD_COUNT.incrementAndGet();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final var random = new Random(1);
+    locs = new Location[1 << 16];
+    for (var i = 0; i < locs.length; i++) {
+      locs[i] = Location.create(10 * random.nextInt(extent), 10 * random.nextInt(extent), false);
+    }
+    if ("locked".equals(storage)) {
+      store = new LockedStore();
+    } else {
+      final var map = new ValueMap();
+      store = new Store() {
+        @Override
+        public Value get(Location p) {
+          return map.get(p);
+        }
+
+        @Override
+        public void set(Location p, Value v) {
+          map.set(p, v);
+        }
+      };
+    }
+    for (var i = 0; i < locs.length; i++) {
+      store.set(locs[i], vals[i % vals.length]);
+    }
+  }
+
+  @Benchmark
+  public void write(Cursor cursor) {
+    final var i = cursor.next++;
+    store.set(locs[i & (locs.length - 1)], vals[(i >>> 16) % vals.length]);
+  }
+
+  @Benchmark
+  public Value read(Cursor cursor) {
+    return store.get(locs[cursor.next++ & (locs.length - 1)]);
+  }
+
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(Cursor cursor) {
+    write(cursor);
+  }
+
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(1)
+  public Value contendedRead(Cursor cursor) {
+    return read(cursor);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the ValueCache on the kind of values a 32-bit datapath goes through: a program counter
+ * stepping through a small loop, its bytes extracted with masks and bit updates, and the results
+ * merged on a shared bus. The gc profiler configured in build.gradle.kts reports the bytes they
+ * allocate, and datapathHitRates the hits and misses of the cache for the 32 and 64-bit values.
+ *
+ * <p>The size of the cache is that of the simValueCache preference, read once by the forked JVM;
+ * run it with {@code ./gradlew jmh -Pjmh.includes=ValueCacheBenchmark} for each size.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValueCacheBenchmark {
+  /** The number of program counter values the loop goes through. */
+  @Param({"512"})
+  public int loop;
+
+  private final Value lowByte = Value.createKnown(32, 0xffL);
+  private final Value highBits = Value.createKnown(32, 0xffff_ff00L);
+  private final Value released = Value.createUnknown(BitWidth.create(32));
+  private int step;
+
+  /**
+   * The hits and misses of the cache in each width class, reported as secondary results of the
+   * benchmark. JMH sums them over the iterations, so the hit rate of a class is hits / (hits +
+   * misses).
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class HitRates {
+    @Setup(Level.Iteration)
+    public void reset() {
+      ValueCache.setCollectingStatistics(true);
+      ValueCache.resetStatistics();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+      ValueCache.setCollectingStatistics(false);
+    }
+
+    private static long hits(int widthClass) {
+      return ValueCache.getStatistics()[widthClass].hits();
+    }
+
+    private static long misses(int widthClass) {
+      final var stats = ValueCache.getStatistics()[widthClass];
+      return stats.lookups() - stats.hits();
+    }
+
+    public long hits17to32() {
+      return hits(2);
+    }
+
+    public long misses17to32() {
+      return misses(2);
+    }
+
+    public long hits33to64() {
+      return hits(3);
+    }
+
+    public long misses33to64() {
+      return misses(3);
+    }
+  }
+
+  @Benchmark
+  public Value datapath() {
+    final var pc = Value.createKnown(32, 0x1000 + 4L * (step++ % loop));
+    final var low = pc.and(lowByte);
+    final var high = pc.and(highBits);
+    final var bus = released.combine(low.or(high));
+    return bus.set(0, Value.TRUE).extendWidth(64, Value.FALSE);
+  }
+
+  /** The same operations, counting the lookups and hits of the cache, which costs a little. */
+  @Benchmark
+  public Value datapathHitRates(HitRates hitRates) {
+    return datapath();
+  }
+}
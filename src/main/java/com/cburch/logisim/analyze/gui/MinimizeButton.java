@@ -14,18 +14,30 @@ import static com.cburch.logisim.analyze.Strings.S;
 import java.awt.BorderLayout;
 import java.awt.Font;
 import java.awt.Color;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
 import javax.swing.text.DefaultCaret;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
 import com.cburch.logisim.gui.generic.OptionPane;
 
 public class MinimizeButton  extends JButton {
+  /** Runs the optimizations one at a time, off the event thread, so that they can be cancelled. */
+  private static final ExecutorService OPTIMIZER = Executors.newSingleThreadExecutor(runnable -> {
+    final var thread = new Thread(runnable, "Logisim-Minimizer");
+    thread.setDaemon(true);
+    return thread;
+  });
 
   private final JFrame parent;
   private final AnalyzerModel model;
@@ -64,6 +76,13 @@ public class MinimizeButton  extends JButton {
     infoPanel.add(pane, BorderLayout.CENTER);
     infoPanel.add(doneButton, BorderLayout.SOUTH);
     doneButton.setVisible(false);
+    final var progressBar = new JProgressBar();
+    progressBar.setIndeterminate(true);
+    final var cancelButton = new JButton(S.get("minimizeCancel"));
+    final var progressPanel = new JPanel(new BorderLayout());
+    progressPanel.add(progressBar, BorderLayout.CENTER);
+    progressPanel.add(cancelButton, BorderLayout.EAST);
+    infoPanel.add(progressPanel, BorderLayout.NORTH);
     infoPanel.setLocationRelativeTo(parent);
     infoPanel.pack();
     final var dialogThread = new Thread(
@@ -79,14 +98,17 @@ public class MinimizeButton  extends JButton {
           }
     );
     dialogThread.start();
-    final var optimizeThread = new Thread(
-        new Runnable() {
-            public void run() {
-                model.getOutputExpressions().forcedOptimize(info, format);
-                doneButton.setVisible(true);
-            }
-        }
-    );
-    optimizeThread.start();
+    final var task = OPTIMIZER.submit(() -> {
+      try {
+        model.getOutputExpressions().forcedOptimize(info, format);
+      } catch (CancellationException e) {
+        info.append(String.format("\n%s\n", S.get("minimizeCancelled")));
+      }
+      SwingUtilities.invokeLater(() -> {
+        progressPanel.setVisible(false);
+        doneButton.setVisible(true);
+      });
+    });
+    cancelButton.addActionListener(event -> task.cancel(true));
   }
 }
@@ -0,0 +1,347 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static com.cburch.logisim.analyze.Strings.S;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import javax.swing.JTextArea;
+
+/**
+ * Heuristic two-level minimization in the manner of Espresso, for the truth tables with too many
+ * inputs for the exact Quine-McCluskey method of Implicant.computeMinimal. Starting from the
+ * desired terms, the cover is made prime (expand) and irredundant, then each of its cubes is
+ * shrunk to the terms only it covers (reduce) so that the next expansion can take another way;
+ * this is repeated as long as the cover gets cheaper. The result is a cover of primes none of
+ * which can be removed, not necessarily a minimal one.
+ *
+ * <p>A cube is packed in a long: the unknowns in the upper 32 bits, the values (zero where
+ * unknown) in the lower ones, with bit i standing for row bit i as in Implicant. The off-set is
+ * not kept as cubes: the rows of the truth table are looked up, so that checking whether a cube
+ * may be raised in a variable costs as many lookups as the cube has terms.
+ *
+ * <p>The minimization checks whether its thread was interrupted between cubes and stops with a
+ * CancellationException if so.
+ */
+final class EspressoMinimizer {
+  static final byte OFF = 0;
+  static final byte ON = 1;
+  static final byte DONT_CARE = 2;
+
+  private static final int MAX_PASSES = 16;
+
+  private final int nrOfInputs;
+  private final int fullMask;
+  /** The kind of each row of the truth table, OFF, ON or DONT_CARE. */
+  private final byte[] rows;
+  /** For each row, the number of cubes of the current cover containing it. */
+  private final int[] counts;
+
+  EspressoMinimizer(int nrOfInputs, byte[] rows) {
+    this.nrOfInputs = nrOfInputs;
+    this.fullMask = nrOfInputs >= 32 ? -1 : (1 << nrOfInputs) - 1;
+    this.rows = rows;
+    this.counts = new int[rows.length];
+  }
+
+  static long cube(int unknowns, int values) {
+    return ((long) unknowns << 32) | (values & ~unknowns & 0xffffffffL);
+  }
+
+  static int unknowns(long cube) {
+    return (int) (cube >>> 32);
+  }
+
+  static int values(long cube) {
+    return (int) cube;
+  }
+
+  private static int getLiteralCount(long[] cover, int fullMask) {
+    var literals = 0;
+    for (final var cube : cover) literals += Integer.bitCount(fullMask & ~unknowns(cube));
+    return literals;
+  }
+
+  private static void checkCancelled() {
+    if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+  }
+
+  private static void report(JTextArea out, String info) {
+    if (out != null) out.append(info);
+  }
+
+  /**
+   * Builds the rows of an output of the truth table of a model and minimizes them, the desired
+   * terms being the ones in the given format, the other non-skipped ones don't cares.
+   */
+  static List<Implicant> computeMinimal(int format, AnalyzerModel model, String variable, JTextArea outputArea) {
+    final var table = model.getTruthTable();
+    final var outputVariableIndex = model.getOutputs().bits.indexOf(variable);
+    if (outputVariableIndex < 0) return Collections.emptyList();
+    final var desiredTerm = format == AnalyzerModel.FORMAT_SUM_OF_PRODUCTS ? Entry.ONE : Entry.ZERO;
+    final var skippedTerm = desiredTerm == Entry.ONE ? Entry.ZERO : Entry.ONE;
+    final var rows = new byte[table.getRowCount()];
+    for (var row = 0; row < rows.length; row++) {
+      final var term = table.getOutputEntry(row, outputVariableIndex);
+      rows[row] = term == skippedTerm ? OFF : term == desiredTerm ? ON : DONT_CARE;
+    }
+    report(outputArea, String.format("\n%s\n", S.get("implicantOutputName", variable)));
+    final var cover = new EspressoMinimizer(table.getInputColumnCount(), rows).minimize(outputArea);
+    final var ret = new ArrayList<Implicant>(cover.length);
+    for (final var cube : cover) ret.add(new Implicant(unknowns(cube), values(cube)));
+    return ret;
+  }
+
+  /** @return whether a cover contains all the ON rows and no OFF row. */
+  boolean isCover(long[] cover) {
+    final var covered = new boolean[rows.length];
+    for (final var cube : cover) {
+      final var unknowns = unknowns(cube);
+      final var values = values(cube);
+      var sub = 0;
+      do {
+        if (rows[values | sub] == OFF) return false;
+        covered[values | sub] = true;
+        sub = (sub - unknowns) & unknowns;
+      } while (sub != 0);
+    }
+    for (var row = 0; row < rows.length; row++) {
+      if (rows[row] == ON && !covered[row]) return false;
+    }
+    return true;
+  }
+
+  long[] minimize(JTextArea outputArea) {
+    var nrOfOnes = 0;
+    for (final var row : rows) {
+      if (row == ON) nrOfOnes++;
+    }
+    var cover = new long[nrOfOnes];
+    var n = 0;
+    for (var row = 0; row < rows.length; row++) {
+      if (rows[row] == ON) cover[n++] = cube(0, row);
+    }
+    if (nrOfOnes == 0) return cover;
+
+    cover = irredundant(expand(cover));
+    var best = cover;
+    var bestLiterals = getLiteralCount(best, fullMask);
+    report(outputArea, String.format("%s\n", S.get("implicantEspressoPass", 0, best.length, bestLiterals)));
+    for (var pass = 1; pass <= MAX_PASSES; pass++) {
+      cover = irredundant(expand(reduce(cover)));
+      final var literals = getLiteralCount(cover, fullMask);
+      report(outputArea, String.format("%s\n", S.get("implicantEspressoPass", pass, cover.length, literals)));
+      if (cover.length > best.length || (cover.length == best.length && literals >= bestLiterals)) break;
+      best = cover;
+      bestLiterals = literals;
+    }
+    for (var i = 0; i < best.length; i++) {
+      if (i % 16 == 0) report(outputArea, "\n");
+      report(outputArea, String.format("%s ", toString(best[i])));
+    }
+    report(outputArea, "\n");
+    return best;
+  }
+
+  private String toString(long cube) {
+    final var result = new StringBuilder();
+    for (var bit = nrOfInputs - 1; bit >= 0; bit--) {
+      if ((unknowns(cube) & (1 << bit)) != 0) {
+        result.append('-');
+      } else {
+        result.append((values(cube) & (1 << bit)) != 0 ? '1' : '0');
+      }
+    }
+    return result.toString();
+  }
+
+  /** @return the number of ON rows in the cube, or -1 if it contains an OFF row. */
+  private int getOnCount(int unknowns, int values) {
+    var ons = 0;
+    var sub = 0;
+    do {
+      final var row = rows[values | sub];
+      if (row == OFF) return -1;
+      if (row == ON) ons++;
+      sub = (sub - unknowns) & unknowns;
+    } while (sub != 0);
+    return ons;
+  }
+
+  /** @return whether the cube contains an OFF row. */
+  private boolean hasOff(int unknowns, int values) {
+    var sub = 0;
+    do {
+      if (rows[values | sub] == OFF) return true;
+      sub = (sub - unknowns) & unknowns;
+    } while (sub != 0);
+    return false;
+  }
+
+  /**
+   * Makes every cube of the cover prime, the largest first, and drops the cubes whose ON rows are
+   * all in the ones made prime before.
+   */
+  private long[] expand(long[] cover) {
+    final var sorted = cover.clone();
+    sortBySize(sorted, false);
+    final var covered = new boolean[rows.length];
+    final var ret = new long[sorted.length];
+    var n = 0;
+    for (final var cube : sorted) {
+      if (isCovered(cube, covered)) continue;
+      checkCancelled();
+      final var prime = expandCube(cube);
+      ret[n++] = prime;
+      final var unknowns = unknowns(prime);
+      final var values = values(prime);
+      var sub = 0;
+      do {
+        covered[values | sub] = true;
+        sub = (sub - unknowns) & unknowns;
+      } while (sub != 0);
+    }
+    return Arrays.copyOf(ret, n);
+  }
+
+  private boolean isCovered(long cube, boolean[] covered) {
+    final var unknowns = unknowns(cube);
+    final var values = values(cube);
+    var sub = 0;
+    do {
+      final var row = values | sub;
+      if (rows[row] == ON && !covered[row]) return false;
+      sub = (sub - unknowns) & unknowns;
+    } while (sub != 0);
+    return true;
+  }
+
+  /**
+   * Raises the variables of a cube one at a time while it contains no OFF row. The variables
+   * first raised are the ones whose raising brings in most ON rows, the cubes containing those
+   * being the ones the expanded cube may make redundant.
+   */
+  private long expandCube(long cube) {
+    var unknowns = unknowns(cube);
+    final var values = values(cube);
+    final var scores = new int[nrOfInputs];
+    for (var bit = 0; bit < nrOfInputs; bit++) {
+      if ((unknowns & (1 << bit)) == 0) scores[bit] = getOnCount(unknowns, values ^ (1 << bit));
+    }
+    final var order = new Integer[nrOfInputs];
+    for (var bit = 0; bit < nrOfInputs; bit++) order[bit] = bit;
+    Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+    for (final var bit : order) {
+      final var mask = 1 << bit;
+      if ((unknowns & mask) != 0 || scores[bit] < 0) continue;
+      // the cube has no OFF row, so the half it is raised into is checked alone
+      if (!hasOff(unknowns, (values & ~unknowns) ^ mask)) unknowns |= mask;
+    }
+    return cube(unknowns, values);
+  }
+
+  private void count(long cube, int delta) {
+    final var unknowns = unknowns(cube);
+    final var values = values(cube);
+    var sub = 0;
+    do {
+      counts[values | sub] += delta;
+      sub = (sub - unknowns) & unknowns;
+    } while (sub != 0);
+  }
+
+  private void countAll(long[] cover) {
+    Arrays.fill(counts, 0);
+    for (final var cube : cover) count(cube, 1);
+  }
+
+  /** Removes the cubes whose ON rows are all in other cubes, the smallest first. */
+  private long[] irredundant(long[] cover) {
+    final var sorted = cover.clone();
+    sortBySize(sorted, true);
+    countAll(sorted);
+    final var ret = new long[sorted.length];
+    var n = 0;
+    for (final var cube : sorted) {
+      checkCancelled();
+      final var unknowns = unknowns(cube);
+      final var values = values(cube);
+      var redundant = true;
+      var sub = 0;
+      do {
+        final var row = values | sub;
+        if (rows[row] == ON && counts[row] < 2) {
+          redundant = false;
+          break;
+        }
+        sub = (sub - unknowns) & unknowns;
+      } while (sub != 0);
+      if (redundant) {
+        count(cube, -1);
+      } else {
+        ret[n++] = cube;
+      }
+    }
+    return Arrays.copyOf(ret, n);
+  }
+
+  /**
+   * Shrinks each cube, the largest first, to the smallest cube containing the ON rows no other
+   * cube contains.
+   */
+  private long[] reduce(long[] cover) {
+    final var sorted = cover.clone();
+    sortBySize(sorted, false);
+    countAll(sorted);
+    final var ret = new long[sorted.length];
+    var n = 0;
+    for (final var cube : sorted) {
+      checkCancelled();
+      final var unknowns = unknowns(cube);
+      final var values = values(cube);
+      var and = fullMask;
+      var or = 0;
+      var found = false;
+      var sub = 0;
+      do {
+        final var row = values | sub;
+        if (rows[row] == ON && counts[row] == 1) {
+          and &= row;
+          or |= row;
+          found = true;
+        }
+        sub = (sub - unknowns) & unknowns;
+      } while (sub != 0);
+      count(cube, -1);
+      if (found) {
+        final var reduced = cube(and ^ or, and);
+        count(reduced, 1);
+        ret[n++] = reduced;
+      }
+    }
+    return Arrays.copyOf(ret, n);
+  }
+
+  private static void sortBySize(long[] cover, boolean ascending) {
+    // sort on the number of unknowns, keeping the order of the cubes of a size
+    final var keys = new long[cover.length];
+    for (var i = 0; i < cover.length; i++) {
+      final var size = Integer.bitCount(unknowns(cover[i]));
+      keys[i] = ((long) (ascending ? size : 32 - size) << 52) | i;
+    }
+    Arrays.sort(keys);
+    final var copy = cover.clone();
+    for (var i = 0; i < cover.length; i++) cover[i] = copy[(int) (keys[i] & ((1L << 52) - 1))];
+  }
+}
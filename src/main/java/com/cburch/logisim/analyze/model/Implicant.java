@@ -145,6 +145,11 @@ public class Implicant implements Comparable<Implicant> {
     if ((nrOfInputs > MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM) && (outputArea == null)) {
       return Collections.emptyList();
     }
+    // Quine-McCluskey is exact but explodes beyond that, so bigger tables are minimized
+    // heuristically
+    if (nrOfInputs > MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM) {
+      return EspressoMinimizer.computeMinimal(format, model, variable, outputArea);
+    }
     report(outputArea, String.format("\n%s\n", S.fmt("implicantOutputName", variable)));
     // Here the real work starts, we determine all primes
     var couldMerge = false;
@@ -413,7 +418,7 @@ public class Implicant implements Comparable<Implicant> {
   final boolean isDontCare;
   boolean isPrime = true;
 
-  private Implicant(int unknowns, int values) {
+  Implicant(int unknowns, int values) {
     this.unknowns = unknowns;
     this.values = values;
     isDontCare = false;
@@ -23,6 +23,7 @@ import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import java.util.ArrayList;
@@ -34,6 +35,8 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class Analyze {
   public static class LocationBit {
@@ -165,7 +168,15 @@ public class Analyze {
   //
   // ComputeTable
   //
-  /** Returns a truth table corresponding to the circuit. */
+  /** Smallest number of rows worth a task of its own when computing a truth table. */
+  private static final int PARALLEL_CHUNK_ROWS = 1 << 10;
+
+  /**
+   * Returns a truth table corresponding to the circuit. Unless the ANALYZE_PARALLEL preference is
+   * off, large tables are split in ranges of rows computed in parallel in the common fork-join
+   * pool, each range in a root state of its own, and the rows of combinational circuits are
+   * computed incrementally (see TableRows).
+   */
   public static void computeTable(AnalyzerModel model, Project proj, Circuit circuit, Map<Instance, String> pinLabels) {
     final var inputPins = new ArrayList<Instance>();
     final var inputVars = new ArrayList<Var>();
@@ -191,58 +202,139 @@ public class Analyze {
     final var inputCount = inputNames.size();
     final var rowCount = 1 << inputCount;
     final var columns = new Entry[outputNames.size()][rowCount];
+    final var parallel = AppPreferences.ANALYZE_PARALLEL.getBoolean();
+    final var rows = new TableRows(inputPins, outputPins, inputCount, columns,
+        parallel && circuit.isCombinational());
+
+    // Each range of rows gets its own root state, created here since creating a Propagator
+    // registers a listener on the project options.
+    final var chunkCount = parallel
+        ? Math.min(rowCount / PARALLEL_CHUNK_ROWS, 4 * ForkJoinPool.getCommonPoolParallelism())
+        : 1;
+    if (chunkCount <= 1) {
+      rows.compute(CircuitState.createRootState(proj, circuit), 0, rowCount);
+    } else {
+      final var tasks = new ArrayList<ForkJoinTask<?>>();
+      for (var i = 0; i < chunkCount; i++) {
+        final var state = CircuitState.createRootState(proj, circuit);
+        final var from = (int) ((long) rowCount * i / chunkCount);
+        final var to = (int) ((long) rowCount * (i + 1) / chunkCount);
+        tasks.add(ForkJoinTask.adapt(() -> rows.compute(state, from, to)).fork());
+      }
+      for (final var task : tasks) {
+        task.join();
+      }
+    }
 
-    for (var i = 0; i < rowCount; i++) {
-      final var circuitState = CircuitState.createRootState(proj, circuit);
+    model.setVariables(inputVars, outputVars);
+    for (var i = 0; i < columns.length; i++) {
+      model.getTruthTable().setOutputColumn(i, columns[i]);
+    }
+  }
+
+  /**
+   * Computes a range of rows of a truth table, see computeTable(). Every row gets the same values
+   * it would get in a fresh root state: the state is reset before each row, unless the rows are
+   * computed incrementally, which is only right for purely combinational circuits. In that case,
+   * the rows are visited in Gray code order, so that only the pin holding the one input bit that
+   * changed has to be driven again.
+   */
+  private static class TableRows {
+    final ArrayList<Instance> inputPins;
+    final ArrayList<Instance> outputPins;
+    final int inputCount;
+    final Entry[][] columns;
+    /** The index of the input pin of each input column. */
+    final int[] pinOfColumn;
+    final boolean incremental;
+
+    TableRows(ArrayList<Instance> inputPins, ArrayList<Instance> outputPins, int inputCount,
+        Entry[][] columns, boolean incremental) {
+      this.inputPins = inputPins;
+      this.outputPins = outputPins;
+      this.inputCount = inputCount;
+      this.columns = columns;
+      pinOfColumn = new int[inputCount];
       var incol = 0;
-      for (final var pin : inputPins) {
-        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-        final var v = new Value[width];
-        for (var b = width - 1; b >= 0; b--) {
-          var value = TruthTable.isInputSet(i, incol++, inputCount);
-          v[b] = value ? Value.TRUE : Value.FALSE;
+      for (var i = 0; i < inputPins.size(); i++) {
+        final var width = inputPins.get(i).getAttributeValue(StdAttr.WIDTH).getWidth();
+        for (var b = 0; b < width; b++) {
+          pinOfColumn[incol++] = i;
         }
-        final var pinState = circuitState.getInstanceState(pin);
-        Pin.FACTORY.driveInputPin(pinState, Value.create(v));
       }
+      this.incremental = incremental;
+    }
 
+    void compute(CircuitState circuitState, int from, int to) {
       final var prop = circuitState.getPropagator();
-      prop.propagate();
-      /*
-       * TODO for the SimulatorPrototype class do { prop.step(); } while
-       * (prop.isPending());
-       */
-      // TODO: Search for circuit state
-
-      if (prop.isOscillating()) {
-        for (var j = 0; j < columns.length; j++) {
-          columns[j][i] = Entry.OSCILLATE_ERROR;
+      var needsReset = false;
+      var lastRow = 0;
+      for (var k = from; k < to; k++) {
+        final var row = incremental ? k ^ (k >>> 1) : k;
+        if (k == from || needsReset) {
+          if (needsReset) prop.reset();
+          for (var i = 0; i < inputPins.size(); i++) {
+            drive(circuitState, row, i);
+          }
+        } else {
+          // consecutive Gray codes differ by a single bit
+          final var bit = Integer.numberOfTrailingZeros(row ^ lastRow);
+          drive(circuitState, row, pinOfColumn[inputCount - 1 - bit]);
         }
-      } else {
-        var outcol = 0;
-        for (final var pin : outputPins) {
-          int width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-          final var pinState = circuitState.getInstanceState(pin);
-          Entry out;
-          for (int b = width - 1; b >= 0; b--) {
-            final var outValue = Pin.FACTORY.getValue(pinState).get(b);
-            if (outValue == Value.TRUE)
-              out = Entry.ONE;
-            else if (outValue == Value.FALSE)
-              out = Entry.ZERO;
-            else if (outValue == Value.ERROR)
-              out = Entry.BUS_ERROR;
-            else
-              out = Entry.DONT_CARE;
-            columns[outcol++][i] = out;
+        lastRow = row;
+
+        prop.propagate();
+        /*
+         * TODO for the SimulatorPrototype class do { prop.step(); } while
+         * (prop.isPending());
+         */
+        // TODO: Search for circuit state
+
+        if (prop.isOscillating()) {
+          for (var j = 0; j < columns.length; j++) {
+            columns[j][row] = Entry.OSCILLATE_ERROR;
+          }
+        } else {
+          var outcol = 0;
+          for (final var pin : outputPins) {
+            int width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+            final var pinState = circuitState.getInstanceState(pin);
+            Entry out;
+            for (int b = width - 1; b >= 0; b--) {
+              final var outValue = Pin.FACTORY.getValue(pinState).get(b);
+              if (outValue == Value.TRUE)
+                out = Entry.ONE;
+              else if (outValue == Value.FALSE)
+                out = Entry.ZERO;
+              else if (outValue == Value.ERROR)
+                out = Entry.BUS_ERROR;
+              else
+                out = Entry.DONT_CARE;
+              columns[outcol++][row] = out;
+            }
           }
         }
+        needsReset = !incremental || prop.isOscillating();
       }
     }
 
-    model.setVariables(inputVars, outputVars);
-    for (var i = 0; i < columns.length; i++) {
-      model.getTruthTable().setOutputColumn(i, columns[i]);
+    /** Drives the given input pin with its bits of the row. */
+    private void drive(CircuitState circuitState, int row, int pinIndex) {
+      var incol = 0;
+      for (var i = 0; i < pinIndex; i++) {
+        incol += inputPins.get(i).getAttributeValue(StdAttr.WIDTH).getWidth();
+      }
+      final var pin = inputPins.get(pinIndex);
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      final var v = new Value[width];
+      for (var b = width - 1; b >= 0; b--) {
+        var value = TruthTable.isInputSet(row, incol++, inputCount);
+        v[b] = value ? Value.TRUE : Value.FALSE;
+      }
+      final var pinState = circuitState.getInstanceState(pin);
+      Pin.FACTORY.driveInputPin(pinState, Value.create(v));
+      // unless the state was just reset, the pin is not propagated otherwise
+      circuitState.markComponentAsDirty(pin.getComponent());
     }
   }
 
@@ -134,6 +134,11 @@ public class Circuit {
       return map;
     }
 
+    @Override
+    public void boundsChanged(ComponentEvent e) {
+      compIndex.update(e.getSource());
+    }
+
     @Override
     public void labelChanged(ComponentEvent e) {
       final var attrEvent = (AttributeEvent) e.getData();
@@ -227,11 +232,15 @@ public class Circuit {
   private final SubcircuitFactory subcircuitFactory;
   private final EventSourceWeakSupport<CircuitListener> listeners = new EventSourceWeakSupport<>();
   private LinkedHashSet<Component> comps = new LinkedHashSet<>(); // doesn't include wires
-  CircuitWires wires = new CircuitWires();
+  /** The components of comps and the wires by extent, for queries by point or area. */
+  private final ComponentIndex compIndex = new ComponentIndex();
+  private final ComponentIndex wireIndex = new ComponentIndex();
+  CircuitWires wires;
   private final List<Component> clocks = new ArrayList<>();
   private final CircuitLocker locker;
 
-  private final WeakHashMap<Component, Circuit> circuitsUsingThis;
+  /** The instances of this circuit, which circuits being loaded in parallel may add together. */
+  private final Map<Component, Circuit> circuitsUsingThis;
   private final Netlist myNetList;
   private final Map<String, MappableResourcesContainer> myMappableResources;
   private final Map<String, Map<String, CircuitMapInfo>> loadedMaps;
@@ -241,12 +250,19 @@ public class Circuit {
 
   private final LogisimFile logiFile;
 
+  /**
+   * Whether the components of this circuit and of its subcircuits keep all their data in their
+   * circuit state, null until known (see ParallelSubstates).
+   */
+  private volatile Boolean ownStateOnly;
+
   public Circuit(String name, LogisimFile file, Project proj) {
     staticAttrs = CircuitAttributes.createBaseAttrs(this, name);
     appearance = new CircuitAppearance(this);
     subcircuitFactory = new SubcircuitFactory(this);
     locker = new CircuitLocker();
-    circuitsUsingThis = new WeakHashMap<>();
+    wires = new CircuitWires(locker);
+    circuitsUsingThis = Collections.synchronizedMap(new WeakHashMap<>());
     myNetList = new Netlist(this);
     myMappableResources = new HashMap<>();
     loadedMaps = new HashMap<>();
@@ -462,17 +478,75 @@ public class Circuit {
     }
   }
 
+  /**
+   * Returns whether the outputs of this circuit only depend on the current values of its inputs,
+   * that is whether it is made of combinational components only and has no feedback loop.
+   */
+  public boolean isCombinational() {
+    return wires.isCombinational();
+  }
+
+  /**
+   * Returns whether this circuit is combinational (see isCombinational()) and every bit of its nets
+   * is driven, so that none of its values is left over from a previous state.
+   */
+  public boolean isCombinationalWithoutFloatingNets() {
+    return wires.isCombinational() && !wires.hasFloatingNets();
+  }
+
+  /**
+   * Returns whether the components of this circuit and of its subcircuits keep all their data in
+   * their circuit state, so that the states of its instances can be propagated in parallel.
+   */
+  boolean hasOwnStateOnly() {
+    var known = ownStateOnly;
+    if (known == null) {
+      final ArrayList<Component> nonWires;
+      final var readLock = locker.getReadLock();
+      readLock.lock();
+      try {
+        nonWires = new ArrayList<>(comps);
+      } finally {
+        readLock.unlock();
+      }
+      known = ParallelSubstates.keepOwnState(nonWires);
+      ownStateOnly = known;
+    }
+    return known;
+  }
+
+  /** Forgets whether this circuit and the circuits using it have their own state only. */
+  private void forgetOwnStateOnly() {
+    ownStateOnly = null;
+    for (final var circuit : getCircuitsUsingThis()) {
+      circuit.forgetOwnStateOnly();
+    }
+  }
+
   /**
    * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
    */
   public void doTestVector(Project project, Instance[] pin, Value[] val) throws TestException {
-    final var state = project.getCircuitState();
-    state.reset();
+    doTestVector(project.getCircuitState(), pin, val, true);
+  }
+
+  /**
+   * Tests one row of a test vector in the given state of this circuit. The state is reset first
+   * unless reset is false, which is only right when the previous row was tested in the same state
+   * and the circuit is combinational without floating nets (see
+   * isCombinationalWithoutFloatingNets()): its outputs then only depend on the values driven on its
+   * input pins.
+   */
+  public void doTestVector(CircuitState state, Instance[] pin, Value[] val, boolean reset)
+      throws TestException {
+    if (reset) state.reset();
 
     for (var i = 0; i < pin.length; ++i) {
       if (Pin.FACTORY.isInputPin(pin[i])) {
         final var pinState = state.getInstanceState(pin[i]);
         Pin.FACTORY.driveInputPin(pinState, val[i]);
+        // unless the state was just reset, the pin is not propagated otherwise
+        if (!reset) state.markComponentAsDirty(pin[i].getComponent());
       }
     }
 
@@ -516,8 +590,11 @@ public class Circuit {
     context.setGraphics(gCopy);
     wires.draw(context, hidden);
 
+    // only the components in the clip are drawn, each with its own Graphics
+    final var clip = g.getClipBounds();
+    final Collection<Component> visible = clip == null ? comps : compIndex.query(Bounds.create(clip));
     if (CollectionUtil.isNullOrEmpty(hidden)) {
-      for (final var c : comps) {
+      for (final var c : visible) {
         final var gNew = g.create();
         context.setGraphics(gNew);
         gCopy.dispose();
@@ -526,7 +603,7 @@ public class Circuit {
         c.draw(context);
       }
     } else {
-      for (final var c : comps) {
+      for (final var c : visible) {
         if (!hidden.contains(c)) {
           final var gNew = g.create();
           context.setGraphics(gNew);
@@ -547,6 +624,12 @@ public class Circuit {
   }
 
   private void fireEvent(CircuitEvent event) {
+    final var action = event.getAction();
+    if (action == CircuitEvent.ACTION_ADD
+        || action == CircuitEvent.ACTION_REMOVE
+        || action == CircuitEvent.ACTION_CLEAR) {
+      forgetOwnStateOnly();
+    }
     for (final var l : listeners) {
       l.circuitChanged(event);
     }
@@ -560,9 +643,19 @@ public class Circuit {
     fireEvent(CircuitEvent.ACTION_DISPLAY_CHANGE, null);
   }
 
+  /**
+   * @return the components and wires that may meet an area, components first, in the order of
+   *     getComponents.
+   */
+  private ArrayList<Component> getCandidates(Bounds area) {
+    final var ret = compIndex.query(area);
+    ret.addAll(wireIndex.query(area));
+    return ret;
+  }
+
   public Collection<Component> getAllContaining(Location pt) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getCandidates(Bounds.create(pt))) {
       if (comp.contains(pt)) ret.add(comp);
     }
     return ret;
@@ -570,7 +663,7 @@ public class Circuit {
 
   public Collection<Component> getAllContaining(Location pt, Graphics g) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getCandidates(Bounds.create(pt))) {
       if (comp.contains(pt, g)) ret.add(comp);
     }
     return ret;
@@ -578,7 +671,7 @@ public class Circuit {
 
   public Collection<Component> getAllWithin(Bounds bds) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getCandidates(bds)) {
       if (bds.contains(comp.getBounds())) ret.add(comp);
     }
     return ret;
@@ -586,7 +679,7 @@ public class Circuit {
 
   public Collection<Component> getAllWithin(Bounds bds, Graphics g) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getCandidates(bds)) {
       if (bds.contains(comp.getBounds(g))) ret.add(comp);
     }
     return ret;
@@ -653,8 +746,11 @@ public class Circuit {
     return Bounds.create(xMin, yMin, xMax - xMin, yMax - yMin);
   }
 
+  /** Returns a copy of the circuits having an instance of this one, taken under the map's lock. */
   public Collection<Circuit> getCircuitsUsingThis() {
-    return circuitsUsingThis.values();
+    synchronized (circuitsUsingThis) {
+      return new ArrayList<>(circuitsUsingThis.values());
+    }
   }
 
   public void removeComponent(Component c) {
@@ -812,53 +908,104 @@ public class Circuit {
   void mutatorAdd(Component c) {
     locker.checkForWritePermission("add", this);
 
+    if (!addComponent(c, null)) return;
+    removeWrongLabels(c.getFactory().getName());
+    fireEvent(CircuitEvent.ACTION_ADD, c);
+  }
+
+  /**
+   * Adds components in bulk, as when a file is loaded. The result is that of adding them one after
+   * another, but the labels used in the circuit are collected once instead of for each component,
+   * and labels equal to a component name are cleared once per kind of component added. The
+   * listeners then get an ACTION_ADD event for each component actually added, as they would one
+   * by one.
+   */
+  void mutatorAddAll(Collection<? extends Component> toAdd) {
+    locker.checkForWritePermission("add", this);
+
+    final var labels = new HashSet<String>();
+    for (final var comp : comps) {
+      addLabel(labels, comp);
+    }
+    if (getName() != null && !getName().isEmpty()) labels.add(getName());
+    final var added = new ArrayList<Component>(toAdd.size());
+    final var factoryNames = new LinkedHashSet<String>();
+    for (final var c : toAdd) {
+      if (addComponent(c, labels)) {
+        added.add(c);
+        factoryNames.add(c.getFactory().getName());
+      }
+    }
+    for (final var name : factoryNames) {
+      removeWrongLabels(name);
+    }
+    for (final var c : added) {
+      fireEvent(CircuitEvent.ACTION_ADD, c);
+    }
+  }
+
+  private static void addLabel(Set<String> labels, Component comp) {
+    if (comp.getFactory() instanceof Tunnel) return;
+    if (comp.getAttributeSet().containsAttribute(StdAttr.LABEL)) {
+      final var label = comp.getAttributeSet().getValue(StdAttr.LABEL);
+      if (StringUtil.isNotEmpty(label)) labels.add(label.toUpperCase());
+    }
+  }
+
+  /**
+   * Adds a component without notifying anyone.
+   *
+   * @param labels the labels used in the circuit, see mutatorAddAll, or null to collect them
+   * @return false if the component was already in the circuit
+   */
+  private boolean addComponent(Component c, Set<String> labels) {
     isAnnotated = false;
     myNetList.clear();
     if (c instanceof Wire wire) {
-      if (wire.getEnd0().equals(wire.getEnd1())) return;
-      var added = wires.add(wire);
-      if (!added) return;
-    } else {
-      // add it into the circuit
-      var added = comps.add(c);
-      if (!added) return;
-      socSim.registerComponent(c);
-      // Here we check for duplicated labels and clear the label
-      // if it already exists in the circuit
-      if (c.getAttributeSet().containsAttribute(StdAttr.LABEL)
-          && !(c.getFactory() instanceof Tunnel)) {
-        final var labels = new HashSet<String>();
+      if (wire.getEnd0().equals(wire.getEnd1())) return false;
+      if (!wires.add(wire)) return false;
+      wireIndex.add(wire);
+      return true;
+    }
+    // add it into the circuit
+    var added = comps.add(c);
+    if (!added) return false;
+    compIndex.add(c);
+    socSim.registerComponent(c);
+    // Here we check for duplicated labels and clear the label
+    // if it already exists in the circuit
+    if (c.getAttributeSet().containsAttribute(StdAttr.LABEL)
+        && !(c.getFactory() instanceof Tunnel)) {
+      if (labels == null) {
+        labels = new HashSet<>();
         for (final var comp : comps) {
-          if (comp.equals(c) || comp.getFactory() instanceof Tunnel) continue;
-          if (comp.getAttributeSet().containsAttribute(StdAttr.LABEL)) {
-            final var label = comp.getAttributeSet().getValue(StdAttr.LABEL);
-            if (StringUtil.isNotEmpty(label)) labels.add(label.toUpperCase());
-          }
+          if (comp.equals(c)) continue;
+          addLabel(labels, comp);
         }
         /* we also have to check for the entity name */
         if (getName() != null && !getName().isEmpty()) labels.add(getName());
-        final var label = c.getAttributeSet().getValue(StdAttr.LABEL);
-        if (StringUtil.isNotEmpty(label) && labels.contains(label.toUpperCase())) {
-          c.getAttributeSet().setValue(StdAttr.LABEL, "");
-        }
       }
-      wires.add(c);
-      final var factory = c.getFactory();
-      if (factory instanceof Clock) {
-        clocks.add(c);
-      } else if (factory instanceof Rom) {
-        Rom.closeHexFrame(c);
-      } else if (factory instanceof SubcircuitFactory subFactory) {
-        final var subcirc = subFactory;
-        subcirc.getSubcircuit().circuitsUsingThis.put(c, this);
-      } else if (factory instanceof VhdlEntity vhdlEntity) {
-        final var vhdl = vhdlEntity;
-        vhdl.addCircuitUsing(c, this);
+      final var label = c.getAttributeSet().getValue(StdAttr.LABEL);
+      if (StringUtil.isNotEmpty(label) && labels.contains(label.toUpperCase())) {
+        c.getAttributeSet().setValue(StdAttr.LABEL, "");
       }
-      c.addComponentListener(myComponentListener);
+      addLabel(labels, c);
     }
-    removeWrongLabels(c.getFactory().getName());
-    fireEvent(CircuitEvent.ACTION_ADD, c);
+    wires.add(c);
+    final var factory = c.getFactory();
+    if (factory instanceof Clock) {
+      clocks.add(c);
+    } else if (factory instanceof Rom) {
+      Rom.closeHexFrame(c);
+    } else if (factory instanceof SubcircuitFactory subFactory) {
+      final var subcirc = subFactory;
+      subcirc.getSubcircuit().circuitsUsingThis.put(c, this);
+    } else if (factory instanceof VhdlEntity vhdlEntity) {
+      final var vhdl = vhdlEntity;
+      vhdl.addCircuitUsing(c, this);
+    }
+    c.addComponentListener(myComponentListener);
+    return true;
   }
 
   public void mutatorClear() {
@@ -866,7 +1013,9 @@ public class Circuit {
 
     final var oldComps = comps;
     comps = new LinkedHashSet<>();
-    wires = new CircuitWires();
+    compIndex.clear();
+    wires = new CircuitWires(locker);
+    wireIndex.clear();
     clocks.clear();
     myNetList.clear();
     isAnnotated = false;
@@ -885,9 +1034,11 @@ public class Circuit {
     myNetList.clear();
     if (c instanceof Wire) {
       wires.remove(c);
+      wireIndex.remove(c);
     } else {
       wires.remove(c);
       comps.remove(c);
+      compIndex.remove(c);
       socSim.removeComponent(c);
       final var factory = c.getFactory();
       factory.removeComponent(this, c, proj.getCircuitState(this));
@@ -18,6 +18,7 @@ import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.AbstractHdlGeneratorFactory;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
+import com.cburch.logisim.fpga.hdlgenerator.HdlGeneratorFactory;
 import com.cburch.logisim.fpga.hdlgenerator.TickComponentHdlGeneratorFactory;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
@@ -27,10 +28,12 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinTask;
 
 public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
 
@@ -199,6 +202,175 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
     return true;
   }
 
+  /** An entity to generate, with the netlist and the hierarchy level it is generated for. */
+  private static final class HdlEntity {
+    private final String componentName;
+    private final HdlGeneratorFactory worker;
+    private final Netlist netlist;
+    private final AttributeSet attrs;
+    private final String directory;
+    private final List<String> hierarchy;
+    private List<String> entity;
+    private List<String> architecture;
+    private List<Runnable> messages = List.of();
+
+    private HdlEntity(String componentName, HdlGeneratorFactory worker, Netlist netlist,
+        AttributeSet attrs, String directory, List<String> hierarchy) {
+      this.componentName = componentName;
+      this.worker = worker;
+      this.netlist = netlist;
+      this.attrs = attrs;
+      this.directory = directory;
+      this.hierarchy = hierarchy;
+    }
+
+    private void generate() {
+      Reporter.report.holdMessages();
+      try {
+        synchronized (worker) {
+          entity = worker.getEntity(netlist, attrs, componentName);
+          architecture = worker.getArchitecture(netlist, attrs, componentName);
+        }
+      } finally {
+        messages = Reporter.report.releaseMessages();
+      }
+    }
+
+    private boolean write() {
+      for (final var message : messages) {
+        message.run();
+      }
+      return Hdl.writeEntity(directory, entity, componentName)
+          && Hdl.writeArchitecture(directory, architecture, componentName);
+    }
+  }
+
+  /**
+   * Generates the same files as {@link #generateAllHDLDescriptions(Set, String, List)}, the
+   * descriptions of the entities being generated concurrently in the common fork-join pool. The
+   * entities are first listed in the order in which the hierarchy is walked, and the files are
+   * written and the messages of the generation reported in that order, so that the result does
+   * not depend on the scheduling.
+   *
+   * <p>The HDL generators are shared by all the components of a factory and keep the wires and
+   * ports of the entity they generate, so the entities of a same generator are generated one after
+   * the other, and a generator is locked while it is used. A circuit locks the generators of its
+   * components while it is locked itself, which cannot deadlock as the hierarchy has no cycles.
+   */
+  public boolean generateAllHDLDescriptionsInParallel(
+      Set<String> handledComponents, String workingDir) {
+    var workPath = workingDir;
+    if (!workPath.endsWith(File.separator)) {
+      workPath += File.separator;
+    }
+    final var entities = new ArrayList<HdlEntity>();
+    final var levels = new IdentityHashMap<Netlist, List<String>>();
+    if (!listHdlEntities(entities, levels, handledComponents, workPath, new ArrayList<>(), false)) {
+      return false;
+    }
+    // a netlist has a single current hierarchy level, the entities generated at another one than
+    // the first (a gated instance of a circuit) are generated once the others are done
+    final var groups = new IdentityHashMap<HdlGeneratorFactory, List<HdlEntity>>();
+    final var deferred = new ArrayList<HdlEntity>();
+    for (final var entity : entities) {
+      if (entity.hierarchy.equals(levels.get(entity.netlist))) {
+        groups.computeIfAbsent(entity.worker, worker -> new ArrayList<>()).add(entity);
+      } else {
+        deferred.add(entity);
+      }
+    }
+    for (final var level : levels.entrySet()) {
+      level.getKey().setCurrentHierarchyLevel(level.getValue());
+    }
+    final var forked = new ArrayList<ForkJoinTask<?>>();
+    for (final var group : groups.values()) {
+      forked.add(ForkJoinTask.adapt(() -> group.forEach(HdlEntity::generate)).fork());
+    }
+    for (final var task : forked) {
+      task.join();
+    }
+    for (final var entity : deferred) {
+      entity.netlist.setCurrentHierarchyLevel(entity.hierarchy);
+      entity.generate();
+    }
+    for (final var entity : entities) {
+      if (!entity.write()) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Lists the entities to generate for this circuit and the ones below it, in the order in which
+   * {@link #generateAllHDLDescriptions(Set, String, List, boolean)} generates them.
+   */
+  private boolean listHdlEntities(
+      List<HdlEntity> entities,
+      Map<Netlist, List<String>> levels,
+      Set<String> handledComponents,
+      String workPath,
+      List<String> hierarchy,
+      boolean gatedInstance) {
+    if (myCircuit == null) {
+      return false;
+    }
+    final var myNetList = myCircuit.getNetList();
+    if (myNetList == null) {
+      return false;
+    }
+    final var level = List.copyOf(hierarchy);
+    levels.putIfAbsent(myNetList, level);
+    for (final var thisComponent : myNetList.getNormalComponents()) {
+      final var attrs = thisComponent.getComponent().getAttributeSet();
+      final var componentName = thisComponent.getComponent().getFactory().getHDLName(attrs);
+      if (!handledComponents.contains(componentName)) {
+        final var worker = thisComponent.getComponent().getFactory().getHDLGenerator(attrs);
+        if (worker == null) {
+          // FIXME: hardcoded string
+          Reporter.report.addFatalError(
+              "INTERNAL ERROR: Cannot find the VHDL generator factory for component "
+                  + componentName);
+          return false;
+        }
+        if (!worker.isOnlyInlined()) {
+          entities.add(new HdlEntity(componentName, worker, myNetList, attrs,
+              workPath + worker.getRelativeDirectory(), level));
+        }
+        handledComponents.add(componentName);
+      }
+    }
+    for (final var thisCircuit : myNetList.getSubCircuits()) {
+      final var worker =
+          (CircuitHdlGeneratorFactory)
+              thisCircuit.getComponent()
+                  .getFactory()
+                  .getHDLGenerator(thisCircuit.getComponent().getAttributeSet());
+      if (worker == null) {
+        // FIXME: hardcoded string
+        Reporter.report.addFatalError(
+            "INTERNAL ERROR: Unable to get a subcircuit VHDL generator for '"
+                + thisCircuit.getComponent().getFactory().getName()
+                + "'");
+        return false;
+      }
+      hierarchy.add(
+          CorrectLabel.getCorrectLabel(
+              thisCircuit.getComponent().getAttributeSet().getValue(StdAttr.LABEL)));
+      if (!worker.listHdlEntities(entities, levels, handledComponents, workPath, hierarchy,
+          thisCircuit.isGatedInstance())) {
+        return false;
+      }
+      hierarchy.remove(hierarchy.size() - 1);
+    }
+    var componentName = CorrectLabel.getCorrectLabel(myCircuit.getName());
+    if (gatedInstance) componentName = componentName.concat("_gated");
+    if (!handledComponents.contains(componentName)) {
+      entities.add(new HdlEntity(componentName, this, myNetList, null,
+          workPath + getRelativeDirectory(), level));
+    }
+    handledComponents.add(componentName);
+    return true;
+  }
+
   /* here the private handles are defined */
   private String getBubbleIndex(netlistComponent comp, bubbleType type) {
     final var fmt = "{{<}}{{1}} {{2}} {{3}}{{>}}";
@@ -224,8 +396,11 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
         final var worker = gate.getComponent().getFactory().getHDLGenerator(gate.getComponent().getAttributeSet());
         if (worker != null) {
           if (!worker.isOnlyInlined()) {
-            components.empty().add(worker.getComponentInstantiation(theNetlist,
-                gate.getComponent().getAttributeSet(), compName));
+            // the generators are shared, see generateAllHDLDescriptionsInParallel
+            synchronized (worker) {
+              components.empty().add(worker.getComponentInstantiation(theNetlist,
+                  gate.getComponent().getAttributeSet(), compName));
+            }
           }
         }
       }
@@ -239,8 +414,10 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
         final var worker = gate.getComponent().getFactory().getHDLGenerator(gate.getComponent().getAttributeSet());
         SubcircuitFactory sub = (SubcircuitFactory) gate.getComponent().getFactory();
         if (worker != null) {
-          components.empty().add(worker.getComponentInstantiation(sub.getSubcircuit().getNetList(),
-              gate.getComponent().getAttributeSet(), compName));
+          synchronized (worker) {
+            components.empty().add(worker.getComponentInstantiation(sub.getSubcircuit().getNetList(),
+                gate.getComponent().getAttributeSet(), compName));
+          }
         }
       }
     }
@@ -352,10 +529,10 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
           final var compName = hasLabel ? CorrectLabel.getCorrectLabel(thisAttrs.getValue(StdAttr.LABEL)) : "";
           final var remarkLine = LineBuffer.format("{{1}}{{2}}{{3}}", comp.getComponent().getFactory().getDisplayName(),
               hasLabel ? ": " : "", compName);
-          contents
-              .empty()
-              .addRemarkLine(remarkLine)
-              .add(worker.getInlinedCode(theNetList, id++, comp, inlinedName));
+          contents.empty().addRemarkLine(remarkLine);
+          synchronized (worker) {
+            contents.add(worker.getInlinedCode(theNetList, id++, comp, inlinedName));
+          }
           compIds.put(InlinedId, id);
         }
       }
@@ -373,7 +550,9 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
             contents.empty().addRemarkBlock("Here all normal components are defined");
             isFirstLine = false;
           }
-          contents.add(worker.getComponentMap(theNetList, id++, comp, compName)).empty();
+          synchronized (worker) {
+            contents.add(worker.getComponentMap(theNetList, id++, comp, compName)).empty();
+          }
           compIds.put(compId, id);
         }
       }
@@ -387,7 +566,10 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
         if (comp.isGatedInstance())  compName = compName.concat("_gated");
         final var CompId = "SubCircuits";
         var id = (compIds.containsKey(CompId)) ? compIds.get(CompId) : (long) 1;
-        final var compMap = worker.getComponentMap(theNetList, id++, comp, compName);
+        final LineBuffer compMap;
+        synchronized (worker) {
+          compMap = worker.getComponentMap(theNetList, id++, comp, compName);
+        }
         if (!compMap.isEmpty()) {
           if (isFirstLine) {
             contents.empty().addRemarkBlock("Here all sub-circuits are defined");
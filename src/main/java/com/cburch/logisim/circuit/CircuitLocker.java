@@ -117,6 +117,14 @@ public class CircuitLocker {
     }
   }
 
+  /**
+   * Returns the read lock of the circuit, which keeps transactions from changing it. The thread
+   * running a transaction on the circuit can take it too.
+   */
+  Lock getReadLock() {
+    return circuitLock.readLock();
+  }
+
   CircuitMutatorImpl getMutator() {
     return mutatingMutator;
   }
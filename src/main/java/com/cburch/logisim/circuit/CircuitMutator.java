@@ -11,10 +11,13 @@ package com.cburch.logisim.circuit;
 
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Attribute;
+import java.util.Collection;
 
 public interface CircuitMutator {
   void add(Circuit circuit, Component comp);
 
+  void addAll(Circuit circuit, Collection<? extends Component> comps);
+
   void clear(Circuit circuit);
 
   void remove(Circuit circuit, Component comp);
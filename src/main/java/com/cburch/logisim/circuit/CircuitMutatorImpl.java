@@ -40,6 +40,20 @@ class CircuitMutatorImpl implements CircuitMutator {
     circuit.mutatorAdd(comp);
   }
 
+  @Override
+  public void addAll(Circuit circuit, Collection<? extends Component> comps) {
+    if (comps.isEmpty()) return;
+    modified.add(circuit);
+    final var repl = new ReplacementMap();
+    for (final var comp : comps) {
+      log.add(CircuitChange.add(circuit, comp));
+      repl.add(comp);
+    }
+    getMap(circuit).append(repl);
+
+    circuit.mutatorAddAll(comps);
+  }
+
   @Override
   public void clear(Circuit circuit) {
     final var comps = new HashSet<>(circuit.getNonWires());
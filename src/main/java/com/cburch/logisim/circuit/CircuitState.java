@@ -29,10 +29,11 @@ import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * CircuitState holds the simulation state of a Circuit (or Subcircuit), i.e.
@@ -104,10 +105,8 @@ public class CircuitState implements InstanceData {
           }
         }
         componentData.clear();
-        synchronized (valuesLock) {
-          slowpathValues.clear(); // slow path
-          clearFastpathGrid(); // fast path
-        }
+        values.clear();
+        dropPortBindings();
         synchronized (dirtyLock) {
           dirtyComponents.clear();
           dirtyPoints.clear();
@@ -172,22 +171,23 @@ public class CircuitState implements InstanceData {
   private CircuitWires.State wireData = null;
   private final HashMap<Component, Object> componentData = new HashMap<>();
 
-  private static final int FASTPATH_GRID_WIDTH = 200;
-  private static final int FASTPATH_GRID_HEIGHT = 200;
-
-  // slowpathValues and fastpathValues store values resulting from propagation
-  // *within* this circuit, i.e. the outputs of componnents in this circuit
-  // together with the values carried on wires and buses in this circuit. When
-  // components embedded in this circuit are called upon to re-calculate /
-  // propagate, the components will call getValue() to pick out values from
-  // these data structures. These are the values you would see if you stick a
-  // probe at some location on the circuit sheet. They are protected by valuesLock.
-  /** values propagated in this circuit. Protected by valuesLock */
-  private Map<Location, Value> slowpathValues = new HashMap<>();
-  /** values propagated in this circuit. Protected by valuesLock */
-  private Value[][] fastpathValues = new Value[FASTPATH_GRID_HEIGHT][FASTPATH_GRID_WIDTH];
-  /** Protects slowPathValues and fastPathValues */
-  private final Object valuesLock = new Object();
+  // values stores values resulting from propagation *within* this circuit,
+  // i.e. the outputs of componnents in this circuit together with the values
+  // carried on wires and buses in this circuit. When components embedded in
+  // this circuit are called upon to re-calculate / propagate, the components
+  // will call getValue() to pick out values from this map. These are the
+  // values you would see if you stick a probe at some location on the circuit
+  // sheet. It is read without locking, see ValueMap.
+  /** values propagated in this circuit. */
+  private final ValueMap values = new ValueMap();
+  /** The ports of the components bound to their slots in values, see getPortBinding. */
+  private final ConcurrentHashMap<Component, PortBinding> portBindings = new ConcurrentHashMap<>();
+  /**
+   * Counts the times the bindings were dropped, so that a binding still held elsewhere, as by an
+   * InstanceStateImpl, is known to be stale. Two drops racing may count once, which still changes
+   * the version.
+   */
+  private volatile int portBindingsVersion;
 
   // dirtyComponents, dirtyPoints, and substates are components being marked as dirty.
   // They will later be shifted to the working sets to be processed.
@@ -195,7 +195,7 @@ public class CircuitState implements InstanceData {
   /** Protected by dirtyLock */
   private ArrayList<Component> dirtyComponents = new ArrayList<>();
   /** Protected by dirtyLock */
-  private ArrayList<Propagator.SimulatorEvent> dirtyPoints = new ArrayList<>();
+  private DirtyPoints dirtyPoints = new DirtyPoints();
   /** Protected by dirtyLock */
   private HashSet<CircuitState> substates = new HashSet<>();
   /** Protects dirtyComponents, dirtyPoints, and substates */
@@ -206,7 +206,7 @@ public class CircuitState implements InstanceData {
   /** Components being processed. */
   ArrayList<Component> dirtyComponentsWorking = new ArrayList<>();
   /** Points being processed */
-  private ArrayList<Propagator.SimulatorEvent> dirtyPointsWorking = new ArrayList<>();
+  private DirtyPoints dirtyPointsWorking = new DirtyPoints();
   /** Substates being processed */
   private CircuitState[] substatesWorking = new CircuitState[0];
   private boolean substatesDirty = true;
@@ -216,9 +216,17 @@ public class CircuitState implements InstanceData {
   private final int id = lastId++;
 
   public CircuitState(Project proj, Circuit circuit, Propagator prop) {
+    this(proj, circuit, prop, null);
+  }
+
+  private CircuitState(Project proj, Circuit circuit, Propagator prop, String simQueueType) {
     this.proj = proj;
     this.circuit = circuit;
-    this.base = prop != null ? prop : new Propagator(this);
+    if (prop != null) {
+      this.base = prop;
+    } else {
+      this.base = simQueueType != null ? new Propagator(this, simQueueType) : new Propagator(this);
+    }
     circuit.addCircuitListener(myCircuitListener);
     markAllComponentsDirty();
   }
@@ -232,6 +240,16 @@ public class CircuitState implements InstanceData {
     return new CircuitState(proj, circuit, null /* make new Propagator */);
   }
 
+  /**
+   * Creates a root state whose Propagator uses the given event queue, regardless of the
+   * SIMULATION_QUEUE preference. Mostly useful to compare the queue implementations.
+   *
+   * @param simQueueType one of the AppPreferences.SIM_QUEUE_* constants.
+   */
+  public static CircuitState createRootState(Project proj, Circuit circuit, String simQueueType) {
+    return new CircuitState(proj, circuit, null, simQueueType);
+  }
+
   public CircuitState cloneAsNewRootState() {
     final var ret = new CircuitState(proj, circuit, null);
     ret.copyFrom(this);
@@ -273,17 +291,8 @@ public class CircuitState implements InstanceData {
         this.componentData.put(key, newValue);
       }
     }
-    // note: we don't bother with our this.valuesLock here: it isn't needed
-    // (b/c no other threads have a reference to this yet), and to avoid the
-    // possibility of deadlock (though that shouldn't happen either since no
-    // other threads have references to this yet).
-    this.slowpathValues.clear(); // slow path
-    synchronized (src.valuesLock) {
-      this.slowpathValues.putAll(src.slowpathValues); // slow path
-      for (var y = 0; y < FASTPATH_GRID_HEIGHT; y++) { // fast path
-        System.arraycopy(src.fastpathValues[y], 0, this.fastpathValues[y], 0, FASTPATH_GRID_WIDTH);
-      }
-    }
+    this.values.copyFrom(src.values);
+    dropPortBindings();
     synchronized (src.dirtyLock) {
       // note: we don't bother with our this.dirtyLock here: it isn't needed
       // (b/c no other threads have a reference to this yet), and to avoid the
@@ -355,29 +364,34 @@ public class CircuitState implements InstanceData {
     return substates;
   }
 
+  /**
+   * Returns the ports of a component bound to the slots of their values in this state, made once
+   * per connectivity of the circuit and ends of the component. Read by InstanceState.getPortValue.
+   */
+  public PortBinding getPortBinding(Component comp) {
+    final var ends = comp.getEnds();
+    var binding = portBindings.get(comp);
+    if (binding == null || !binding.isValidFor(ends)) {
+      binding = new PortBinding(this, values, ends);
+      portBindings.put(comp, binding);
+    }
+    return binding;
+  }
+
+  int getPortBindingsVersion() {
+    return portBindingsVersion;
+  }
+
+  /** Drops the bindings, those in portBindings and those held by others alike. */
+  private void dropPortBindings() {
+    portBindingsVersion++;
+    portBindings.clear();
+  }
+
   public Value getValue(Location p) {
-    Value value = null;
-    if (p.x >= 0 && p.y >= 0
-        && p.x % 10 == 0 && p.y % 10 == 0
-        && p.x < FASTPATH_GRID_WIDTH * 10
-        && p.y < FASTPATH_GRID_HEIGHT * 10) {
-      // fast path
-      final var x = p.x / 10;
-      final var y = p.y / 10;
-      synchronized (valuesLock) {
-        value = fastpathValues[y][x];
-        if (value == null) {
-          value = CircuitWires.getBusValue(this, p);
-        }
-      }
-    } else {
-      // slow path
-      synchronized (valuesLock) {
-        value = slowpathValues.get(p);
-        if (value == null) {
-          value = CircuitWires.getBusValue(this, p);
-        }
-      }
+    var value = values.get(p);
+    if (value == null) {
+      value = CircuitWires.getBusValue(this, p);
     }
     return value != null ? value : Value.createUnknown(circuit.getWidth(p));
   }
@@ -408,9 +422,9 @@ public class CircuitState implements InstanceData {
     }
   }
 
-  void markPointAsDirty(Propagator.SimulatorEvent ev) {
+  void markPointAsDirty(Location loc, Component cause, Value val) {
     synchronized (dirtyLock) {
-      dirtyPoints.add(ev);
+      dirtyPoints.add(loc, cause, val);
     }
   }
 
@@ -427,23 +441,58 @@ public class CircuitState implements InstanceData {
         substatesWorking = substates.toArray(substatesWorking);
       }
     }
+    // components of a compiled circuit are all evaluated at once, after the others
+    final var compiled = wireData == null
+        ? null
+        : wireData.getCompiledEvaluation(base.isDenseTranslated(), base.isLevelized());
+    var evaluateCompiled = false;
     try { // comp.propagate() can fail if external (or std) library is buggy
       for (final var comp : dirtyComponentsWorking) {
+        if (compiled != null && compiled.getCircuit().isMember(comp)) {
+          evaluateCompiled = true;
+          continue;
+        }
         comp.propagate(this);
         // pin values also get propagated to parent state
         if (comp.getFactory() instanceof Pin && parentState != null) {
-          parentComp.propagate(parentState);
+          final var task = base.isParallelSubstates() ? ParallelSubstates.current() : null;
+          if (task != null) {
+            // the parent state is shared with the sibling substates
+            task.addPropagation(parentComp, parentState, this);
+          } else {
+            parentComp.propagate(parentState);
+          }
+        }
+      }
+      if (evaluateCompiled && !compiled.evaluate(this)) {
+        for (final var comp : dirtyComponentsWorking) {
+          if (compiled.getCircuit().isMember(comp)) comp.propagate(this);
         }
       }
     } finally {
       dirtyComponentsWorking.clear();
     }
+    if (base.isParallelSubstates() && ParallelSubstates.current() == null) {
+      ParallelSubstates.processDirtyComponents(substatesWorking);
+      return;
+    }
     for (final var substate : substatesWorking) {
       if (substate == null) break;
       substate.processDirtyComponents();
     }
   }
 
+  /** @return whether this state or one of its substates has components to propagate. */
+  boolean hasDirtyComponents() {
+    synchronized (dirtyLock) {
+      if (!dirtyComponents.isEmpty()) return true;
+      for (final var substate : substates) {
+        if (substate.hasDirtyComponents()) return true;
+      }
+    }
+    return false;
+  }
+
   void processDirtyPoints() {
     if (!dirtyPointsWorking.isEmpty()) {
       throw new IllegalStateException("INTERNAL ERROR: dirtyPointsWorking not empty");
@@ -491,10 +540,7 @@ public class CircuitState implements InstanceData {
         componentData.put(comp, null);
       }
     }
-    synchronized (valuesLock) {
-      slowpathValues.clear(); // slow path
-      clearFastpathGrid(); // fast path
-    }
+    values.clear();
     synchronized (dirtyLock) {
       dirtyComponents.clear();
       dirtyPoints.clear();
@@ -571,90 +617,40 @@ public class CircuitState implements InstanceData {
     base.setValue(this, pt, val, cause, delay);
   }
 
-  /** precondition: valuesLock held */
-  private void clearFastpathGrid() {
-    for (var y = 0; y < FASTPATH_GRID_HEIGHT; y++) {
-      for (var x = 0; x < FASTPATH_GRID_WIDTH; x++) {
-        fastpathValues[y][x] = null;
-      }
-    }
-  }
-
   /** for CircuitWires - to set value at point */
   void setValueByWire(Value v, Location[] points, CircuitWires.BusConnection[] connections) {
     for (final var p : points) {
-      if (p.x >= 0 && p.y >= 0
-          && p.x % 10 == 0 && p.y % 10 == 0
-          && p.x < FASTPATH_GRID_WIDTH * 10
-          && p.y < FASTPATH_GRID_HEIGHT * 10) {
-        synchronized (valuesLock) {
-          fastpath(p, v);
-        }
-      } else {
-        synchronized (valuesLock) {
-          slowpath(p, v);
-        }
-      }
+      values.set(p, v);
       base.locationTouched(this, p);
     }
-    for (final var bc : connections) {
-      if (bc.isSink || (bc.isBidirectional && !Value.equal(v, bc.drivenValue))) {
-        markComponentAsDirty(bc.component);
+    if (connections.length == 0) return;
+    // a single lock for all the components reading the bus
+    synchronized (dirtyLock) {
+      for (final var bc : connections) {
+        if (bc.isSink || (bc.isBidirectional && !Value.equal(v, bc.drivenValue))) {
+          dirtyComponents.add(bc.component);
+        }
       }
     }
   }
 
   /** for CircuitWires - to set value at point */
   void clearValuesByWire() {
-    synchronized (valuesLock) {
-      slowpathValues.clear(); // slow path
-      clearFastpathGrid(); // fast path
-    }
-  }
-
-  /** precondition: valuesLock held */
-  private boolean fastpath(Location p, Value v) {
-    final var x = p.x / 10;
-    final var y = p.y / 10;
-    if (v == Value.NIL) {
-      if (fastpathValues[y][x] != null) {
-        fastpathValues[y][x] = null;
-        return true;
-      } else {
-        return false;
-      }
-    } else {
-      if (!v.equals(fastpathValues[y][x])) {
-        fastpathValues[y][x] = v;
-        return true;
-      } else {
-        return false;
-      }
-    }
-  }
-
-  /** precondition: valuesLock held */
-  private boolean slowpath(Location p, Value v) {
-    if (v == Value.NIL) {
-      final var old = slowpathValues.remove(p);
-      return (old != null && old != Value.NIL);
-    } else {
-      final var old = slowpathValues.put(p, v);
-      return !v.equals(old);
-    }
+    values.clear();
   }
 
   void setWireData(CircuitWires.State data) {
     wireData = data;
+    // the components may have moved, or be gone
+    dropPortBindings();
   }
 
   private void markDirtyComponents(Location p, Component[] affected) {
-    for (final var comp : affected) {
-      markComponentAsDirty(comp);
-    }
-    if (affected.length > 0) {
-      base.locationTouched(this, p);
+    if (affected.length == 0) return;
+    synchronized (dirtyLock) {
+      Collections.addAll(dirtyComponents, affected);
     }
+    base.locationTouched(this, p);
   }
 
   boolean toggleClocks(int ticks) {
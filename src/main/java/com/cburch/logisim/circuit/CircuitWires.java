@@ -20,6 +20,8 @@ import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.std.wiring.PullResistor;
 import com.cburch.logisim.std.wiring.Tunnel;
@@ -33,8 +35,8 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -97,6 +99,30 @@ public class CircuitWires {
     /** Info about width incompatibilities, used by GUI to display error. */
     HashSet<WidthIncompatibilityData> incompatibilityData = null;
 
+    /**
+     * Whether the compiled forms below were built: only when their preference was set when the
+     * connectivity was computed.
+     */
+    boolean levelizedEnabled;
+    boolean denseEnabled;
+
+    /**
+     * Compiled form of the combinational part of the circuit, or null if it has none or
+     * levelizedEnabled is false.
+     */
+    LevelizedCircuit levelized = null;
+
+    /**
+     * Translation of the circuit for the dense simulator, or null if it can not be translated or
+     * denseEnabled is false.
+     */
+    DenseTranslatedCircuit dense = null;
+
+    /** Whether the circuit is purely combinational, null until known (see isCombinational). */
+    volatile Boolean combinational = null;
+    /** Whether a net of a combinational circuit is driven by nothing, set before combinational. */
+    boolean floatingNets;
+
     void addWidthIncompatibilityData(WidthIncompatibilityData e) {
       if (incompatibilityData == null) {
         incompatibilityData = new HashSet<>();
@@ -143,11 +169,23 @@ public class CircuitWires {
     }
   }
 
+  /**
+   * The ends and bit mapping of a splitter, copied at once while holding its monitor, since the
+   * splitter may be reconfigured while the connectivity is computed.
+   */
   static class SplitterData {
+    final List<EndData> ends;
+    final byte[] bitEnd; // how each bit maps to an end
+    final byte[] bitThread; // how each bit maps to a thread within its end
     final WireBundle[] endBundle; // PointData associated with each end
 
-    SplitterData(int fanOut) {
-      endBundle = new WireBundle[fanOut + 1];
+    SplitterData(Splitter spl) {
+      synchronized (spl) {
+        ends = new ArrayList<>(spl.getEnds());
+        bitEnd = ((SplitterAttributes) spl.getAttributeSet()).bitEnd.clone();
+        bitThread = spl.bitThread;
+      }
+      endBundle = new WireBundle[ends.size()];
     }
   }
 
@@ -386,6 +424,8 @@ public class CircuitWires {
     HashMap<Location, ValuedBus> busAt = new HashMap<>();
     ValuedBus[] buses;
     int numDirty;
+    /** Simulation data of the compiled circuit, created when first needed */
+    private CompiledCircuit.Evaluation compiled;
     static final ValuedBus[] EMPTY_DEPENDENCIES = new ValuedBus[0];
 
 
@@ -458,6 +498,26 @@ public class CircuitWires {
       return null;
     }
 
+    /**
+     * Returns the compiled evaluation of this state, or null if the circuit has to be simulated
+     * event by event. The dense translation is preferred over the levelized circuit when both are
+     * enabled. Disabling them drops their values, so that they start afresh if enabled again.
+     */
+    CompiledCircuit.Evaluation getCompiledEvaluation(boolean dense, boolean levelized) {
+      CompiledCircuit circuit = null;
+      if (dense && connectivity.dense != null) {
+        circuit = connectivity.dense;
+      } else if (levelized && connectivity.levelized != null) {
+        circuit = connectivity.levelized;
+      }
+      if (circuit == null) {
+        compiled = null;
+      } else if (compiled == null || compiled.getCircuit() != circuit) {
+        compiled = circuit.newEvaluation();
+      }
+      return compiled;
+    }
+
     void markClean(ValuedBus vb) {
       if (!vb.dirty) {
         throw new IllegalStateException("can't clean element that is not dirty");
@@ -514,8 +574,40 @@ public class CircuitWires {
 
   private volatile Connectivity masterConnectivity = null;
 
+  /** Guards connectivityVersion, which counts the calls to voidConnectivity(). */
+  private final Object connectivityLock = new Object();
+  private int connectivityVersion = 0;
+
+  /** Locker of the circuit these wires belong to. */
+  private final CircuitLocker locker;
+
   private TunnelListener tunnelListener = new TunnelListener();
 
+  private TranslationListener translationListener = new TranslationListener();
+
+  /**
+   * The dense translation of a circuit depends on the attributes of its members (negated inputs,
+   * trigger, ...), not only on their ends, so changing these must void the connectivity too. When
+   * the dense simulator is off the connectivity has no translation, and enabling it builds one.
+   */
+  private class TranslationListener implements AttributeListener {
+    @Override
+    public void attributeListChanged(AttributeEvent e) {
+      if (AppPreferences.SIMULATION_DENSE.getBoolean()) {
+        voidConnectivity();
+      }
+    }
+
+    @Override
+    public void attributeValueChanged(AttributeEvent e) {
+      final var attr = e.getAttribute();
+      if (attr != StdAttr.LABEL && attr != StdAttr.LABEL_FONT
+          && AppPreferences.SIMULATION_DENSE.getBoolean()) {
+        voidConnectivity();
+      }
+    }
+  }
+
   private class TunnelListener implements AttributeListener {
     @Override
     public void attributeListChanged(AttributeEvent e) {
@@ -531,7 +623,9 @@ public class CircuitWires {
     }
   }
 
-  CircuitWires() {}
+  CircuitWires(CircuitLocker locker) {
+    this.locker = locker;
+  }
 
   // NOTE: this could be made much more efficient in most cases to
   // avoid voiding the connectivity map.
@@ -551,6 +645,9 @@ public class CircuitWires {
         comp.getAttributeSet().addAttributeListener(tunnelListener);
       } else {
         components.add(comp);
+        if (comp.getFeature(DenseLogicComponent.class) != null) {
+          comp.getAttributeSet().addAttributeListener(translationListener);
+        }
       }
     }
     if (added) {
@@ -575,8 +672,8 @@ public class CircuitWires {
     return true;
   }
 
-  /** To be called by getConnectivity() only */
-  private void computeConnectivity(Connectivity ret) {
+  /** To be called by getConnectivity() only, with the read lock of the circuit held */
+  private void computeConnectivity(Connectivity ret, SplitterData[] splitterData) {
     // create bundles corresponding to wires and tunnels
     connectComponents(ret);
     connectWires(ret);
@@ -598,9 +695,8 @@ public class CircuitWires {
     }
 
     // make a WireBundle object for each end of a splitter
-    for (final var spl : splitters) {
-      final var ends = new ArrayList<>(spl.getEnds());
-      for (final var end : ends) {
+    for (final var splData : splitterData) {
+      for (final var end : splData.ends) {
         final var p = end.getLocation();
         final var pb = ret.createBundleAt(p);
         pb.setWidth(end.getWidth(), p);
@@ -618,16 +714,15 @@ public class CircuitWires {
     }
 
     // determine the bundles at the end of each splitter
-    for (final var spl : splitters) {
-      final var ends = new ArrayList<>(spl.getEnds());
+    for (final var splData : splitterData) {
       int index = -1;
-      for (final var end : ends) {
+      for (final var end : splData.ends) {
         index++;
         final var p = end.getLocation();
         final var pb = ret.getBundleAt(p);
         if (pb != null) {
           pb.setWidth(end.getWidth(), p);
-          spl.wireData.endBundle[index] = pb;
+          splData.endBundle[index] = pb;
         }
       }
     }
@@ -647,30 +742,26 @@ public class CircuitWires {
     }
 
     // unite threads going through splitters
-    for (final var spl : splitters) {
-      synchronized (spl) {
-        final var splAttrs = (SplitterAttributes) spl.getAttributeSet();
-        final var bitEnd = splAttrs.bitEnd;
-        final var splData = spl.wireData;
-        final var fromBundle = splData.endBundle[0];
-        if (fromBundle == null || !fromBundle.isValid()) continue;
-
-        for (var i = 0; i < bitEnd.length; i++) {
-          var j = bitEnd[i];
-          if (j > 0) {
-            var thr = spl.bitThread[i];
-            final var toBundle = splData.endBundle[j];
-            final var toThreads = toBundle.threads;
-            if (toThreads != null && toBundle.isValid()) {
-              final var fromThreads = fromBundle.threads;
-              if (i >= fromThreads.length) {
-                throw new ArrayIndexOutOfBoundsException("from " + i + " of " + fromThreads.length);
-              }
-              if (thr >= toThreads.length) {
-                throw new ArrayIndexOutOfBoundsException("to " + thr + " of " + toThreads.length);
-              }
-              fromThreads[i].unite(toThreads[thr]);
+    for (final var splData : splitterData) {
+      final var bitEnd = splData.bitEnd;
+      final var fromBundle = splData.endBundle[0];
+      if (fromBundle == null || !fromBundle.isValid()) continue;
+
+      for (var i = 0; i < bitEnd.length; i++) {
+        var j = bitEnd[i];
+        if (j > 0) {
+          var thr = splData.bitThread[i];
+          final var toBundle = splData.endBundle[j];
+          final var toThreads = toBundle.threads;
+          if (toThreads != null && toBundle.isValid()) {
+            final var fromThreads = fromBundle.threads;
+            if (i >= fromThreads.length) {
+              throw new ArrayIndexOutOfBoundsException("from " + i + " of " + fromThreads.length);
+            }
+            if (thr >= toThreads.length) {
+              throw new ArrayIndexOutOfBoundsException("to " + thr + " of " + toThreads.length);
             }
+            fromThreads[i].unite(toThreads[thr]);
           }
         }
       }
@@ -737,6 +828,22 @@ public class CircuitWires {
         ret.addWidthIncompatibilityData(e);
       }
     }
+
+    // Compile the circuit, in case it is purely combinational, and translate it, in case it is
+    // made of basic gates and flip-flops, but only for the experimental simulators enabled.
+    ret.levelizedEnabled = AppPreferences.SIMULATION_LEVELIZED.getBoolean();
+    ret.denseEnabled = AppPreferences.SIMULATION_DENSE.getBoolean();
+    if (ret.levelizedEnabled) {
+      ret.levelized =
+          LevelizedCircuit.create(ret.getBundles(), ret.pointBundles, components, points);
+      final var combinational = ret.levelized != null && ret.levelized.isComplete();
+      ret.floatingNets = combinational && ret.levelized.hasFloatingNets();
+      ret.combinational = combinational;
+    }
+    if (ret.denseEnabled) {
+      ret.dense =
+          DenseTranslatedCircuit.create(ret.getBundles(), ret.pointBundles, components, points);
+    }
   }
 
   private void connectPullResistors(Connectivity ret) {
@@ -984,53 +1091,61 @@ public class CircuitWires {
     }
   }
 
-  // There are only two threads that need to use the connectivity map, I think:
-  // the AWT event thread, and the simulation worker thread.
-  // AWT does modifications to the components and wires, then voids the
-  // masterConnectivity, and eventually recomputes a new map (if needed) during
-  // painting. AWT sometimes locks a splitter, then changes components and
-  // wires.
-  // Computing a new connectivity map requires both locking splitters and touching
-  // the components and wires, so to avoid deadlock, only the AWT should create
-  // the new connectivity map. The connectivity map is (essentially, if not entirely)
-  // read-only once it is fully constructed.
-  // The simulation thread never creates a new connectivity map. On the other hand,
-  // the simulation thread creates the State objects for each simulated instance
-  // of the circuit, and each State duplicates data from the connectivity map.
-
-  private class ConnectivityGetter implements Runnable {
-    Connectivity result;
-    public void run() {
-      result = getConnectivity();
-    }
-  }
+  // There are two kinds of threads that need to use the connectivity map: the AWT event thread,
+  // and the threads simulating the circuit (the simulation worker thread, or the main thread of
+  // headless runs and batch tools).
+  // AWT does modifications to the components and wires within transactions, holding the write
+  // lock of the circuit, then voids the masterConnectivity. Any thread may then compute a new map
+  // when it needs one, holding the read lock of the circuit so that no transaction changes it
+  // meanwhile. AWT sometimes locks a splitter, then changes components and wires, so to avoid
+  // deadlock the splitters are copied before taking the read lock. Changes made outside of
+  // transactions (renaming a tunnel...) also void the map, in which case it is computed again.
+  // The connectivity map is (essentially, if not entirely) read-only once it is fully constructed.
+  // The simulation thread creates the State objects for each simulated instance of the circuit,
+  // and each State duplicates data from the connectivity map.
 
   private Connectivity getConnectivity() {
-    final var map = masterConnectivity; // volatile read by AWT or simulation thread
-    if (map != null) return map;
-    if (SwingUtilities.isEventDispatchThread()) {
-      // AWT event thread.
+    while (true) {
+      final var map = masterConnectivity; // volatile read by any thread
+      // the compiled forms are built for the preferences at the time, see computeConnectivity
+      if (map != null
+          && map.levelizedEnabled == AppPreferences.SIMULATION_LEVELIZED.getBoolean()
+          && map.denseEnabled == AppPreferences.SIMULATION_DENSE.getBoolean()) {
+        return map;
+      }
+      final int version;
+      synchronized (connectivityLock) {
+        version = connectivityVersion;
+      }
+      final var readLock = locker.getReadLock();
+      Splitter[] spls;
+      readLock.lock();
+      try {
+        spls = splitters.toArray(new Splitter[0]);
+      } finally {
+        readLock.unlock();
+      }
+      final var splitterData = new SplitterData[spls.length];
+      for (var i = 0; i < spls.length; i++) {
+        splitterData[i] = new SplitterData(spls[i]);
+      }
       final var ret = new Connectivity();
+      readLock.lock();
       try {
-        computeConnectivity(ret);
-        masterConnectivity = ret; // volatile write by AWT thread
+        computeConnectivity(ret, splitterData);
       } catch (Exception t) {
         ret.invalidate();
         logger.error(t.getLocalizedMessage());
+      } finally {
+        readLock.unlock();
       }
-      return ret;
-    } else {
-      // Simulation thread.
-      try {
-        final var awtThread = new ConnectivityGetter();
-        SwingUtilities.invokeAndWait(awtThread);
-        return awtThread.result;
-      } catch (Exception t) {
-        logger.error(t.getLocalizedMessage());
-        final var ret = new Connectivity();
-        ret.invalidate();
-        return ret;
+      synchronized (connectivityLock) {
+        if (version == connectivityVersion) {
+          masterConnectivity = ret; // volatile write by any thread
+          return ret;
+        }
       }
+      // the circuit changed meanwhile, start again
     }
   }
 
@@ -1050,6 +1165,55 @@ public class CircuitWires {
     return BitWidth.UNKNOWN;
   }
 
+  /**
+   * Returns whether the outputs of the circuit only depend on the current values of its inputs,
+   * that is whether it can be levelized as a whole (see LevelizedCircuit.isComplete).
+   */
+  boolean isCombinational() {
+    return getCombinationalConnectivity().combinational;
+  }
+
+  /**
+   * Returns whether some bits of a net of the circuit are driven by nothing, and thus unknown.
+   * Only known for combinational circuits, false otherwise.
+   */
+  boolean hasFloatingNets() {
+    return getCombinationalConnectivity().floatingNets;
+  }
+
+  /** Returns the connectivity of the circuit, once it is known whether it is combinational. */
+  private Connectivity getCombinationalConnectivity() {
+    while (true) {
+      final var map = getConnectivity();
+      if (map.combinational != null) return map;
+      // the circuit is not levelized for the simulation, so check it the same way without keeping
+      // the result, holding the read lock as computeConnectivity does
+      final int version;
+      synchronized (connectivityLock) {
+        version = connectivityVersion;
+      }
+      final var readLock = locker.getReadLock();
+      final LevelizedCircuit levelized;
+      readLock.lock();
+      try {
+        levelized = map.isValid()
+            ? LevelizedCircuit.create(map.getBundles(), map.pointBundles, components, points)
+            : null;
+      } finally {
+        readLock.unlock();
+      }
+      synchronized (connectivityLock) {
+        if (version == connectivityVersion && masterConnectivity == map) {
+          final var combinational = levelized != null && levelized.isComplete();
+          map.floatingNets = combinational && levelized.hasFloatingNets();
+          map.combinational = combinational;
+          return map;
+        }
+      }
+      // the circuit changed meanwhile, start again
+    }
+  }
+
   Set<WidthIncompatibilityData> getWidthIncompatibilityData() {
     return getConnectivity().getWidthIncompatibilityData();
   }
@@ -1081,7 +1245,7 @@ public class CircuitWires {
     return new WireSet(wires);
   }
 
-  void propagate(CircuitState circState, ArrayList<Propagator.SimulatorEvent> dirtyPoints) {
+  void propagate(CircuitState circState, DirtyPoints dirtyPoints) {
     final var map = getConnectivity();
     final var dirtyThreads = new ArrayList<WireThread>();
 
@@ -1103,10 +1267,9 @@ public class CircuitWires {
     // make note of updates from simulator
     var npoints = dirtyPoints.size();
     for (var k = 0; k < npoints; k++) { // for each point of interest
-      final var ev = dirtyPoints.get(k);
-      final var p = ev.loc;
-      final var cause = ev.cause;
-      final var val = ev.val;
+      final var p = dirtyPoints.getLocation(k);
+      final var cause = dirtyPoints.getCause(k);
+      final var val = dirtyPoints.getValue(k);
 
       final var vb = s.busAt.get(p);
       if (vb == null) {
@@ -1202,6 +1365,7 @@ public class CircuitWires {
         comp.getAttributeSet().removeAttributeListener(tunnelListener);
       } else {
         components.remove(comp);
+        comp.getAttributeSet().removeAttributeListener(translationListener);
       }
     }
     points.remove(comp);
@@ -1235,6 +1399,9 @@ public class CircuitWires {
     // This should really only be called by AWT thread, but main() also
     // calls it during startup. It should not be called by the simulation
     // thread.
-    masterConnectivity = null; // volatile write by AWT thread (and sometimes main/startup)
+    synchronized (connectivityLock) {
+      connectivityVersion++;
+      masterConnectivity = null; // volatile write by AWT thread (and sometimes main/startup)
+    }
   }
 }
@@ -0,0 +1,47 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.instance.InstanceState;
+
+/**
+ * Component feature (see Component.getFeature) of components whose outputs only depend on their
+ * attributes and on the current values of their inputs, like gates and plexers. A circuit built
+ * from such components, pins and wiring only can be simulated as a levelized program (see
+ * LevelizedCircuit) instead of one event at a time.
+ */
+@FunctionalInterface
+public interface CombinationalLogic {
+  /**
+   * Computes the outputs of the component from the input values held in ports. Components that
+   * have no bit mask implementation can simply call their propagate() method with
+   * ports.getInstanceState().
+   */
+  void evaluate(Ports ports);
+
+  /**
+   * The port values of a component during a levelized evaluation. They are given as the same bit
+   * masks a Value is made of, see Value.create(int, long, long, long).
+   */
+  interface Ports {
+    long getError(int port);
+
+    /** @return a view of the same ports usable with InstanceFactory.propagate(). */
+    InstanceState getInstanceState();
+
+    long getUnknown(int port);
+
+    long getValue(int port);
+
+    boolean isConnected(int port);
+
+    void set(int port, long error, long unknown, long value);
+  }
+}
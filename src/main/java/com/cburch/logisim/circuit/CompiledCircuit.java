@@ -0,0 +1,38 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+
+/**
+ * A compiled form of (part of) a circuit, whose member components are evaluated all at once
+ * instead of one event at a time. It is built by CircuitWires along with the Connectivity, so it is
+ * redone whenever the circuit changes. See LevelizedCircuit and DenseTranslatedCircuit.
+ */
+interface CompiledCircuit {
+  /** @return whether the component is evaluated by this compiled circuit. */
+  boolean isMember(Component comp);
+
+  /** Creates the simulation data of this compiled circuit for one CircuitState. */
+  Evaluation newEvaluation();
+
+  /** The simulation data of a compiled circuit in one CircuitState. */
+  interface Evaluation {
+    CompiledCircuit getCircuit();
+
+    /**
+     * Evaluates all members and sends the outputs that changed to the propagator.
+     *
+     * @return false if the values in the state can not be evaluated this way, in which case the
+     *     members are propagated as usual
+     */
+    boolean evaluate(CircuitState state);
+  }
+}
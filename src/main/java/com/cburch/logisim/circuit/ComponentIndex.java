@@ -0,0 +1,182 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Bounds;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * A uniform grid of the components of a circuit by their extent, so that the components at a
+ * point or in an area are found without going through all of them: the canvas draws only the
+ * components in its clip, and hit-testing and rubber-band selection only test those near the mouse.
+ *
+ * <p>The extent of a component covers both its bounds and its bounds with its label, the latter
+ * measured with an off-screen Graphics, plus a margin for the differences between the fonts of
+ * the screen and those. Queries return candidates in the order the components were added, which is
+ * the drawing order; callers still test each candidate exactly. The circuit keeps the index up to
+ * date as components are added and removed, and when their bounds change, see
+ * ComponentListener.boundsChanged.
+ */
+final class ComponentIndex {
+  /** The cells are 256 x 256 pixels. */
+  private static final int CELL_BITS = 8;
+  /** Components spanning more cells than that are kept aside, and tested by every query. */
+  private static final int MAX_CELLS = 64;
+  private static final int MARGIN = 10;
+
+  private static final class Entry {
+    final Component comp;
+    final long order;
+    Bounds extent;
+    int stamp;
+
+    Entry(Component comp, long order) {
+      this.comp = comp;
+      this.order = order;
+    }
+  }
+
+  private final HashMap<Long, ArrayList<Entry>> cells = new HashMap<>();
+  private final ArrayList<Entry> large = new ArrayList<>();
+  private final HashMap<Component, Entry> entries = new HashMap<>();
+  private long nextOrder = 0;
+  private int stamp = 0;
+  private Graphics textGraphics;
+
+  private static long getKey(int cellX, int cellY) {
+    return ((long) cellX << 32) | (cellY & 0xffffffffL);
+  }
+
+  private static long getCellCount(Bounds bds) {
+    final long cellsX = ((bds.getX() + bds.getWidth()) >> CELL_BITS) - (bds.getX() >> CELL_BITS) + 1;
+    final long cellsY = ((bds.getY() + bds.getHeight()) >> CELL_BITS) - (bds.getY() >> CELL_BITS) + 1;
+    return cellsX * cellsY;
+  }
+
+  private static boolean intersects(Bounds a, Bounds b) {
+    return a.getX() <= b.getX() + b.getWidth()
+        && b.getX() <= a.getX() + a.getWidth()
+        && a.getY() <= b.getY() + b.getHeight()
+        && b.getY() <= a.getY() + a.getHeight();
+  }
+
+  private Bounds getExtent(Component comp) {
+    var extent = comp.getBounds();
+    if (extent == null) extent = Bounds.create(comp.getLocation());
+    if (!(comp instanceof Wire)) {
+      if (textGraphics == null) {
+        textGraphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+      }
+      final var withText = comp.getBounds(textGraphics);
+      if (withText != null && withText != Bounds.EMPTY_BOUNDS) extent = extent.add(withText);
+    }
+    return extent.expand(MARGIN);
+  }
+
+  synchronized void add(Component comp) {
+    if (entries.containsKey(comp)) return;
+    final var entry = new Entry(comp, nextOrder++);
+    entries.put(comp, entry);
+    insert(entry);
+  }
+
+  synchronized void remove(Component comp) {
+    final var entry = entries.remove(comp);
+    if (entry != null) delete(entry);
+  }
+
+  /** Moves a component of the index to its current extent. */
+  synchronized void update(Component comp) {
+    final var entry = entries.get(comp);
+    if (entry == null) return;
+    delete(entry);
+    insert(entry);
+  }
+
+  synchronized void clear() {
+    cells.clear();
+    large.clear();
+    entries.clear();
+  }
+
+  private void insert(Entry entry) {
+    final var extent = getExtent(entry.comp);
+    entry.extent = extent;
+    if (getCellCount(extent) > MAX_CELLS) {
+      large.add(entry);
+      return;
+    }
+    final var x1 = (extent.getX() + extent.getWidth()) >> CELL_BITS;
+    final var y1 = (extent.getY() + extent.getHeight()) >> CELL_BITS;
+    for (var cellY = extent.getY() >> CELL_BITS; cellY <= y1; cellY++) {
+      for (var cellX = extent.getX() >> CELL_BITS; cellX <= x1; cellX++) {
+        cells.computeIfAbsent(getKey(cellX, cellY), k -> new ArrayList<>(4)).add(entry);
+      }
+    }
+  }
+
+  private void delete(Entry entry) {
+    final var extent = entry.extent;
+    if (getCellCount(extent) > MAX_CELLS) {
+      large.remove(entry);
+      return;
+    }
+    final var x1 = (extent.getX() + extent.getWidth()) >> CELL_BITS;
+    final var y1 = (extent.getY() + extent.getHeight()) >> CELL_BITS;
+    for (var cellY = extent.getY() >> CELL_BITS; cellY <= y1; cellY++) {
+      for (var cellX = extent.getX() >> CELL_BITS; cellX <= x1; cellX++) {
+        final var key = getKey(cellX, cellY);
+        final var cell = cells.get(key);
+        if (cell != null && cell.remove(entry) && cell.isEmpty()) cells.remove(key);
+      }
+    }
+  }
+
+  private void collect(Collection<Entry> cell, Bounds area, ArrayList<Entry> found) {
+    for (final var entry : cell) {
+      if (entry.stamp != stamp && intersects(entry.extent, area)) {
+        entry.stamp = stamp;
+        found.add(entry);
+      }
+    }
+  }
+
+  /**
+   * Returns the components whose extent meets an area, in the order they were added. They are
+   * candidates: a component may be returned that is not in the area.
+   */
+  synchronized ArrayList<Component> query(Bounds area) {
+    stamp++;
+    final var found = new ArrayList<Entry>();
+    if (getCellCount(area) > cells.size()) {
+      // the area covers most of the circuit
+      for (final var cell : cells.values()) collect(cell, area, found);
+    } else {
+      final var x1 = (area.getX() + area.getWidth()) >> CELL_BITS;
+      final var y1 = (area.getY() + area.getHeight()) >> CELL_BITS;
+      for (var cellY = area.getY() >> CELL_BITS; cellY <= y1; cellY++) {
+        for (var cellX = area.getX() >> CELL_BITS; cellX <= x1; cellX++) {
+          final var cell = cells.get(getKey(cellX, cellY));
+          if (cell != null) collect(cell, area, found);
+        }
+      }
+    }
+    collect(large, area, found);
+    found.sort((a, b) -> Long.compare(a.order, b.order));
+    final var ret = new ArrayList<Component>(found.size());
+    for (final var entry : found) ret.add(entry.comp);
+    return ret;
+  }
+}
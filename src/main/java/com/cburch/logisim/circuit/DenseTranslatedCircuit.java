@@ -0,0 +1,345 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.EndData;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * DenseTranslatedCircuit is a circuit made only of components having the DenseLogicComponent
+ * feature (basic gates, D flip-flops, constants...), pins, clocks, wiring, and components that only
+ * read values, translated into a DenseLogicCircuit, the simulator used for BLIF components.
+ * CircuitWires builds it once per Connectivity, so it only depends on the static structure of the
+ * circuit.
+ *
+ * Every wire thread is a cell, so splitters and tunnels cost nothing. Pins and clocks drive their
+ * cells from the values in the CircuitState.
+ * The translated circuit then acts as a single component: whenever one of its members would have
+ * been propagated, the dense circuit is simulated instead, and only the member outputs that
+ * actually changed are handed to the Propagator, all with the delay of a single gate.
+ *
+ * Note that the dense simulator only knows of zero and one: unknown and error inputs of gates and
+ * flip-flops would count as zero. Circuits where such values arise inside, from threads without a
+ * driver or with several ones, are thus not translated, and whenever a pin or clock gives one, a
+ * flip-flop holds one, or the project options make unconnected gate inputs errors, the members are
+ * propagated as usual instead.
+ *
+ * The state of members holding one, like flip-flops, lives in the cells while the dense circuit is
+ * simulated, and in the data of the members in the CircuitState otherwise: it is copied from the
+ * data before every simulation and back after it (see DenseLogicComponent.State), so that poking a
+ * flip-flop, drawing it or cloning the state see the values of the dense simulator.
+ */
+final class DenseTranslatedCircuit implements CompiledCircuit {
+  /** Delay of every output of the translated circuit, the same as the delay of one gate. */
+  private static final int DELAY = 1;
+
+  private final DenseLogicCircuit circuit;
+  private final HashSet<Component> memberSet;
+
+  /** Locations driven by a pin or a clock, with the cells of their bits. */
+  private final Location[] inputLocs;
+  private final int[][] inputCells;
+
+  /** Output ports of the members: their component, location and the cells of their bits. */
+  private final Component[] outputComps;
+  private final Location[] outputLocs;
+  private final int[][] outputCells;
+
+  /** Members holding state, with their state in the cells. */
+  private final Component[] stateComps;
+  private final DenseLogicComponent.State[] states;
+
+  /** Whether a member has an unconnected input, which the project options may make an error. */
+  private final boolean openInputs;
+
+  private DenseTranslatedCircuit(DenseLogicCircuit circuit, HashSet<Component> memberSet,
+      Location[] inputLocs, int[][] inputCells, Component[] outputComps, Location[] outputLocs,
+      int[][] outputCells, Component[] stateComps, DenseLogicComponent.State[] states,
+      boolean openInputs) {
+    this.circuit = circuit;
+    this.memberSet = memberSet;
+    this.inputLocs = inputLocs;
+    this.inputCells = inputCells;
+    this.outputComps = outputComps;
+    this.outputLocs = outputLocs;
+    this.outputCells = outputCells;
+    this.stateComps = stateComps;
+    this.states = states;
+    this.openInputs = openInputs;
+  }
+
+  /**
+   * Translates a circuit from its connectivity.
+   *
+   * @param bundles the wire bundles of the circuit, with their threads already built
+   * @param bundleAt the wire bundle at each location
+   * @param components all components of the circuit except wires, splitters, tunnels and pull
+   *     resistors
+   * @param points the points of the circuit, to tell which ports are connected
+   * @return the translated circuit, or null if the circuit can not be translated
+   */
+  static DenseTranslatedCircuit create(Collection<WireBundle> bundles,
+      Map<Location, WireBundle> bundleAt, Collection<Component> components, CircuitPoints points) {
+    final var builder = new DenseLogicCircuitBuilder();
+    final var threadCells = new HashMap<WireThread, Integer>();
+
+    // pins and clocks drive their cells from outside the dense circuit
+    final var inputLocs = new ArrayList<Location>();
+    final var inputCells = new ArrayList<int[]>();
+    // the cells having a driver, and those read by members, which must all be driven
+    final var driven = new HashSet<Integer>();
+    final var read = new ArrayList<Integer>();
+    for (final var comp : components) {
+      if (!(comp.getFactory() instanceof Pin) && !(comp.getFactory() instanceof Clock)) continue;
+      for (final var end : comp.getEnds()) {
+        if (end.getType() == EndData.INPUT_ONLY) continue;
+        final var b = bundleAt.get(end.getLocation());
+        if (b == null) continue;
+        if (b.threads == null || !b.isValid()) return null;
+        final var cells = new int[b.threads.length];
+        for (var i = 0; i < cells.length; i++) {
+          // a thread with two pins, or a pin and a clock, driving it
+          if (threadCells.containsKey(b.threads[i])) return null;
+          cells[i] = builder.addCell(true);
+          threadCells.put(b.threads[i], cells[i]);
+          driven.add(cells[i]);
+        }
+        inputLocs.add(end.getLocation());
+        inputCells.add(cells);
+      }
+    }
+
+    // pull resistors become the pull of their cells
+    for (final var b : bundles) {
+      final var pull = b.getPullValue();
+      if (pull == Value.UNKNOWN || b.threads == null || !b.isValid()) continue;
+      final int level;
+      if (pull == Value.FALSE) {
+        level = DenseLogicCircuit.LEV_LOW;
+      } else if (pull == Value.TRUE) {
+        level = DenseLogicCircuit.LEV_HIGH;
+      } else {
+        level = DenseLogicCircuit.LEV_ERR;
+      }
+      for (final var t : b.threads) {
+        final var cell = cellOf(t, builder, threadCells);
+        builder.setCellPull(cell, level);
+        if (level != DenseLogicCircuit.LEV_ERR) driven.add(cell);
+      }
+    }
+
+    final var memberSet = new HashSet<Component>();
+    final var outputComps = new ArrayList<Component>();
+    final var outputLocs = new ArrayList<Location>();
+    final var outputCells = new ArrayList<int[]>();
+    final var stateComps = new ArrayList<Component>();
+    final var states = new ArrayList<DenseLogicComponent.State>();
+    var openInputs = false;
+    for (final var comp : components) {
+      if (comp.getFactory() instanceof Pin || comp.getFactory() instanceof Clock) continue;
+      final var feature = (DenseLogicComponent) comp.getFeature(DenseLogicComponent.class);
+      if (feature == null) {
+        // other components may only read values
+        for (final var end : comp.getEnds()) {
+          if (end.getType() != EndData.INPUT_ONLY) return null;
+        }
+        continue;
+      }
+      final var ends = comp.getEnds();
+      final var cells = new int[ends.size()][];
+      for (var i = 0; i < cells.length; i++) {
+        final var end = ends.get(i);
+        final var loc = end.getLocation();
+        final var isInput = end.getType() == EndData.INPUT_ONLY;
+        final var width = end.getWidth().getWidth();
+        final var b = bundleAt.get(loc);
+        if (b == null || !isConnected(comp, loc, points)) {
+          if (isInput) {
+            openInputs = true;
+            continue;
+          }
+          // unconnected outputs still get cells, so their values can be shown
+          cells[i] = new int[width];
+          for (var bit = 0; bit < width; bit++) {
+            cells[i][bit] = builder.addCell(false);
+          }
+        } else {
+          if (b.threads == null || !b.isValid() || b.threads.length != width) return null;
+          cells[i] = new int[width];
+          for (var bit = 0; bit < width; bit++) {
+            cells[i][bit] = cellOf(b.threads[bit], builder, threadCells);
+            if (isInput) {
+              read.add(cells[i][bit]);
+            } else if (!driven.add(cells[i][bit])) {
+              // several drivers may conflict
+              return null;
+            }
+          }
+        }
+        if (!isInput) {
+          outputComps.add(comp);
+          outputLocs.add(loc);
+          outputCells.add(cells[i]);
+        }
+      }
+      try {
+        if (!feature.attach(builder, cells)) return null;
+      } catch (RuntimeException e) {
+        // the builder refuses gates driving the cells of pins and clocks
+        return null;
+      }
+      memberSet.add(comp);
+      final var state = feature.getState();
+      if (state != null) {
+        stateComps.add(comp);
+        states.add(state);
+      }
+    }
+    if (memberSet.isEmpty()) return null;
+    // a floating thread is unknown
+    if (!driven.containsAll(read)) return null;
+
+    return new DenseTranslatedCircuit(builder.build(), memberSet,
+        inputLocs.toArray(new Location[0]), inputCells.toArray(new int[0][]),
+        outputComps.toArray(new Component[0]), outputLocs.toArray(new Location[0]),
+        outputCells.toArray(new int[0][]), stateComps.toArray(new Component[0]),
+        states.toArray(new DenseLogicComponent.State[0]), openInputs);
+  }
+
+  private static int cellOf(WireThread t, DenseLogicCircuitBuilder builder,
+      HashMap<WireThread, Integer> threadCells) {
+    return threadCells.computeIfAbsent(t, k -> builder.addCell(false));
+  }
+
+  private static boolean isConnected(Component comp, Location loc, CircuitPoints points) {
+    for (final var other : points.getComponents(loc)) {
+      if (other != comp) return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isMember(Component comp) {
+    return memberSet.contains(comp);
+  }
+
+  @Override
+  public Evaluation newEvaluation() {
+    return new Evaluation(this);
+  }
+
+  /** The cells of a DenseTranslatedCircuit in one CircuitState. */
+  static final class Evaluation implements CompiledCircuit.Evaluation {
+    private final DenseTranslatedCircuit translated;
+    private final byte[] cells;
+    private final int[] auxData;
+    /** The last value sent for each output, null until the first evaluation. */
+    private final Value[] outputValues;
+
+    private Evaluation(DenseTranslatedCircuit translated) {
+      this.translated = translated;
+      cells = translated.circuit.newCells();
+      auxData = translated.circuit.newAuxData();
+      outputValues = new Value[translated.outputLocs.length];
+    }
+
+    @Override
+    public CompiledCircuit getCircuit() {
+      return translated;
+    }
+
+    @Override
+    public boolean evaluate(CircuitState state) {
+      final var circuit = translated.circuit;
+      if (translated.openInputs) {
+        final var opts = state.getProject().getOptions().getAttributeSet();
+        if (opts.getValue(Options.ATTR_GATE_UNDEFINED).equals(Options.GATE_UNDEFINED_ERROR)) {
+          return fallBack();
+        }
+      }
+      for (var i = 0; i < translated.inputLocs.length; i++) {
+        final var v = state.getValue(translated.inputLocs[i]);
+        if ((v.getErrorMask() | v.getUnknownMask()) != 0) return fallBack();
+        final var value = v.getValueMask();
+        final var bitCells = translated.inputCells[i];
+        for (var bit = 0; bit < bitCells.length; bit++) {
+          final var level = ((value >> bit) & 1) != 0
+              ? DenseLogicCircuit.LEV_HIGH
+              : DenseLogicCircuit.LEV_LOW;
+          circuit.setCell(bitCells[bit], (byte) level, cells, auxData);
+        }
+      }
+      for (var i = 0; i < translated.states.length; i++) {
+        if (!translated.states[i].load(getData(state, i), circuit, cells, auxData)) {
+          return fallBack();
+        }
+      }
+
+      circuit.simulate(cells, auxData);
+
+      for (var i = 0; i < translated.states.length; i++) {
+        final var data = getData(state, i);
+        final var stored = translated.states[i].store(data, circuit, cells, auxData);
+        if (stored != data) state.setData(translated.stateComps[i], stored);
+      }
+
+      for (var i = 0; i < outputValues.length; i++) {
+        final var bitCells = translated.outputCells[i];
+        var error = 0L;
+        var unknown = 0L;
+        var value = 0L;
+        for (var bit = 0; bit < bitCells.length; bit++) {
+          switch (cells[bitCells[bit]]) {
+            case DenseLogicCircuit.LEV_NONE -> unknown |= 1L << bit;
+            case DenseLogicCircuit.LEV_HIGH -> value |= 1L << bit;
+            case DenseLogicCircuit.LEV_ERR -> error |= 1L << bit;
+            default -> {
+              // LEV_LOW
+            }
+          }
+        }
+        final var val = Value.create(bitCells.length, error, unknown, value);
+        if (!val.equals(outputValues[i])) {
+          outputValues[i] = val;
+          state.setValue(translated.outputLocs[i], val, translated.outputComps[i], DELAY);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * The members are propagated as usual this time, so the outputs sent before no longer tell
+     * which ones change the next time.
+     */
+    private boolean fallBack() {
+      Arrays.fill(outputValues, null);
+      return false;
+    }
+
+    private InstanceData getData(CircuitState state, int i) {
+      return state.getData(translated.stateComps[i]) instanceof InstanceData data ? data : null;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.Arrays;
+
+/**
+ * DirtyPoints is the list of points, each with the component that drives it and the value being
+ * driven, that a CircuitState still has to propagate through its wires. It is kept as parallel
+ * arrays that survive clear(), so the simulator does not need an object per point.
+ */
+final class DirtyPoints {
+  private Location[] locs;
+  private Component[] causes;
+  private Value[] vals;
+  private int size;
+
+  DirtyPoints() {
+    this(16);
+  }
+
+  DirtyPoints(int capacity) {
+    capacity = Math.max(capacity, 1);
+    locs = new Location[capacity];
+    causes = new Component[capacity];
+    vals = new Value[capacity];
+  }
+
+  void add(Location loc, Component cause, Value val) {
+    if (size == locs.length) grow(size * 2);
+    locs[size] = loc;
+    causes[size] = cause;
+    vals[size] = val;
+    size++;
+  }
+
+  void addAll(DirtyPoints other) {
+    if (size + other.size > locs.length) grow(Math.max(size + other.size, size * 2));
+    System.arraycopy(other.locs, 0, locs, size, other.size);
+    System.arraycopy(other.causes, 0, causes, size, other.size);
+    System.arraycopy(other.vals, 0, vals, size, other.size);
+    size += other.size;
+  }
+
+  void clear() {
+    Arrays.fill(locs, 0, size, null);
+    Arrays.fill(causes, 0, size, null);
+    Arrays.fill(vals, 0, size, null);
+    size = 0;
+  }
+
+  Component getCause(int index) {
+    return causes[index];
+  }
+
+  Location getLocation(int index) {
+    return locs[index];
+  }
+
+  Value getValue(int index) {
+    return vals[index];
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void grow(int capacity) {
+    locs = Arrays.copyOf(locs, capacity);
+    causes = Arrays.copyOf(causes, capacity);
+    vals = Arrays.copyOf(vals, capacity);
+  }
+}
@@ -0,0 +1,687 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.EndData;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceComponent;
+import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.InstanceFactory;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * LevelizedCircuit is a compiled form of the combinational part of a circuit, that is of its
+ * components having the CombinationalLogic feature (gates, plexers, constants...). CircuitWires
+ * builds it once per Connectivity, so it only depends on the static structure of the circuit.
+ *
+ * Every wire bundle is a net, whose value is held as the error, unknown and value bit masks a Value
+ * is made of. The components are sorted so that each one comes after the components driving its
+ * inputs, and each net that is reached through splitters only gets a "gather" step, copying its
+ * bits from the nets that drive them. Evaluating the circuit is then a single pass over that
+ * program, and only the outputs that actually changed are handed to the Propagator, all with the
+ * delay of a single gate.
+ *
+ * The components the program can not compute are left to the Propagator, to be simulated event by
+ * event as before: those in a combinational loop, those with bidirectional ports, and those driving
+ * a thread that has another driver (e.g. a tri-state bus) or a pull resistor. The nets driven by
+ * them, by pins or by any other kind of component are read from the circuit state, like those
+ * whose threads can not be computed. The circuit is purely combinational, see isComplete, when the
+ * program covers all of it: nothing is left out, nothing else drives a net than pins, and no net
+ * has a pull resistor or more than one driver.
+ */
+final class LevelizedCircuit implements CompiledCircuit {
+  /** Delay of every output of the program, the same as the delay of one gate. */
+  private static final int DELAY = 1;
+
+  private static final int UNDRIVEN = -1;
+  private static final int EXTERNAL = -2;
+
+  /** Width of each net. */
+  private final int[] netWidths;
+
+  /**
+   * Nets not computed by the program, with the location their value is read from before each
+   * evaluation.
+   */
+  private final int[] inputNets;
+  private final Location[] inputLocs;
+
+  /** Components evaluated by the program, and their kernels. */
+  private final Component[] members;
+  private final CombinationalLogic[] kernels;
+  private final HashSet<Component> memberSet;
+
+  /** Per member and port: the net (or -1 if none), location, width and connectedness. */
+  private final int[][] portNets;
+  private final Location[][] portLocs;
+  private final int[][] portWidths;
+  private final boolean[][] portConnected;
+
+  /** Per net reached through splitters only: the bits to copy into it, null for other nets. */
+  private final int[][] gatherSrcNets;
+  private final int[][] gatherSrcBits;
+  private final int[][] gatherDstBits;
+
+  /** The program: a value k >= 0 evaluates members[k], k < 0 gathers net -k - 1. */
+  private final int[] program;
+
+  /** Whether some bits of a net are driven by nothing, and thus unknown. */
+  private final boolean floatingNets;
+
+  /** Whether the program covers the whole circuit, which is then purely combinational. */
+  private final boolean complete;
+
+  private LevelizedCircuit(int[] netWidths, Component[] members, CombinationalLogic[] kernels,
+      int[] inputNets, Location[] inputLocs, int[][] portNets, Location[][] portLocs,
+      int[][] portWidths, boolean[][] portConnected, int[][] gatherSrcNets, int[][] gatherSrcBits,
+      int[][] gatherDstBits, int[] program, boolean floatingNets, boolean complete) {
+    this.netWidths = netWidths;
+    this.members = members;
+    this.kernels = kernels;
+    this.memberSet = new HashSet<>(Arrays.asList(members));
+    this.inputNets = inputNets;
+    this.inputLocs = inputLocs;
+    this.portNets = portNets;
+    this.portLocs = portLocs;
+    this.portWidths = portWidths;
+    this.portConnected = portConnected;
+    this.gatherSrcNets = gatherSrcNets;
+    this.gatherSrcBits = gatherSrcBits;
+    this.gatherDstBits = gatherDstBits;
+    this.program = program;
+    this.floatingNets = floatingNets;
+    this.complete = complete;
+  }
+
+  /**
+   * Compiles a circuit from its connectivity.
+   *
+   * @param bundles the wire bundles of the circuit, with their threads already built
+   * @param bundleAt the wire bundle at each location
+   * @param components all components of the circuit except wires, splitters, tunnels and pull
+   *     resistors
+   * @param points the points of the circuit, to tell which ports are connected
+   * @return the program, or null if no component of the circuit can be levelized
+   */
+  static LevelizedCircuit create(Collection<WireBundle> bundles, Map<Location, WireBundle> bundleAt,
+      Collection<Component> components, CircuitPoints points) {
+    return create(bundles, bundleAt, components, points, new HashSet<>());
+  }
+
+  /**
+   * @param looped the components found in a combinational loop so far, left out of the program;
+   *     when more are found, they are added to it and the program is made again without them
+   */
+  private static LevelizedCircuit create(Collection<WireBundle> bundles,
+      Map<Location, WireBundle> bundleAt, Collection<Component> components, CircuitPoints points,
+      HashSet<Component> looped) {
+    var complete = looped.isEmpty();
+    // every valid bundle is a net, and the threads of the pulled ones can not be computed
+    final var nets = new ArrayList<WireBundle>();
+    final var netIndex = new HashMap<WireBundle, Integer>();
+    final var pulledThreads = new HashSet<WireThread>();
+    for (final var b : bundles) {
+      final var valid = b.threads != null && b.isValid();
+      if (b.getPullValue() != Value.UNKNOWN) {
+        complete = false;
+        if (valid) pulledThreads.addAll(Arrays.asList(b.threads));
+      }
+      if (!valid) continue;
+      netIndex.put(b, nets.size());
+      nets.add(b);
+    }
+    final var netCount = nets.size();
+    final var netWidths = new int[netCount];
+    for (var i = 0; i < netCount; i++) {
+      netWidths[i] = nets.get(i).threads.length;
+    }
+
+    // count the drivers of every net and of every thread
+    final var netDriverCount = new int[netCount];
+    final var threadDriverCount = new HashMap<WireThread, Integer>();
+    final var netLocs = new Location[netCount]; // where a component reads or drives each net
+    for (final var comp : components) {
+      for (final var end : comp.getEnds()) {
+        final var net = netIndex.get(bundleAt.get(end.getLocation()));
+        if (net == null) {
+          if (end.getType() != EndData.INPUT_ONLY) complete = false;
+          continue;
+        }
+        if (netLocs[net] == null) netLocs[net] = end.getLocation();
+        if (end.getType() == EndData.INPUT_ONLY) continue;
+        netDriverCount[net]++;
+        for (final var thread : nets.get(net).threads) {
+          threadDriverCount.merge(thread, 1, Integer::sum);
+        }
+      }
+    }
+    // the nets whose value is that of their only driver
+    final var computable = new boolean[netCount];
+    for (var i = 0; i < netCount; i++) {
+      computable[i] = netDriverCount[i] == 1;
+      for (final var thread : nets.get(i).threads) {
+        if (threadDriverCount.getOrDefault(thread, 0) > 1 || pulledThreads.contains(thread)) {
+          computable[i] = false;
+        }
+      }
+      if (netDriverCount[i] > 0 && !computable[i]) complete = false;
+    }
+
+    // find the driver of every net and of every thread; the nets driven by anything else than a
+    // member, or by more than one component, are read from the circuit state
+    final var netDrivers = new int[netCount];
+    Arrays.fill(netDrivers, UNDRIVEN);
+    final var threadDrivers = new HashMap<WireThread, Integer>(); // net << 6 | bit
+    final var members = new ArrayList<Component>();
+    final var kernels = new ArrayList<CombinationalLogic>();
+    for (final var comp : components) {
+      final var kernel = (CombinationalLogic) comp.getFeature(CombinationalLogic.class);
+      final var member = kernel != null && !looped.contains(comp)
+          && canEvaluate(comp, bundleAt, netIndex, computable);
+      if (kernel != null && !member
+          || kernel == null && !(comp.getFactory() instanceof Pin) && drives(comp)) {
+        // left to the propagator
+        complete = false;
+      }
+      final var driver = member ? members.size() : EXTERNAL;
+      for (final var end : comp.getEnds()) {
+        if (end.getType() == EndData.INPUT_ONLY) continue;
+        final var net = netIndex.get(bundleAt.get(end.getLocation()));
+        if (net == null) continue;
+        if (!computable[net]) {
+          netDrivers[net] = EXTERNAL;
+          continue;
+        }
+        netDrivers[net] = driver;
+        final var threads = nets.get(net).threads;
+        for (var i = 0; i < threads.length; i++) {
+          threadDrivers.put(threads[i], net << 6 | i);
+        }
+      }
+      if (member) {
+        members.add(comp);
+        kernels.add(kernel);
+      }
+    }
+    if (members.isEmpty()) return null;
+
+    // undriven nets get their bits from the nets driving their threads, unless one of their threads
+    // has several drivers or a pull resistor, in which case they are read from the circuit state
+    final var gatherSrcNets = new int[netCount][];
+    final var gatherSrcBits = new int[netCount][];
+    final var gatherDstBits = new int[netCount][];
+    final var read = new boolean[netCount];
+    var floatingNets = false;
+    for (var i = 0; i < netCount; i++) {
+      if (netDrivers[i] != UNDRIVEN) continue;
+      final var threads = nets.get(i).threads;
+      for (final var thread : threads) {
+        if (threadDrivers.get(thread) == null
+            && (threadDriverCount.containsKey(thread) || pulledThreads.contains(thread))) {
+          netDrivers[i] = EXTERNAL;
+          break;
+        }
+      }
+      if (netDrivers[i] == EXTERNAL) continue;
+      final var srcNets = new int[threads.length];
+      final var srcBits = new int[threads.length];
+      final var dstBits = new int[threads.length];
+      var count = 0;
+      for (var bit = 0; bit < threads.length; bit++) {
+        final var src = threadDrivers.get(threads[bit]);
+        if (src == null) {
+          // stays unknown
+          floatingNets = true;
+          continue;
+        }
+        srcNets[count] = src >> 6;
+        srcBits[count] = src & 63;
+        dstBits[count] = bit;
+        read[src >> 6] = true;
+        count++;
+      }
+      if (count > 0) {
+        gatherSrcNets[i] = Arrays.copyOf(srcNets, count);
+        gatherSrcBits[i] = Arrays.copyOf(srcBits, count);
+        gatherDstBits[i] = Arrays.copyOf(dstBits, count);
+      }
+    }
+
+    // where each port of each member is
+    final var memberCount = members.size();
+    final var portNets = new int[memberCount][];
+    final var portLocs = new Location[memberCount][];
+    final var portWidths = new int[memberCount][];
+    final var portConnected = new boolean[memberCount][];
+    for (var m = 0; m < memberCount; m++) {
+      final var comp = members.get(m);
+      final var ends = comp.getEnds();
+      final var n = ends.size();
+      portNets[m] = new int[n];
+      portLocs[m] = new Location[n];
+      portWidths[m] = new int[n];
+      portConnected[m] = new boolean[n];
+      for (var i = 0; i < n; i++) {
+        final var end = ends.get(i);
+        final var loc = end.getLocation();
+        final var b = bundleAt.get(loc);
+        final var net = b == null ? -1 : netIndex.get(b);
+        if (net >= 0) read[net] = true;
+        portNets[m][i] = net;
+        portLocs[m][i] = loc;
+        portWidths[m][i] = end.getWidth().getWidth();
+        for (final var other : points.getComponents(loc)) {
+          if (other != comp) {
+            portConnected[m][i] = true;
+            break;
+          }
+        }
+      }
+    }
+
+    // the nets read from the circuit state before each evaluation
+    var inputCount = 0;
+    for (var i = 0; i < netCount; i++) {
+      if (netDrivers[i] == EXTERNAL && read[i]) inputCount++;
+    }
+    final var inputNets = new int[inputCount];
+    final var inputLocs = new Location[inputCount];
+    inputCount = 0;
+    for (var i = 0; i < netCount; i++) {
+      if (netDrivers[i] == EXTERNAL && read[i]) {
+        inputNets[inputCount] = i;
+        inputLocs[inputCount] = netLocs[i];
+        inputCount++;
+      }
+    }
+
+    final var program = levelize(members, portNets, netDrivers, gatherSrcNets, looped);
+    if (program == null) return create(bundles, bundleAt, components, points, looped);
+    return new LevelizedCircuit(netWidths, members.toArray(new Component[0]),
+        kernels.toArray(new CombinationalLogic[0]), inputNets, inputLocs, portNets, portLocs,
+        portWidths, portConnected, gatherSrcNets, gatherSrcBits, gatherDstBits, program,
+        floatingNets, complete);
+  }
+
+  /**
+   * @return whether the program can compute the outputs of a component: all its ports are inputs
+   *     or outputs on valid bundles, and each output is the only driver of its net.
+   */
+  private static boolean canEvaluate(Component comp, Map<Location, WireBundle> bundleAt,
+      Map<WireBundle, Integer> netIndex, boolean[] computable) {
+    for (final var end : comp.getEnds()) {
+      final var b = bundleAt.get(end.getLocation());
+      final var net = netIndex.get(b);
+      if (end.getType() == EndData.INPUT_ONLY) {
+        if (b != null && net == null) return false;
+      } else if (end.getType() != EndData.OUTPUT_ONLY || net == null || !computable[net]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean drives(Component comp) {
+    for (final var end : comp.getEnds()) {
+      if (end.getType() != EndData.INPUT_ONLY) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Sorts the members and gather steps so that every step comes after the steps computing the nets
+   * it reads (Kahn's algorithm).
+   *
+   * @param looped where to add the members of the combinational loops found
+   * @return the program, or null if there is a combinational loop
+   */
+  private static int[] levelize(ArrayList<Component> members, int[][] portNets, int[] netDrivers,
+      int[][] gatherSrcNets, HashSet<Component> looped) {
+    final var memberCount = members.size();
+    // nodes 0 .. memberCount - 1 are the members, the following ones the gather steps
+    final var nodeOfNet = new int[netDrivers.length];
+    final var netOfNode = new ArrayList<Integer>();
+    for (var i = 0; i < netDrivers.length; i++) {
+      nodeOfNet[i] = -1;
+      if (gatherSrcNets[i] != null) {
+        nodeOfNet[i] = memberCount + netOfNode.size();
+        netOfNode.add(i);
+      }
+    }
+    final var nodeCount = memberCount + netOfNode.size();
+    final var successors = new ArrayList<ArrayList<Integer>>(nodeCount);
+    for (var i = 0; i < nodeCount; i++) {
+      successors.add(new ArrayList<>());
+    }
+    final var predecessorCount = new int[nodeCount];
+    for (var m = 0; m < memberCount; m++) {
+      final var ends = members.get(m).getEnds();
+      for (var i = 0; i < ends.size(); i++) {
+        final var net = portNets[m][i];
+        if (net < 0 || ends.get(i).getType() != EndData.INPUT_ONLY) continue;
+        final var from = netDrivers[net] >= 0 ? netDrivers[net] : nodeOfNet[net];
+        if (from < 0) continue;
+        successors.get(from).add(m);
+        predecessorCount[m]++;
+      }
+    }
+    for (var k = 0; k < netOfNode.size(); k++) {
+      final var node = memberCount + k;
+      for (final var src : gatherSrcNets[netOfNode.get(k)]) {
+        final var from = netDrivers[src];
+        if (from < 0) continue;
+        successors.get(from).add(node);
+        predecessorCount[node]++;
+      }
+    }
+
+    final var ready = new int[nodeCount];
+    var readyCount = 0;
+    for (var i = 0; i < nodeCount; i++) {
+      if (predecessorCount[i] == 0) ready[readyCount++] = i;
+    }
+    final var ret = new int[nodeCount];
+    var done = 0;
+    while (done < readyCount) {
+      final var node = ready[done];
+      ret[done++] = node < memberCount ? node : -netOfNode.get(node - memberCount) - 1;
+      for (final var next : successors.get(node)) {
+        if (--predecessorCount[next] == 0) ready[readyCount++] = next;
+      }
+    }
+    if (done == nodeCount) return ret;
+
+    // the nodes left are in a loop or after one: drop those after one, that is those none of whose
+    // successors is left, until only the loops and the nodes between them remain
+    final var left = new boolean[nodeCount];
+    final var successorsLeft = new int[nodeCount];
+    final var predecessors = new ArrayList<ArrayList<Integer>>(nodeCount);
+    for (var i = 0; i < nodeCount; i++) {
+      left[i] = predecessorCount[i] > 0;
+      predecessors.add(new ArrayList<>());
+    }
+    for (var node = 0; node < nodeCount; node++) {
+      if (!left[node]) continue;
+      for (final var next : successors.get(node)) {
+        if (!left[next]) continue;
+        successorsLeft[node]++;
+        predecessors.get(next).add(node);
+      }
+    }
+    var dropCount = 0;
+    for (var i = 0; i < nodeCount; i++) {
+      if (left[i] && successorsLeft[i] == 0) ready[dropCount++] = i;
+    }
+    for (var k = 0; k < dropCount; k++) {
+      left[ready[k]] = false;
+      for (final var prev : predecessors.get(ready[k])) {
+        if (--successorsLeft[prev] == 0) ready[dropCount++] = prev;
+      }
+    }
+    for (var m = 0; m < memberCount; m++) {
+      if (left[m]) looped.add(members.get(m));
+    }
+    return null;
+  }
+
+  @Override
+  public boolean isMember(Component comp) {
+    return memberSet.contains(comp);
+  }
+
+  /** @return whether some bits of a net are driven by nothing, and thus always unknown. */
+  boolean hasFloatingNets() {
+    return floatingNets;
+  }
+
+  /** @return whether the program covers the whole circuit, which is purely combinational. */
+  boolean isComplete() {
+    return complete;
+  }
+
+  @Override
+  public Evaluation newEvaluation() {
+    return new Evaluation(this);
+  }
+
+  private static long mask(int width) {
+    return width == 64 ? -1L : ~(-1L << width);
+  }
+
+  /**
+   * The values of the nets of a LevelizedCircuit in one CircuitState. It also serves as the ports,
+   * and as the InstanceState, of the member being evaluated.
+   */
+  static final class Evaluation
+      implements CompiledCircuit.Evaluation, CombinationalLogic.Ports, InstanceState {
+    private final LevelizedCircuit prog;
+    private final long[] error;
+    private final long[] unknown;
+    private final long[] value;
+    /** Until the first evaluation is done, all outputs are sent, changed or not. */
+    private boolean initialized;
+    private CircuitState state;
+    private int member;
+
+    private Evaluation(LevelizedCircuit prog) {
+      this.prog = prog;
+      final var n = prog.netWidths.length;
+      error = new long[n];
+      unknown = new long[n];
+      value = new long[n];
+      for (var i = 0; i < n; i++) {
+        unknown[i] = mask(prog.netWidths[i]);
+      }
+    }
+
+    @Override
+    public CompiledCircuit getCircuit() {
+      return prog;
+    }
+
+    @Override
+    public boolean evaluate(CircuitState circState) {
+      state = circState;
+      try {
+        for (var i = 0; i < prog.inputNets.length; i++) {
+          final var v = circState.getValue(prog.inputLocs[i]);
+          final var net = prog.inputNets[i];
+          final var mask = mask(prog.netWidths[net]);
+          error[net] = v.getErrorMask() & mask;
+          unknown[net] = v.getUnknownMask() & mask;
+          value[net] = v.getValueMask() & mask;
+        }
+        for (final var op : prog.program) {
+          if (op >= 0) {
+            member = op;
+            prog.kernels[op].evaluate(this);
+          } else {
+            gather(-op - 1);
+          }
+        }
+        initialized = true;
+        return true;
+      } finally {
+        state = null;
+      }
+    }
+
+    private void gather(int net) {
+      final var srcNets = prog.gatherSrcNets[net];
+      final var srcBits = prog.gatherSrcBits[net];
+      final var dstBits = prog.gatherDstBits[net];
+      var e = 0L;
+      var u = mask(prog.netWidths[net]);
+      var v = 0L;
+      for (var k = 0; k < srcNets.length; k++) {
+        final var src = srcNets[k];
+        final var from = srcBits[k];
+        final var to = dstBits[k];
+        u &= ~(1L << to);
+        e |= ((error[src] >>> from) & 1) << to;
+        u |= ((unknown[src] >>> from) & 1) << to;
+        v |= ((value[src] >>> from) & 1) << to;
+      }
+      error[net] = e;
+      unknown[net] = u;
+      value[net] = v;
+    }
+
+    private Component component() {
+      return prog.members[member];
+    }
+
+    //
+    // CombinationalLogic.Ports methods
+    //
+    @Override
+    public long getError(int port) {
+      final var net = prog.portNets[member][port];
+      return net < 0 ? 0 : error[net];
+    }
+
+    @Override
+    public InstanceState getInstanceState() {
+      return this;
+    }
+
+    @Override
+    public long getUnknown(int port) {
+      final var net = prog.portNets[member][port];
+      return net < 0 ? mask(prog.portWidths[member][port]) : unknown[net];
+    }
+
+    @Override
+    public long getValue(int port) {
+      final var net = prog.portNets[member][port];
+      return net < 0 ? 0 : value[net];
+    }
+
+    @Override
+    public boolean isConnected(int port) {
+      return prog.portConnected[member][port];
+    }
+
+    @Override
+    public void set(int port, long e, long u, long v) {
+      final var net = prog.portNets[member][port];
+      if (net < 0) return;
+      final var width = prog.netWidths[net];
+      final var mask = mask(width);
+      e &= mask;
+      u &= mask & ~e;
+      v &= mask & ~u & ~e;
+      if (initialized && error[net] == e && unknown[net] == u && value[net] == v) return;
+      error[net] = e;
+      unknown[net] = u;
+      value[net] = v;
+      state.setValue(prog.portLocs[member][port], Value.create(width, e, u, v), component(), DELAY);
+    }
+
+    //
+    // InstanceState methods
+    //
+    @Override
+    public CircuitState createCircuitSubstateFor(Circuit circ) {
+      return state.createCircuitSubstateFor(component(), circ);
+    }
+
+    @Override
+    public void fireInvalidated() {
+      if (component() instanceof InstanceComponent instComp) {
+        instComp.fireInvalidated();
+      }
+    }
+
+    @Override
+    public AttributeSet getAttributeSet() {
+      return component().getAttributeSet();
+    }
+
+    @Override
+    public <E> E getAttributeValue(Attribute<E> attr) {
+      return component().getAttributeSet().getValue(attr);
+    }
+
+    @Override
+    public InstanceData getData() {
+      return (InstanceData) state.getData(component());
+    }
+
+    @Override
+    public InstanceFactory getFactory() {
+      return component() instanceof InstanceComponent instComp
+          ? (InstanceFactory) instComp.getFactory()
+          : null;
+    }
+
+    @Override
+    public Instance getInstance() {
+      return component() instanceof InstanceComponent instComp ? instComp.getInstance() : null;
+    }
+
+    @Override
+    public int getPortIndex(Port port) {
+      return getInstance().getPorts().indexOf(port);
+    }
+
+    @Override
+    public Value getPortValue(int portIndex) {
+      final var net = prog.portNets[member][portIndex];
+      if (net < 0) return Value.createUnknown(BitWidth.create(prog.portWidths[member][portIndex]));
+      return Value.create(prog.netWidths[net], error[net], unknown[net], value[net]);
+    }
+
+    @Override
+    public Project getProject() {
+      return state.getProject();
+    }
+
+    @Override
+    public int getTickCount() {
+      return state.getPropagator().getTickCount();
+    }
+
+    @Override
+    public boolean isCircuitRoot() {
+      return !state.isSubstate();
+    }
+
+    @Override
+    public boolean isPortConnected(int portIndex) {
+      return prog.portConnected[member][portIndex];
+    }
+
+    @Override
+    public void setData(InstanceData data) {
+      state.setData(component(), data);
+    }
+
+    @Override
+    public void setPort(int portIndex, Value val, int delay) {
+      set(portIndex, val.getErrorMask(), val.getUnknownMask(), val.getValueMask());
+    }
+  }
+}
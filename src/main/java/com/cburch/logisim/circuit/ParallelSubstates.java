@@ -0,0 +1,174 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.std.memory.Mem;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Processes the dirty components of sibling substates in parallel, in the common fork-join pool.
+ *
+ * <p>Within one time step, sibling substates only communicate through their parent state: the
+ * values they emit become events of the Propagator queue, and a changed output pin propagates
+ * the subcircuit component in the parent state. While a substate is processed in a task, both are
+ * recorded instead of being done (see Propagator.setValue and CircuitState.processDirtyComponents),
+ * the output pins with the values they have at that time, and so are the points touched for the
+ * oscillation display (see Propagator.locationTouched). They are replayed once all tasks are done,
+ * on the simulation thread, in the order of the substates. The Propagator thus receives the same
+ * events in the same order, with the same serial numbers and random noise, as when the substates
+ * are processed one after another.
+ *
+ * <p>Each task processes the whole tree of substates below its substate sequentially. Only the
+ * substates whose circuit keeps all its data in its state run in the pool (see keepOwnState): the
+ * others, such as SoC processors sharing a bus and its memory, or memories listened to by their
+ * editors, are processed one after another on the simulation thread while the pool runs the rest,
+ * their events being recorded too so that the order is kept.
+ */
+final class ParallelSubstates {
+  /** The task processed by the current thread, if any. */
+  private static final ThreadLocal<ParallelSubstates> CURRENT = new ThreadLocal<>();
+
+  /**
+   * The packages of the components keeping all their data in their circuit state, memories
+   * excepted (see keepOwnState).
+   */
+  private static final Set<String> OWN_STATE_PACKAGES = Set.of(
+      "com.cburch.logisim.circuit",
+      "com.cburch.logisim.std.arith",
+      "com.cburch.logisim.std.base",
+      "com.cburch.logisim.std.gates",
+      "com.cburch.logisim.std.memory",
+      "com.cburch.logisim.std.plexers",
+      "com.cburch.logisim.std.wiring");
+
+  private final CircuitState substate;
+  /** The events, propagations and touched points recorded, in the order they happened. */
+  private final ArrayList<Runnable> pending = new ArrayList<>();
+
+  private ParallelSubstates(CircuitState substate) {
+    this.substate = substate;
+  }
+
+  /**
+   * Returns whether the given components of a circuit, and those of its subcircuits, keep all
+   * their data in their circuit state, so that processing its substates never touches anything
+   * shared with other substates. The components of the other libraries, and the memories, whose
+   * contents may be shared by the instances of their circuit and are listened to by their editors,
+   * are assumed to share data.
+   */
+  static boolean keepOwnState(Collection<Component> nonWires) {
+    for (final var comp : nonWires) {
+      final var factory = comp.getFactory();
+      if (factory instanceof SubcircuitFactory sub) {
+        if (!sub.getSubcircuit().hasOwnStateOnly()) return false;
+      } else if (factory instanceof Mem
+          || !OWN_STATE_PACKAGES.contains(factory.getClass().getPackageName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** @return the task processed by the current thread, or null outside of tasks. */
+  static ParallelSubstates current() {
+    return CURRENT.get();
+  }
+
+  /** Records an event, to be sent to the propagator once all tasks are done. */
+  void addEvent(CircuitState state, Location loc, Value val, Component cause, int delay) {
+    pending.add(() -> state.setValue(loc, val, cause, delay));
+  }
+
+  /**
+   * Records the propagation of a subcircuit component in its state, after an output pin of its
+   * substate changed, with the values the pins have now.
+   */
+  void addPropagation(Component comp, CircuitState state, CircuitState substate) {
+    final var factory = (SubcircuitFactory) comp.getFactory();
+    final var values = factory.getPinValues(comp, substate);
+    pending.add(() -> factory.propagate(state.getInstanceState(comp), values));
+  }
+
+  /** Records a point touched for the oscillation display. */
+  void addTouched(CircuitState state, Location loc) {
+    pending.add(() -> state.getPropagator().locationTouched(state, loc));
+  }
+
+  /**
+   * Processes the dirty components of the given substates and of their own substates. Substates
+   * without any dirty component are processed on the calling thread; the others run in parallel
+   * if there are at least two of them.
+   *
+   * @param substates the substates, possibly followed by nulls
+   */
+  static void processDirtyComponents(CircuitState[] substates) {
+    final var tasks = new ArrayList<ParallelSubstates>();
+    final var isolated = new ArrayList<ParallelSubstates>();
+    for (final var substate : substates) {
+      if (substate == null) break;
+      if (substate.hasDirtyComponents()) {
+        final var task = new ParallelSubstates(substate);
+        tasks.add(task);
+        if (substate.getCircuit().hasOwnStateOnly()) isolated.add(task);
+      } else {
+        substate.processDirtyComponents();
+      }
+    }
+    if (isolated.size() < 2) {
+      for (final var task : tasks) {
+        task.substate.processDirtyComponents();
+      }
+      return;
+    }
+    final var forked = new ArrayList<ForkJoinTask<?>>();
+    for (final var task : isolated) {
+      forked.add(ForkJoinTask.adapt(task::run).fork());
+    }
+    try {
+      // the substates sharing data are processed one after another, while the others run
+      for (final var task : tasks) {
+        if (!isolated.contains(task)) task.run();
+      }
+    } finally {
+      // no substate may still be processed once this returns, even by an exception
+      for (final var task : forked) {
+        task.quietlyJoin();
+      }
+    }
+    for (final var task : forked) {
+      // rethrows what a task threw
+      task.join();
+    }
+    for (final var task : tasks) {
+      task.replay();
+    }
+  }
+
+  private void run() {
+    CURRENT.set(this);
+    try {
+      substate.processDirtyComponents();
+    } finally {
+      CURRENT.remove();
+    }
+  }
+
+  private void replay() {
+    for (final var p : pending) {
+      p.run();
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.Arrays;
+
+/**
+ * PooledEventQueue is a simulator event queue that does not use one SimulatorEvent object per
+ * event. Instead, the fields of every pending event (time, serial number, circuit state, location,
+ * cause and value) are held in parallel arrays, indexed by a slot number. Slots are recycled
+ * through a free list and the arrays only ever grow, so once the queue has reached the size a
+ * circuit needs, adding and removing events does not allocate anything.
+ *
+ * The ordering is the same as the one defined by QNode: first by timeKey, then by serialNumber,
+ * both compared using subtraction so that counter wraparound is harmless. The queue itself is a
+ * binary min-heap of slot numbers.
+ */
+class PooledEventQueue implements Propagator.EventQueue {
+  private static final int INITIAL_CAPACITY = 256;
+
+  // Per-slot event data.
+  private int[] timeKeys;
+  private int[] serialNumbers;
+  private CircuitState[] states;
+  private Location[] locs;
+  private Component[] causes;
+  private Value[] vals;
+
+  /** Stack of unused slot numbers. */
+  private int[] freeSlots;
+  private int freeCount;
+
+  /** Slot numbers of the pending events, in heap order. */
+  private int[] heap;
+  private int size;
+
+  PooledEventQueue() {
+    this(INITIAL_CAPACITY);
+  }
+
+  PooledEventQueue(int capacity) {
+    capacity = Math.max(capacity, 1);
+    timeKeys = new int[capacity];
+    serialNumbers = new int[capacity];
+    states = new CircuitState[capacity];
+    locs = new Location[capacity];
+    causes = new Component[capacity];
+    vals = new Value[capacity];
+    heap = new int[capacity];
+    freeSlots = new int[capacity];
+    freeCount = 0;
+    pushFreeSlots(capacity - 1, 0);
+  }
+
+  @Override
+  public void add(int timeKey, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
+    if (freeCount == 0) grow();
+    final var slot = freeSlots[--freeCount];
+    timeKeys[slot] = timeKey;
+    serialNumbers[slot] = serialNumber;
+    states[slot] = state;
+    locs[slot] = loc;
+    causes[slot] = cause;
+    vals[slot] = val;
+    siftUp(size++, slot);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(states, null);
+    Arrays.fill(locs, null);
+    Arrays.fill(causes, null);
+    Arrays.fill(vals, null);
+    size = 0;
+    freeCount = 0;
+    pushFreeSlots(timeKeys.length - 1, 0);
+  }
+
+  @Override
+  public void dispatch(int timeKey, PropagationPoints changedPoints) {
+    while (size > 0) {
+      final var slot = heap[0];
+      if (timeKeys[slot] != timeKey) break;
+      removeFirst();
+      final var state = states[slot];
+      final var loc = locs[slot];
+      if (changedPoints != null) changedPoints.add(state, loc);
+      state.markPointAsDirty(loc, causes[slot], vals[slot]);
+      release(slot);
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int peekTime() {
+    return timeKeys[heap[0]];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** @return the number of event slots currently allocated, used or not. */
+  int capacity() {
+    return timeKeys.length;
+  }
+
+  /**
+   * Doubles the capacity of all slot arrays and makes the new slots available.
+   */
+  private void grow() {
+    final var oldCapacity = timeKeys.length;
+    final var newCapacity = oldCapacity * 2;
+    timeKeys = Arrays.copyOf(timeKeys, newCapacity);
+    serialNumbers = Arrays.copyOf(serialNumbers, newCapacity);
+    states = Arrays.copyOf(states, newCapacity);
+    locs = Arrays.copyOf(locs, newCapacity);
+    causes = Arrays.copyOf(causes, newCapacity);
+    vals = Arrays.copyOf(vals, newCapacity);
+    heap = Arrays.copyOf(heap, newCapacity);
+    freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+    pushFreeSlots(newCapacity - 1, oldCapacity);
+  }
+
+  /** Pushes slots hi down to lo onto the free stack, so that lo is handed out first. */
+  private void pushFreeSlots(int hi, int lo) {
+    for (var slot = hi; slot >= lo; slot--) {
+      freeSlots[freeCount++] = slot;
+    }
+  }
+
+  /** Returns the slot to the free stack, dropping its references so they can be collected. */
+  private void release(int slot) {
+    states[slot] = null;
+    locs[slot] = null;
+    causes[slot] = null;
+    vals[slot] = null;
+    freeSlots[freeCount++] = slot;
+  }
+
+  /**
+   * Removes the smallest event from the heap.
+   *
+   * @return the slot of the removed event; its data stays valid until the slot is released.
+   */
+  private int removeFirst() {
+    final var slot = heap[0];
+    final var last = heap[--size];
+    if (size > 0) siftDown(0, last);
+    return slot;
+  }
+
+  private boolean less(int slotA, int slotB) {
+    // Yes, these subtractions may overflow. This is intentional, see QNode.compareTo().
+    final var diff = timeKeys[slotA] - timeKeys[slotB];
+    if (diff != 0) return diff < 0;
+    return serialNumbers[slotA] - serialNumbers[slotB] < 0;
+  }
+
+  private void siftUp(int pos, int slot) {
+    while (pos > 0) {
+      final var parent = (pos - 1) >>> 1;
+      final var parentSlot = heap[parent];
+      if (!less(slot, parentSlot)) break;
+      heap[pos] = parentSlot;
+      pos = parent;
+    }
+    heap[pos] = slot;
+  }
+
+  private void siftDown(int pos, int slot) {
+    final var half = size >>> 1;
+    while (pos < half) {
+      var child = 2 * pos + 1;
+      var childSlot = heap[child];
+      final var right = child + 1;
+      if (right < size && less(heap[right], childSlot)) {
+        child = right;
+        childSlot = heap[child];
+      }
+      if (!less(childSlot, slot)) break;
+      heap[pos] = childSlot;
+      pos = child;
+    }
+    heap[pos] = slot;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.EndData;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.List;
+
+/**
+ * The ports of a component bound to the slots holding their values in a CircuitState, so that a
+ * port is read with two array accesses rather than by looking its location up. Bindings are made
+ * by CircuitState.getPortBinding and dropped when the connectivity of the circuit is rebuilt or the
+ * values are replaced, including those held outside the state; one is made again if the ends of
+ * its component change.
+ */
+public final class PortBinding {
+  private final CircuitState state;
+  /** The version of the bindings of state this one belongs to. */
+  private final int version;
+  private final List<EndData> ends;
+  private final Location[] locations;
+  /** The page of the ValueMap holding the value of each port, null if it is not in a page. */
+  private final Value[][] pages;
+  private final int[] slots;
+
+  PortBinding(CircuitState state, ValueMap values, List<EndData> ends) {
+    this.state = state;
+    version = state.getPortBindingsVersion();
+    this.ends = ends;
+    final var count = ends.size();
+    locations = new Location[count];
+    pages = new Value[count][];
+    slots = new int[count];
+    for (var i = 0; i < count; i++) {
+      final var loc = ends.get(i).getLocation();
+      locations[i] = loc;
+      pages[i] = values.getPage(loc);
+      slots[i] = ValueMap.getSlot(loc);
+    }
+  }
+
+  /**
+   * @return whether the binding was made for these ends of its component, and has not been dropped
+   *     by its state since.
+   */
+  public boolean isValidFor(List<EndData> ends) {
+    return this.ends == ends && version == state.getPortBindingsVersion();
+  }
+
+  public Location getLocation(int port) {
+    return locations[port];
+  }
+
+  public Value getValue(int port) {
+    final var page = pages[port];
+    if (page != null) {
+      final var value = page[slots[port]];
+      if (value != null) return value;
+    }
+    // not propagated yet, or not on the grid
+    return state.getValue(locations[port]);
+  }
+}
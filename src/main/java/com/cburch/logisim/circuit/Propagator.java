@@ -99,15 +99,107 @@ public class Propagator {
    */
   private volatile int simRandomShift;
 
-  private class PriorityEventQueue<T extends QNode> extends PriorityQueue<T> implements QNodeQueue<T> {
+  /**
+   * Whether purely combinational circuits are evaluated in a single pass (see LevelizedCircuit)
+   * rather than one component at a time. Taken from the preferences when the propagator is created.
+   */
+  private volatile boolean levelized;
+
+  /**
+   * Whether circuits made of basic gates and flip-flops are translated for the dense simulator
+   * (see DenseTranslatedCircuit). Taken from the preferences when the propagator is created.
+   */
+  private volatile boolean denseTranslated;
+
+  /**
+   * Whether the dirty components of sibling substates are processed in parallel (see
+   * ParallelSubstates). Taken from the preferences when the propagator is created.
+   */
+  private volatile boolean parallelSubstates;
+
+  /**
+   * EventQueue is the view of the simulator event queue used by the Propagator. It lets the
+   * PooledEventQueue store events without creating a SimulatorEvent for each of them, while the
+   * QNodeQueue implementations are used through QNodeEventQueue.
+   */
+  interface EventQueue {
+    /** Adds an event to the queue. */
+    void add(int timeKey, int serialNumber, CircuitState state, Location loc, Component cause, Value val);
+
+    /** Removes all events from the queue. */
+    void clear();
+
+    /**
+     * Removes all events having the given time, which must be the smallest time in the queue, and
+     * marks their points as dirty in their circuit states.
+     *
+     * @param changedPoints if not null, receives every point that was touched.
+     */
+    void dispatch(int timeKey, PropagationPoints changedPoints);
+
+    boolean isEmpty();
+
+    /** @return the time of the earliest event. Precondition: the queue is not empty. */
+    int peekTime();
+
+    int size();
+  }
+
+  private static class PriorityEventQueue<T extends QNode> extends PriorityQueue<T> implements QNodeQueue<T> {
+  }
+
+  /** Adapts one of the QNodeQueue implementations, holding one SimulatorEvent per event. */
+  private static class QNodeEventQueue implements EventQueue {
+    private final QNodeQueue<SimulatorEvent> queue;
+
+    QNodeEventQueue(QNodeQueue<SimulatorEvent> queue) {
+      this.queue = queue;
+    }
+
+    @Override
+    public void add(int timeKey, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
+      queue.add(new SimulatorEvent(timeKey, serialNumber, state, loc, cause, val));
+    }
+
+    @Override
+    public void clear() {
+      queue.clear();
+    }
+
+    @Override
+    public void dispatch(int timeKey, PropagationPoints changedPoints) {
+      while (true) {
+        final var ev = queue.peek();
+        if (ev == null || ev.timeKey != timeKey) break;
+        queue.remove();
+        if (changedPoints != null) changedPoints.add(ev.state, ev.loc);
+        ev.state.markPointAsDirty(ev.loc, ev.cause, ev.val);
+      }
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return queue.isEmpty();
+    }
+
+    @Override
+    public int peekTime() {
+      return queue.peek().timeKey;
+    }
+
+    @Override
+    public int size() {
+      return queue.size();
+    }
   }
 
   /**
    * The simulator event queue can be implemented by a Java PriorityQueue, SplayQueue, LinkedQueue,
-   * or QueueOfQueues with the time queue either linked or TreeMap.The user may choose the
-   * implementation in the Experimental panel of User Preferences.
+   * QueueOfQueues with the time queue either linked or TreeMap, or by the allocation-free
+   * PooledEventQueue. The user may choose the implementation in the Experimental panel of User
+   * Preferences.
    */
-  private final QNodeQueue<SimulatorEvent> toProcess;
+  private final EventQueue toProcess;
 
   private int clock = 0;
   private boolean isOscillating = false;
@@ -123,22 +215,39 @@ public class Propagator {
   final int id = lastId++;
 
   public Propagator(CircuitState root) {
+    this(root, AppPreferences.SIMULATION_QUEUE.get());
+  }
+
+  /**
+   * Creates a propagator using the given event queue implementation instead of the one chosen in
+   * the preferences.
+   *
+   * @param simQueueType one of the AppPreferences.SIM_QUEUE_* constants.
+   */
+  public Propagator(CircuitState root, String simQueueType) {
     this.root = root;
     final var l = new Listener(this);
     root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
-    final var simQueueType = AppPreferences.SIMULATION_QUEUE.get();
-    toProcess = switch (simQueueType) {
-      case AppPreferences.SIM_QUEUE_LIST_OF_QUEUES, AppPreferences.SIM_QUEUE_TREE_OF_QUEUES
-          -> new QueueOfQueues<>(simQueueType);
-      case AppPreferences.SIM_QUEUE_LINKED -> new LinkedQueue<>();
-      case AppPreferences.SIM_QUEUE_SPLAY  -> new SplayQueue<>();
-      // case AppPreferences.SIM_QUEUE_PRIORITY  -> new PriorityEventQueue<>();
-      default -> new PriorityEventQueue<>();
-    };
+    toProcess = createEventQueue(simQueueType);
+    levelized = AppPreferences.SIMULATION_LEVELIZED.getBoolean();
+    denseTranslated = AppPreferences.SIMULATION_DENSE.getBoolean();
+    parallelSubstates = AppPreferences.SIMULATION_PARALLEL_SUBSTATES.getBoolean();
     updateRandomness();
     updateSimLimit();
   }
 
+  private static EventQueue createEventQueue(String simQueueType) {
+    return switch (simQueueType) {
+      case AppPreferences.SIM_QUEUE_LIST_OF_QUEUES, AppPreferences.SIM_QUEUE_TREE_OF_QUEUES
+          -> new QNodeEventQueue(new QueueOfQueues<>(simQueueType));
+      case AppPreferences.SIM_QUEUE_LINKED -> new QNodeEventQueue(new LinkedQueue<>());
+      case AppPreferences.SIM_QUEUE_SPLAY  -> new QNodeEventQueue(new SplayQueue<>());
+      case AppPreferences.SIM_QUEUE_POOLED -> new PooledEventQueue();
+      // case AppPreferences.SIM_QUEUE_PRIORITY  -> new QNodeEventQueue(new PriorityEventQueue<>());
+      default -> new QNodeEventQueue(new PriorityEventQueue<>());
+    };
+  }
+
   public void drawOscillatingPoints(ComponentDrawContext context) {
     if (isOscillating) oscPoints.draw(context);
   }
@@ -155,12 +264,31 @@ public class Propagator {
     return isOscillating;
   }
 
+  boolean isDenseTranslated() {
+    return denseTranslated;
+  }
+
+  boolean isLevelized() {
+    return levelized;
+  }
+
+  boolean isParallelSubstates() {
+    return parallelSubstates;
+  }
+
   boolean isPending() {
     return !toProcess.isEmpty();
   }
 
   void locationTouched(CircuitState state, Location loc) {
-    if (oscAdding) oscPoints.add(state, loc);
+    if (!oscAdding) return;
+    final var task = parallelSubstates ? ParallelSubstates.current() : null;
+    if (task != null) {
+      // the points are only added on the simulation thread, see ParallelSubstates
+      task.addTouched(state, loc);
+    } else {
+      oscPoints.add(state, loc);
+    }
   }
 
   public boolean propagate() {
@@ -211,6 +339,14 @@ public class Propagator {
   //
   void setValue(CircuitState state, Location pt, Value val, Component cause, int delay) {
     if (cause instanceof Wire || cause instanceof Splitter) return;
+    if (parallelSubstates) {
+      final var task = ParallelSubstates.current();
+      if (task != null) {
+        // sent once all sibling substates are processed, see ParallelSubstates
+        task.addEvent(state, pt, val, cause, delay);
+        return;
+      }
+    }
     if (delay <= 0) {
       delay = 1;
     }
@@ -228,7 +364,7 @@ public class Propagator {
         }
       }
     }
-    toProcess.add(new SimulatorEvent(clock + delay, eventSerialNumber, state, pt, cause, val));
+    toProcess.add(clock + delay, eventSerialNumber, state, pt, cause, val);
     eventSerialNumber++;
   }
 
@@ -253,25 +389,28 @@ public class Propagator {
     if (toProcess.isEmpty()) return;
 
     // update clock
-    clock = toProcess.peek().timeKey;
-
-    // propagate all values for this clock tick
-    while (true) {
-      SimulatorEvent ev = toProcess.peek();
-      if (ev == null || ev.timeKey != clock) break;
-      toProcess.remove();
-      final var state = ev.state;
+    clock = toProcess.peekTime();
 
-      if (changedPoints != null) changedPoints.add(state, ev.loc);
-
-      // if the value at point has changed, propagate it
-      state.markPointAsDirty(ev); // ev.loc, ev.cause, ev.val);
-    }
+    // propagate all values for this clock tick: if the value at a point has
+    // changed, it will be propagated by processDirtyPoints()
+    toProcess.dispatch(clock, changedPoints);
 
     root.processDirtyPoints();
     root.processDirtyComponents();
   }
 
+  void setDenseTranslated(boolean value) {
+    denseTranslated = value;
+  }
+
+  void setLevelized(boolean value) {
+    levelized = value;
+  }
+
+  void setParallelSubstates(boolean value) {
+    parallelSubstates = value;
+  }
+
   public boolean toggleClocks() {
     halfClockCycles++;
     return root.toggleClocks(halfClockCycles);
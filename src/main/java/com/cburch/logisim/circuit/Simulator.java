@@ -30,12 +30,20 @@ public class Simulator {
     private final boolean didTick;
     private final boolean didSingleStep;
     private final boolean didPropagate;
+    private final int tickCount;
+    private final boolean decoupled;
 
     public Event(Simulator src, boolean t, boolean s, boolean p) {
+      this(src, t, s, p, t ? 1 : 0, false);
+    }
+
+    public Event(Simulator src, boolean t, boolean s, boolean p, int ticks, boolean d) {
       source = src;
       didTick = t;
       didSingleStep = s;
       didPropagate = p;
+      tickCount = ticks;
+      decoupled = d;
     }
 
     public Simulator getSource() {
@@ -53,6 +61,20 @@ public class Simulator {
     public boolean didPropagate() {
       return didPropagate;
     }
+
+    /** @return the number of ticks the event stands for, more than one if coalesced. */
+    public int getTickCount() {
+      return tickCount;
+    }
+
+    /**
+     * @return whether the event comes from ticks run back to back, decoupled from the listeners:
+     *     a propagationCompleted event then stands for all the ticks since the previous one, each
+     *     of which was given to the SampleListeners by sampleTaken.
+     */
+    public boolean isDecoupled() {
+      return decoupled;
+    }
   }
 
   public static interface StatusListener {
@@ -83,6 +105,22 @@ public class Simulator {
     public void propagationCompleted(Event e);
   }
 
+  /**
+   * A listener needing every tick, such as the logger, when the auto-ticks are run decoupled from
+   * the listeners: the other ones only get the propagationCompleted events coalesced at the frame
+   * rate.
+   */
+  public static interface SampleListener extends Listener {
+    /**
+     * Notify listeners that a decoupled tick has completed. The propagationCompleted event of the
+     * frame follows the samples it includes.
+     * Called by the simulation thread.
+     *
+     * @param e The event describing the tick.
+     */
+    public void sampleTaken(Event e);
+  }
+
   public static interface ProgressListener extends Listener {
     public boolean wantsProgressEvents();
 
@@ -108,7 +146,9 @@ public class Simulator {
   //
   // [auto-tick]   If autoTicking is on and autoPropagation is on, the thread
   //               periodically wakes up and invokes toggleClocks() then
-  //               propagate().
+  //               propagate(). When decoupled, the auto-ticks are run back to
+  //               back, the SampleListeners getting each of them and the other
+  //               listeners one coalesced event per frame.
   //
   // [manual-tick] If the User/GUI requests a tick happen and autoPropagation is
   //               on, the thread wakes up and invokes toggleClocks() then
@@ -128,6 +168,8 @@ public class Simulator {
   private static class SimThread extends UniquelyNamedThread {
 
     private final Simulator sim;
+    private final boolean decoupled;
+    private final long frameNanos;
 
     private ReentrantLock simStateLock = new ReentrantLock();
     private Condition simStateUpdated = simStateLock.newCondition();
@@ -165,9 +207,23 @@ public class Simulator {
     // No synchronization needed.
     private long lastTick = System.nanoTime(); // time of last propagation start
 
-    SimThread(Simulator s) {
+    // The frame of ticks not yet reported when decoupled, and the time spent in
+    // the listeners during the current frame, used only within loop().
+    private long frameStart = System.nanoTime();
+    private long frameListenerNanos = 0;
+    private int frameTicks = 0;
+    private boolean frameStepped = false;
+    private boolean framePropagated = false;
+    private boolean autoTickRunning = false;
+
+    // Written by the simulation thread at the end of each frame of auto-ticks.
+    private volatile double listenerLoad = -1.0;
+
+    SimThread(Simulator s, boolean decoupled, int frameRate) {
       super("SimThread");
       sim = s;
+      this.decoupled = decoupled;
+      frameNanos = Math.round(1.0e9 / Math.max(frameRate, 1));
     }
 
     Propagator getPropagatorUnsynchronized() {
@@ -371,6 +427,7 @@ public class Simulator {
       var doTickIfStable = false;
       var doStep = false;
       var doProp = false;
+      var doAutoTick = false;
       var now = 0L;
 
       simStateLock.lock();
@@ -406,7 +463,13 @@ public class Simulator {
             doStep = !autoPropagating;
             ready = true;
           } else {
-            if (autoTicking && autoPropagating && autoTickNanos > 0) {
+            if (autoTicking && autoPropagating && decoupled) {
+              // no pacing, the listeners are told at the frame rate
+              doTick = true;
+              doProp = true;
+              doAutoTick = true;
+              ready = true;
+            } else if (autoTicking && autoPropagating && autoTickNanos > 0) {
               // see if it is time to do an auto-tick
               final var smooth = smoothingFactor;
               final var lastNanos = now - lastTick;
@@ -414,6 +477,7 @@ public class Simulator {
                 avgTickNanos = autoTickNanos;
                 doTick = true;
                 doProp = true;
+                doAutoTick = true;
                 ready = true;
               } else {
                 final var avg = ((smooth - 1.0) / smooth) * avgTickNanos + (1.0 / smooth) * lastNanos;
@@ -423,6 +487,7 @@ public class Simulator {
                   avgTickNanos = avg;
                   doTick = true;
                   doProp = true;
+                  doAutoTick = true;
                   ready = true;
                 } else if (delta < 1000000) {
                   simStateLock.unlock();
@@ -460,6 +525,13 @@ public class Simulator {
       // System.out.printf("%d nudge %s tick %s prop %s step %s\n", cnt++, doNudge, doTick, doProp,
       // doStep);
 
+      if (doAutoTick && !autoTickRunning) {
+        // the time spent waiting before this run of auto-ticks is not measured
+        frameStart = now;
+        frameListenerNanos = 0;
+      }
+      autoTickRunning = doAutoTick;
+
       exceptionEncountered = false;
 
       var oops = false;
@@ -494,7 +566,8 @@ public class Simulator {
         try {
           propagated = doProp;
           final var listener = sim.progressListener;
-          final var evt = listener == null ? null : new Event(sim, false, false, false);
+          final var evt =
+              listener == null ? null : new Event(sim, false, false, false, 0, doAutoTick && decoupled);
           stepPoints.clear();
           if (prop != null) {
             propagated |= prop.propagate(listener, evt);
@@ -545,11 +618,33 @@ public class Simulator {
         simStateLock.unlock();
       }
 
-      // We report nudges, but we report them as no-ops, unless they were
-      // accompanied by a tick, step, or propagate. That allows for a repaint in
-      // some components.
-      if (ticked || stepped || propagated || doNudge) {
-        sim.firePropagationCompleted(ticked, stepped && !propagated, propagated);
+      final var keepTicking = doAutoTick && !clockDied && !osc && autoTickingUnsynchronized;
+      final var listenersStart = System.nanoTime();
+      if (doAutoTick && decoupled && ticked) {
+        sim.fireSampleTaken(stepped && !propagated, propagated);
+        frameTicks++;
+        frameStepped |= stepped && !propagated;
+        framePropagated |= propagated;
+        if (!keepTicking || listenersStart - frameStart >= frameNanos) {
+          endFrame();
+        }
+      } else {
+        if (frameTicks > 0) {
+          endFrame();
+        }
+        // We report nudges, but we report them as no-ops, unless they were
+        // accompanied by a tick, step, or propagate. That allows for a repaint in
+        // some components.
+        if (ticked || stepped || propagated || doNudge) {
+          sim.firePropagationCompleted(ticked, stepped && !propagated, propagated);
+        }
+      }
+      if (doAutoTick) {
+        final var end = System.nanoTime();
+        frameListenerNanos += end - listenersStart;
+        if (frameTicks == 0 && end - frameStart >= frameNanos) {
+          measureFrame(end);
+        }
       }
       if (clockDied) {
         sim.fireSimulatorStateChanged();
@@ -557,6 +652,25 @@ public class Simulator {
       return true;
     }
 
+    // Reports the decoupled ticks of the frame to the listeners, coalesced.
+    private void endFrame() {
+      final var ticks = frameTicks;
+      frameTicks = 0;
+      sim.fireFrameCompleted(ticks, frameStepped, framePropagated);
+      frameStepped = false;
+      framePropagated = false;
+      measureFrame(System.nanoTime());
+    }
+
+    private void measureFrame(long now) {
+      final var elapsed = now - frameStart;
+      if (elapsed > 0) {
+        listenerLoad = Math.min((double) frameListenerNanos / elapsed, 1.0);
+      }
+      frameStart = now;
+      frameListenerNanos = 0;
+    }
+
     @Override
     public void run() {
       for (;;) {
@@ -607,7 +721,11 @@ public class Simulator {
   private volatile Listener[] listeners = new Listener[10];
 
   public Simulator() {
-    simThread = new SimThread(this);
+    simThread =
+        new SimThread(
+            this,
+            AppPreferences.SIMULATION_DECOUPLED.getBoolean(),
+            Integer.parseInt(AppPreferences.SIMULATION_FRAME_RATE.get()));
 
     try {
       simThread.setPriority(simThread.getPriority() - 1);
@@ -702,6 +820,34 @@ public class Simulator {
   // called from simThread
   private void firePropagationCompleted(boolean t, boolean s, boolean p) {
     final var event = new Event(this, t, s, p);
+    final var nrListeners = updateListeners();
+    for (var idx = 0; idx < nrListeners; idx++) {
+      listeners[idx].propagationCompleted(event);
+    }
+  }
+
+  // called from simThread
+  private void fireSampleTaken(boolean s, boolean p) {
+    final var event = new Event(this, true, s, p, 1, true);
+    final var nrListeners = updateListeners();
+    for (var idx = 0; idx < nrListeners; idx++) {
+      if (listeners[idx] instanceof SampleListener sampleListener) {
+        sampleListener.sampleTaken(event);
+      }
+    }
+  }
+
+  // called from simThread
+  private void fireFrameCompleted(int ticks, boolean s, boolean p) {
+    final var event = new Event(this, true, s, p, ticks, true);
+    final var nrListeners = updateListeners();
+    for (var idx = 0; idx < nrListeners; idx++) {
+      listeners[idx].propagationCompleted(event);
+    }
+  }
+
+  // called from simThread, rebuilds the array of listeners if they changed
+  private int updateListeners() {
     var nrListeners = numListeners;
     if (nrListeners < 0) {
       synchronized (lock) {
@@ -718,12 +864,7 @@ public class Simulator {
         numListeners = nrListeners;
       }
     }
-    if (nrListeners == 0) {
-      return;
-    }
-    for (var idx = 0; idx < nrListeners; idx++) {
-      listeners[idx].propagationCompleted(event);
-    }
+    return nrListeners;
   }
 
   // called from either the gui thread or the simulation thread
@@ -738,6 +879,22 @@ public class Simulator {
     return simThread.getTickFrequencyUnsynchronized();
   }
 
+  /**
+   * @return whether the auto-ticks are run back to back, the listeners being told at the frame
+   *     rate.
+   */
+  public boolean isDecoupled() {
+    return simThread.decoupled;
+  }
+
+  /**
+   * @return the part of the time of the last frame of auto-ticks spent in the listeners, between 0
+   *     and 1, or a negative number if not measured yet.
+   */
+  public double getListenerLoad() {
+    return simThread.listenerLoad;
+  }
+
   public boolean isExceptionEncountered() {
     return simThread.exceptionEncountered;
   }
@@ -386,6 +386,15 @@ public class SubcircuitFactory extends InstanceFactory {
 
   @Override
   public void propagate(InstanceState stateInContext) {
+    propagate(stateInContext, null);
+  }
+
+  /**
+   * Propagates the values of the input pins into the subcircuit and those of the output pins out
+   * of it, using the given values of the output pins rather than their current ones if outputs is
+   * not null (see ParallelSubstates).
+   */
+  void propagate(InstanceState stateInContext, Value[] outputs) {
     final var subState = getSubstate(stateInContext);
 
     final var attrs = (CircuitAttributes) stateInContext.getAttributeSet();
@@ -401,12 +410,22 @@ public class SubcircuitFactory extends InstanceFactory {
           Pin.FACTORY.propagate(pinState);
         }
       } else { // it is output-only
-        final var val = pinState.getPortValue(0);
+        final var val = outputs != null ? outputs[i] : pinState.getPortValue(0);
         stateInContext.setPort(i, val, 1);
       }
     }
   }
 
+  /** @return the current values of the pins of an instance of the subcircuit, in port order. */
+  Value[] getPinValues(Component comp, CircuitState subState) {
+    final var pins = ((CircuitAttributes) comp.getAttributeSet()).getPinInstances();
+    final var values = new Value[pins.length];
+    for (var i = 0; i < pins.length; i++) {
+      values[i] = subState.getInstanceState(pins[i]).getPortValue(0);
+    }
+    return values;
+  }
+
   @Override
   public void paintIcon(InstancePainter painter) {
     final var g2 = (Graphics2D) painter.getGraphics().create();
@@ -0,0 +1,171 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The values propagated in a CircuitState, by location. It is written by the thread propagating
+ * the state and read without any lock by everyone else, the canvas painter in particular.
+ *
+ * <p>Locations on the 10-pixel grid, which are nearly all of them, are kept in square pages of
+ * PAGE_SIZE x PAGE_SIZE grid points, created as the circuit needs them, so the map grows to any
+ * circuit extent. The few other locations go to a ConcurrentHashMap. Values are immutable, so a
+ * reader always gets a complete Value for a location: the one set by the last propagation step or
+ * one being set by the current step. Storing a value in an existing page is a plain array store;
+ * only creating pages, which is rare, is synchronized.
+ */
+final class ValueMap {
+  private static final int PAGE_BITS = 5;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  /** The pages, pages[pageY][pageX], each one holding the values of its grid points by row. */
+  private volatile Value[][][] pages = new Value[0][][];
+  private final ConcurrentHashMap<Location, Value> offGrid = new ConcurrentHashMap<>();
+
+  private static boolean isOnGrid(Location p) {
+    return p.x >= 0 && p.y >= 0 && p.x % 10 == 0 && p.y % 10 == 0;
+  }
+
+  /** @return the value at the location, or null if none was set. */
+  Value get(Location p) {
+    if (!isOnGrid(p)) return offGrid.get(p);
+    final var x = p.x / 10;
+    final var y = p.y / 10;
+    final var dir = pages;
+    final var pageY = y >> PAGE_BITS;
+    if (pageY >= dir.length) return null;
+    final var row = dir[pageY];
+    final var pageX = x >> PAGE_BITS;
+    if (pageX >= row.length) return null;
+    final var page = row[pageX];
+    return page == null ? null : page[(y & PAGE_MASK) << PAGE_BITS | (x & PAGE_MASK)];
+  }
+
+  /**
+   * Sets the value at the location, Value.NIL removing it.
+   *
+   * @return whether the value changed.
+   */
+  boolean set(Location p, Value v) {
+    if (!isOnGrid(p)) {
+      if (v == Value.NIL) {
+        final var old = offGrid.remove(p);
+        return old != null && old != Value.NIL;
+      }
+      return !v.equals(offGrid.put(p, v));
+    }
+    final var x = p.x / 10;
+    final var y = p.y / 10;
+    var page = findPage(x, y);
+    if (page == null) {
+      if (v == Value.NIL) return false;
+      page = createPage(x >> PAGE_BITS, y >> PAGE_BITS);
+    }
+    final var index = (y & PAGE_MASK) << PAGE_BITS | (x & PAGE_MASK);
+    final var old = page[index];
+    if (v == Value.NIL) {
+      if (old == null) return false;
+      page[index] = null;
+      return true;
+    }
+    if (v.equals(old)) return false;
+    page[index] = v;
+    return true;
+  }
+
+  /**
+   * @return the index of the location in its page, see getPage, or -1 if it is not kept in a
+   *     page.
+   */
+  static int getSlot(Location p) {
+    if (!isOnGrid(p)) return -1;
+    return ((p.y / 10) & PAGE_MASK) << PAGE_BITS | ((p.x / 10) & PAGE_MASK);
+  }
+
+  /**
+   * Returns the page holding the value of a location, created if needed, so that the value can be
+   * read later as page[getSlot(p)] without looking the location up again. A page stays in use
+   * until the values are replaced by copyFrom.
+   *
+   * @return the page, or null if the location is not kept in a page.
+   */
+  Value[] getPage(Location p) {
+    if (!isOnGrid(p)) return null;
+    final var x = p.x / 10;
+    final var y = p.y / 10;
+    final var page = findPage(x, y);
+    return page != null ? page : createPage(x >> PAGE_BITS, y >> PAGE_BITS);
+  }
+
+  private Value[] findPage(int x, int y) {
+    final var dir = pages;
+    final var pageY = y >> PAGE_BITS;
+    if (pageY >= dir.length) return null;
+    final var row = dir[pageY];
+    final var pageX = x >> PAGE_BITS;
+    return pageX < row.length ? row[pageX] : null;
+  }
+
+  /**
+   * Creates a page, growing the directory if needed. A grown row or directory is filled before
+   * being published, so readers see either the old one or the complete new one.
+   */
+  private synchronized Value[] createPage(int pageX, int pageY) {
+    var dir = pages;
+    if (pageY >= dir.length) {
+      final var grown = new Value[pageY + 1][][];
+      System.arraycopy(dir, 0, grown, 0, dir.length);
+      for (var i = dir.length; i < grown.length; i++) {
+        grown[i] = new Value[0][];
+      }
+      dir = grown;
+    } else {
+      dir = dir.clone();
+    }
+    var row = dir[pageY];
+    if (pageX < row.length && row[pageX] != null) return row[pageX];
+    row = Arrays.copyOf(row, Math.max(row.length, pageX + 1));
+    final var page = new Value[PAGE_SIZE * PAGE_SIZE];
+    row[pageX] = page;
+    dir[pageY] = row;
+    pages = dir;
+    return page;
+  }
+
+  /** Removes all values. The pages are kept, as the same locations are usually set again. */
+  synchronized void clear() {
+    for (final var row : pages) {
+      for (final var page : row) {
+        if (page != null) Arrays.fill(page, null);
+      }
+    }
+    offGrid.clear();
+  }
+
+  /** Replaces the values of this map by a copy of those of src. */
+  synchronized void copyFrom(ValueMap src) {
+    final var dir = src.pages;
+    final var copy = new Value[dir.length][][];
+    for (var y = 0; y < dir.length; y++) {
+      copy[y] = new Value[dir[y].length][];
+      for (var x = 0; x < dir[y].length; x++) {
+        if (dir[y][x] != null) copy[y][x] = dir[y][x].clone();
+      }
+    }
+    offGrid.clear();
+    offGrid.putAll(src.offGrid);
+    pages = copy;
+  }
+}
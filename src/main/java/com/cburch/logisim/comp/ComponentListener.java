@@ -21,4 +21,9 @@ public interface ComponentListener {
   default void labelChanged(ComponentEvent e) {
     // no-op implementation
   }
+
+  /** The bounds of the component changed, with or without its label. */
+  default void boundsChanged(ComponentEvent e) {
+    // no-op implementation
+  }
 }
@@ -139,6 +139,11 @@ public abstract class ManagedComponent extends AbstractComponent {
 
   protected void recomputeBounds() {
     bounds = null;
+    ComponentEvent e = null;
+    for (final var l : listeners) {
+      if (e == null) e = new ComponentEvent(this);
+      l.boundsChanged(e);
+    }
   }
 
   @Override
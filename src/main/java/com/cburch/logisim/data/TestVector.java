@@ -10,6 +10,7 @@
 package com.cburch.logisim.data;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
@@ -43,6 +44,7 @@ public class TestVector {
   private class TestVectorReader {
     private final BufferedReader in;
     private StringTokenizer curLine;
+    private int rowCount = 0;
 
     public TestVectorReader(BufferedReader in) throws IOException {
       this.in = in;
@@ -64,19 +66,34 @@ public class TestVector {
     }
 
     public void parse() throws IOException {
-      if (curLine == null) throw new IOException("TestVector format error: empty file");
-
       parseHeader();
       data = new ArrayList<>();
+      for (var row = next(); row != null; row = next()) {
+        data.add(row);
+      }
+    }
+
+    public void parseHeader() throws IOException {
+      if (curLine == null) throw new IOException("TestVector format error: empty file");
+
+      parseColumns();
       curLine = findNonemptyLine();
+    }
 
-      while (curLine != null) {
-        parseData();
-        curLine = findNonemptyLine();
-      }
+    public void skipHeader() throws IOException {
+      if (curLine == null) throw new IOException("TestVector format error: empty file");
+      curLine = findNonemptyLine();
     }
 
-    private void parseData() throws IOException {
+    /** Returns the next row of the vector, or null at the end of the file. */
+    public Value[] next() throws IOException {
+      if (curLine == null) return null;
+      final var vals = parseData();
+      curLine = findNonemptyLine();
+      return vals;
+    }
+
+    private Value[] parseData() throws IOException {
       final var vals = new Value[columnName.length];
       for (var i = 0; i < columnName.length; i++) {
         final var t = curLine.nextToken();
@@ -86,14 +103,15 @@ public class TestVector {
         } catch (Exception e) {
           throw new IOException("Test Vector data format error: " + e.getMessage());
         }
-        if (data.isEmpty()) columnRadix[i] = Value.radixOfLogString(columnWidth[i], t);
+        if (rowCount == 0) columnRadix[i] = Value.radixOfLogString(columnWidth[i], t);
       }
       if (curLine.hasMoreTokens())
         throw new IOException("Test Vector data format error: " + curLine.nextToken());
-      data.add(vals);
+      rowCount++;
+      return vals;
     }
 
-    private void parseHeader() throws IOException {
+    private void parseColumns() throws IOException {
       final var n = curLine.countTokens();
       columnName = new String[n];
       columnWidth = new BitWidth[n];
@@ -133,16 +151,70 @@ public class TestVector {
   public BitWidth[] columnWidth;
   public int[] columnRadix;
 
+  /** All rows of the vector, or null if the vector was opened with header(). */
   public List<Value[]> data;
 
+  private final File src;
+
   public TestVector(File src) throws IOException {
+    this(src, false);
+  }
+
+  public TestVector(String filename) throws IOException {
+    this(new File(filename));
+  }
+
+  private TestVector(File src, boolean headerOnly) throws IOException {
+    this.src = src;
     try (final var in = new BufferedReader(new FileReader(src))) {
       final var r = new TestVectorReader(in);
-      r.parse();
+      if (headerOnly) r.parseHeader();
+      else r.parse();
     }
   }
 
-  public TestVector(String filename) throws IOException {
-    this(new File(filename));
+  /**
+   * Reads the header of a test vector only, leaving data null. The rows are then read one at a
+   * time with openRows(), so that vectors of any length can be tested in constant memory.
+   */
+  public static TestVector header(File src) throws IOException {
+    return new TestVector(src, true);
+  }
+
+  /**
+   * Opens the file of the vector again and returns a reader of its rows, in order. The radix of
+   * the columns is set when the first row is read.
+   */
+  public RowReader openRows() throws IOException {
+    final var in = new BufferedReader(new FileReader(src));
+    try {
+      final var r = new TestVectorReader(in);
+      r.skipHeader();
+      return new RowReader(in, r);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /** Reads the rows of a test vector one at a time, see openRows(). */
+  public static final class RowReader implements Closeable {
+    private final BufferedReader in;
+    private final TestVectorReader reader;
+
+    private RowReader(BufferedReader in, TestVectorReader reader) {
+      this.in = in;
+      this.reader = reader;
+    }
+
+    /** Returns the next row, or null once all rows have been read. */
+    public Value[] next() throws IOException {
+      return reader.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
   }
 }
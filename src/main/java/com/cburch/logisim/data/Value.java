@@ -11,13 +11,17 @@ package com.cburch.logisim.data;
 
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.circuit.CircuitWires.BusConnection;
-import com.cburch.logisim.util.Cache;
 import java.awt.Color;
 import java.util.Arrays;
 
 public final class Value {
 
-  private static Value create(int width, long error, long unknown, long value) {
+  /**
+   * Creates a value from its bit masks. Bits set in error are errors, bits set in unknown (and not
+   * in error) are unknown, and the remaining bits take their value from value. Bits at or above
+   * width are ignored.
+   */
+  public static Value create(int width, long error, long unknown, long value) {
     if (width == 0) {
       return Value.NIL;
     } else if (width == 1) {
@@ -30,34 +34,35 @@ public final class Value {
       error = error & mask;
       unknown = unknown & mask & ~error;
       value = value & mask & ~unknown & ~error;
-
-      final var hashCode = Value.hashcode(width, error, unknown, value);
-      Object cached = cache.get(hashCode);
-      if (cached != null) {
-        Value val = (Value) cached;
-        if (val.value == value
-            && val.width == width
-            && val.error == error
-            && val.unknown == unknown) return val;
-      }
-      final var ret = new Value(width, error, unknown, value);
-      cache.put(hashCode, ret);
-      return ret;
+      return ValueCache.intern(width, error, unknown, value, hashcode(width, error, unknown, value));
     }
   }
 
   public static Value create_unsafe(int width, long error, long unknown, long value) {
-    int hashCode = Value.hashcode(width, error, unknown, value);
-    Object obj = cache.get(hashCode);
-    if (obj != null) {
-      Value val = (Value) obj;
-      if (val.value == value && val.width == width && val.error == error && val.unknown == unknown) {
-        return val;
-      }
-    }
-    Value ret = new Value(width, error, unknown, value);
-    cache.put(hashCode, ret);
-    return ret;
+    return ValueCache.intern(width, error, unknown, value, hashcode(width, error, unknown, value));
+  }
+
+  /**
+   * Same as create(), but returns a or b when one of them already has the resulting bits. Bitwise
+   * operations on buses often give back one of their operands (masking with all ones, combining a
+   * value with an unknown one, setting a bit to its current value...), which then costs neither a
+   * cache lookup nor an allocation.
+   */
+  private static Value createLike(Value a, Value b, int width, long error, long unknown,
+      long value) {
+    if (width <= 1) return create(width, error, unknown, value);
+    final var mask = (width == 64 ? -1L : ~(-1L << width));
+    error = error & mask;
+    unknown = unknown & mask & ~error;
+    value = value & mask & ~unknown & ~error;
+    if (a.hasBits(width, error, unknown, value)) return a;
+    if (b.hasBits(width, error, unknown, value)) return b;
+    return ValueCache.intern(width, error, unknown, value, hashcode(width, error, unknown, value));
+  }
+
+  /** Only called by ValueCache, all other values are interned. */
+  static Value allocate(int width, long error, long unknown, long value) {
+    return new Value(width, error, unknown, value);
   }
 
   public static Value create(Value[] values) {
@@ -225,8 +230,6 @@ public final class Value {
   public static Color widthErrorCaptionBgcolor = new Color(AppPreferences.WIDTH_ERROR_BACKGROUND_COLOR.get());
   public static Color clockFrequencyColor = new Color(AppPreferences.CLOCK_FREQUENCY_COLOR.get());
 
-  private static final Cache cache = new Cache();
-
   private final int width;
 
   private final long error;
@@ -243,17 +246,26 @@ public final class Value {
     this.value = value;
   }
 
+  private boolean hasBits(int width, long error, long unknown, long value) {
+    return this.value == value
+        && this.width == width
+        && this.error == error
+        && this.unknown == unknown;
+  }
+
   public Value and(Value other) {
     if (other == null) return this;
     if (this.width == 1 && other.width == 1) {
       if (this == FALSE || other == FALSE) return FALSE;
       if (this == TRUE && other == TRUE) return TRUE;
       return ERROR;
+    } else if (this.width == other.width && this.isFullyDefined() && other.isFullyDefined()) {
+      return createLike(this, other, width, 0, 0, this.value & other.value);
     } else {
       long false0 = ~this.value & ~this.error & ~this.unknown;
       long false1 = ~other.value & ~other.error & ~other.unknown;
       long falses = false0 | false1;
-      return Value.create(
+      return createLike(this, other,
           Math.max(this.width, other.width),
           (this.error | other.error | this.unknown | other.unknown) & ~falses,
           0,
@@ -275,7 +287,7 @@ public final class Value {
     } else {
       long enabled = (this.value | this.unknown) & ~this.error;
       long disabled = ~this.value & ~this.unknown & ~this.error;
-      return Value.create(other.width,
+      return createLike(other, other, other.width,
           (this.error | (other.error & ~disabled)),
           (disabled | other.unknown),
           (enabled & other.value));
@@ -293,7 +305,7 @@ public final class Value {
       return ERROR;
     } else if (this.width == other.width) {
       long disagree = (this.value ^ other.value) & ~(this.unknown | other.unknown);
-      return Value.create(
+      return createLike(this, other,
           width,
           this.error | other.error | disagree,
           this.unknown & other.unknown,
@@ -302,7 +314,7 @@ public final class Value {
       long thisKnown = ~this.unknown & (this.width == 64 ? -1 : ~(-1 << this.width));
       long otherKnown = ~other.unknown & (other.width == 64 ? -1 : ~(-1 << other.width));
       long disagree = (this.value ^ other.value) & thisKnown & otherKnown;
-      return Value.create(
+      return createLike(this, other,
           Math.max(this.width, other.width),
           this.error | other.error | disagree,
           ~thisKnown & ~otherKnown,
@@ -407,6 +419,21 @@ public final class Value {
     }
   }
 
+  /** @return the mask of the bits that are errors. */
+  public long getErrorMask() {
+    return error;
+  }
+
+  /** @return the mask of the bits that are unknown. */
+  public long getUnknownMask() {
+    return unknown;
+  }
+
+  /** @return the mask of the bits that are one (error and unknown bits are zero here). */
+  public long getValueMask() {
+    return value;
+  }
+
   public int getWidth() {
     return width;
   }
@@ -448,11 +475,13 @@ public final class Value {
       if (this == TRUE || other == TRUE) return TRUE;
       if (this == FALSE && other == FALSE) return FALSE;
       return ERROR;
+    } else if (this.width == other.width && this.isFullyDefined() && other.isFullyDefined()) {
+      return createLike(this, other, width, 0, 0, this.value | other.value);
     } else {
       long true0 = this.value & ~this.error & ~this.unknown;
       long true1 = other.value & ~other.error & ~other.unknown;
       long trues = true0 | true1;
-      return Value.create(
+      return createLike(this, other,
           Math.max(this.width, other.width),
           (this.error | other.error | this.unknown | other.unknown) & ~trues,
           0,
@@ -469,7 +498,7 @@ public final class Value {
       return val;
     } else {
       long mask = ~(1L << which);
-      return Value.create(
+      return createLike(this, this,
           this.width,
           (this.error & mask) | (val.error << which),
           (this.unknown & mask) | (val.unknown << which),
@@ -0,0 +1,129 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import com.cburch.logisim.prefs.AppPreferences;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interns the multi-bit values created by Value.create, so that a bus going through the same
+ * values over and over does not allocate a new Value each time.
+ *
+ * <p>Values are kept in direct-mapped tables without any lock: a Value is immutable, so a racing
+ * thread either sees a complete Value or an older one, and a lookup that loses a race merely
+ * misses. There is one set of tables per width class (2-8, 9-16, 17-32 and 33-64 bits), so that
+ * wide datapaths do not evict the values of narrow control buses, and the tables are sharded by
+ * thread, so that simulation threads do not keep writing to the same cache lines. Their size is
+ * set by the SIMULATION_VALUE_CACHE preference when the class is loaded.
+ *
+ * <p>Hit rates can be collected with setCollectingStatistics(true) and read with
+ * getStatistics(). Only ValueCacheBenchmark does so, to choose the size of the cache.
+ */
+public final class ValueCache {
+  /** Largest width of each width class. */
+  private static final int[] CLASS_MAX_WIDTH = {8, 16, 32, 64};
+
+  private static final int SHARDS;
+  private static final int LOG_SIZE;
+  /** The tables, indexed by (shard * CLASS_MAX_WIDTH.length + width class). */
+  private static final Value[][] TABLES;
+
+  private static volatile boolean collecting = false;
+  private static final LongAdder[] LOOKUPS = new LongAdder[CLASS_MAX_WIDTH.length];
+  private static final LongAdder[] HITS = new LongAdder[CLASS_MAX_WIDTH.length];
+
+  static {
+    LOG_SIZE = switch (AppPreferences.SIMULATION_VALUE_CACHE.get()) {
+      case AppPreferences.SIM_VALUE_CACHE_SMALL -> 8;
+      case AppPreferences.SIM_VALUE_CACHE_LARGE -> 14;
+      default -> 12;
+    };
+    SHARDS = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()));
+    TABLES = new Value[SHARDS * CLASS_MAX_WIDTH.length][1 << LOG_SIZE];
+    for (var i = 0; i < CLASS_MAX_WIDTH.length; i++) {
+      LOOKUPS[i] = new LongAdder();
+      HITS[i] = new LongAdder();
+    }
+  }
+
+  private ValueCache() {
+    // static methods only
+  }
+
+  /** The lookups and hits of the cache for one width class, see getStatistics(). */
+  record Statistics(int minWidth, int maxWidth, long lookups, long hits) {}
+
+  /**
+   * Returns the interned value with the given bits, creating it if needed. The bits must already
+   * be normalized as in Value.create, and width must be at least 2.
+   */
+  static Value intern(int width, long error, long unknown, long value, int hashCode) {
+    final var widthClass = widthClass(width);
+    final var table = TABLES[shard() * CLASS_MAX_WIDTH.length + widthClass];
+    // spread the hash, as values mostly differ in their low bits
+    final var slot = (hashCode ^ (hashCode >>> LOG_SIZE)) & (table.length - 1);
+    final var cached = table[slot];
+    final var hit = cached != null
+        && cached.getValueMask() == value
+        && cached.getWidth() == width
+        && cached.getErrorMask() == error
+        && cached.getUnknownMask() == unknown;
+    if (collecting) {
+      LOOKUPS[widthClass].increment();
+      if (hit) HITS[widthClass].increment();
+    }
+    if (hit) return cached;
+    final var ret = Value.allocate(width, error, unknown, value);
+    table[slot] = ret;
+    return ret;
+  }
+
+  private static int widthClass(int width) {
+    if (width <= 8) return 0;
+    if (width <= 16) return 1;
+    if (width <= 32) return 2;
+    return 3;
+  }
+
+  private static int shard() {
+    if (SHARDS == 1) return 0;
+    final var h = System.identityHashCode(Thread.currentThread());
+    return (h ^ (h >>> 16)) & (SHARDS - 1);
+  }
+
+  /** @return the number of entries of the cache, for each width class and each shard. */
+  public static int getSize() {
+    return 1 << LOG_SIZE;
+  }
+
+  /** Starts or stops counting the lookups and hits of the cache, which costs a little. */
+  static void setCollectingStatistics(boolean value) {
+    collecting = value;
+  }
+
+  /** Clears the counts of lookups and hits. */
+  static void resetStatistics() {
+    for (var i = 0; i < CLASS_MAX_WIDTH.length; i++) {
+      LOOKUPS[i].reset();
+      HITS[i].reset();
+    }
+  }
+
+  /** @return the lookups and hits counted so far, one entry per width class. */
+  static Statistics[] getStatistics() {
+    final var ret = new Statistics[CLASS_MAX_WIDTH.length];
+    var minWidth = 2;
+    for (var i = 0; i < ret.length; i++) {
+      ret[i] = new Statistics(minWidth, CLASS_MAX_WIDTH[i], LOOKUPS[i].sum(), HITS[i].sum());
+      minWidth = CLASS_MAX_WIDTH[i] + 1;
+    }
+    return ret;
+  }
+}
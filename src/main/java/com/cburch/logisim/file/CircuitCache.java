@@ -0,0 +1,642 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.generated.BuildInfo;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.memory.MemContents;
+import com.cburch.logisim.util.XmlUtil;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.xml.parsers.ParserConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * A binary cache of .circ files, holding what XmlStreamingReader hands to the ReadContext: the
+ * elements of the file once repaired, the wires as coordinates and the ROM contents as parsed.
+ * Loading a file from its cache replays these calls, without parsing nor repairing any XML; the
+ * components are still created by their factories.
+ *
+ * <p>A cache is keyed by the SHA-256 hash of the contents of its file, and is only used by the
+ * version of Logisim that wrote it. It is written when a file loads without any error, and is
+ * compressed. The caches are kept in the .logisim-evolution-cache directory of the user's home,
+ * which is pruned each time a cache is written: the caches not used for MAX_AGE are deleted, then
+ * the least recently used ones until the directory holds at most MAX_SIZE bytes.
+ */
+public final class CircuitCache {
+  static final Logger logger = LoggerFactory.getLogger(CircuitCache.class);
+
+  /** How the cache is used. */
+  public enum Mode {
+    /** Files are always loaded from their XML. */
+    OFF,
+    /** Files are loaded from their cache if it is up to date, and cached otherwise. */
+    ON,
+    /** Files are only loaded from their cache, and fail to load if it is not up to date. */
+    REQUIRED
+  }
+
+  private static final int MAGIC = 0x4c434343; // "LCCC"
+  private static final int FORMAT = 1;
+
+  // the calls to the ReadContext
+  private static final int OP_END = 0;
+  private static final int OP_ROOT = 1;
+  private static final int OP_LIBRARIES = 2;
+  private static final int OP_VHDL = 3;
+  private static final int OP_CIRCUIT = 4;
+  private static final int OP_COMPONENT = 5;
+  private static final int OP_WIRE = 6;
+  private static final int OP_CIRCUIT_END = 7;
+  private static final int OP_ELEMENT = 8;
+
+  // the child nodes of elements
+  private static final int NODE_END = 0;
+  private static final int NODE_ELEMENT = 1;
+  private static final int NODE_TEXT = 2;
+
+  // the parsed values of attribute elements
+  private static final int PARSED_NONE = 0;
+  private static final int PARSED_NULL = 1;
+  private static final int PARSED_CONTENTS = 2;
+
+  /** ROM contents are written by blocks of words, those of zeros being skipped. */
+  private static final int CONTENTS_BLOCK = 1024;
+
+  /** How long a cache is kept after it was last written or used. */
+  static final long MAX_AGE = 30L * 24 * 60 * 60 * 1000;
+  /** The size the caches are pruned down to. */
+  static final long MAX_SIZE = 256L << 20;
+  /** How long a temporary file, left by a run that did not finish writing it, is kept. */
+  private static final long MAX_TMP_AGE = 24L * 60 * 60 * 1000;
+
+  /** The mode set for this run, or null to follow the CIRCUIT_CACHE preference. */
+  private static volatile Mode mode = null;
+
+  private final byte[] hash;
+  private final File cacheFile;
+
+  private CircuitCache(byte[] hash) {
+    this.hash = hash;
+    this.cacheFile = new File(getDirectory(), HexFormat.of().formatHex(hash) + ".bin");
+  }
+
+  /** Sets how the cache is used for the rest of the run, or if null per the preference. */
+  public static void setMode(Mode value) {
+    mode = value;
+  }
+
+  static Mode getMode() {
+    final var ret = mode;
+    if (ret != null) return ret;
+    return AppPreferences.CIRCUIT_CACHE.getBoolean() ? Mode.ON : Mode.OFF;
+  }
+
+  static File getDirectory() {
+    return new File(System.getProperty("user.home"), ".logisim-evolution-cache");
+  }
+
+  /** @return the cache of the given .circ file, or null if the cache is not used. */
+  static CircuitCache forSource(File source) throws IOException {
+    return getMode() == Mode.OFF ? null : new CircuitCache(hash(source));
+  }
+
+  private static byte[] hash(File source) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    try (final var in = new FileInputStream(source)) {
+      final var buf = new byte[1 << 16];
+      for (var n = in.read(buf); n >= 0; n = in.read(buf)) {
+        digest.update(buf, 0, n);
+      }
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Loads a .circ file from its XML and writes its cache, and those of the .circ libraries it
+   * uses, replacing any.
+   *
+   * @return whether the cache was written, which it is not if the file had errors
+   */
+  public static boolean build(File source, Map<File, File> substitutions)
+      throws IOException, LoadFailedException {
+    final var cache = new CircuitCache(hash(source));
+    Files.deleteIfExists(cache.cacheFile.toPath());
+    final var old = mode;
+    mode = Mode.ON;
+    try {
+      new Loader(null).openLogisimFile(source, substitutions);
+    } finally {
+      mode = old;
+    }
+    return cache.cacheFile.isFile();
+  }
+
+  /**
+   * Loads a .circ file both from its XML and from its cache, and compares the two projects as
+   * they would be saved.
+   *
+   * @return whether the cache is up to date and loads the same project as the XML
+   */
+  public static boolean verify(File source, Map<File, File> substitutions)
+      throws IOException, LoadFailedException {
+    if (!new CircuitCache(hash(source)).cacheFile.isFile()) return false;
+    final var old = mode;
+    try {
+      mode = Mode.OFF;
+      final var fromXml = toXml(source, substitutions);
+      mode = Mode.REQUIRED;
+      final var fromCache = toXml(source, substitutions);
+      return Arrays.equals(fromXml, fromCache);
+    } finally {
+      mode = old;
+    }
+  }
+
+  private static byte[] toXml(File source, Map<File, File> substitutions)
+      throws LoadFailedException {
+    final var loader = new Loader(null);
+    final var file = loader.openLogisimFile(source, substitutions);
+    final var out = new ByteArrayOutputStream();
+    file.write(out, loader, source, null);
+    return out.toByteArray();
+  }
+
+  boolean isRequired() {
+    return getMode() == Mode.REQUIRED;
+  }
+
+  File getCacheFile() {
+    return cacheFile;
+  }
+
+  /**
+   * Replays the cache into the context, making the same calls as XmlStreamingReader would.
+   *
+   * @return false if there is no up-to-date cache, in which case the context is left untouched
+   * @throws IOException if the cache is invalid, or if there is no up-to-date cache but it is
+   *     required
+   */
+  boolean replay(XmlReader.ReadContext context, Project proj) throws IOException {
+    final var required = isRequired();
+    if (!cacheFile.isFile()) {
+      if (required) throw new IOException("No circuit cache " + cacheFile);
+      return false;
+    }
+    try (final var in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+      if (!readHeader(in)) {
+        if (required) throw new IOException("Circuit cache " + cacheFile + " is out of date");
+        return false;
+      }
+      final var start = System.nanoTime();
+      final var body = new InflaterInputStream(in);
+      new Replay(context, proj, new DataInputStream(new BufferedInputStream(body, 1 << 16))).run();
+      logger.debug("Replayed {} in {} ms", cacheFile, (System.nanoTime() - start) / 1_000_000);
+    }
+    // the caches are pruned by their last use
+    cacheFile.setLastModified(System.currentTimeMillis());
+    return true;
+  }
+
+  /**
+   * Deletes the caches of a directory not used for maxAge milliseconds, then the least recently
+   * used ones until the caches take at most maxSize bytes, and the temporary files left behind.
+   *
+   * @param keep a cache never deleted, the one just written
+   */
+  static void prune(File dir, File keep, long maxSize, long maxAge) {
+    final var files = dir.listFiles();
+    if (files == null) return;
+    final var now = System.currentTimeMillis();
+    final var caches = new ArrayList<File>();
+    for (final var file : files) {
+      final var name = file.getName();
+      final var age = now - file.lastModified();
+      if (name.endsWith(".bin") && file.isFile()) {
+        if (age > maxAge && !file.equals(keep)) {
+          delete(file);
+        } else {
+          caches.add(file);
+        }
+      } else if (name.startsWith("circuit") && name.endsWith(".tmp") && age > MAX_TMP_AGE) {
+        delete(file);
+      }
+    }
+    // the most recently used first
+    caches.sort(Comparator.comparingLong(File::lastModified).reversed());
+    var size = keep.length();
+    for (final var file : caches) {
+      if (file.equals(keep)) continue;
+      size += file.length();
+      if (size > maxSize) delete(file);
+    }
+  }
+
+  private static void delete(File file) {
+    if (file.delete()) {
+      logger.debug("Deleted the circuit cache {}", file);
+    } else {
+      logger.warn("Cannot delete the circuit cache {}", file);
+    }
+  }
+
+  private boolean readHeader(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != FORMAT) return false;
+    if (!BuildInfo.version.toString().equals(in.readUTF())) return false;
+    final var fileHash = new byte[in.readInt()];
+    in.readFully(fileHash);
+    return Arrays.equals(hash, fileHash);
+  }
+
+  /**
+   * Starts recording the calls made to a context, to write them in the cache.
+   *
+   * @param parsedValues the parsed values of the context, see ReadContext.setParsedValue
+   * @return the recorder, or null if the cache is not to be written
+   */
+  Recorder record(Map<Element, Object> parsedValues) {
+    if (isRequired()) return null;
+    try {
+      final var dir = getDirectory();
+      Files.createDirectories(dir.toPath());
+      return new Recorder(File.createTempFile("circuit", ".tmp", dir), parsedValues);
+    } catch (IOException e) {
+      logger.warn("Cannot write the circuit cache {}: {}", cacheFile, e.toString());
+      return null;
+    }
+  }
+
+  private interface IoAction {
+    void run() throws IOException;
+  }
+
+  /** Writes the calls XmlStreamingReader makes to a context, see the OP_ constants. */
+  final class Recorder {
+    private final File tmpFile;
+    private final Map<Element, Object> parsedValues;
+    private final HashMap<String, Integer> strings = new HashMap<>();
+    /** The stream, null once an error occurred. */
+    private DataOutputStream out;
+
+    private Recorder(File tmpFile, Map<Element, Object> parsedValues) throws IOException {
+      this.tmpFile = tmpFile;
+      this.parsedValues = parsedValues;
+      final var raw = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      raw.writeInt(MAGIC);
+      raw.writeInt(FORMAT);
+      raw.writeUTF(BuildInfo.version.toString());
+      raw.writeInt(hash.length);
+      raw.write(hash);
+      final var body = new DeflaterOutputStream(raw, new Deflater(Deflater.BEST_SPEED), 1 << 16);
+      out = new DataOutputStream(new BufferedOutputStream(body, 1 << 16));
+    }
+
+    void root(Element elt) {
+      record(() -> {
+        out.writeByte(OP_ROOT);
+        writeElement(elt);
+      });
+    }
+
+    void libraries(Iterable<Element> libElts) {
+      record(() -> {
+        final var elts = new ArrayList<Element>();
+        libElts.forEach(elts::add);
+        out.writeByte(OP_LIBRARIES);
+        out.writeInt(elts.size());
+        for (final var elt : elts) {
+          writeElement(elt);
+        }
+      });
+    }
+
+    void vhdl(Element elt) {
+      record(() -> {
+        out.writeByte(OP_VHDL);
+        writeElement(elt);
+      });
+    }
+
+    void circuit(Element circElt) {
+      record(() -> {
+        out.writeByte(OP_CIRCUIT);
+        writeElement(circElt);
+      });
+    }
+
+    void component(Element elt) {
+      record(() -> {
+        out.writeByte(OP_COMPONENT);
+        writeElement(elt);
+      });
+    }
+
+    void wire(Wire wire) {
+      record(() -> {
+        out.writeByte(OP_WIRE);
+        out.writeInt(wire.getEnd0().getX());
+        out.writeInt(wire.getEnd0().getY());
+        out.writeInt(wire.getEnd1().getX());
+        out.writeInt(wire.getEnd1().getY());
+      });
+    }
+
+    /** Records the end of a circuit, with the child elements of its circuit element. */
+    void circuitEnd(XmlReader.CircuitData circData) {
+      record(() -> {
+        out.writeByte(OP_CIRCUIT_END);
+        out.writeBoolean(circData.hasChildNodes);
+        writeChildren(circData.circuitElement);
+      });
+    }
+
+    void element(Element elt) {
+      record(() -> {
+        out.writeByte(OP_ELEMENT);
+        writeElement(elt);
+      });
+    }
+
+    /**
+     * Ends the recording, moving the cache in place if it is to be saved and no error occurred
+     * while writing it.
+     */
+    void finish(boolean save) {
+      record(() -> out.writeByte(OP_END));
+      if (out == null) {
+        tmpFile.delete();
+        return;
+      }
+      try {
+        out.close();
+        if (save) {
+          Files.move(
+              tmpFile.toPath(),
+              cacheFile.toPath(),
+              StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+          logger.debug("Wrote the circuit cache {}", cacheFile);
+          prune(cacheFile.getParentFile(), cacheFile, MAX_SIZE, MAX_AGE);
+        }
+      } catch (IOException e) {
+        logger.warn("Cannot write the circuit cache {}: {}", cacheFile, e.toString());
+      } finally {
+        out = null;
+        tmpFile.delete();
+      }
+    }
+
+    private void record(IoAction action) {
+      if (out == null) return;
+      try {
+        action.run();
+      } catch (IOException e) {
+        logger.warn("Cannot write the circuit cache {}: {}", cacheFile, e.toString());
+        try {
+          out.close();
+        } catch (IOException ignored) {
+          // already failing
+        }
+        out = null;
+      }
+    }
+
+    private void writeElement(Element elt) throws IOException {
+      writeString(elt.getTagName());
+      final var attrs = elt.getAttributes();
+      out.writeInt(attrs.getLength());
+      for (var i = 0; i < attrs.getLength(); i++) {
+        final var attr = attrs.item(i);
+        writeString(attr.getNodeName());
+        writeString(attr.getNodeValue());
+      }
+      if (!parsedValues.containsKey(elt)) {
+        out.writeByte(PARSED_NONE);
+      } else if (parsedValues.get(elt) instanceof MemContents contents) {
+        out.writeByte(PARSED_CONTENTS);
+        writeContents(contents);
+      } else if (parsedValues.get(elt) == null) {
+        out.writeByte(PARSED_NULL);
+      } else {
+        throw new IOException("Cannot cache " + parsedValues.get(elt).getClass());
+      }
+      writeChildren(elt);
+    }
+
+    private void writeChildren(Element elt) throws IOException {
+      for (var node = elt.getFirstChild(); node != null; node = node.getNextSibling()) {
+        if (node instanceof Element child) {
+          out.writeByte(NODE_ELEMENT);
+          writeElement(child);
+        } else if (node.getNodeType() == Node.TEXT_NODE) {
+          out.writeByte(NODE_TEXT);
+          writeText(node.getNodeValue());
+        }
+      }
+      out.writeByte(NODE_END);
+    }
+
+    private void writeContents(MemContents contents) throws IOException {
+      out.writeInt(contents.getLogLength());
+      out.writeInt(contents.getWidth());
+      final var size = 1L << contents.getLogLength();
+      final var block = new long[CONTENTS_BLOCK];
+      for (var start = 0L; start < size; start += CONTENTS_BLOCK) {
+        final var length = (int) Math.min(CONTENTS_BLOCK, size - start);
+        var zero = true;
+        for (var i = 0; i < length; i++) {
+          block[i] = contents.get(start + i);
+          zero &= block[i] == 0;
+        }
+        if (zero) continue;
+        out.writeLong(start);
+        out.writeInt(length);
+        for (var i = 0; i < length; i++) {
+          out.writeLong(block[i]);
+        }
+      }
+      out.writeLong(-1);
+    }
+
+    /** Writes a name or an attribute value, each distinct one once. */
+    private void writeString(String s) throws IOException {
+      final var id = strings.get(s);
+      if (id != null) {
+        out.writeInt(id);
+        return;
+      }
+      strings.put(s, strings.size());
+      out.writeInt(-1);
+      writeText(s);
+    }
+
+    private void writeText(String s) throws IOException {
+      final var bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /** Makes the calls recorded in a cache to a context. */
+  private static final class Replay {
+    private final XmlReader.ReadContext context;
+    private final Project proj;
+    private final DataInputStream in;
+    private final Document doc;
+    private final ArrayList<String> strings = new ArrayList<>();
+
+    Replay(XmlReader.ReadContext context, Project proj, DataInputStream in) throws IOException {
+      this.context = context;
+      this.proj = proj;
+      this.in = in;
+      try {
+        this.doc = XmlUtil.getHardenedBuilderFactory().newDocumentBuilder().newDocument();
+      } catch (ParserConfigurationException e) {
+        throw new IOException(e);
+      }
+    }
+
+    void run() throws IOException {
+      final var circuitsData = new ArrayList<XmlReader.CircuitData>();
+      XmlReader.CircuitData circData = null;
+      while (true) {
+        final var op = in.readByte();
+        if (op >= OP_COMPONENT && op <= OP_CIRCUIT_END && circData == null) {
+          throw new IOException("Circuit cache operation " + op + " out of a circuit");
+        }
+        switch (op) {
+          case OP_ROOT -> context.initVersion(readElement());
+          case OP_LIBRARIES -> {
+            final var libElts = new ArrayList<Element>();
+            for (var n = in.readInt(); n > 0; n--) {
+              libElts.add(readElement());
+            }
+            context.loadLibraries(libElts);
+          }
+          case OP_VHDL -> context.loadVhdl(readElement());
+          case OP_CIRCUIT -> {
+            circData = context.createCircuit(readElement(), proj);
+            circuitsData.add(circData);
+          }
+          case OP_COMPONENT -> context.addComponent(circData, readElement());
+          case OP_WIRE -> {
+            final var end0 = Location.create(in.readInt(), in.readInt(), true);
+            final var end1 = Location.create(in.readInt(), in.readInt(), true);
+            context.addWire(circData, Wire.create(end0, end1));
+          }
+          case OP_CIRCUIT_END -> {
+            circData.hasChildNodes = in.readBoolean();
+            readChildren(circData.circuitElement);
+            context.finishCircuit(circData);
+            circData = null;
+          }
+          case OP_ELEMENT -> context.loadElement(readElement());
+          case OP_END -> {
+            context.buildCircuits(circuitsData);
+            return;
+          }
+          default -> throw new IOException("Invalid circuit cache operation " + op);
+        }
+      }
+    }
+
+    private Element readElement() throws IOException {
+      final var elt = doc.createElement(readString());
+      for (var n = in.readInt(); n > 0; n--) {
+        elt.setAttribute(readString(), readString());
+      }
+      switch (in.readByte()) {
+        case PARSED_NONE -> {
+          // nothing parsed
+        }
+        case PARSED_NULL -> context.setParsedValue(elt, null);
+        case PARSED_CONTENTS -> context.setParsedValue(elt, readContents());
+        default -> throw new IOException("Invalid circuit cache value");
+      }
+      readChildren(elt);
+      return elt;
+    }
+
+    private void readChildren(Element elt) throws IOException {
+      while (true) {
+        switch (in.readByte()) {
+          case NODE_END -> {
+            return;
+          }
+          case NODE_ELEMENT -> elt.appendChild(readElement());
+          case NODE_TEXT -> elt.appendChild(doc.createTextNode(readText()));
+          default -> throw new IOException("Invalid circuit cache node");
+        }
+      }
+    }
+
+    private MemContents readContents() throws IOException {
+      final var contents = MemContents.create(in.readInt(), in.readInt(), false);
+      for (var start = in.readLong(); start >= 0; start = in.readLong()) {
+        final var values = new long[in.readInt()];
+        for (var i = 0; i < values.length; i++) {
+          values[i] = in.readLong();
+        }
+        contents.set(start, values);
+      }
+      return contents;
+    }
+
+    private String readString() throws IOException {
+      final var id = in.readInt();
+      if (id == -1) {
+        final var s = readText();
+        strings.add(s);
+        return s;
+      }
+      if (id < 0 || id >= strings.size()) throw new IOException("Invalid circuit cache string");
+      return strings.get(id);
+    }
+
+    private String readText() throws IOException {
+      final var bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+}
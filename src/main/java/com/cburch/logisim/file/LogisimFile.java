@@ -236,10 +236,11 @@ public class LogisimFile extends Library implements LibraryEventSource, CircuitL
     }
 
     LogisimFile result = null;
+    final var cache = CircuitCache.forSource(loadFile);
     FileInputStream inputStream = new FileInputStream(loadFile);
     Throwable firstExcept = null;
     try {
-      result = loadSub(inputStream, loader, file);
+      result = loadSub(inputStream, loader, file, cache);
     } catch (Throwable t) {
       firstExcept = t;
     } finally {
@@ -252,7 +253,7 @@ public class LogisimFile extends Library implements LibraryEventSource, CircuitL
     if (firstExcept != null) {
       try {
         final var readerInputStream = new ReaderInputStream(new FileReader(loadFile), "UTF8");
-        result = loadSub(readerInputStream, loader, file);
+        result = loadSub(readerInputStream, loader, file, cache);
       } catch (Exception t) {
         firstExcept.printStackTrace();
         loader.showError(S.get("xmlFormatError", firstExcept.toString()));
@@ -285,6 +286,11 @@ public class LogisimFile extends Library implements LibraryEventSource, CircuitL
   }
 
   public static LogisimFile loadSub(InputStream in, Loader loader, File file) throws IOException, SAXException {
+    return loadSub(in, loader, file, null);
+  }
+
+  private static LogisimFile loadSub(InputStream in, Loader loader, File file, CircuitCache cache)
+      throws IOException, SAXException {
     // fetch first line and then reset
     final var inBuffered = new BufferedInputStream(in);
     final var firstLine = getFirstLine(inBuffered);
@@ -299,7 +305,7 @@ public class LogisimFile extends Library implements LibraryEventSource, CircuitL
 
     final var xmlReader = new XmlReader(loader, file);
     /* Can set the project pointer to zero as it is fixed later */
-    final var ret = xmlReader.readLibrary(inBuffered, null);
+    final var ret = xmlReader.readLibrary(inBuffered, null, cache);
     ret.loader = loader;
     return ret;
   }
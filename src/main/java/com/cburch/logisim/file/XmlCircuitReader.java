@@ -16,6 +16,7 @@ import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitAttributes;
 import com.cburch.logisim.circuit.CircuitMutator;
 import com.cburch.logisim.circuit.CircuitTransaction;
+import com.cburch.logisim.circuit.SubcircuitFactory;
 import com.cburch.logisim.circuit.Wire;
 import com.cburch.logisim.circuit.appear.AppearanceSvgReader;
 import com.cburch.logisim.comp.Component;
@@ -28,12 +29,14 @@ import com.cburch.logisim.std.memory.Ram;
 import com.cburch.logisim.std.memory.RamAttributes;
 import com.cburch.logisim.tools.AddTool;
 import com.cburch.logisim.util.CollectionUtil;
+import com.cburch.logisim.util.Dag;
 import com.cburch.logisim.util.StringUtil;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
 import org.w3c.dom.Element;
 
 public class XmlCircuitReader extends CircuitTransaction {
@@ -113,40 +116,39 @@ public class XmlCircuitReader extends CircuitTransaction {
     }
   }
 
-  void addWire(Circuit dest, CircuitMutator mutator, Element elt) throws XmlReaderException {
+  /**
+   * @param from the start of the wire
+   * @param to the end of the wire
+   * @return the wire, or null for a zero-length wire
+   * @throws XmlReaderException
+   */
+  static Wire getWire(String from, String to) throws XmlReaderException {
     Location pt0;
     try {
-      final var str = elt.getAttribute("from");
-      if (str == null || "".equals(str)) {
+      if (from == null || "".equals(from)) {
         throw new XmlReaderException(S.get("wireStartMissingError"));
       }
-      pt0 = Location.parse(str);
+      pt0 = Location.parse(from);
     } catch (NumberFormatException e) {
       throw new XmlReaderException(S.get("wireStartInvalidError"));
     }
 
     Location pt1;
     try {
-      final var str = elt.getAttribute("to");
-      if (str == null || "".equals(str)) {
+      if (to == null || "".equals(to)) {
         throw new XmlReaderException(S.get("wireEndMissingError"));
       }
-      pt1 = Location.parse(str);
+      pt1 = Location.parse(to);
     } catch (NumberFormatException e) {
       throw new XmlReaderException(S.get("wireEndInvalidError"));
     }
 
-    if (!pt0.equals(pt1)) {
-      // Avoid zero length wires
-      mutator.add(dest, Wire.create(pt0, pt1));
-    }
+    // Avoid zero length wires
+    return pt0.equals(pt1) ? null : Wire.create(pt0, pt1);
   }
 
   private void buildCircuit(XmlReader.CircuitData circData, CircuitMutator mutator) {
-    final var element = circData.circuitElement;
     final var dest = circData.circuit;
-    var knownComponents = circData.knownComponents;
-    if (knownComponents == null) knownComponents = Collections.emptyMap();
     try {
       /* Here we check the attribute circuitnamedbox for backwards compatibility */
       var hasNamedBox = false;
@@ -162,7 +164,7 @@ public class XmlCircuitReader extends CircuitTransaction {
       }
       reader.initAttributeSet(
           circData.circuitElement, dest.getStaticAttributes(), null, isHolyCross, isEvolution);
-      if (circData.circuitElement.hasChildNodes()) {
+      if (circData.hasChildNodes) {
         if (hasNamedBox) {
           // This situation is clear, it is an older logisim-evolution file
           final var appear =
@@ -192,51 +194,34 @@ public class XmlCircuitReader extends CircuitTransaction {
       reader.addErrors(e, circData.circuit.getName() + ".static");
     }
 
+    resolveComponents(reader, circData, isHolyCross, isEvolution);
+    final var toAdd = new ArrayList<Component>(circData.components.size() + circData.wires.size());
     final var componentsAt = new HashMap<Bounds, Component>();
     final var overlapComponents = new ArrayList<Component>();
-    for (final var subElement : XmlIterator.forChildElements(element)) {
-      final var subEltName = subElement.getTagName();
-      if ("comp".equals(subEltName)) {
-        try {
-          var comp = knownComponents.get(subElement);
-          if (comp == null) comp = getComponent(subElement, reader, isHolyCross, isEvolution);
-          if (comp != null) {
-            /* filter out empty text boxes */
-            if (comp.getFactory() instanceof Text) {
-              if (comp.getAttributeSet().getValue(Text.ATTR_TEXT).isEmpty()) {
-                continue;
-              }
-            }
-            final var bds = comp.getBounds();
-            final var conflict = componentsAt.get(bds);
-            if (conflict != null) {
-              final var msg =
-                  S.get(
-                      "fileComponentOverlapError",
-                      conflict.getFactory().getName() + conflict.getLocation(),
-                      comp.getFactory().getName() + conflict.getLocation());
-              reader.addError(msg, circData.circuit.getName());
-              overlapComponents.add(comp);
-            } else {
-              mutator.add(dest, comp);
-              componentsAt.put(bds, comp);
-            }
-          }
-        } catch (XmlReaderException e) {
-          final var context =
-              String.format(contextFmt, circData.circuit.getName(), toComponentString(subElement));
-          reader.addErrors(e, context);
-        }
-      } else if ("wire".equals(subEltName)) {
-        try {
-          addWire(dest, mutator, subElement);
-        } catch (XmlReaderException e) {
-          final var context =
-              String.format(contextFmt, circData.circuit.getName(), toWireString(subElement));
-          reader.addErrors(e, context);
+    for (final var item : circData.components) {
+      final var comp = (Component) item;
+      /* filter out empty text boxes */
+      if (comp.getFactory() instanceof Text) {
+        if (comp.getAttributeSet().getValue(Text.ATTR_TEXT).isEmpty()) {
+          continue;
         }
       }
+      final var bds = comp.getBounds();
+      final var conflict = componentsAt.get(bds);
+      if (conflict != null) {
+        final var msg =
+            S.get(
+                "fileComponentOverlapError",
+                conflict.getFactory().getName() + conflict.getLocation(),
+                comp.getFactory().getName() + conflict.getLocation());
+        reader.addError(msg, circData.circuit.getName());
+        overlapComponents.add(comp);
+      } else {
+        toAdd.add(comp);
+        componentsAt.put(bds, comp);
+      }
     }
+    toAdd.addAll(circData.wires);
     for (var comp : overlapComponents) {
       final var bds = comp.getBounds();
       if (bds.getHeight() == 0 || bds.getWidth() == 0) {
@@ -251,8 +236,105 @@ public class XmlCircuitReader extends CircuitTransaction {
       final var attrs = (AttributeSet) comp.getAttributeSet().clone();
       comp = comp.getFactory().createComponent(loc, attrs);
       componentsAt.put(comp.getBounds(), comp);
-      mutator.add(dest, comp);
+      toAdd.add(comp);
+    }
+    mutator.addAll(dest, toAdd);
+  }
+
+  /**
+   * Creates the components left as comp elements while the file was read, mostly instances of
+   * circuits further in the file. The components that cannot be created are reported and dropped.
+   */
+  private static void resolveComponents(
+      XmlReader.ReadContext reader,
+      XmlReader.CircuitData circData,
+      boolean isHolyCross,
+      boolean isEvolution) {
+    for (final var it = circData.components.listIterator(); it.hasNext(); ) {
+      if (!(it.next() instanceof Element subElement)) continue;
+      try {
+        final var comp = getComponent(subElement, reader, isHolyCross, isEvolution);
+        if (comp == null) {
+          it.remove();
+        } else {
+          it.set(comp);
+        }
+      } catch (XmlReaderException e) {
+        final var context =
+            String.format(contextFmt, circData.circuit.getName(), toComponentString(subElement));
+        reader.addErrors(e, context);
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Builds the circuits on the common fork-join pool rather than all in one transaction. A circuit
+   * is built, in a transaction of its own, once the circuits it instantiates are all built: the
+   * ports of an instance follow the appearance of its circuit, which is only complete then. The
+   * circuits are thus built by levels of the dependency Dag, from the leaves up, the circuits of a
+   * level in parallel.
+   */
+  static void executeInParallel(
+      XmlReader.ReadContext reader,
+      List<XmlReader.CircuitData> circuitsData,
+      boolean isHolyCross,
+      boolean isEvolution) {
+    final var circuits = new HashSet<Circuit>();
+    for (final var circData : circuitsData) {
+      circuits.add(circData.circuit);
+    }
+    // creating an instance listens to the appearance of its circuit, so the instances are all
+    // created before any circuit is built
+    final var depends = new Dag();
+    for (final var circData : circuitsData) {
+      resolveComponents(reader, circData, isHolyCross, isEvolution);
+      final var subcircuits = new HashSet<Circuit>();
+      for (final var item : circData.components) {
+        if (((Component) item).getFactory() instanceof SubcircuitFactory factory
+            && circuits.contains(factory.getSubcircuit())) {
+          subcircuits.add(factory.getSubcircuit());
+        }
+      }
+      for (final var sub : subcircuits) {
+        depends.addEdge(circData.circuit, sub);
+      }
     }
+
+    final var pending = new ArrayList<>(circuitsData);
+    var levels = 0;
+    while (!pending.isEmpty()) {
+      final var level = new ArrayList<XmlReader.CircuitData>();
+      for (final var circData : pending) {
+        if (!depends.hasSuccessors(circData.circuit)) level.add(circData);
+      }
+      // the Dag refuses cycles, so there is always a circuit ready
+      if (level.isEmpty()) level.addAll(pending);
+      pending.removeAll(level);
+      final var forked = new ArrayList<ForkJoinTask<?>>();
+      for (var i = 1; i < level.size(); i++) {
+        final var builder =
+            new XmlCircuitReader(reader, List.of(level.get(i)), isHolyCross, isEvolution);
+        forked.add(ForkJoinTask.adapt(builder::execute).fork());
+      }
+      try {
+        new XmlCircuitReader(reader, List.of(level.get(0)), isHolyCross, isEvolution).execute();
+      } finally {
+        // no build of the level may still be running once this returns, even by an exception
+        for (final var task : forked) {
+          task.quietlyJoin();
+        }
+      }
+      for (final var task : forked) {
+        // rethrows what a forked build threw
+        task.join();
+      }
+      for (final var circData : level) {
+        depends.removeNode(circData.circuit);
+      }
+      levels++;
+    }
+    XmlReader.logger.debug("Built {} circuits in {} levels", circuitsData.size(), levels);
   }
 
   private void buildDynamicAppearance(XmlReader.CircuitData circData) {
@@ -315,15 +397,9 @@ public class XmlCircuitReader extends CircuitTransaction {
     }
   }
 
-  private String toComponentString(Element elt) {
+  private static String toComponentString(Element elt) {
     final var name = elt.getAttribute("name");
     final var loc = elt.getAttribute("loc");
     return String.format("%s(%s)", name, loc);
   }
-
-  private String toWireString(Element elt) {
-    final var from = elt.getAttribute("from");
-    final var to = elt.getAttribute("to");
-    return String.format("w%s-%s", from, to);
-  }
 }
@@ -15,7 +15,7 @@ import com.cburch.draw.model.AbstractCanvasObject;
 import com.cburch.logisim.LogisimVersion;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitMapInfo;
-import com.cburch.logisim.circuit.Splitter;
+import com.cburch.logisim.circuit.Wire;
 import com.cburch.logisim.circuit.appear.AppearanceSvgReader;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Attribute;
@@ -29,53 +29,45 @@ import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.proj.Project;
-import com.cburch.logisim.std.base.Text;
-import com.cburch.logisim.std.wiring.BitExtender;
-import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
-import com.cburch.logisim.std.wiring.Probe;
 import com.cburch.logisim.std.wiring.ProbeAttributes;
-import com.cburch.logisim.std.wiring.PullResistor;
-import com.cburch.logisim.std.wiring.Tunnel;
-import com.cburch.logisim.tools.EditTool;
 import com.cburch.logisim.tools.Library;
-import com.cburch.logisim.tools.MenuTool;
-import com.cburch.logisim.tools.PokeTool;
-import com.cburch.logisim.tools.SelectTool;
-import com.cburch.logisim.tools.TextTool;
 import com.cburch.logisim.tools.Tool;
-import com.cburch.logisim.tools.WiringTool;
 import com.cburch.logisim.util.InputEventUtil;
 import com.cburch.logisim.util.LineBuffer;
 import com.cburch.logisim.util.StringUtil;
-import com.cburch.logisim.util.XmlUtil;
 import com.cburch.logisim.vhdl.base.VhdlContent;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
 class XmlReader {
 
   static class CircuitData {
+    /** The circuit element, holding its attributes and appearance but not its contents. */
     final Element circuitElement;
     final Circuit circuit;
-    Map<Element, Component> knownComponents;
+    /**
+     * The components, in file order. The comp elements of the components that could not be created
+     * yet, like instances of circuits further in the file, stand for their component.
+     */
+    final List<Object> components = new ArrayList<>();
+    final List<Wire> wires = new ArrayList<>();
+    /** Whether the circuit element had any child node, including the components and wires. */
+    boolean hasChildNodes;
     List<AbstractCanvasObject> appearance;
 
     public CircuitData(Element circuitElement, Circuit circuit) {
@@ -87,24 +79,39 @@ class XmlReader {
   class ReadContext {
     final LogisimFile file;
     LogisimVersion sourceVersion;
+    boolean isHolyCrossFile = false;
+    boolean isEvolutionFile = true;
     final HashMap<String, Library> libs = new HashMap<>();
+    /** Attribute values parsed while the file was read, by attribute element, see setParsedValue. */
+    private final HashMap<Element, Object> parsedValues = new HashMap<>();
     private final ArrayList<String> messages;
+    /** Records the calls made to this context into the circuit cache, if it is written. */
+    private CircuitCache.Recorder recorder;
 
     ReadContext(LogisimFile file) {
       this.file = file;
       this.messages = new ArrayList<>();
     }
 
-    void addError(String message, String context) {
+    // errors may be added by the threads building circuits in parallel
+    synchronized void addError(String message, String context) {
       messages.add(message + " [" + context + "]");
     }
 
-    void addErrors(XmlReaderException exception, String context) {
+    synchronized void addErrors(XmlReaderException exception, String context) {
       for (final var msg : exception.getMessages()) {
         messages.add(msg + " [" + context + "]");
       }
     }
 
+    /**
+     * Sets the value of an attribute element whose text was parsed as it was read, instead of
+     * being kept in the element.
+     */
+    void setParsedValue(Element attrElt, Object value) {
+      parsedValues.put(attrElt, value);
+    }
+
     Library findLibrary(String libName) throws XmlReaderException {
       if (StringUtil.isNullOrEmpty(libName)) return file;
       final var ret = libs.get(libName);
@@ -122,6 +129,7 @@ class XmlReader {
       List<String> messages = null;
 
       final var attrsDefined = new HashMap<String, String>();
+      final var attrsParsed = new HashMap<String, Object>();
       for (final var attrElt : XmlIterator.forChildElements(parent, "a")) {
         if (!attrElt.hasAttribute("name")) {
           if (messages == null) messages = new ArrayList<>();
@@ -129,7 +137,10 @@ class XmlReader {
         } else {
           final var attrName = attrElt.getAttribute("name");
           String attrVal;
-          if (attrElt.hasAttribute("val")) {
+          if (parsedValues.containsKey(attrElt)) {
+            attrsParsed.put(attrName, parsedValues.get(attrElt));
+            continue;
+          } else if (attrElt.hasAttribute("val")) {
             attrVal = attrElt.getAttribute("val");
             if ("filePath".equals(attrName)) {
               /* De-relativize the path */
@@ -159,6 +170,10 @@ class XmlReader {
         @SuppressWarnings("unchecked")
         Attribute<Object> attr = (Attribute<Object>) attrList.get(i);
         final var attrName = attr.getName();
+        if (attrsParsed.containsKey(attrName)) {
+          attrs.setValue(attr, attrsParsed.get(attrName));
+          continue;
+        }
         final var attrVal = attrsDefined.get(attrName);
         if (attrVal == null) {
           if (attr.equals(ProbeAttributes.PROBEAPPEARANCE)) {
@@ -264,16 +279,30 @@ class XmlReader {
       }
     }
 
-    private Map<Element, Component> loadKnownComponents(Element elt, boolean isHolyCross, boolean isEvolution) {
-      final var known = new HashMap<Element, Component>();
-      for (final var sub : XmlIterator.forChildElements(elt, "comp")) {
-        try {
-          final var comp = XmlCircuitReader.getComponent(sub, this, isHolyCross, isEvolution);
-          if (comp != null) known.put(sub, comp);
-        } catch (XmlReaderException ignored) {
-        }
+    /** Creates the component described by a comp element and adds it to the circuit. */
+    void addComponent(CircuitData circData, Element elt) {
+      if (recorder != null) recorder.component(elt);
+      try {
+        circData.components.add(
+            XmlCircuitReader.getComponent(elt, this, isHolyCrossFile, isEvolutionFile));
+      } catch (XmlReaderException e) {
+        // retried once all the circuits exist, the component may be an instance of one of them
+        circData.components.add(elt);
       }
-      return known;
+    }
+
+    void addWire(CircuitData circData, String from, String to) {
+      try {
+        final var wire = XmlCircuitReader.getWire(from, to);
+        if (wire != null) addWire(circData, wire);
+      } catch (XmlReaderException e) {
+        addErrors(e, String.format("%s.w%s-%s", circData.circuit.getName(), from, to));
+      }
+    }
+
+    void addWire(CircuitData circData, Wire wire) {
+      if (recorder != null) recorder.wire(wire);
+      circData.wires.add(wire);
     }
 
     void loadMap(Element board, String boardName, Circuit circ) {
@@ -318,8 +347,8 @@ class XmlReader {
 
     void loadAppearance(Element appearElt, XmlReader.CircuitData circData, String context) {
       final var pins = new ArrayList<AppearanceSvgReader.PinInfo>();
-      for (final var comp : circData.knownComponents.values()) {
-        if (comp.getFactory() == Pin.FACTORY) {
+      for (final var item : circData.components) {
+        if (item instanceof Component comp && comp.getFactory() == Pin.FACTORY) {
           pins.add(AppearanceSvgReader.getPinInfo(comp.getLocation(), Instance.getInstanceFor(comp)));
         }
       }
@@ -382,11 +411,10 @@ class XmlReader {
       return ret;
     }
 
-    private void toLogisimFile(Element elt, Project proj) {
-      // determine the version producing this file
+    /** Determines the version producing the file, from its root element. */
+    void initVersion(Element elt) {
+      if (recorder != null) recorder.root(elt);
       final var versionString = elt.getAttribute("source");
-      var isHolyCrossFile = false;
-      var isEvolutionFile = true;
       if ("".equals(versionString)) {
         sourceVersion = BuildInfo.version;
       } else {
@@ -413,12 +441,15 @@ class XmlReader {
             "Old file format -- compatibility mode",
             OptionPane.WARNING_MESSAGE);
       }
+    }
 
-      // first, load the sublibraries
+    /** Loads the libraries of the file, which must come before its circuits. */
+    void loadLibraries(Iterable<Element> libElts) {
+      if (recorder != null) recorder.libraries(libElts);
       final var libsToAddAfter = new HashSet<Library>();
       final var baseLibsToEnable = new HashSet<String>();
       final var libsLoaded = new HashSet<String>();
-      for (final var o : XmlIterator.forChildElements(elt, "lib")) {
+      for (final var o : libElts) {
         final var lib = toLibrary(o, isHolyCrossFile, isEvolutionFile);
         if (lib instanceof LoadedLibrary loadedLib) {
           if (loadedLib.getBase() instanceof LogisimFile) {
@@ -451,93 +482,100 @@ class XmlReader {
         LibraryManager.removeBaseLibraries(newLib, baseLibsToEnable);
         file.addLibrary(newLib);
       }
+    }
 
-      // second, create the circuits - empty for now - and the vhdl entities
-      final var circuitsData = new ArrayList<CircuitData>();
-      for (final var circElt : XmlIterator.forChildElements(elt)) {
-        String name;
-        switch (circElt.getTagName()) {
-          case "vhdl" -> {
-            name = circElt.getAttribute("name");
-            if (name == null || "".equals(name)) {
-              addError(S.get("circNameMissingError"), "C??");
-            }
-            final var vhdl = circElt.getTextContent();
-            final var contents = VhdlContent.parse(name, vhdl, file);
-            if (contents != null) {
-              file.addVhdlContent(contents);
-            }
-          }
-          case "circuit" -> {
-            name = circElt.getAttribute("name");
-            if (name == null || "".equals(name)) {
-              addError(S.get("circNameMissingError"), "C??");
-            }
-            final var circData = new CircuitData(circElt, new Circuit(name, file, proj));
-            file.addCircuit(circData.circuit);
-            circData.knownComponents = loadKnownComponents(circElt, isHolyCrossFile,
+    void loadVhdl(Element vhdlElt) {
+      if (recorder != null) recorder.vhdl(vhdlElt);
+      final var name = vhdlElt.getAttribute("name");
+      if (name == null || "".equals(name)) {
+        addError(S.get("circNameMissingError"), "C??");
+      }
+      final var vhdl = vhdlElt.getTextContent();
+      final var contents = VhdlContent.parse(name, vhdl, file);
+      if (contents != null) {
+        file.addVhdlContent(contents);
+      }
+    }
+
+    /**
+     * Creates a circuit, empty for now: its components are added with addComponent and addWire as
+     * they are read, and it is built by buildCircuits once all the circuits exist.
+     */
+    CircuitData createCircuit(Element circElt, Project proj) {
+      if (recorder != null) recorder.circuit(circElt);
+      final var name = circElt.getAttribute("name");
+      if (name == null || "".equals(name)) {
+        addError(S.get("circNameMissingError"), "C??");
+      }
+      final var circData = new CircuitData(circElt, new Circuit(name, file, proj));
+      file.addCircuit(circData.circuit);
+      return circData;
+    }
+
+    /** Loads the appearance and board maps of a circuit, once its components are known. */
+    void finishCircuit(CircuitData circData) {
+      if (recorder != null) recorder.circuitEnd(circData);
+      final var circElt = circData.circuitElement;
+      final var name = circElt.getAttribute("name");
+      for (Element appearElt : XmlIterator.forChildElements(circElt, "appear")) {
+        loadAppearance(appearElt, circData, name + ".appear");
+      }
+      for (final var boardMap : XmlIterator.forChildElements(circElt, "boardmap")) {
+        final var boardName = boardMap.getAttribute("boardname");
+        if (StringUtil.isNullOrEmpty(boardName))
+          continue;
+        loadMap(boardMap, boardName, circData.circuit);
+      }
+    }
+
+    /** Processes a child element of the file other than a library, a circuit or a VHDL entity. */
+    void loadElement(Element sub_elt) {
+      if (recorder != null) recorder.element(sub_elt);
+      final var name = sub_elt.getTagName();
+
+      switch (name) {
+        case "options":
+          try {
+            initAttributeSet(
+                sub_elt,
+                file.getOptions().getAttributeSet(),
+                null,
+                isHolyCrossFile,
                 isEvolutionFile);
-            for (Element appearElt : XmlIterator.forChildElements(circElt, "appear")) {
-              loadAppearance(appearElt, circData, name + ".appear");
-            }
-            for (final var boardMap : XmlIterator.forChildElements(circElt, "boardmap")) {
-              final var boardName = boardMap.getAttribute("boardname");
-              if (StringUtil.isNullOrEmpty(boardName))
-                continue;
-              loadMap(boardMap, boardName, circData.circuit);
-            }
-            circuitsData.add(circData);
+          } catch (XmlReaderException e) {
+            addErrors(e, "options");
           }
-          default -> {
-            // do nothing
+          break;
+        case "mappings":
+          initMouseMappings(sub_elt, isHolyCrossFile, isEvolutionFile);
+          break;
+        case "toolbar":
+          initToolbarData(sub_elt, isHolyCrossFile, isEvolutionFile);
+          break;
+        case "main":
+          final var main = sub_elt.getAttribute("name");
+          final var circ = file.getCircuit(main);
+          if (circ != null) {
+            file.setMainCircuit(circ);
           }
-        }
+          break;
+        case "message":
+          file.addMessage(sub_elt.getAttribute("value"));
+          break;
+        default:
+          throw new IllegalArgumentException("Invalid node in logisim file: " + name);
       }
+    }
 
-      // third, process the other child elements
-      for (Element sub_elt : XmlIterator.forChildElements(elt)) {
-        final var name = sub_elt.getTagName();
-
-        switch (name) {
-          case "circuit":
-          case "vhdl":
-          case "lib":
-            // Nothing to do: Done earlier.
-            break;
-          case "options":
-            try {
-              initAttributeSet(
-                  sub_elt,
-                  file.getOptions().getAttributeSet(),
-                  null,
-                  isHolyCrossFile,
-                  isEvolutionFile);
-            } catch (XmlReaderException e) {
-              addErrors(e, "options");
-            }
-            break;
-          case "mappings":
-            initMouseMappings(sub_elt, isHolyCrossFile, isEvolutionFile);
-            break;
-          case "toolbar":
-            initToolbarData(sub_elt, isHolyCrossFile, isEvolutionFile);
-            break;
-          case "main":
-            final var main = sub_elt.getAttribute("name");
-            final var circ = file.getCircuit(main);
-            if (circ != null) {
-              file.setMainCircuit(circ);
-            }
-            break;
-          case "message":
-            file.addMessage(sub_elt.getAttribute("value"));
-            break;
-          default:
-            throw new IllegalArgumentException("Invalid node in logisim file: " + name);
-        }
+    /**
+     * Executes a transaction that initializes all the circuits, or builds them in parallel if the
+     * LOAD_PARALLEL preference is set.
+     */
+    void buildCircuits(List<CircuitData> circuitsData) {
+      if (AppPreferences.LOAD_PARALLEL.getBoolean() && circuitsData.size() > 1) {
+        XmlCircuitReader.executeInParallel(this, circuitsData, isHolyCrossFile, isEvolutionFile);
+        return;
       }
-
-      // fourth, execute a transaction that initializes all the circuits
       XmlCircuitReader builder;
       builder = new XmlCircuitReader(this, circuitsData, isHolyCrossFile, isEvolutionFile);
       builder.execute();
@@ -604,7 +642,7 @@ class XmlReader {
    *
    * @param root root node
    */
-  private static void cleanupToolsLabel(Element root) {
+  static void cleanupToolsLabel(Element root) {
     if (root == null) throw new RuntimeException("Value of 'root' cannot be null");
 
     // Iterate on tools
@@ -637,15 +675,6 @@ class XmlReader {
     return (elt);
   }
 
-  private static void findLibraryUses(ArrayList<Element> dest, String label, Iterable<Element> candidates) {
-    for (final var elt : candidates) {
-      String lib = elt.getAttribute("lib");
-      if (lib.equals(label)) {
-        dest.add(elt);
-      }
-    }
-  }
-
   /**
    * Check an XML tree for VHDL-incompatible labels, then propose a list of valid ones. Here valid
    * means: [a-zA-Z][a-zA-Z0-9_]* This applies, in our context, to circuit's names and labels (and
@@ -987,145 +1016,47 @@ class XmlReader {
     }
   }
 
-  private void addToLabelMap(HashMap<String, String> labelMap, String srcLabel, String dstLabel, String toolNames) {
-    if (srcLabel != null && dstLabel != null) {
-      for (final var tool : toolNames.split(";")) {
-        labelMap.put(srcLabel + ":" + tool, dstLabel);
-      }
-    }
-  }
-
-  private void considerRepairs(Document doc, Element root) {
-    final var version = LogisimVersion.fromString(root.getAttribute("source"));
-    if (version.compareTo(new LogisimVersion(2, 3, 0)) < 0) {
-      // This file was saved before an Edit tool existed. Most likely
-      // we should replace the Select and Wiring tools in the toolbar
-      // with the Edit tool instead.
-      for (final var toolbar : XmlIterator.forChildElements(root, "toolbar")) {
-        Element wiring = null;
-        Element select = null;
-        Element edit = null;
-        for (final var elt : XmlIterator.forChildElements(toolbar, "tool")) {
-          final var eltName = elt.getAttribute("name");
-          if (StringUtil.isNotEmpty(eltName)) {
-            if (eltName.equals(SelectTool._ID)) select = elt;
-            if (eltName.equals(WiringTool._ID)) wiring = elt;
-            if (eltName.equals(EditTool._ID)) edit = elt;
-          }
-        }
-        if (select != null && wiring != null && edit == null) {
-          select.setAttribute("name", EditTool._ID);
-          toolbar.removeChild(wiring);
-        }
-      }
-    }
-    if (version.compareTo(new LogisimVersion(2, 6, 3)) < 0) {
-      for (final var circElt : XmlIterator.forChildElements(root, "circuit")) {
-        for (final var attrElt : XmlIterator.forChildElements(circElt, "a")) {
-          final var name = attrElt.getAttribute("name");
-          if (StringUtil.startsWith(name, "label")) {
-            attrElt.setAttribute("name", "c" + name);
-          }
-        }
-      }
-
-      repairForWiringLibrary(doc, root);
-      repairForLegacyLibrary(doc, root);
-    }
-
-    // Before version 4.0.0, Pin components had attributes:
-    //   output=true|false
-    //   tristate=true|false
-    //   pull=up|down (or missing)
-    // These are now consolidated into two attributes:
-    //   type=input|output
-    //   behavior=simple|tristate|pullup|pulldown
-    String wiringLibName = findLibNameByDesc(root, "#Wiring");
-    for (final Element compElt : XmlIterator.forDescendantElements(root, "comp")) {
-      convertObsoletePinAttributes(doc, compElt, wiringLibName);
-    }
-    for (final Element toolElt : XmlIterator.forDescendantElements(root, "tool")) {
-      convertObsoletePinAttributes(doc, toolElt, wiringLibName);
-    }
-  }
-
-  private void convertObsoletePinAttributes(Document doc, Element elt, String wiringLibName) {
-    final var lib = elt.getAttribute("lib");
-    final var name = elt.getAttribute("name");
-    if (name == null || lib == null || !name.equals("Pin") || !lib.equals(wiringLibName)) {
-      return;
-    }
-    String output = null, tristate = null, pull = null, type = null, behavior = null;
-    final var bad = new ArrayList<Element>();
-    for (final var attrElt : XmlIterator.forChildElements(elt, "a")) {
-      final var aname = attrElt.getAttribute("name");
-      final var aval = attrElt.getAttribute("val");
-      if ("output".equalsIgnoreCase(aname)) {
-        output = aval;
-        bad.add(attrElt);
-      } else if ("tristate".equalsIgnoreCase(aname)) {
-        tristate = aval;
-        bad.add(attrElt);
-      } else if ("pull".equalsIgnoreCase(aname)) {
-        pull = aval;
-        bad.add(attrElt);
-      } else if ("type".equalsIgnoreCase(aname)) {
-        type = aval;
-      } else if ("behavior".equalsIgnoreCase(aname)) {
-        behavior = aval;
-      }
-    }
-    for (final var badElement : bad) {
-      elt.removeChild(badElement);
-    }
-    if (type == null && output != null) {
-      appendChildAttribute(doc, elt, "type", output.equalsIgnoreCase("true") ? "output" : "input");
-    }
-    if (behavior == null) {
-      if ("up".equalsIgnoreCase(pull)) {
-        appendChildAttribute(doc, elt, "behavior", "pullup");
-      } else if ("down".equalsIgnoreCase(pull)) {
-        appendChildAttribute(doc, elt, "behavior", "pulldown");
-      } else if ("true".equalsIgnoreCase(tristate)) {
-        appendChildAttribute(doc, elt, "behavior", "tristate");
-      }
+  /**
+   * Reads a library, from the circuit cache if it is given and up to date, and otherwise from the
+   * stream, writing the cache if it is given and the library has no error.
+   */
+  LogisimFile readLibrary(InputStream is, Project proj, CircuitCache cache)
+      throws IOException, SAXException {
+    if (cache != null) {
+      final var file = readCache(cache, proj);
+      if (file != null) return file;
     }
-  }
-
-  private static void appendChildAttribute(Document doc, Element elt, String name, String val) {
-    final var attr = doc.createElement("a");
-    attr.setAttribute("name", name);
-    attr.setAttribute("val", val);
-    elt.appendChild(attr);
-  }
+    final var file = new LogisimFile((Loader) loader);
+    final var context = new ReadContext(file);
+    if (cache != null) context.recorder = cache.record(context.parsedValues);
 
-  private Document loadXmlFrom(InputStream is) throws SAXException, IOException {
-    final var factory = XmlUtil.getHardenedBuilderFactory();
-    factory.setNamespaceAware(true);
-    try {
-      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-    } catch (ParserConfigurationException ex) {
-      // All implementations are required to support FEATURE_SECURE_PROCESSING.
-    }
-    DocumentBuilder builder = null;
+    var read = false;
     try {
-      builder = factory.newDocumentBuilder();
-    } catch (ParserConfigurationException ignored) {
+      new XmlStreamingReader(context, proj).read(is);
+      read = true;
+    } catch (XMLStreamException | ParserConfigurationException e) {
+      throw new SAXException(e);
+    } finally {
+      if (context.recorder != null) context.recorder.finish(read && context.messages.isEmpty());
     }
-    return builder.parse(is);
+    return finishLibrary(file, context, proj);
   }
 
-  LogisimFile readLibrary(InputStream is, Project proj) throws IOException, SAXException {
-    final var doc = loadXmlFrom(is);
-    var elt = doc.getDocumentElement();
-    elt = ensureLogisimCompatibility(elt);
-
-    considerRepairs(doc, elt);
+  /** @return the library replayed from the cache, or null if it is to be read from the stream */
+  private LogisimFile readCache(CircuitCache cache, Project proj) throws IOException {
     final var file = new LogisimFile((Loader) loader);
     final var context = new ReadContext(file);
+    try {
+      if (!cache.replay(context, proj)) return null;
+    } catch (IOException e) {
+      if (cache.isRequired()) throw e;
+      logger.warn("Ignoring the circuit cache {}: {}", cache.getCacheFile(), e.toString());
+      return null;
+    }
+    return finishLibrary(file, context, proj);
+  }
 
-    context.toLogisimFile(elt, proj);
-
+  private LogisimFile finishLibrary(LogisimFile file, ReadContext context, Project proj) {
     if (file.getCircuitCount() == 0) {
       file.addCircuit(new Circuit("main", file, proj));
     }
@@ -1138,180 +1069,4 @@ class XmlReader {
     }
     return file;
   }
-
-  private void relocateTools(Element src, Element dest, HashMap<String, String> labelMap) {
-    if (src == null || src == dest) return;
-    final var srcLabel = src.getAttribute("name");
-    if (srcLabel == null) return;
-
-    final var toRemove = new ArrayList<Element>();
-    for (final var elt : XmlIterator.forChildElements(src, "tool")) {
-      final var name = elt.getAttribute("name");
-      if (name != null && labelMap.containsKey(srcLabel + ":" + name)) {
-        toRemove.add(elt);
-      }
-    }
-    for (final var elt : toRemove) {
-      src.removeChild(elt);
-      if (dest != null) {
-        dest.appendChild(elt);
-      }
-    }
-  }
-
-  private void repairForLegacyLibrary(Document doc, Element root) {
-    Element legacyElt = null;
-    String legacyLabel = null;
-    for (final var libElt : XmlIterator.forChildElements(root, "lib")) {
-      final var desc = libElt.getAttribute("desc");
-      final var label = libElt.getAttribute("name");
-      if ("#Legacy".equals(desc)) {
-        legacyElt = libElt;
-        legacyLabel = label;
-      }
-    }
-
-    if (legacyElt != null) {
-      root.removeChild(legacyElt);
-
-      final var toRemove = new ArrayList<Element>();
-      findLibraryUses(toRemove, legacyLabel, XmlIterator.forDescendantElements(root, "comp"));
-      var componentsRemoved = !toRemove.isEmpty();
-      findLibraryUses(toRemove, legacyLabel, XmlIterator.forDescendantElements(root, "tool"));
-      for (final var elt : toRemove) {
-        elt.getParentNode().removeChild(elt);
-      }
-      if (componentsRemoved) {
-        final var error = "Some components have been deleted. The Legacy library is not supported.";
-        final var elt = doc.createElement("message");
-        elt.setAttribute("value", error);
-        root.appendChild(elt);
-      }
-    }
-  }
-
-  private void repairForWiringLibrary(Document doc, Element root) {
-    Element oldBaseElt = null;
-    String oldBaseLabel = null;
-    Element gatesElt = null;
-    String gatesLabel = null;
-    int maxLabel = -1;
-    Element firstLibElt = null;
-    Element lastLibElt = null;
-    for (final var libElt : XmlIterator.forChildElements(root, "lib")) {
-      final var desc = libElt.getAttribute("desc");
-      final var label = libElt.getAttribute("name");
-
-      if (desc != null) {
-        switch (desc) {
-          case "#Base":
-            oldBaseElt = libElt;
-            oldBaseLabel = label;
-            break;
-          case "#Wiring":
-            // Wiring library already in file. This shouldn't happen, but if
-            // somehow it does, we don't want to add it again.
-            return;
-          case "#Gates":
-            gatesElt = libElt;
-            gatesLabel = label;
-            break;
-        }
-      }
-
-      if (firstLibElt == null) firstLibElt = libElt;
-      lastLibElt = libElt;
-      try {
-        if (label != null) {
-          final var thisLabel = Integer.parseInt(label);
-          if (thisLabel > maxLabel) maxLabel = thisLabel;
-        }
-      } catch (NumberFormatException ignored) {
-      }
-    }
-
-    Element wiringElt;
-    String wiringLabel;
-    Element newBaseElt;
-    String newBaseLabel;
-    if (oldBaseElt != null) {
-      wiringLabel = oldBaseLabel;
-      wiringElt = oldBaseElt;
-      wiringElt.setAttribute("desc", "#Wiring");
-
-      newBaseLabel = "" + (maxLabel + 1);
-      newBaseElt = doc.createElement("lib");
-      newBaseElt.setAttribute("desc", "#Base");
-      newBaseElt.setAttribute("name", newBaseLabel);
-      root.insertBefore(newBaseElt, lastLibElt.getNextSibling());
-    } else {
-      wiringLabel = "" + (maxLabel + 1);
-      wiringElt = doc.createElement("lib");
-      wiringElt.setAttribute("desc", "#Wiring");
-      wiringElt.setAttribute("name", wiringLabel);
-      root.insertBefore(wiringElt, lastLibElt.getNextSibling());
-
-      newBaseLabel = null;
-      newBaseElt = null;
-    }
-
-    final var labelMap = new HashMap<String, String>();
-    addToLabelMap(
-        labelMap,
-        oldBaseLabel,
-        newBaseLabel,
-        String.join(
-            ";",
-            Arrays.asList(
-                PokeTool._ID,
-                EditTool._ID,
-                SelectTool._ID,
-                WiringTool._ID,
-                TextTool._ID,
-                MenuTool._ID,
-                Text._ID)));
-    addToLabelMap(
-        labelMap,
-        oldBaseLabel,
-        wiringLabel,
-        String.join(
-            ";",
-            Arrays.asList(
-                Splitter._ID,
-                Pin._ID,
-                Probe._ID,
-                Tunnel._ID,
-                Clock._ID,
-                PullResistor._ID,
-                BitExtender._ID)));
-    addToLabelMap(labelMap, gatesLabel, wiringLabel, "Constant");
-    relocateTools(oldBaseElt, newBaseElt, labelMap);
-    relocateTools(oldBaseElt, wiringElt, labelMap);
-    relocateTools(gatesElt, wiringElt, labelMap);
-    updateFromLabelMap(XmlIterator.forDescendantElements(root, "comp"), labelMap);
-    updateFromLabelMap(XmlIterator.forDescendantElements(root, "tool"), labelMap);
-  }
-
-  private void updateFromLabelMap(Iterable<Element> elts, HashMap<String, String> labelMap) {
-    for (final var elt : elts) {
-      final var oldLib = elt.getAttribute("lib");
-      final var name = elt.getAttribute("name");
-      if (oldLib != null && name != null) {
-        final var newLib = labelMap.get(oldLib + ":" + name);
-        if (newLib != null) {
-          elt.setAttribute("lib", newLib);
-        }
-      }
-    }
-  }
-
-  private static String findLibNameByDesc(Element root, String libdesc) {
-    for (final var libElt : XmlIterator.forChildElements(root, "lib")) {
-      final var desc = libElt.getAttribute("desc");
-      final var name = libElt.getAttribute("name");
-      if (name != null && desc != null && desc.equals(libdesc))
-        return name;
-    }
-    return null;
-  }
 }
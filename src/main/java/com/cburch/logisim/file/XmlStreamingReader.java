@@ -0,0 +1,643 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import com.cburch.logisim.LogisimVersion;
+import com.cburch.logisim.circuit.Splitter;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.base.Text;
+import com.cburch.logisim.std.memory.Rom;
+import com.cburch.logisim.std.wiring.BitExtender;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Probe;
+import com.cburch.logisim.std.wiring.PullResistor;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import com.cburch.logisim.tools.EditTool;
+import com.cburch.logisim.tools.MenuTool;
+import com.cburch.logisim.tools.PokeTool;
+import com.cburch.logisim.tools.SelectTool;
+import com.cburch.logisim.tools.TextTool;
+import com.cburch.logisim.tools.WiringTool;
+import com.cburch.logisim.util.StringUtil;
+import com.cburch.logisim.util.XmlUtil;
+import com.cburch.logisim.vhdl.base.VhdlContent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Reads a .circ file with a StAX parser, handing each element to the ReadContext as soon as it is
+ * read instead of parsing the whole file into a DOM first. The components and wires of a circuit
+ * are created as they are read, and ROM contents are parsed from the stream without their text
+ * ever being held, so the memory used while loading is about that of the largest circuit rather
+ * than that of the whole file.
+ *
+ * <p>The repairs of files written by older versions are applied to each element as it goes by.
+ * The libraries, which the repairs of the wiring and legacy libraries rewrite, come before any
+ * other element in a file: they are held until the first other element, repaired, and loaded
+ * together. The other top-level elements but circuits and VHDL entities, which refer to the
+ * circuits by name, are small and held until the end of the file.
+ */
+final class XmlStreamingReader {
+  private final XmlReader.ReadContext context;
+  private final Project proj;
+  /** Owner of the elements built from the stream; they are never added to it. */
+  private final Document doc;
+  private XMLStreamReader in;
+  private LogisimVersion version;
+
+  /** Valid VHDL names of circuit names, circuit labels and component labels, by original label. */
+  private final HashMap<String, String> circuitNames = new HashMap<>();
+  private final HashMap<String, String> circuitLabels = new HashMap<>();
+  private final HashMap<String, String> compLabels = new HashMap<>();
+
+  /** The libraries read so far, until they are loaded. */
+  private final ArrayList<Element> libElts = new ArrayList<>();
+  private boolean librariesLoaded = false;
+  /** When the libraries were loaded, for the timing of the load phases. */
+  private long librariesRead;
+  /** The top-level elements handled once all the circuits exist. */
+  private final ArrayList<Element> lateElts = new ArrayList<>();
+  private final ArrayList<XmlReader.CircuitData> circuitsData = new ArrayList<>();
+
+  /** The new library of the tools moved out of Base and Gates, by "lib:tool". */
+  private final HashMap<String, String> libraryMoves = new HashMap<>();
+  private String legacyLib = null;
+  private boolean componentsRemoved = false;
+  private String wiringLib = null;
+
+  XmlStreamingReader(XmlReader.ReadContext context, Project proj)
+      throws ParserConfigurationException {
+    this.context = context;
+    this.proj = proj;
+    this.doc = XmlUtil.getHardenedBuilderFactory().newDocumentBuilder().newDocument();
+  }
+
+  void read(InputStream is) throws XMLStreamException {
+    final var start = System.nanoTime();
+    in = XmlUtil.getHardenedInputFactory().createXMLStreamReader(is);
+    try {
+      while (in.next() != XMLStreamConstants.START_ELEMENT) {
+        // prolog
+      }
+      final var root = readStartTag();
+      context.initVersion(root);
+      version = LogisimVersion.fromString(root.getAttribute("source"));
+
+      while (nextChild() == XMLStreamConstants.START_ELEMENT) {
+        final var name = in.getLocalName();
+        if ("lib".equals(name)) {
+          final var libElt = readElement();
+          if (librariesLoaded) {
+            // libraries are written first, this one is loaded as is
+            XmlReader.cleanupToolsLabel(libElt);
+            context.loadLibraries(List.of(libElt));
+          } else {
+            libElts.add(libElt);
+          }
+          continue;
+        }
+        if (!librariesLoaded) loadLibraries();
+        switch (name) {
+          case "circuit" -> readCircuit();
+          case "vhdl" -> context.loadVhdl(readElement());
+          default -> lateElts.add(repairElement(readElement()));
+        }
+      }
+      if (!librariesLoaded) loadLibraries();
+    } finally {
+      in.close();
+    }
+
+    if (componentsRemoved) {
+      final var elt = doc.createElement("message");
+      elt.setAttribute(
+          "value", "Some components have been deleted. The Legacy library is not supported.");
+      lateElts.add(elt);
+    }
+    final var read = System.nanoTime();
+    for (final var elt : lateElts) {
+      context.loadElement(elt);
+    }
+    final var options = System.nanoTime();
+    context.buildCircuits(circuitsData);
+    final var built = System.nanoTime();
+    XmlReader.logger.debug(
+        "Loaded {} circuits in {} ms: libraries {} ms, reading {} ms, options {} ms, building {} ms",
+        circuitsData.size(),
+        (built - start) / 1_000_000,
+        (librariesRead - start) / 1_000_000,
+        (read - librariesRead) / 1_000_000,
+        (options - read) / 1_000_000,
+        (built - options) / 1_000_000);
+  }
+
+  private void loadLibraries() {
+    librariesLoaded = true;
+    for (final var libElt : libElts) {
+      // In old, buggy Logisim versions, labels where incorrectly
+      // stored also in lib components. If this is the case, clean them up.
+      XmlReader.cleanupToolsLabel(libElt);
+    }
+    if (version.compareTo(new LogisimVersion(2, 6, 3)) < 0) {
+      repairForWiringLibrary();
+      repairForLegacyLibrary();
+    }
+    wiringLib = findLibNameByDesc("#Wiring");
+    context.loadLibraries(libElts);
+    libElts.clear();
+    librariesRead = System.nanoTime();
+  }
+
+  private void readCircuit() throws XMLStreamException {
+    final var circElt = readStartTag();
+    final var name = circElt.getAttribute("name");
+    final var validName = validCircuitName(name);
+    circElt.setAttribute("name", validName);
+    final var circData = context.createCircuit(circElt, proj);
+    circuitsData.add(circData);
+
+    while (true) {
+      final var event = in.next();
+      if (event == XMLStreamConstants.END_ELEMENT) break;
+      if (event == XMLStreamConstants.COMMENT) continue;
+      circData.hasChildNodes = true;
+      if (event != XMLStreamConstants.START_ELEMENT) continue;
+      switch (in.getLocalName()) {
+        case "comp" -> {
+          final var compElt = readElement();
+          if (repairComponent(compElt)) context.addComponent(circData, compElt);
+        }
+        case "wire" -> {
+          context.addWire(
+              circData, in.getAttributeValue(null, "from"), in.getAttributeValue(null, "to"));
+          skipRemaining();
+        }
+        case "a" -> circElt.appendChild(repairCircuitAttribute(readElement(), name, validName));
+        default -> circElt.appendChild(readElement());
+      }
+    }
+    context.finishCircuit(circData);
+  }
+
+  /** @return whether the component is to be loaded, that is it is not of the legacy library. */
+  private boolean repairComponent(Element compElt) {
+    if (compElt.hasAttribute("lib")) {
+      for (final var attrElt : XmlIterator.forChildElements(compElt, "a")) {
+        if ("label".equals(attrElt.getAttribute("name"))) {
+          final var label = attrElt.getAttribute("val");
+          if (!label.isEmpty()) attrElt.setAttribute("val", validLabel(compLabels, label));
+        }
+      }
+    } else if (compElt.hasAttribute("name")) {
+      // an instance of a circuit, whose name may have been changed
+      compElt.setAttribute("name", validCircuitName(compElt.getAttribute("name")));
+    }
+    if (!repairTool(compElt)) {
+      componentsRemoved = true;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Applies the library moves of repairForWiringLibrary and the removal of the legacy library to a
+   * comp or tool element, then converts obsolete pin attributes.
+   *
+   * @return false if the element is to be removed
+   */
+  private boolean repairTool(Element elt) {
+    if (version.compareTo(new LogisimVersion(2, 6, 3)) < 0) {
+      final var oldLib = elt.getAttribute("lib");
+      final var newLib = libraryMoves.get(oldLib + ":" + elt.getAttribute("name"));
+      if (newLib != null) elt.setAttribute("lib", newLib);
+      if (legacyLib != null && legacyLib.equals(elt.getAttribute("lib"))) return false;
+    }
+    convertObsoletePinAttributes(elt);
+    return true;
+  }
+
+  private Element repairCircuitAttribute(Element attrElt, String circName, String validName) {
+    final var name = attrElt.getAttribute("name");
+    if ("label".equals(name)) {
+      final var label = attrElt.getAttribute("val");
+      if (!label.isEmpty()) attrElt.setAttribute("val", validLabel(circuitLabels, label));
+    } else if ("circuit".equals(name) && !circName.equals(validName)) {
+      attrElt.setAttribute("val", validName);
+    }
+    if (version.compareTo(new LogisimVersion(2, 6, 3)) < 0 && StringUtil.startsWith(name, "label")) {
+      attrElt.setAttribute("name", "c" + name);
+    }
+    return attrElt;
+  }
+
+  /** Repairs a top-level element other than a library, a circuit or a VHDL entity. */
+  private Element repairElement(Element elt) {
+    if ("toolbar".equals(elt.getTagName())) {
+      // In old, buggy Logisim versions, labels where incorrectly
+      // stored also in toolbar components. If this is the case, clean them up.
+      XmlReader.cleanupToolsLabel(elt);
+      if (version.compareTo(new LogisimVersion(2, 3, 0)) < 0) {
+        repairToolbar(elt);
+      }
+    }
+    final var removed = new ArrayList<Element>();
+    for (final var toolElt : XmlIterator.forDescendantElements(elt, "tool")) {
+      if (!repairTool(toolElt)) removed.add(toolElt);
+    }
+    for (final var toolElt : removed) {
+      toolElt.getParentNode().removeChild(toolElt);
+    }
+    return elt;
+  }
+
+  private String validCircuitName(String name) {
+    return circuitNames.computeIfAbsent(
+        name, n -> VhdlContent.labelVHDLInvalid(n) ? XmlReader.generateValidVHDLLabel(n) : n);
+  }
+
+  private static String validLabel(HashMap<String, String> labels, String label) {
+    return labels.computeIfAbsent(
+        label, l -> VhdlContent.labelVHDLInvalid(l) ? XmlReader.generateValidVHDLLabel(l) : l);
+  }
+
+  private void repairToolbar(Element toolbar) {
+    // This file was saved before an Edit tool existed. Most likely
+    // we should replace the Select and Wiring tools in the toolbar
+    // with the Edit tool instead.
+    Element wiring = null;
+    Element select = null;
+    Element edit = null;
+    for (final var elt : XmlIterator.forChildElements(toolbar, "tool")) {
+      final var eltName = elt.getAttribute("name");
+      if (StringUtil.isNotEmpty(eltName)) {
+        if (eltName.equals(SelectTool._ID)) select = elt;
+        if (eltName.equals(WiringTool._ID)) wiring = elt;
+        if (eltName.equals(EditTool._ID)) edit = elt;
+      }
+    }
+    if (select != null && wiring != null && edit == null) {
+      select.setAttribute("name", EditTool._ID);
+      toolbar.removeChild(wiring);
+    }
+  }
+
+  private void convertObsoletePinAttributes(Element elt) {
+    // Before version 4.0.0, Pin components had attributes:
+    //   output=true|false
+    //   tristate=true|false
+    //   pull=up|down (or missing)
+    // These are now consolidated into two attributes:
+    //   type=input|output
+    //   behavior=simple|tristate|pullup|pulldown
+    final var lib = elt.getAttribute("lib");
+    final var name = elt.getAttribute("name");
+    if (!name.equals(Pin._ID) || !lib.equals(wiringLib)) {
+      return;
+    }
+    String output = null, tristate = null, pull = null, type = null, behavior = null;
+    final var bad = new ArrayList<Element>();
+    for (final var attrElt : XmlIterator.forChildElements(elt, "a")) {
+      final var aname = attrElt.getAttribute("name");
+      final var aval = attrElt.getAttribute("val");
+      if ("output".equalsIgnoreCase(aname)) {
+        output = aval;
+        bad.add(attrElt);
+      } else if ("tristate".equalsIgnoreCase(aname)) {
+        tristate = aval;
+        bad.add(attrElt);
+      } else if ("pull".equalsIgnoreCase(aname)) {
+        pull = aval;
+        bad.add(attrElt);
+      } else if ("type".equalsIgnoreCase(aname)) {
+        type = aval;
+      } else if ("behavior".equalsIgnoreCase(aname)) {
+        behavior = aval;
+      }
+    }
+    for (final var badElement : bad) {
+      elt.removeChild(badElement);
+    }
+    if (type == null && output != null) {
+      appendChildAttribute(elt, "type", output.equalsIgnoreCase("true") ? "output" : "input");
+    }
+    if (behavior == null) {
+      if ("up".equalsIgnoreCase(pull)) {
+        appendChildAttribute(elt, "behavior", "pullup");
+      } else if ("down".equalsIgnoreCase(pull)) {
+        appendChildAttribute(elt, "behavior", "pulldown");
+      } else if ("true".equalsIgnoreCase(tristate)) {
+        appendChildAttribute(elt, "behavior", "tristate");
+      }
+    }
+  }
+
+  private void appendChildAttribute(Element elt, String name, String val) {
+    final var attr = doc.createElement("a");
+    attr.setAttribute("name", name);
+    attr.setAttribute("val", val);
+    elt.appendChild(attr);
+  }
+
+  private void repairForLegacyLibrary() {
+    Element legacyElt = null;
+    for (final var libElt : libElts) {
+      if ("#Legacy".equals(libElt.getAttribute("desc"))) {
+        legacyElt = libElt;
+        legacyLib = libElt.getAttribute("name");
+      }
+    }
+    // the comps and tools of the library are dropped as they are read, see repairTool
+    if (legacyElt != null) libElts.remove(legacyElt);
+  }
+
+  private void repairForWiringLibrary() {
+    Element oldBaseElt = null;
+    String oldBaseLabel = null;
+    Element gatesElt = null;
+    String gatesLabel = null;
+    int maxLabel = -1;
+    for (final var libElt : libElts) {
+      final var desc = libElt.getAttribute("desc");
+      final var label = libElt.getAttribute("name");
+
+      switch (desc) {
+        case "#Base":
+          oldBaseElt = libElt;
+          oldBaseLabel = label;
+          break;
+        case "#Wiring":
+          // Wiring library already in file. This shouldn't happen, but if
+          // somehow it does, we don't want to add it again.
+          return;
+        case "#Gates":
+          gatesElt = libElt;
+          gatesLabel = label;
+          break;
+        default:
+          break;
+      }
+
+      try {
+        final var thisLabel = Integer.parseInt(label);
+        if (thisLabel > maxLabel) maxLabel = thisLabel;
+      } catch (NumberFormatException ignored) {
+      }
+    }
+
+    Element wiringElt;
+    String wiringLabel;
+    Element newBaseElt;
+    String newBaseLabel;
+    if (oldBaseElt != null) {
+      wiringLabel = oldBaseLabel;
+      wiringElt = oldBaseElt;
+      wiringElt.setAttribute("desc", "#Wiring");
+
+      newBaseLabel = "" + (maxLabel + 1);
+      newBaseElt = doc.createElement("lib");
+      newBaseElt.setAttribute("desc", "#Base");
+      newBaseElt.setAttribute("name", newBaseLabel);
+      libElts.add(newBaseElt);
+    } else {
+      wiringLabel = "" + (maxLabel + 1);
+      wiringElt = doc.createElement("lib");
+      wiringElt.setAttribute("desc", "#Wiring");
+      wiringElt.setAttribute("name", wiringLabel);
+      libElts.add(wiringElt);
+
+      newBaseLabel = null;
+      newBaseElt = null;
+    }
+
+    addToLibraryMoves(
+        oldBaseLabel,
+        newBaseLabel,
+        PokeTool._ID,
+        EditTool._ID,
+        SelectTool._ID,
+        WiringTool._ID,
+        TextTool._ID,
+        MenuTool._ID,
+        Text._ID);
+    addToLibraryMoves(
+        oldBaseLabel,
+        wiringLabel,
+        Splitter._ID,
+        Pin._ID,
+        Probe._ID,
+        Tunnel._ID,
+        Clock._ID,
+        PullResistor._ID,
+        BitExtender._ID);
+    addToLibraryMoves(gatesLabel, wiringLabel, "Constant");
+    relocateTools(oldBaseElt, newBaseElt);
+    relocateTools(oldBaseElt, wiringElt);
+    relocateTools(gatesElt, wiringElt);
+  }
+
+  private void addToLibraryMoves(String srcLabel, String dstLabel, String... toolNames) {
+    if (srcLabel != null && dstLabel != null) {
+      for (final var tool : toolNames) {
+        libraryMoves.put(srcLabel + ":" + tool, dstLabel);
+      }
+    }
+  }
+
+  private void relocateTools(Element src, Element dest) {
+    if (src == null || src == dest) return;
+    final var srcLabel = src.getAttribute("name");
+
+    final var toRemove = new ArrayList<Element>();
+    for (final var elt : XmlIterator.forChildElements(src, "tool")) {
+      final var name = elt.getAttribute("name");
+      if (libraryMoves.containsKey(srcLabel + ":" + name)) {
+        toRemove.add(elt);
+      }
+    }
+    for (final var elt : toRemove) {
+      src.removeChild(elt);
+      if (dest != null) {
+        dest.appendChild(elt);
+      }
+    }
+  }
+
+  private String findLibNameByDesc(String libdesc) {
+    for (final var libElt : libElts) {
+      if (libdesc.equals(libElt.getAttribute("desc"))) return libElt.getAttribute("name");
+    }
+    return null;
+  }
+
+  /** Creates an element with the name and attributes of the current start tag, without children. */
+  private Element readStartTag() {
+    final var elt = doc.createElement(in.getLocalName());
+    for (var i = 0; i < in.getAttributeCount(); i++) {
+      elt.setAttribute(in.getAttributeLocalName(i), in.getAttributeValue(i));
+    }
+    return elt;
+  }
+
+  /**
+   * @return whether the element is a component of the ROM factory, whose contents attribute is
+   *     parsed by Rom.parseContents; other factories may have an attribute of the same name.
+   */
+  private boolean isRom(Element elt) {
+    if (!"comp".equals(elt.getTagName()) || !librariesLoaded) return false;
+    try {
+      final var lib = context.findLibrary(elt.getAttribute("lib"));
+      return lib.getTool(elt.getAttribute("name")) instanceof AddTool tool
+          && tool.getFactory() instanceof Rom;
+    } catch (XmlReaderException e) {
+      // reported when the component is added
+      return false;
+    }
+  }
+
+  /** Reads the element of the current start tag, up to its end tag included. */
+  private Element readElement() throws XMLStreamException {
+    final var elt = readStartTag();
+    while (true) {
+      switch (in.next()) {
+        case XMLStreamConstants.START_ELEMENT -> {
+          if ("a".equals(in.getLocalName())
+              && "contents".equals(in.getAttributeValue(null, "name"))
+              && in.getAttributeValue(null, "val") == null
+              && isRom(elt)) {
+            // the contents of a ROM, parsed as they are read
+            final var attrElt = readStartTag();
+            final var text = new TextReader();
+            context.setParsedValue(attrElt, Rom.parseContents(text));
+            text.skipRemaining();
+            elt.appendChild(attrElt);
+          } else {
+            elt.appendChild(readElement());
+          }
+        }
+        case XMLStreamConstants.CHARACTERS,
+            XMLStreamConstants.CDATA,
+            XMLStreamConstants.SPACE -> elt.appendChild(doc.createTextNode(in.getText()));
+        case XMLStreamConstants.END_ELEMENT -> {
+          return elt;
+        }
+        default -> {
+          // comments and processing instructions are dropped
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves to the next start or end tag, skipping text, comments and processing instructions: the
+   * project element holds a notice and indentation besides its children.
+   *
+   * @return the event of the tag, START_ELEMENT or END_ELEMENT
+   */
+  private int nextChild() throws XMLStreamException {
+    while (true) {
+      final var event = in.next();
+      if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT) {
+        return event;
+      }
+      if (event == XMLStreamConstants.END_DOCUMENT) {
+        throw new XMLStreamException("Unexpected end of file", in.getLocation());
+      }
+    }
+  }
+
+  /** Skips the rest of the current element, up to its end tag included. */
+  private void skipRemaining() throws XMLStreamException {
+    skipRemaining(1);
+  }
+
+  /** Skips the rest of the elements, depth of them, up to the end tag of the outermost included. */
+  private void skipRemaining(int depth) throws XMLStreamException {
+    while (depth > 0) {
+      switch (in.next()) {
+        case XMLStreamConstants.START_ELEMENT -> depth++;
+        case XMLStreamConstants.END_ELEMENT -> depth--;
+        default -> {
+          // text is dropped
+        }
+      }
+    }
+  }
+
+  /**
+   * The text of the current element, read from the stream chunk by chunk. It ends at the end tag
+   * of the element, on which the stream is left.
+   */
+  private class TextReader extends Reader {
+    private int start = 0;
+    private int length = 0;
+    private boolean ended = false;
+    /** Whether the stream is in an element of the text, which is then invalid. */
+    private boolean nested = false;
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      if (len == 0) return 0;
+      try {
+        while (length == 0) {
+          if (ended) return -1;
+          switch (in.next()) {
+            case XMLStreamConstants.CHARACTERS,
+                XMLStreamConstants.CDATA,
+                XMLStreamConstants.SPACE -> {
+              start = in.getTextStart();
+              length = in.getTextLength();
+            }
+            case XMLStreamConstants.END_ELEMENT -> {
+              ended = true;
+              return -1;
+            }
+            case XMLStreamConstants.START_ELEMENT -> {
+              nested = true;
+              throw new IOException("Unexpected element in text: " + in.getLocalName());
+            }
+            default -> {
+              // comments
+            }
+          }
+        }
+        final var n = Math.min(len, length);
+        System.arraycopy(in.getTextCharacters(), start, cbuf, off, n);
+        start += n;
+        length -= n;
+        return n;
+      } catch (XMLStreamException e) {
+        throw new IOException(e);
+      }
+    }
+
+    /** Skips the text left unread, up to the end tag of the element included. */
+    void skipRemaining() throws XMLStreamException {
+      if (!ended) XmlStreamingReader.this.skipRemaining(nested ? 2 : 1);
+      ended = true;
+    }
+
+    @Override
+    public void close() {
+      // the stream belongs to the reader
+    }
+  }
+}
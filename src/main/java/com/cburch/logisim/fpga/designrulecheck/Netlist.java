@@ -13,6 +13,8 @@ import static com.cburch.logisim.fpga.Strings.S;
 
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitAttributes;
+import com.cburch.logisim.circuit.CircuitEvent;
+import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.Splitter;
 import com.cburch.logisim.circuit.SplitterAttributes;
 import com.cburch.logisim.circuit.SplitterFactory;
@@ -31,12 +33,15 @@ import com.cburch.logisim.std.wiring.Probe;
 import com.cburch.logisim.std.wiring.Tunnel;
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 
 public class Netlist {
 
@@ -92,6 +97,36 @@ public class Netlist {
   private final ClockTreeFactory myClockInformation = new ClockTreeFactory();
   private final Circuit myCircuit;
   private int drcStatus;
+  /*
+   * The results of the checks that only depend on the circuit, its components and the ports of its
+   * subcircuits, which are kept until it changes: the status of the checks of the components and of
+   * the construction of the netlist, with the messages they reported.
+   */
+  private volatile boolean localChecksValid = false;
+  private String localChecksSettings;
+  private int componentsStatus = DRC_REQUIRED;
+  private int netlistStatus = DRC_REQUIRED;
+  private List<Runnable> componentsMessages = List.of();
+  private List<Runnable> netlistMessages = List.of();
+  /**
+   * Invalidates the checks when components are added or removed, when attributes or ends change,
+   * which is done in transactions, and when the circuit is renamed. The ACTION_INVALIDATE events,
+   * fired as components are poked and simulated, are left alone. The field keeps the weak listener
+   * alive.
+   */
+  private final CircuitListener myListener =
+      event -> {
+        switch (event.getAction()) {
+          case CircuitEvent.ACTION_ADD,
+              CircuitEvent.ACTION_REMOVE,
+              CircuitEvent.ACTION_CLEAR,
+              CircuitEvent.ACTION_SET_NAME,
+              CircuitEvent.TRANSACTION_DONE -> invalidateLocalChecks();
+          default -> {
+            // the checks do not depend on the state nor on the display of the circuit
+          }
+        }
+      };
   private final Set<Wire> wires = new HashSet<>();
   private ArrayList<String> currentHierarchyLevel;
   public static final int DRC_REQUIRED = 4;
@@ -106,6 +141,7 @@ public class Netlist {
   public Netlist(Circuit ThisCircuit) {
     myCircuit = ThisCircuit;
     clear();
+    myCircuit.addCircuitListener(myListener);
   }
 
   public void cleanClockTree(ClockSourceContainer ClockSources) {
@@ -119,12 +155,19 @@ public class Netlist {
     }
   }
 
+  /**
+   * Forgets the netlist and the checks of this circuit, and the checks of the circuits using it.
+   * Those of its subcircuits, which do not depend on it, are kept; the results of the previous
+   * check of the hierarchy are cleared by the next one.
+   */
   public void clear() {
-    for (final var subcirc : mySubCircuits) {
-      final var subFact = (SubcircuitFactory) subcirc.getComponent().getFactory();
-      subFact.getSubcircuit().getNetList().clear();
-    }
     drcStatus = DRC_REQUIRED;
+    invalidateLocalChecks();
+    clearNets();
+  }
+
+  /** Clears the netlist of this circuit alone. */
+  private void clearNets() {
     myNets.clear();
     mySubCircuits.clear();
     myComponents.clear();
@@ -143,6 +186,136 @@ public class Netlist {
     }
   }
 
+  /** Forgets the results of the previous check of the hierarchy, keeping the netlist. */
+  private void clearHierarchyInformation() {
+    drcStatus = DRC_REQUIRED;
+    localNrOfInportBubbles = 0;
+    localNrOfOutportBubbles = 0;
+    localNrOfInOutBubbles = 0;
+    currentHierarchyLevel.clear();
+    for (final var comps :
+        List.of(mySubCircuits, myComponents, myClockGenerators, myInOutPorts, myInputPorts, myOutputPorts)) {
+      for (final var comp : comps) {
+        comp.clearHierarchyInformation();
+      }
+    }
+  }
+
+  private void invalidateLocalChecks() {
+    if (!localChecksValid) return;
+    localChecksValid = false;
+    // the netlists of the circuits using this one refer to its ports
+    for (final var circuit : new ArrayList<>(myCircuit.getCircuitsUsingThis())) {
+      circuit.getNetList().invalidateLocalChecks();
+    }
+  }
+
+  private static String getLocalChecksSettings() {
+    // the preferences the checks depend on
+    return AppPreferences.HdlType.get() + "," + AppPreferences.SupressOpenPinWarnings.get();
+  }
+
+  boolean hasValidLocalChecks() {
+    return localChecksValid && getLocalChecksSettings().equals(localChecksSettings);
+  }
+
+  private boolean hasPassedLocalChecks() {
+    return hasValidLocalChecks() && componentsStatus == DRC_PASSED && netlistStatus == DRC_PASSED;
+  }
+
+  /**
+   * Checks the components of the circuit and builds its netlist, unless this was done already since
+   * it last changed. The messages are held back, to be reported when the hierarchy is walked.
+   */
+  private void checkLocalRules(boolean showProgress) {
+    if (hasValidLocalChecks()) return;
+    clearNets();
+    // marked valid first, so that a change during the checks invalidates them
+    localChecksValid = true;
+    localChecksSettings = getLocalChecksSettings();
+    componentsStatus = DRC_REQUIRED;
+    netlistStatus = DRC_REQUIRED;
+    componentsMessages = List.of();
+    netlistMessages = List.of();
+    try {
+      Reporter.report.holdMessages();
+      try {
+        componentsStatus = checkComponents();
+      } finally {
+        componentsMessages = Reporter.report.releaseMessages();
+      }
+      if (componentsStatus != DRC_PASSED) return;
+      Reporter.report.holdMessages();
+      try {
+        netlistStatus = buildNetlist(showProgress);
+      } finally {
+        netlistMessages = Reporter.report.releaseMessages();
+      }
+    } catch (RuntimeException e) {
+      localChecksValid = false;
+      throw e;
+    }
+  }
+
+  private Set<Netlist> getSubNetlists() {
+    final var ret = new LinkedHashSet<Netlist>();
+    for (final var comp : myCircuit.getNonWires()) {
+      if (comp.getFactory() instanceof SubcircuitFactory factory) {
+        ret.add(factory.getSubcircuit().getNetList());
+      }
+    }
+    return ret;
+  }
+
+  /** Adds the netlists of the hierarchy below this one, each after the ones it uses. */
+  private void collectHierarchy(Set<Netlist> netlists) {
+    for (final var sub : getSubNetlists()) {
+      if (!netlists.contains(sub)) sub.collectHierarchy(netlists);
+    }
+    netlists.add(this);
+  }
+
+  /**
+   * Runs the local checks of the circuits of the hierarchy that changed since they were last
+   * checked, from the leaves up as a netlist refers to the ones of its subcircuits; the circuits
+   * that do not depend on each other are checked in parallel, in the common fork-join pool. The
+   * results of the previous check of the hierarchy are then cleared for it to be walked again.
+   */
+  private void checkHierarchy() {
+    final var netlists = new LinkedHashSet<Netlist>();
+    collectHierarchy(netlists);
+    final var pending = new LinkedHashSet<>(netlists);
+    while (!pending.isEmpty()) {
+      final var level = new ArrayList<Netlist>();
+      for (final var netlist : pending) {
+        if (Collections.disjoint(netlist.getSubNetlists(), pending)) level.add(netlist);
+      }
+      // the hierarchy has no cycles, so there is always a netlist ready
+      if (level.isEmpty()) level.addAll(pending);
+      level.forEach(pending::remove);
+      final var toCheck = new ArrayList<Netlist>();
+      for (final var netlist : level) {
+        // a circuit whose subcircuits fail is not reached when the hierarchy is walked
+        if (!netlist.hasValidLocalChecks()
+            && netlist.getSubNetlists().stream().allMatch(Netlist::hasPassedLocalChecks)) {
+          toCheck.add(netlist);
+        }
+      }
+      final var forked = new ArrayList<ForkJoinTask<?>>();
+      for (var i = 1; i < toCheck.size(); i++) {
+        final var netlist = toCheck.get(i);
+        forked.add(ForkJoinTask.adapt(() -> netlist.checkLocalRules(false)).fork());
+      }
+      if (!toCheck.isEmpty()) toCheck.get(0).checkLocalRules(true);
+      for (final var task : forked) {
+        task.join();
+      }
+    }
+    for (final var netlist : netlists) {
+      netlist.clearHierarchyInformation();
+    }
+  }
+
   public String getName() {
     if (myCircuit != null) return myCircuit.getName();
     else return "Unknown";
@@ -224,12 +397,9 @@ public class Netlist {
   }
 
   public int designRuleCheckResult(boolean isTopLevel, ArrayList<String> sheetNames) {
-    final var compNames = new ArrayList<String>();
-    final var labels = new HashMap<String, Component>();
-    final var drc = new ArrayList<SimpleDrcContainer>();
-
-    // if we are the toplevel component we clear the complete netlist
-    if (isTopLevel) clear();
+    // if we are the toplevel component we check the circuits of the hierarchy that changed since
+    // the previous check, and restart the checks of the hierarchy
+    if (isTopLevel) checkHierarchy();
 
     // if we already have good drc results we can leave
     if (drcStatus == DRC_PASSED) return DRC_PASSED;
@@ -267,6 +437,58 @@ public class Netlist {
       }
     }
 
+    checkLocalRules(true);
+    for (final var message : componentsMessages) {
+      message.run();
+    }
+    drcStatus |= componentsStatus;
+    /* Here we have to quit as the netlist generation needs a clean tree */
+    if (drcStatus != DRC_PASSED) return drcStatus;
+    for (final var message : netlistMessages) {
+      message.run();
+    }
+    if (netlistStatus != DRC_PASSED) {
+      drcStatus = netlistStatus;
+      return drcStatus;
+    }
+
+    /* Only if we are on the top-level we are going to build the clock-tree */
+    if (isTopLevel) {
+      if (!detectClockTree()) {
+        drcStatus = DRC_ERROR;
+        return drcStatus;
+      }
+      constructHierarchyTree(null, new ArrayList<>(), 0, 0, 0);
+      var ports =
+          getNumberOfInputPorts()
+              + numberOfOutputPorts()
+              + localNrOfInportBubbles
+              + localNrOfOutportBubbles
+              + localNrOfInOutBubbles;
+      if (ports == 0) {
+        Reporter.report.addFatalError(S.get("TopLevelNoIO", myCircuit.getName()));
+        drcStatus = DRC_ERROR;
+        return drcStatus;
+      }
+      /* Check for gated clocks */
+      if (!detectGatedClocks()) {
+        drcStatus = DRC_ERROR;
+        return drcStatus;
+      }
+    }
+
+    Reporter.report.addInfo(S.get("CircuitInfoString", myCircuit.getName(), numberOfNets(), numberOfBusses()));
+    Reporter.report.addInfo(S.get("DRCPassesString", myCircuit.getName()));
+    drcStatus = DRC_PASSED;
+    return drcStatus;
+  }
+
+  /** Checks that the components of the circuit are supported and labeled. */
+  private int checkComponents() {
+    final var compNames = new ArrayList<String>();
+    final var labels = new HashMap<String, Component>();
+    final var drc = new ArrayList<SimpleDrcContainer>();
+    var status = DRC_PASSED;
     // Preparing stage
     for (final var comp : myCircuit.getNonWires()) {
       final var compName = comp.getFactory().getHDLName(comp.getAttributeSet());
@@ -314,7 +536,7 @@ public class Netlist {
       // Here we check if the components are supported for the HDL generation
       if (!comp.getFactory().isHDLSupportedComponent(comp.getAttributeSet())) {
         drc.get(5).addMarkComponent(comp);
-        drcStatus |= DRC_ERROR;
+        status |= DRC_ERROR;
       }
       // we check that all components that require a non zero label (annotation) have a label set
       if (comp.getFactory().requiresNonZeroLabel()) {
@@ -322,73 +544,69 @@ public class Netlist {
         final var componentName = comp.getFactory().getHDLName(comp.getAttributeSet());
         if (label.isEmpty()) {
           drc.get(0).addMarkComponent(comp);
-          drcStatus |= ANNOTATE_REQUIRED;
+          status |= ANNOTATE_REQUIRED;
         } else {
           if (compNames.contains(label)) {
             drc.get(1).addMarkComponent(comp);
-            drcStatus |= DRC_ERROR;
+            status |= DRC_ERROR;
           }
           if (!CorrectLabel.isCorrectLabel(label)) {
             /* this should not happen anymore */
             drc.get(2).addMarkComponent(comp);
-            drcStatus |= DRC_ERROR;
+            status |= DRC_ERROR;
           }
           if (labels.containsKey(label)) {
             drc.get(3).addMarkComponent(comp);
             drc.get(3).addMarkComponent(labels.get(label));
-            drcStatus |= DRC_ERROR;
+            status |= DRC_ERROR;
           } else {
             labels.put(label, comp);
           }
         }
-        if (comp.getFactory() instanceof final SubcircuitFactory sub) {
+        if (comp.getFactory() instanceof SubcircuitFactory) {
           // Special care has to be taken for sub-circuits
           if (label.equals(componentName.toUpperCase())) {
             drc.get(1).addMarkComponent(comp);
-            drcStatus |= DRC_ERROR;
+            status |= DRC_ERROR;
           }
           if (!CorrectLabel.isCorrectLabel(
               comp.getFactory().getName(),
               S.get("FoundBadComponent", comp.getFactory().getName(), myCircuit.getName()))) {
-            drcStatus |= DRC_ERROR;
+            status |= DRC_ERROR;
           }
-          localNrOfInportBubbles += sub.getSubcircuit().getNetList().getNumberOfInputBubbles();
-          localNrOfOutportBubbles += sub.getSubcircuit().getNetList().numberOfOutputBubbles();
-          localNrOfInOutBubbles += sub.getSubcircuit().getNetList().numberOfInOutBubbles();
         }
       }
       /* Now we check that no tri-state are present */
       if (comp.getFactory().hasThreeStateDrivers(comp.getAttributeSet())) {
         drc.get(4).addMarkComponent(comp);
-        drcStatus |= DRC_ERROR;
+        status |= DRC_ERROR;
       }
     }
     for (final var simpleDRCContainer : drc) {
       if (simpleDRCContainer.isDrcInfoPresent()) Reporter.report.addError(simpleDRCContainer);
     }
-    drc.clear();
-    /* Here we have to quit as the netlist generation needs a clean tree */
-    if (drcStatus != DRC_PASSED) return drcStatus;
+    return status;
+  }
 
+  /** Builds the netlist of the circuit and checks its connections. */
+  private int buildNetlist(boolean showProgress) {
     /*
      * Okay we now know for sure that all elements are supported, lets build
      * the net list
      */
     Reporter.report.addInfo(S.get("BuildingNetlistFor", myCircuit.getName()));
-    if (!this.generateNetlist()) {
-      this.clear();
-      drcStatus = DRC_ERROR;
+    if (!generateNetlist(showProgress)) {
+      clearNets();
       /*
        * here we have to quit, as all the following steps depend on a
        * proper netlist
        */
-      return drcStatus;
+      return DRC_ERROR;
     }
 
     if (netlistHasShortCircuits()) {
-      clear();
-      drcStatus = DRC_ERROR;
-      return drcStatus;
+      clearNets();
+      return DRC_ERROR;
     }
 
     /* Check for connections without a source */
@@ -461,36 +679,7 @@ public class Netlist {
         Reporter.report.addWarning(warn);
       }
     }
-
-    /* Only if we are on the top-level we are going to build the clock-tree */
-    if (isTopLevel) {
-      if (!detectClockTree()) {
-        drcStatus = DRC_ERROR;
-        return drcStatus;
-      }
-      constructHierarchyTree(null, new ArrayList<>(), 0, 0, 0);
-      var ports =
-          getNumberOfInputPorts()
-              + numberOfOutputPorts()
-              + localNrOfInportBubbles
-              + localNrOfOutportBubbles
-              + localNrOfInOutBubbles;
-      if (ports == 0) {
-        Reporter.report.addFatalError(S.get("TopLevelNoIO", myCircuit.getName()));
-        drcStatus = DRC_ERROR;
-        return drcStatus;
-      }
-      /* Check for gated clocks */
-      if (!detectGatedClocks()) {
-        drcStatus = DRC_ERROR;
-        return drcStatus;
-      }
-    }
-
-    Reporter.report.addInfo(S.get("CircuitInfoString", myCircuit.getName(), numberOfNets(), numberOfBusses()));
-    Reporter.report.addInfo(S.get("DRCPassesString", myCircuit.getName()));
-    drcStatus = DRC_PASSED;
-    return drcStatus;
+    return DRC_PASSED;
   }
 
   private boolean detectClockTree() {
@@ -547,11 +736,12 @@ public class Netlist {
     return null;
   }
 
-  private boolean generateNetlist() {
+  private boolean generateNetlist(boolean showProgress) {
     final var drc = new ArrayList<SimpleDrcContainer>();
     var errors = false;
     circuitName = myCircuit.getName();
-    final var progress = Reporter.report.getProgressBar();
+    // the netlists of a hierarchy are built in parallel, only the calling thread shows its progress
+    final var progress = showProgress ? Reporter.report.getProgressBar() : null;
     var curMax = 0;
     var curVal = 0;
     var curStr = "";
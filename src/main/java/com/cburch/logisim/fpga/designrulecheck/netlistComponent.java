@@ -225,6 +225,13 @@ public class netlistComponent {
     }
   }
 
+  /** Forgets the bubbles and gated clock of the hierarchy the component was last checked in. */
+  public void clearHierarchyInformation() {
+    globalIds = null;
+    localId = null;
+    isGatedInstance = false;
+  }
+
   public boolean isGatedInstance() {
     return isGatedInstance;
   }
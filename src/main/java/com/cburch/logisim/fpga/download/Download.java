@@ -15,6 +15,7 @@ import com.cburch.contracts.BaseWindowListenerContract;
 import com.cburch.logisim.Main;
 import com.cburch.logisim.fpga.data.BoardInformation;
 import com.cburch.logisim.fpga.data.ComponentMapParser;
+import com.cburch.logisim.fpga.file.FileWriter;
 import com.cburch.logisim.fpga.gui.ComponentMapDialog;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.settings.VendorSoftware;
@@ -394,6 +395,7 @@ public class Download extends DownloadBase implements Runnable, BaseWindowListen
     if (tickFrequency > (getSynthesizedFrequency() / 4))
       tickFrequency = getSynthesizedFrequency() / 4;
     if (!writeHDL(topLevelSheet, tickFrequency)) {
+      FileWriter.endIncremental(false);
       return false;
     }
     final var projectPath = getProjDir(topLevelSheet);
@@ -405,7 +407,7 @@ public class Download extends DownloadBase implements Runnable, BaseWindowListen
     }
     downloader.setMapableResources(myMappableResources);
     /* Stage 4 Create Download Scripts */
-    return createDownloadScripts();
+    return FileWriter.endIncremental(createDownloadScripts());
   }
 
   @Override
@@ -11,6 +11,8 @@ package com.cburch.logisim.fpga.download;
 
 import static com.cburch.logisim.fpga.Strings.S;
 
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitHdlGeneratorFactory;
 import com.cburch.logisim.fpga.data.BoardInformation;
 import com.cburch.logisim.fpga.data.IoComponentTypes;
 import com.cburch.logisim.fpga.data.LedArrayDriving;
@@ -19,6 +21,7 @@ import com.cburch.logisim.fpga.data.SevenSegmentScanningDriving;
 import com.cburch.logisim.fpga.designrulecheck.CorrectLabel;
 import com.cburch.logisim.fpga.designrulecheck.Netlist;
 import com.cburch.logisim.fpga.file.FileWriter;
+import com.cburch.logisim.fpga.file.HdlManifest;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.fpga.hdlgenerator.HdlGeneratorFactory;
@@ -132,7 +135,6 @@ public abstract class DownloadBase {
     if (root == null) {
       drcResult |= Netlist.DRC_ERROR;
     } else {
-      root.getNetList().clear();
       drcResult = root.getNetList().designRuleCheckResult(true, sheetNames);
     }
     return drcResult == Netlist.DRC_PASSED;
@@ -148,6 +150,11 @@ public abstract class DownloadBase {
     return projectDir;
   }
 
+  /**
+   * Generates the HDL files of the circuit. If the HDL_INCREMENTAL preference is set, the
+   * generation is incremental and is to be ended by FileWriter.endIncremental once the scripts are
+   * written too.
+   */
   protected boolean writeHDL(String selectedCircuit, Double frequency) {
     if (!genDirectory(
         AppPreferences.FPGA_Workspace.get()
@@ -163,7 +170,9 @@ public abstract class DownloadBase {
     }
     final var projectDir = getProjDir(selectedCircuit);
     final var rootSheet = myProject.getLogisimFile().getCircuit(selectedCircuit);
-    if (!cleanDirectory(projectDir)) {
+    final var incremental = AppPreferences.HDL_INCREMENTAL.getBoolean();
+    // the first incremental generation starts from a clean directory too
+    if ((!incremental || !HdlManifest.exists(projectDir)) && !cleanDirectory(projectDir)) {
       Reporter.report.addFatalError(
           "Unable to cleanup old project files in directory: \"" + projectDir + "\"");
       return false;
@@ -179,16 +188,25 @@ public abstract class DownloadBase {
         return false;
       }
     }
+    if (incremental) FileWriter.startIncremental(projectDir);
+    if (!writeHdlFiles(rootSheet, projectDir, frequency)) return false;
+    // the source files are listed for the scripts once written, without the stale ones
+    FileWriter.removeStaleFiles(projectDir + AppPreferences.HdlType.get().toLowerCase());
+    return true;
+  }
 
+  private boolean writeHdlFiles(Circuit rootSheet, String projectDir, Double frequency) {
     final var generatedHDLComponents = new HashSet<String>();
     var worker = rootSheet.getSubcircuitFactory().getHDLGenerator(rootSheet.getStaticAttributes());
     if (worker == null) {
       Reporter.report.addFatalError("Internal error on HDL generation, null pointer exception");
       return false;
     }
-    if (!worker.generateAllHDLDescriptions(generatedHDLComponents, projectDir, null)) {
-      return false;
-    }
+    final var generated = AppPreferences.HDL_PARALLEL.getBoolean()
+        ? ((CircuitHdlGeneratorFactory) worker)
+            .generateAllHDLDescriptionsInParallel(generatedHDLComponents, projectDir)
+        : worker.generateAllHDLDescriptions(generatedHDLComponents, projectDir, null);
+    if (!generated) return false;
     // Instantiate the clock synthesizer component
     SynthesizedClockHdlGeneratorFactory synthesizer;
     try {
@@ -14,6 +14,7 @@ import static com.cburch.logisim.fpga.Strings.S;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.generated.BuildInfo;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.util.ArrayList;
@@ -24,6 +25,43 @@ public class FileWriter {
   public static final String ENTITY_EXTENSION = "_entity";
   public static final String ARCHITECTURE_EXTENSION = "_behavior";
 
+  /** The manifest of the incremental generation in progress, or null if it is not incremental. */
+  private static volatile HdlManifest manifest = null;
+
+  /**
+   * Starts an incremental generation in a project directory: the files are only written if their
+   * contents changed since the previous generation, see HdlManifest.
+   */
+  public static void startIncremental(String projectDir) {
+    manifest = HdlManifest.read(projectDir);
+  }
+
+  /** Removes the files of the previous generation in a directory that were not generated again. */
+  public static void removeStaleFiles(String dir) {
+    if (manifest != null) manifest.removeStale(new File(dir));
+  }
+
+  /**
+   * Ends the incremental generation in progress, if any.
+   *
+   * @param succeeded whether the generation succeeded
+   * @return whether the generation succeeded and its manifest could be written
+   */
+  public static boolean endIncremental(boolean succeeded) {
+    final var ended = manifest;
+    manifest = null;
+    if (ended == null) return succeeded;
+    if (succeeded) return ended.write();
+    ended.discard();
+    return false;
+  }
+
+  /** @return whether the file exists, or if the generation is incremental was written by it. */
+  private static boolean isWritten(File file) {
+    final var current = manifest;
+    return current == null ? file.exists() : current.isWritten(file);
+  }
+
   public static File getFilePointer(
       String targetDirectory, String componentName, boolean isEntity) {
     final var fileName = new StringBuilder();
@@ -42,7 +80,7 @@ public class FileWriter {
       fileName.append(Hdl.isVhdl() ? ".vhd" : ".v");
       final var outFile = new File(fileName.toString());
       Reporter.report.addInfo(S.fmt("fileCreateHDLFile", fileName.toString()));
-      if (outFile.exists()) {
+      if (isWritten(outFile)) {
         Reporter.report.addWarning(S.fmt("fileHDLFileExists", fileName.toString()));
         return null;
       }
@@ -67,7 +105,7 @@ public class FileWriter {
       fileName.append(name);
       final var outFile = new File(fileName.toString());
       Reporter.report.addInfo(S.fmt("fileCreateScriptFile", fileName.toString()));
-      if (outFile.exists()) {
+      if (isWritten(outFile)) {
         Reporter.report.addWarning(S.fmt("fileScriptFileExists", fileName.toString()));
         return null;
       }
@@ -135,15 +173,19 @@ public class FileWriter {
 
   public static boolean writeContents(File outfile, List<String> contents) {
     try {
-      final var output = new FileOutputStream(outfile);
+      final var output = new ByteArrayOutputStream();
       for (var thisLine : contents) {
         if (!thisLine.isEmpty()) {
           output.write(thisLine.getBytes());
         }
         output.write("\n".getBytes());
       }
-      output.flush();
-      output.close();
+      final var bytes = output.toByteArray();
+      final var current = manifest;
+      if (current != null && current.isUnchanged(outfile, bytes)) return true;
+      try (final var out = new FileOutputStream(outfile)) {
+        out.write(bytes);
+      }
       return true;
     } catch (Exception e) {
       Reporter.report.addFatalError(S.fmt("fileUnableToWrite", outfile.getAbsolutePath()));
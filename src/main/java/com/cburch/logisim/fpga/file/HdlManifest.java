@@ -0,0 +1,159 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.file;
+
+import static com.cburch.logisim.fpga.Strings.S;
+
+import com.cburch.logisim.fpga.gui.Reporter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.TreeMap;
+
+/**
+ * The SHA-256 hashes of the files generated in a project directory, kept in the directory between
+ * two generations. A file whose contents are those it had at the previous generation is not
+ * written again, so that its modification time is kept and the synthesis tools can reuse their
+ * results, and the files of the previous generation that are not generated anymore are removed.
+ *
+ * <p>Files may be written from several threads, the methods are synchronized.
+ */
+public final class HdlManifest {
+  public static final String FILE_NAME = ".logisim_hdl_manifest";
+
+  private final File projectDir;
+  /** The hashes of the previous generation and of this one, by path relative to projectDir. */
+  private final HashMap<String, String> previous = new HashMap<>();
+  private final TreeMap<String, String> current = new TreeMap<>();
+  private int written = 0;
+  private int unchanged = 0;
+  private int removed = 0;
+
+  private HdlManifest(File projectDir) {
+    this.projectDir = projectDir;
+  }
+
+  /** @return whether the directory holds the manifest of a previous generation. */
+  public static boolean exists(String projectDir) {
+    return new File(projectDir, FILE_NAME).isFile();
+  }
+
+  /**
+   * Reads the manifest of a project directory, or starts an empty one if there is none or it
+   * cannot be read, in which case all the files are written.
+   */
+  public static HdlManifest read(String projectDir) {
+    final var ret = new HdlManifest(new File(projectDir));
+    final var file = new File(projectDir, FILE_NAME);
+    if (!file.isFile()) return ret;
+    try {
+      for (final var line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+        // same format as sha256sum
+        final var sep = line.indexOf("  ");
+        if (sep > 0) ret.previous.put(line.substring(sep + 2), line.substring(0, sep));
+      }
+    } catch (IOException e) {
+      ret.previous.clear();
+    }
+    return ret;
+  }
+
+  private String getKey(File file) {
+    final var path = file.toPath().toAbsolutePath().normalize();
+    final var base = projectDir.toPath().toAbsolutePath().normalize();
+    if (!path.startsWith(base)) return path.toString();
+    return base.relativize(path).toString().replace(File.separatorChar, '/');
+  }
+
+  /** @return whether the file was written already by this generation. */
+  synchronized boolean isWritten(File file) {
+    return current.containsKey(getKey(file));
+  }
+
+  /**
+   * Records the contents of a file of this generation.
+   *
+   * @return true if the file holds them already, and is not to be written
+   */
+  synchronized boolean isUnchanged(File file, byte[] contents) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    final var key = getKey(file);
+    final var hash = HexFormat.of().formatHex(digest.digest(contents));
+    current.put(key, hash);
+    if (hash.equals(previous.get(key)) && file.isFile() && file.length() == contents.length) {
+      unchanged++;
+      return true;
+    }
+    written++;
+    return false;
+  }
+
+  /**
+   * Removes the files of the previous generation in a directory that were not generated by this
+   * one, which must be done generating the files of the directory.
+   */
+  synchronized void removeStale(File dir) {
+    final var dirKey = getKey(dir);
+    final var prefix = dirKey.isEmpty() ? "" : dirKey + "/";
+    final var stale = new ArrayList<String>();
+    for (final var key : previous.keySet()) {
+      if (key.startsWith(prefix) && !current.containsKey(key)) stale.add(key);
+    }
+    for (final var key : stale) {
+      previous.remove(key);
+      final var file = new File(key).isAbsolute() ? new File(key) : new File(projectDir, key);
+      if (file.exists() && !file.delete()) {
+        Reporter.report.addWarning(S.get("fileUnableToRemove", file.getPath()));
+      }
+      removed++;
+    }
+  }
+
+  /**
+   * Removes the remaining files of the previous generation that were not generated by this one,
+   * and writes the manifest of this generation.
+   *
+   * @return false if the manifest could not be written
+   */
+  synchronized boolean write() {
+    removeStale(projectDir);
+    final var lines = new ArrayList<String>();
+    for (final var entry : current.entrySet()) {
+      lines.add(entry.getValue() + "  " + entry.getKey());
+    }
+    try {
+      Files.write(new File(projectDir, FILE_NAME).toPath(), lines, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      Reporter.report.addFatalError(S.get("fileUnableToWrite", FILE_NAME));
+      return false;
+    }
+    Reporter.report.addInfo(S.get("fileHDLIncremental", written, unchanged, removed));
+    return true;
+  }
+
+  /**
+   * Removes the manifest after a failed generation, for the next one to start from a clean
+   * directory since the files it wrote are not known.
+   */
+  synchronized void discard() {
+    new File(projectDir, FILE_NAME).delete();
+  }
+}
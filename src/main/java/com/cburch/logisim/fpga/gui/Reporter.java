@@ -10,6 +10,8 @@
 package com.cburch.logisim.fpga.gui;
 
 import com.cburch.logisim.fpga.designrulecheck.SimpleDrcContainer;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.JProgressBar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +22,8 @@ public class Reporter {
   private static final Logger logger = LoggerFactory.getLogger(Reporter.class);
   private FpgaReportTabbedPane myCommander = null;
   private JProgressBar progress = null;
+  /** The messages held back by the current thread, see {@link #holdMessages()}. */
+  private final ThreadLocal<List<Runnable>> heldMessages = new ThreadLocal<>();
 
   public JProgressBar getProgressBar() {
     return progress;
@@ -33,7 +37,35 @@ public class Reporter {
     progress = progressBar;
   }
 
+  /**
+   * Holds back the messages that the current thread reports from now on, until {@link
+   * #releaseMessages()} is called. Work done concurrently uses this for its messages to be
+   * reported in a deterministic order, which is the one in which they are released.
+   */
+  public void holdMessages() {
+    heldMessages.set(new ArrayList<>());
+  }
+
+  /**
+   * Stops holding back the messages of the current thread.
+   *
+   * @return the messages held back, to be reported by running them
+   */
+  public List<Runnable> releaseMessages() {
+    final var messages = heldMessages.get();
+    heldMessages.remove();
+    return messages == null ? List.of() : messages;
+  }
+
+  private boolean hold(Runnable message) {
+    final var messages = heldMessages.get();
+    if (messages == null) return false;
+    messages.add(message);
+    return true;
+  }
+
   public void addErrorIncrement(String message) {
+    if (hold(() -> addErrorIncrement(message))) return;
     if (myCommander == null)
       logger.error(message);
     else
@@ -41,6 +73,7 @@ public class Reporter {
   }
 
   public void addError(Object message) {
+    if (hold(() -> addError(message))) return;
     if (myCommander == null) {
       if (message instanceof String msg) logger.error(msg);
     } else {
@@ -55,6 +88,7 @@ public class Reporter {
   }
 
   public void addFatalError(String message) {
+    if (hold(() -> addFatalError(message))) return;
     if (myCommander == null)
       logger.error(message);
     else
@@ -62,6 +96,7 @@ public class Reporter {
   }
 
   public void addSevereError(String message) {
+    if (hold(() -> addSevereError(message))) return;
     if (myCommander == null)
       logger.error(message);
     else
@@ -69,6 +104,7 @@ public class Reporter {
   }
 
   public void addInfo(String message) {
+    if (hold(() -> addInfo(message))) return;
     if (myCommander == null)
       logger.info(message);
     else
@@ -76,6 +112,7 @@ public class Reporter {
   }
 
   public void addSevereWarning(String message) {
+    if (hold(() -> addSevereWarning(message))) return;
     if (myCommander == null)
       logger.warn(message);
     else
@@ -83,6 +120,7 @@ public class Reporter {
   }
 
   public void addWarningIncrement(String message) {
+    if (hold(() -> addWarningIncrement(message))) return;
     if (myCommander == null)
       logger.warn(message);
     else
@@ -90,6 +128,7 @@ public class Reporter {
   }
 
   public void addWarning(Object message) {
+    if (hold(() -> addWarning(message))) return;
     if (myCommander == null) {
       if (message instanceof String msg) logger.warn(msg);
     } else {
@@ -105,6 +144,7 @@ public class Reporter {
   }
 
   public void print(String message) {
+    if (hold(() -> print(message))) return;
     if (myCommander == null)
       logger.info(message);
     else
@@ -90,6 +90,8 @@ public class FpgaOptions extends OptionsPanel {
   private JCheckBox SupressGated;
   private JCheckBox SupressOpen;
   private JCheckBox vhdlKeywordUpperCase;
+  private final JCheckBox hdlIncremental;
+  private final JCheckBox hdlParallel;
   private final PreferencesFrame frame;
   private final PrefOptionList HDL_Used;
 
@@ -140,7 +142,15 @@ public class FpgaOptions extends OptionsPanel {
     gbc.gridwidth = 1;
     add(HDL_Used.getJComboBox(), gbc);
     gbc.gridx = 0;
+    gbc.gridy = 2;
+    gbc.gridwidth = 3;
+    hdlIncremental = ((PrefMonitorBoolean) AppPreferences.HDL_INCREMENTAL).getCheckBox();
+    add(hdlIncremental, gbc);
     gbc.gridy = 3;
+    hdlParallel = ((PrefMonitorBoolean) AppPreferences.HDL_PARALLEL).getCheckBox();
+    add(hdlParallel, gbc);
+    gbc.gridx = 0;
+    gbc.gridy = 4;
     gbc.gridwidth = 3;
     add(getVhdlOptions(), gbc);
     gbc.gridy++;
@@ -270,6 +280,8 @@ public class FpgaOptions extends OptionsPanel {
     SupressGated.setText(S.get("SupressGatedClock"));
     SupressOpen.setText(S.get("SupressOpenInput"));
     vhdlKeywordUpperCase.setText(S.get("VhdlKeywordUpperCase"));
+    hdlIncremental.setText(S.get("HdlIncremental"));
+    hdlParallel.setText(S.get("HdlParallel"));
     editPan.setBorder(BorderFactory.createTitledBorder(S.get("EditColors")));
     mapPan.setBorder(BorderFactory.createTitledBorder(S.get("MapColors")));
     ReportPan.setBorder(BorderFactory.createTitledBorder(S.get("ReporterOptions")));
@@ -434,9 +434,20 @@ public class RightPanel extends JPanel {
       var prevLo = false;
       Color prevFill = null;
       while (cur.value != null) {
-        final var v = cur.getFormattedValue();
         final var x0 = (int) (z * (cur.time - t0));
         final var x1 = (int) (z * (cur.time + cur.duration - t0));
+        if (x1 == x0 && prevFill != null) {
+          // the value changes again within this pixel: draw a single transition for all the
+          // changes in it and go on with the value at the next pixel
+          g.setColor(colors[2]);
+          g.drawLine(x0, HIGH, x0, LOW);
+          prevHi = true;
+          prevLo = true;
+          final var next = t0 + (long) Math.ceil((x0 + 1) / z);
+          if (!cur.advance(Math.max(next - cur.time, cur.duration))) break;
+          continue;
+        }
+        final var v = cur.getFormattedValue();
 
         var hi = true;
         var lo = true;
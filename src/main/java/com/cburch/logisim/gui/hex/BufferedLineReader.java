@@ -44,6 +44,14 @@ abstract class BufferedLineReader {
     return new ReaderForFile(filename);
   }
 
+  /**
+   * Construct a BufferedLineReader reading a character stream once, as the data arrives. It can
+   * only be reset before anything was read, and its overall size is unknown.
+   */
+  public static BufferedLineReader forReader(Reader r) {
+    return new ReaderForStream(r);
+  }
+
   public void reset() throws IOException {
     bPos = 0;
     charPos = 0;
@@ -279,4 +287,43 @@ abstract class BufferedLineReader {
       return bin.read(bbuf, off, len);
     }
   }
+
+  private static class ReaderForStream extends BufferedLineReader {
+    Reader cin;
+    boolean started = false;
+
+    ReaderForStream(Reader r) {
+      cin = r;
+      bufSize = -1;
+      bPos = 0;
+      charPos = 0;
+    }
+
+    @Override
+    public void reset() throws IOException {
+      if (started) throw new IOException("stream cannot be reset");
+      super.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        cin.close();
+      } finally {
+        cin = null;
+        buf = null;
+      }
+    }
+
+    @Override
+    int underlyingReadUtf8(char[] cbuf, int off, int len) throws IOException {
+      started = true;
+      return cin.read(cbuf, off, len);
+    }
+
+    @Override
+    int underlyingReadBytes(byte[] bbuf, int off, int len) throws IOException {
+      throw new IOException("raw byte read from a character stream");
+    }
+  }
 }
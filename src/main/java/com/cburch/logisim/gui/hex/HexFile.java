@@ -40,6 +40,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.math.BigInteger;
@@ -280,15 +281,22 @@ public class HexFile {
   }
 
   public static ParseResult parseFromClipboard(String src, int addrSize, int wordSize) throws IOException {
-    return parse(true, src, "v3.0 hex plain words", addrSize, wordSize);
+    return parse(true, BufferedLineReader.forString(src), "v3.0 hex plain words", addrSize, wordSize);
   }
 
   public static MemContents parseFromCircFile(String src, int addrSize, int wordSize) throws IOException {
-    return parse(false, src, "v2.0 raw", addrSize, wordSize).model;
+    return parse(false, BufferedLineReader.forString(src), "v2.0 raw", addrSize, wordSize).model;
   }
 
-  private static ParseResult parse(boolean interactive, String src, String desc, int addrSize, int wordSize) throws IOException {
-    final var in = BufferedLineReader.forString(src);
+  /**
+   * Parses memory contents as stored in a .circ file while they are read, without holding their
+   * text. The reader is read once, up to the end of the contents, and closed.
+   */
+  public static MemContents parseFromCircFile(Reader src, int addrSize, int wordSize) throws IOException {
+    return parse(false, BufferedLineReader.forReader(src), "v2.0 raw", addrSize, wordSize).model;
+  }
+
+  private static ParseResult parse(boolean interactive, BufferedLineReader in, String desc, int addrSize, int wordSize) throws IOException {
     try {
       final var r = new HexReader(in, addrSize, wordSize);
       r.parseFormat(desc);
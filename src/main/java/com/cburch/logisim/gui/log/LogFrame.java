@@ -45,7 +45,11 @@ public class LogFrame extends LFrame.SubWindowWithSimulation {
   private final LogMenuListener menuListener;
 
   private class MyListener
-      implements ProjectListener, LibraryListener, Simulator.ProgressListener, LocaleListener {
+      implements ProjectListener,
+          LibraryListener,
+          Simulator.ProgressListener,
+          Simulator.SampleListener,
+          LocaleListener {
 
     @Override
     public void libraryChanged(LibraryEvent event) {
@@ -83,7 +87,14 @@ public class LogFrame extends LFrame.SubWindowWithSimulation {
 
     @Override
     public void propagationCompleted(Simulator.Event e) {
-      curModel.propagationCompleted(e.didTick(), e.didSingleStep(), e.didPropagate());
+      // the samples of decoupled ticks were taken one at a time
+      if (e.isDecoupled()) curModel.flushSamples();
+      else curModel.propagationCompleted(e.didTick(), e.didSingleStep(), e.didPropagate());
+    }
+
+    @Override
+    public void sampleTaken(Simulator.Event e) {
+      curModel.takeSample(e.didTick(), e.didSingleStep(), e.didPropagate());
     }
 
     @Override
@@ -93,7 +104,9 @@ public class LogFrame extends LFrame.SubWindowWithSimulation {
 
     @Override
     public void propagationInProgress(Simulator.Event e) {
-      curModel.propagationCompleted(false, true, false); // treat as a single-step
+      // treat as a single-step
+      if (e.isDecoupled()) curModel.takeSample(false, true, false);
+      else curModel.propagationCompleted(false, true, false);
     }
 
     @Override
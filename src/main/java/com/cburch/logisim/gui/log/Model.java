@@ -93,6 +93,9 @@ public class Model implements CircuitListener, SignalInfo.Listener {
   private int historyLimit = 400;
   private long elapsedSinceTrigger;
   private long lastRealtimeUpdate;
+  // samples recorded but not yet told to the listeners, when given in blocks
+  private boolean batching = false;
+  private int pendingSamples = 0;
 
   public Model(CircuitState root) {
     circuitState = root;
@@ -560,7 +563,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     }
     elapsedSinceTrigger += duration;
     timeEnd += duration;
-    fireSignalsExtended(null);
+    signalsExtended();
   }
 
   private void extendWithNewValues(long duration) {
@@ -570,7 +573,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     }
     elapsedSinceTrigger += duration;
     timeEnd += duration;
-    fireSignalsExtended(null);
+    signalsExtended();
   }
 
   private void replaceWithNewValues(long duration) {
@@ -578,7 +581,35 @@ public class Model implements CircuitListener, SignalInfo.Listener {
       final var v = s.info.fetchValue(circuitState);
       s.replaceRecent(v, duration);
     }
-    fireSignalsExtended(null); // changed, not extended, but works fine for now
+    signalsExtended(); // changed, not extended, but works fine for now
+  }
+
+  private void signalsExtended() {
+    if (batching) pendingSamples++;
+    else fireSignalsExtended(null);
+  }
+
+  /**
+   * Records the values of the signals after a tick the simulator ran decoupled from the display.
+   * The listeners are told about the samples in blocks, when the simulator completes a frame or
+   * before the history limit could drop samples they have not seen.
+   */
+  public void takeSample(boolean ticked, boolean stepped, boolean propagated) {
+    batching = true;
+    try {
+      propagationCompleted(ticked, stepped, propagated);
+    } finally {
+      batching = false;
+    }
+    // a sample may take two places in the history
+    if (historyLimit > 0 && 2 * pendingSamples >= historyLimit) flushSamples();
+  }
+
+  /** Tells the listeners about the samples taken since the last block. */
+  public void flushSamples() {
+    if (pendingSamples == 0) return;
+    pendingSamples = 0;
+    fireSignalsExtended(null);
   }
 
   public void propagationCompleted(boolean ticked, boolean stepped, boolean propagated) {
@@ -708,6 +739,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     }
     elapsedSinceTrigger += duration;
     timeEnd = duration;
+    pendingSamples = 0;
   }
 
   public void setFile(File value) {
@@ -18,54 +18,34 @@ import java.util.ArrayList;
 
 public class Signal {
 
-  private static final int CHUNK = 512;
-
   // Signal position in list, name, etc.
   public int idx;
   public final SignalInfo info;
 
   // Signal data
-  private long timeStart;
-  private Value[][] val; // values, in blocks no larger than CHUNK
+  private final WaveformStore store;
   private Value last;
-  private long[][] dur; // duration of each value
-  private int curSize;
   private int maxSize; // limit, or zero for unlimited
-  private short firstIndex; // for wrapping, only when limited
 
   public Signal(
       int idx, SignalInfo info, Value initialValue, long duration, long timeStart, int maxSize) {
     this.idx = idx;
     this.info = info;
-    this.timeStart = timeStart;
     this.maxSize = maxSize;
-    this.val = new Value[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.dur = new long[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.curSize = 0;
-    this.firstIndex = 0;
+    this.store = new WaveformStore(timeStart);
     extend(initialValue, duration);
   }
 
   public long omittedDataTime() {
-    return curSize == maxSize ? timeStart : 0;
+    return store.getFirst() > 0 ? store.getStartTime() : 0;
   }
 
   public long getEndTime() {
-    var t = timeStart;
-    for (var p = 0; p < curSize; p++) {
-      var i = (firstIndex + p) % curSize;
-      t += dur[i / CHUNK][i % CHUNK];
-    }
-    return t;
+    return store.getEndTime();
   }
 
   public void extend(long duration) {
-    if (last == null) {
-      timeStart += duration;
-    } else {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
-    }
+    store.setEndTime(store.getEndTime() + duration);
   }
 
   public void extend(Value v, long duration) {
@@ -74,70 +54,35 @@ public class Signal {
           "*** notice: value width mismatch for %s: width=%d bits, newVal=%s (%d bits)\n",
           info, info.getWidth(), v, v.getWidth());
     if (last != null && last.equals(v)) {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
+      extend(duration);
       return;
     }
     last = v;
-    final var c = val.length;
-    final var cap = CHUNK * (c - 1) + val[c - 1].length;
-    if (curSize < cap) {
-      // fits in an existing chunk
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else if (curSize < maxSize || maxSize <= 0) {
-      // allocate another chunk
-      final var val2 = new Value[c + 1][];
-      final var dur2 = new long[c + 1][];
-      System.arraycopy(val, 0, val2, 0, c);
-      System.arraycopy(dur, 0, dur2, 0, c);
-      val2[c] = new Value[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      dur2[c] = new long[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      val = val2;
-      dur = dur2;
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else {
-      // limited size is filled, wrap around, and adjust start offset
-      timeStart += dur[firstIndex / CHUNK][firstIndex % CHUNK];
-      val[firstIndex / CHUNK][firstIndex % CHUNK] = v;
-      dur[firstIndex / CHUNK][firstIndex % CHUNK] = duration;
-      firstIndex++;
-      if (firstIndex >= maxSize) firstIndex = 0;
+    store.add(v, duration);
+    // limited size is filled, drop the oldest data
+    if (maxSize > 0 && store.getSize() - store.getFirst() > maxSize) {
+      store.dropBefore(store.getSize() - maxSize);
     }
   }
 
   public void replaceRecent(Value v, long duration) {
-    if (last == null || curSize == 0)
+    if (last == null || store.isEmpty())
       throw new IllegalStateException("signal should have at least " + duration + " ns of data");
-    final var i = (firstIndex + curSize - 1) % curSize;
-    if (dur[i / CHUNK][i % CHUNK] == duration) {
-      val[i / CHUNK][i % CHUNK] = v;
+    final var i = store.getSize() - 1;
+    final var d = store.getDuration(i);
+    if (d == duration) {
+      store.setValue(i, v);
       last = v;
-      final var j = (i + curSize - 1) % curSize;
-      if (curSize > 1 && val[j / CHUNK][j % CHUNK].equals(v)) {
-        dur[j / CHUNK][j % CHUNK] += duration;
-        curSize--;
-        // special case: last chunk is now entirely empty, must be removed
-        if (i % CHUNK == 0) {
-          int c = val.length - 1;
-          final var valueNew = new Value[c][];
-          final var durNew = new long[c][];
-          System.arraycopy(val, 0, valueNew, 0, c);
-          System.arraycopy(dur, 0, durNew, 0, c);
-          val = valueNew;
-          dur = durNew;
-        }
+      if (i > store.getFirst() && store.getValue(i - 1).equals(v)) {
+        // the previous value now lasts until the end
+        store.removeLast();
       }
-    } else if (dur[i / CHUNK][i % CHUNK] > duration) {
-      dur[i / CHUNK][i % CHUNK] -= duration;
+    } else if (d > duration) {
+      store.setEndTime(store.getEndTime() - duration);
       extend(v, duration);
-    } else if (curSize == 1 && dur[i / CHUNK][i % CHUNK] + timeStart >= duration) {
-      timeStart -= (duration - dur[i / CHUNK][i % CHUNK]);
-      val[i / CHUNK][i % CHUNK] = v;
-      dur[i / CHUNK][i % CHUNK] = duration;
+    } else if (i == store.getFirst() && d + store.getStartTime() >= duration) {
+      store.setTime(i, store.getEndTime() - duration);
+      store.setValue(i, v);
       last = v;
     } else {
       throw new IllegalStateException(
@@ -145,113 +90,35 @@ public class Signal {
               + duration
               + " ns in duration,"
               + " but only "
-              + dur[i / CHUNK][i % CHUNK]
+              + d
               + " in last signal");
     }
   }
 
-  private void retainOnly(int offset, int amt, int cap) {
-    // shift all values [from offset to offset+amt] left into new arrays
-    // of size appropriate for eventual capacity cap
-    final var c = (amt + CHUNK - 1) / CHUNK;
-    final var last = cap == 0 ? CHUNK : Math.min(CHUNK, cap - (c - 1) * CHUNK);
-    final var v = new Value[c][];
-    final var d = new long[c][];
-    for (var i = 0; i < c; i++) {
-      v[i] = new Value[i < c - 1 ? CHUNK : last];
-      d[i] = new long[i < c - 1 ? CHUNK : last];
-    }
-    for (var p = 0; p < amt; p++) {
-      int i = (firstIndex + offset + p) % curSize;
-      v[p / CHUNK][p % CHUNK] = val[i / CHUNK][i % CHUNK];
-      d[p / CHUNK][p % CHUNK] = dur[i / CHUNK][i % CHUNK];
-    }
-    val = v;
-    dur = d;
-    firstIndex = 0;
-    curSize = amt;
-  }
-
   public void resize(int newMaxSize) {
     if (newMaxSize == maxSize) return;
-    if (newMaxSize == 0 || newMaxSize > maxSize) {
-      // growing
-      retainOnly(0, curSize, newMaxSize); // keeps all data, but shifts it left
-    } else {
-      // shrinking: newMaxSize < maxSize
-      if (curSize <= newMaxSize) {
-        // Mostly empty, keep all data, but maybe truncate last chunk if needed
-        // to get capacity below new max size.
-        // Note: firstIndex must be 0, since otherwize curSize==maxSize,
-        // and that would mean curSize > newMaxSize.
-        // There are two cases:
-        //  very unfull:
-        //    cap -----------------------------------------------|
-        //    curSize --------------------------|
-        //    [ 0+ full large-chunks ] [ partly full large-chunk ] [ not yet allocated... ]
-        //  nearly full:
-        //    cap ---------------------------------------------|
-        //    curSize -------------------------|
-        //    [ 0+ full large-chunks ] [ partly full end-chunk ]
-        // In the very unfull case, we may be able to do nothing at all
-        // (if cap <= newMaxSize), or we may have to shrink that last allocated
-        // chunk (if cap > newMaxSize).
-        // In the nearly full case, cap > newMaxSize and we need to shrink the
-        // last allocated chunk.
-        final var c = val.length;
-        final var cap = CHUNK * (c - 1) + val[c - 1].length;
-        if (cap > newMaxSize) {
-          // Note: # of existing chunks (c) must be equal to # of new chunks
-          final var last = Math.min(CHUNK, newMaxSize - (c - 1) * CHUNK);
-          final var v = new Value[last];
-          final var d = new long[last];
-          System.arraycopy(val[c - 1], 0, v, 0, last);
-          System.arraycopy(dur[c - 1], 0, d, 0, last);
-          val[c - 1] = v;
-          dur[c - 1] = d;
-        }
-      } else { // curSize > newMaxSize
-        // too much data, keep only most recent data and shift it left
-        final var discard = (maxSize - newMaxSize);
-        for (var p = 0; p < discard; p++) {
-          final var i = (firstIndex + p) % curSize;
-          timeStart += dur[i / CHUNK][i % CHUNK];
-        }
-        retainOnly(discard, newMaxSize, newMaxSize);
-      }
+    // shrinking: keep only the most recent data
+    if (newMaxSize > 0 && store.getSize() - store.getFirst() > newMaxSize) {
+      store.dropBefore(store.getSize() - newMaxSize);
     }
     maxSize = newMaxSize;
   }
 
   public void reset(Value v, long duration) {
-    if (val.length > 1) {
-      final var val2 = new Value[1][];
-      final var dur2 = new long[1][];
-      val2[0] = val[0];
-      dur2[0] = dur[0];
-      val = val2;
-      dur = dur2;
-    }
+    store.clear(0);
     last = null;
-    curSize = 0;
-    firstIndex = 0;
     extend(v, duration);
   }
 
   public class Iterator {
 
-    public int position;
+    public long position;
     public long time;
     public long duration;
     public Value value;
 
     public Iterator() {
-      position = 0;
-      time = timeStart;
-      final var i = firstIndex;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      load(store.getFirst());
     }
 
     public Iterator(long t) {
@@ -259,22 +126,25 @@ public class Signal {
       if (t > time) advance(t - time);
     }
 
+    private void load(long i) {
+      // data dropped meanwhile is skipped
+      position = Math.max(i, store.getFirst());
+      time = store.getTime(position);
+      duration = store.getDuration(position);
+      value = store.getValue(position).extendWidth(info.getWidth(), Value.FALSE);
+    }
+
     public String getFormattedValue() {
       return value == null ? "-" : info.format(value);
     }
 
     public boolean advance() {
-      if (position == curSize - 1) {
+      if (position >= store.getSize() - 1) {
         value = null;
         duration = 0;
         return false;
       }
-      position++;
-      time += duration;
-      final var i = (firstIndex + position) % curSize;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      load(position + 1);
       return true;
     }
 
@@ -282,8 +152,16 @@ public class Signal {
       if (value == null) return false;
       if (timeFwd <= 0) return true;
       final var t = time + timeFwd;
-      while (t >= time + duration) {
-        if (!advance()) return false;
+      if (t >= time + duration) {
+        final var i = store.find(t);
+        if (i < 0) {
+          // past the end
+          position = store.getSize() - 1;
+          value = null;
+          duration = 0;
+          return false;
+        }
+        load(i);
       }
       // postcondition: t < time + duration
       //                t - time < duration
@@ -293,18 +171,9 @@ public class Signal {
     }
   }
 
-  // TODO: easily optimized
   public Value getValue(long t) { // always current width, even when width changes
-    if (t < timeStart) return null;
-    final var width = info.getWidth();
-    var tt = timeStart;
-    for (int p = 0; p < curSize; p++) {
-      final var i = (firstIndex + p) % curSize;
-      final var d = dur[i / CHUNK][i % CHUNK];
-      if (t < tt + d) return val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      tt += d;
-    }
-    return null;
+    final var i = store.find(t);
+    return i < 0 ? null : store.getValue(i).extendWidth(info.getWidth(), Value.FALSE);
   }
 
   public String getFormattedValue(long t) {
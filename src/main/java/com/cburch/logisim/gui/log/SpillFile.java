@@ -0,0 +1,131 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A temporary file, mapped in memory, made of slots of a fixed size into which the older chunks of
+ * the waveforms are moved, so that long runs of the logger keep their whole history without
+ * growing the heap. The file is mapped in segments of 16 MiB as it grows, slots never straddling
+ * two segments, and the slots released are used again.
+ *
+ * <p>Closing the file closes its channel and deletes it. The segments stay mapped as long as a
+ * slot is in use, since readers may still go through them, as when Logisim exits while the
+ * chronogram is painted; they are only dropped if no slot is in use, to be unmapped once garbage
+ * collected. A mapped file cannot be deleted on Windows, so it is deleted at exit then.
+ */
+final class SpillFile {
+  static final Logger logger = LoggerFactory.getLogger(SpillFile.class);
+
+  private static final int SEGMENT_BITS = 24;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+  private final int slotSize;
+  private final int slotsPerSegment;
+  private final File file;
+  private final FileChannel channel;
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  private final ArrayDeque<Long> freeSlots = new ArrayDeque<>();
+  private long nextSlot = 0;
+  private int slotsInUse = 0;
+  private boolean closed = false;
+
+  SpillFile(int slotSize) throws IOException {
+    if (slotSize > SEGMENT_SIZE) throw new IllegalArgumentException("slot too large");
+    this.slotSize = slotSize;
+    slotsPerSegment = SEGMENT_SIZE / slotSize;
+    file = File.createTempFile("logisim-waveform", ".tmp");
+    // in case Logisim is killed before closing it
+    file.deleteOnExit();
+    channel = new RandomAccessFile(file, "rw").getChannel();
+  }
+
+  /** @return the offset of a free slot, mapping another segment if needed. */
+  synchronized long allocate() throws IOException {
+    if (closed) throw new IOException("spill file closed");
+    slotsInUse++;
+    if (!freeSlots.isEmpty()) return freeSlots.pop();
+    final var slot = nextSlot;
+    final var segment = (int) (slot / slotsPerSegment);
+    if (segment >= segments.length) {
+      final MappedByteBuffer mapped;
+      try {
+        mapped = channel.map(
+            FileChannel.MapMode.READ_WRITE, (long) segment << SEGMENT_BITS, SEGMENT_SIZE);
+      } catch (IOException e) {
+        slotsInUse--;
+        throw e;
+      }
+      final var grown = Arrays.copyOf(segments, segment + 1);
+      grown[segment] = mapped;
+      segments = grown;
+    }
+    nextSlot++;
+    return ((long) segment << SEGMENT_BITS) + (slot % slotsPerSegment) * slotSize;
+  }
+
+  synchronized void release(long offset) {
+    if (closed) return;
+    slotsInUse--;
+    freeSlots.push(offset);
+  }
+
+  /** @return whether no slot is allocated. */
+  synchronized boolean isUnused() {
+    return slotsInUse == 0;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Closes the file and deletes it, dropping its segments if no slot is in use. Closing it again
+   * does nothing.
+   */
+  synchronized void close() {
+    if (closed) return;
+    closed = true;
+    if (slotsInUse == 0) segments = new MappedByteBuffer[0];
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.warn("Cannot close the waveform spill file: {}", e.toString());
+    }
+    if (!file.delete()) {
+      logger.debug("Cannot delete the waveform spill file {} yet, left to the exit", file);
+    }
+  }
+
+  long getLong(long offset) {
+    return segments[(int) (offset >>> SEGMENT_BITS)].getLong((int) (offset & (SEGMENT_SIZE - 1)));
+  }
+
+  void putLong(long offset, long value) {
+    segments[(int) (offset >>> SEGMENT_BITS)].putLong((int) (offset & (SEGMENT_SIZE - 1)), value);
+  }
+
+  byte getByte(long offset) {
+    return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & (SEGMENT_SIZE - 1)));
+  }
+
+  void putByte(long offset, byte value) {
+    segments[(int) (offset >>> SEGMENT_BITS)].put((int) (offset & (SEGMENT_SIZE - 1)), value);
+  }
+}
@@ -0,0 +1,422 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import com.cburch.logisim.data.Value;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The samples of a signal, each a value and the time from which the signal had it, until the
+ * time of the next sample or the end time of the store. The samples are kept in columns of
+ * primitives (start time, value, unknown and error masks, width) in chunks of 1024, and the start
+ * time of each chunk is kept aside as a sparse index, so that the sample at a time is found by
+ * binary searches on those and then in the chunk.
+ *
+ * <p>Only the most recent chunks are kept on the heap: the older ones are moved to a file mapped
+ * in memory, shared by all the stores, and read from there. If the file cannot be created, the
+ * chunks stay on the heap. Samples are numbered from the first ever added, with longs since a run
+ * with a history limit may add more than an int can count; the oldest ones may be dropped to honor
+ * the limit, and the array of chunks then starts from the oldest chunk kept.
+ *
+ * <p>Samples are added and changed by the simulation thread while they are read by others; the
+ * readers only see the samples below the size they read. Dropping samples publishes a new array
+ * of chunks, without the dropped ones, and a reader asking for a dropped sample gets the oldest one
+ * kept instead. The readers are counted while they go through the chunks, and the slots of the
+ * dropped chunks are only released to the spill file once no reader is left, since they may still
+ * be reading from the chunks of the previous array. The spill file is closed once it has no slot
+ * in use, and when Logisim exits, though its segments stay mapped then for the readers still
+ * running.
+ */
+final class WaveformStore {
+  static final Logger logger = LoggerFactory.getLogger(WaveformStore.class);
+
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK = 1 << CHUNK_BITS;
+  /** Chunks kept on the heap by a store, the one samples are added to included. */
+  private static final int RESIDENT_CHUNKS = 4;
+
+  private static final int VALUE_COLUMN = CHUNK * 8;
+  private static final int UNKNOWN_COLUMN = 2 * CHUNK * 8;
+  private static final int ERROR_COLUMN = 3 * CHUNK * 8;
+  private static final int WIDTH_COLUMN = 4 * CHUNK * 8;
+  private static final int CHUNK_BYTES = 4 * CHUNK * 8 + CHUNK;
+
+  private static SpillFile spillFile;
+  /** Whether chunks are kept on the heap, the file having failed or Logisim exiting. */
+  private static boolean spillDisabled = false;
+  private static boolean closeOnExit = false;
+
+  /** @return the spill file, or null if there is none at the moment. */
+  static synchronized SpillFile getSpillFile() {
+    return spillFile;
+  }
+
+  /**
+   * Moves a chunk to the spill file, creating the file if needed. The file is only used under the
+   * lock of the class, so that it is not closed while a slot is allocated.
+   *
+   * @return false if the chunk stays on the heap
+   */
+  private static synchronized boolean spill(Chunk chunk) {
+    if (spillFile == null && !spillDisabled) {
+      try {
+        spillFile = new SpillFile(CHUNK_BYTES);
+      } catch (IOException e) {
+        spillDisabled = true;
+        logger.warn("Cannot create the waveform spill file, keeping waveforms on the heap: {}",
+            e.toString());
+        return false;
+      }
+      if (!closeOnExit) {
+        closeOnExit = true;
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(WaveformStore::closeSpillFile, "waveform-spill-close"));
+      }
+    }
+    if (spillFile == null) return false;
+    try {
+      chunk.spill(spillFile);
+      return true;
+    } catch (IOException e) {
+      logger.warn("Cannot spill a waveform chunk, keeping it on the heap: {}", e.toString());
+      return false;
+    }
+  }
+
+  /** Releases the slot of a spilled chunk, closing the spill file if it was the last one. */
+  private static synchronized void release(Chunk chunk) {
+    chunk.file.release(chunk.spillOffset);
+    if (chunk.file == spillFile && spillFile.isUnused()) {
+      spillFile.close();
+      spillFile = null;
+    }
+  }
+
+  /**
+   * Closes the spill file when Logisim exits, the chunks being kept on the heap from then on. The
+   * chunks already spilled may still be read, their segments staying mapped.
+   */
+  static synchronized void closeSpillFile() {
+    spillDisabled = true;
+    if (spillFile != null) {
+      spillFile.close();
+      spillFile = null;
+    }
+  }
+
+  private static final class Columns {
+    final long[] times = new long[CHUNK];
+    final long[] values = new long[CHUNK];
+    final long[] unknowns = new long[CHUNK];
+    final long[] errors = new long[CHUNK];
+    final byte[] widths = new byte[CHUNK];
+  }
+
+  private static final class Chunk {
+    /** The start time of the first sample of the chunk, the sparse index. */
+    long startTime;
+    /** The samples on the heap, or null once spilled to the file at spillOffset. */
+    volatile Columns columns = new Columns();
+    SpillFile file;
+    long spillOffset = -1;
+
+    long getTime(int j) {
+      final var cols = columns;
+      return cols != null ? cols.times[j] : file.getLong(spillOffset + ((long) j << 3));
+    }
+
+    Value getValue(int j) {
+      final var cols = columns;
+      if (cols != null) {
+        return Value.create(cols.widths[j], cols.errors[j], cols.unknowns[j], cols.values[j]);
+      }
+      final var at = spillOffset + ((long) j << 3);
+      return Value.create(
+          file.getByte(spillOffset + WIDTH_COLUMN + j),
+          file.getLong(at + ERROR_COLUMN),
+          file.getLong(at + UNKNOWN_COLUMN),
+          file.getLong(at + VALUE_COLUMN));
+    }
+
+    void setTime(int j, long time) {
+      if (j == 0) startTime = time;
+      final var cols = columns;
+      if (cols != null) {
+        cols.times[j] = time;
+      } else {
+        file.putLong(spillOffset + ((long) j << 3), time);
+      }
+    }
+
+    void setValue(int j, Value v) {
+      final var cols = columns;
+      if (cols != null) {
+        cols.values[j] = v.getValueMask();
+        cols.unknowns[j] = v.getUnknownMask();
+        cols.errors[j] = v.getErrorMask();
+        cols.widths[j] = (byte) v.getWidth();
+      } else {
+        final var at = spillOffset + ((long) j << 3);
+        file.putLong(at + VALUE_COLUMN, v.getValueMask());
+        file.putLong(at + UNKNOWN_COLUMN, v.getUnknownMask());
+        file.putLong(at + ERROR_COLUMN, v.getErrorMask());
+        file.putByte(spillOffset + WIDTH_COLUMN + j, (byte) v.getWidth());
+      }
+    }
+
+    void spill(SpillFile to) throws IOException {
+      final var cols = columns;
+      final var offset = to.allocate();
+      for (var j = 0; j < CHUNK; j++) {
+        final var at = offset + ((long) j << 3);
+        to.putLong(at, cols.times[j]);
+        to.putLong(at + VALUE_COLUMN, cols.values[j]);
+        to.putLong(at + UNKNOWN_COLUMN, cols.unknowns[j]);
+        to.putLong(at + ERROR_COLUMN, cols.errors[j]);
+        to.putByte(offset + WIDTH_COLUMN + j, cols.widths[j]);
+      }
+      file = to;
+      spillOffset = offset;
+      // publishes the samples written to the file
+      columns = null;
+    }
+
+    /** Releases the slot of the chunk, once no reader may go through it any more. */
+    void free() {
+      if (columns == null) release(this);
+    }
+  }
+
+  /**
+   * The chunks from the one numbered base, each holding the samples from CHUNK * its number. It is
+   * replaced rather than changed when chunks are dropped, see dropBefore.
+   */
+  private record Window(long base, Chunk[] chunks) {
+    /** @return the chunk numbered c, or null if it is not in the window. */
+    Chunk get(long c) {
+      final var at = c - base;
+      return at >= 0 && at < chunks.length ? chunks[(int) at] : null;
+    }
+  }
+
+  private volatile Window window = new Window(0, new Chunk[8]);
+  /** The number of the oldest sample kept. */
+  private volatile long first;
+  /** The number after the one of the most recent sample. */
+  private volatile long size;
+  private volatile long endTime;
+  /** The number of the oldest chunk still on the heap. */
+  private long oldestResident;
+  /** The readers going through the chunks. */
+  private final AtomicInteger readers = new AtomicInteger();
+  /** The chunks dropped, to be freed once no reader is left. */
+  private final ArrayList<Chunk> retired = new ArrayList<>();
+
+  WaveformStore(long startTime) {
+    endTime = startTime;
+  }
+
+  long getFirst() {
+    return first;
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == first;
+  }
+
+  long getStartTime() {
+    return isEmpty() ? endTime : getTime(first);
+  }
+
+  long getEndTime() {
+    return endTime;
+  }
+
+  void setEndTime(long time) {
+    endTime = time;
+  }
+
+  /** @return the chunk of sample i in w, or null if it was dropped or cleared meanwhile. */
+  private static Chunk chunkOf(Window w, long i) {
+    return w.get(i >> CHUNK_BITS);
+  }
+
+  long getTime(long i) {
+    readers.incrementAndGet();
+    try {
+      // the window is read before first, which is changed before it, see dropBefore
+      final var w = window;
+      final var at = Math.max(i, first);
+      final var chunk = chunkOf(w, at);
+      return chunk == null ? endTime : chunk.getTime((int) at & (CHUNK - 1));
+    } finally {
+      readers.decrementAndGet();
+    }
+  }
+
+  long getDuration(long i) {
+    return (i + 1 < size ? getTime(i + 1) : endTime) - getTime(i);
+  }
+
+  Value getValue(long i) {
+    readers.incrementAndGet();
+    try {
+      final var w = window;
+      final var at = Math.max(i, first);
+      final var chunk = chunkOf(w, at);
+      return chunk == null ? Value.UNKNOWN : chunk.getValue((int) at & (CHUNK - 1));
+    } finally {
+      readers.decrementAndGet();
+    }
+  }
+
+  void setTime(long i, long time) {
+    chunkOf(window, i).setTime((int) i & (CHUNK - 1), time);
+  }
+
+  void setValue(long i, Value v) {
+    chunkOf(window, i).setValue((int) i & (CHUNK - 1), v);
+  }
+
+  /**
+   * @return the number of the sample the signal had at time t, or -1 if t is outside of the
+   *     samples.
+   */
+  long find(long t) {
+    readers.incrementAndGet();
+    try {
+      final var w = window;
+      final var lo = first;
+      final var hi = size;
+      if (lo == hi || t >= endTime) return -1;
+      final var oldest = chunkOf(w, lo);
+      if (oldest == null || t < oldest.getTime((int) lo & (CHUNK - 1))) return -1;
+      // the last chunk starting at or before t, then the last sample in it starting at or before t
+      var chunkLo = lo >> CHUNK_BITS;
+      var chunkHi = Math.min((hi - 1) >> CHUNK_BITS, w.base + w.chunks.length - 1);
+      while (chunkLo < chunkHi) {
+        final var mid = (chunkLo + chunkHi + 1) >>> 1;
+        final var chunk = w.get(mid);
+        if (chunk != null && chunk.startTime <= t) chunkLo = mid;
+        else chunkHi = mid - 1;
+      }
+      final var chunk = w.get(chunkLo);
+      final var base = chunkLo << CHUNK_BITS;
+      var jLo = (int) Math.max(lo - base, 0);
+      var jHi = (int) Math.min(hi - base, CHUNK) - 1;
+      while (jLo < jHi) {
+        final var mid = (jLo + jHi + 1) >>> 1;
+        if (chunk.getTime(mid) <= t) jLo = mid;
+        else jHi = mid - 1;
+      }
+      return base + jLo;
+    } finally {
+      readers.decrementAndGet();
+    }
+  }
+
+  /** Adds a sample at the end time, and moves the end time by its duration. */
+  void add(Value v, long duration) {
+    final var i = size;
+    final var c = i >> CHUNK_BITS;
+    var w = window;
+    if (c - w.base >= w.chunks.length) {
+      w = new Window(w.base, Arrays.copyOf(w.chunks, w.chunks.length * 2));
+      window = w;
+    }
+    var chunk = w.get(c);
+    if (chunk == null) {
+      chunk = new Chunk();
+      w.chunks[(int) (c - w.base)] = chunk;
+      spillOldChunks(c);
+      freeRetired();
+    }
+    chunk.setTime((int) i & (CHUNK - 1), endTime);
+    chunk.setValue((int) i & (CHUNK - 1), v);
+    size = i + 1;
+    endTime += duration;
+  }
+
+  /** Removes the most recent sample, the one before it lasting until the end time. */
+  void removeLast() {
+    size--;
+  }
+
+  /**
+   * Drops the samples older than sample i, and the chunks holding only those. The readers read
+   * the window before first, so first is changed before the window: a reader seeing the new window
+   * sees the new first too, and never goes to a dropped chunk, while one seeing the old window is
+   * counted before the chunks it may go through are freed.
+   */
+  void dropBefore(long i) {
+    first = i;
+    final var w = window;
+    final var to = i >> CHUNK_BITS;
+    if (to > w.base) {
+      final var dropped = (int) Math.min(to - w.base, w.chunks.length);
+      synchronized (retired) {
+        for (var c = 0; c < dropped; c++) {
+          if (w.chunks[c] != null) retired.add(w.chunks[c]);
+        }
+      }
+      // the window keeps its length, starting from the oldest chunk kept
+      window = new Window(to,
+          Arrays.copyOfRange(w.chunks, dropped, dropped + w.chunks.length));
+    }
+    if (oldestResident < to) oldestResident = to;
+    freeRetired();
+  }
+
+  /** Drops all the samples, the next one added starting at time t. */
+  void clear(long t) {
+    final var w = window;
+    size = 0;
+    first = 0;
+    window = new Window(0, new Chunk[8]);
+    synchronized (retired) {
+      for (final var chunk : w.chunks) {
+        if (chunk != null) retired.add(chunk);
+      }
+    }
+    oldestResident = 0;
+    endTime = t;
+    freeRetired();
+  }
+
+  /** Frees the chunks dropped, if no reader may be going through them. */
+  private void freeRetired() {
+    synchronized (retired) {
+      // the window was replaced before reading the readers, see dropBefore
+      if (retired.isEmpty() || readers.get() != 0) return;
+      for (final var chunk : retired) {
+        chunk.free();
+      }
+      retired.clear();
+    }
+  }
+
+  private void spillOldChunks(long current) {
+    final var w = window;
+    while (current - oldestResident >= RESIDENT_CHUNKS) {
+      final var chunk = w.get(oldestResident);
+      if (chunk != null && chunk.columns != null && !spill(chunk)) return;
+      oldestResident++;
+    }
+  }
+}
@@ -27,6 +27,7 @@ public class TickCounter implements Simulator.Listener {
   private HistoryData historyData = new HistoryData(false, 1.0);
   private final Object historyLock = new Object(); // Lock for manipulation of history data.
   private final PropagateData propagateData = new PropagateData();
+  private volatile double listenerLoad = -1.0; // part of the time the simulator spent in listeners
 
   public TickCounter() {
     String pattern = ".";
@@ -40,6 +41,7 @@ public class TickCounter implements Simulator.Listener {
   public void clear(Simulator simulator) {
     synchronized (historyLock) {
       propagateData.clear();
+      listenerLoad = -1.0;
       historyData = new HistoryData(simulator.isAutoTicking(), simulator.getTickFrequency() / 2.0);
     }
   }
@@ -60,7 +62,10 @@ public class TickCounter implements Simulator.Listener {
     final var displayNum = fullCyclesPerSecond / hertzValue[units];
     final var fractionalDigits = displayNum < 0.9995 ? 3 : displayNum < 9.995 ? 2 : displayNum < 99.95 ? 1 : 0;
     var display = formatterWithDigits[fractionalDigits].format(displayNum);
-    return S.get(hertzKey[units], display);
+    final var rate = S.get(hertzKey[units], display);
+    // the time spent notifying the listeners is what keeps the ticks from going faster
+    final var load = listenerLoad;
+    return load < 0 ? rate : S.get("tickRateListeners", rate, Math.round(load * 100));
   }
 
   @Override
@@ -76,7 +81,8 @@ public class TickCounter implements Simulator.Listener {
   @Override
   public void propagationCompleted(Simulator.Event e) {
     if (e.didTick() && e.getSource().isAutoTicking()) {
-      propagateData.propagateCompleted(System.nanoTime());
+      propagateData.propagateCompleted(System.nanoTime(), e.getTickCount());
+      listenerLoad = e.getSource().getListenerLoad();
     }
   }
 
@@ -155,15 +161,20 @@ public class TickCounter implements Simulator.Listener {
     }
 
     /**
-     * Updates data for end of propagation cycle at the given time.
+     * Updates data for end of propagation cycles at the given time.
      *
-     * @param nanoTime the time at which the cycle ended.
+     * @param nanoTime the time at which the cycles ended.
+     * @param ticks the number of cycles, more than one when the simulator coalesced them.
      */
-    public synchronized void propagateCompleted(long nanoTime) {
-      final var thisTick = fullTickCount + 1;
+    public synchronized void propagateCompleted(long nanoTime, int ticks) {
       tickTime = nanoTime;
-      fullTickCount = thisTick;
-      if (thisTick == 0) startTime = nanoTime;
+      if (fullTickCount < 0) {
+        // the ticks before the start time are not counted
+        fullTickCount = 0;
+        startTime = nanoTime;
+      } else {
+        fullTickCount += ticks;
+      }
     }
   }
 }
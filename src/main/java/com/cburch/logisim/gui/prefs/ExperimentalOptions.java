@@ -14,6 +14,7 @@ import static com.cburch.logisim.gui.Strings.S;
 import com.cburch.logisim.prefs.AppPreferences;
 import java.awt.BorderLayout;
 import java.awt.Font;
+import java.awt.GridLayout;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
@@ -25,6 +26,15 @@ class ExperimentalOptions extends OptionsPanel {
   private final PrefOptionList accel;
   private final JLabel simRestart = new JLabel();
   private final PrefOptionList simQueue;
+  private final PrefOptionList simValueCache;
+  private final PrefBoolean simLevelized;
+  private final PrefBoolean simDense;
+  private final PrefBoolean simParallelSubstates;
+  private final PrefBoolean simDecoupled;
+  private final PrefOptionList simFrameRate;
+  private final PrefBoolean loadParallel;
+  private final PrefBoolean circuitCache;
+  private final PrefBoolean analyzeParallel;
 
   public ExperimentalOptions(PreferencesFrame window) {
     super(window);
@@ -62,18 +72,64 @@ class ExperimentalOptions extends OptionsPanel {
             new PrefOption(AppPreferences.SIM_QUEUE_SPLAY, S.getter("simQueueSplay")),
             new PrefOption(AppPreferences.SIM_QUEUE_LINKED, S.getter("simQueueLinked")),
             new PrefOption(AppPreferences.SIM_QUEUE_LIST_OF_QUEUES, S.getter("simQueueListOfQueues")),
-            new PrefOption(AppPreferences.SIM_QUEUE_TREE_OF_QUEUES, S.getter("simQueueTreeOfQueues"))
+            new PrefOption(AppPreferences.SIM_QUEUE_TREE_OF_QUEUES, S.getter("simQueueTreeOfQueues")),
+            new PrefOption(AppPreferences.SIM_QUEUE_POOLED, S.getter("simQueuePooled"))
+        }
+    );
+    simValueCache = new PrefOptionList(
+        AppPreferences.SIMULATION_VALUE_CACHE,
+        S.getter("simValueCacheLabel"),
+        new PrefOption[]{
+            new PrefOption(AppPreferences.SIM_VALUE_CACHE_SMALL, S.getter("simValueCacheSmall")),
+            new PrefOption(AppPreferences.SIM_VALUE_CACHE_MEDIUM, S.getter("simValueCacheMedium")),
+            new PrefOption(AppPreferences.SIM_VALUE_CACHE_LARGE, S.getter("simValueCacheLarge"))
+        }
+    );
+    simFrameRate = new PrefOptionList(
+        AppPreferences.SIMULATION_FRAME_RATE,
+        S.getter("simFrameRateLabel"),
+        new PrefOption[]{
+            new PrefOption(AppPreferences.SIM_FRAME_RATE_15, S.getter("simFrameRate15")),
+            new PrefOption(AppPreferences.SIM_FRAME_RATE_30, S.getter("simFrameRate30")),
+            new PrefOption(AppPreferences.SIM_FRAME_RATE_60, S.getter("simFrameRate60"))
         }
     );
     final var simPanel = new JPanel(new BorderLayout());
-    simPanel.add(simQueue.getJLabel(), BorderLayout.LINE_START);
-    simPanel.add(simQueue.getJComboBox(), BorderLayout.CENTER);
-    simPanel.add(simRestart, BorderLayout.PAGE_END);
+    final var simCombos = new JPanel(new GridLayout(3, 2));
+    simCombos.add(simQueue.getJLabel());
+    simCombos.add(simQueue.getJComboBox());
+    simCombos.add(simValueCache.getJLabel());
+    simCombos.add(simValueCache.getJComboBox());
+    simCombos.add(simFrameRate.getJLabel());
+    simCombos.add(simFrameRate.getJComboBox());
+    simPanel.add(simCombos, BorderLayout.CENTER);
+    simLevelized = new PrefBoolean(AppPreferences.SIMULATION_LEVELIZED, S.getter("simLevelized"));
+    simDense = new PrefBoolean(AppPreferences.SIMULATION_DENSE, S.getter("simDense"));
+    simParallelSubstates = new PrefBoolean(AppPreferences.SIMULATION_PARALLEL_SUBSTATES,
+        S.getter("simParallelSubstates"));
+    simDecoupled = new PrefBoolean(AppPreferences.SIMULATION_DECOUPLED, S.getter("simDecoupled"));
+    final var simChecks = new JPanel(new GridLayout(0, 1));
+    simChecks.add(simLevelized);
+    simChecks.add(simDense);
+    simChecks.add(simParallelSubstates);
+    simChecks.add(simDecoupled);
+    simChecks.add(simRestart);
+    simPanel.add(simChecks, BorderLayout.PAGE_END);
     simRestart.setFont(simRestart.getFont().deriveFont(Font.ITALIC));
     final var simPanel2 = new JPanel();
     simPanel2.add(simPanel);
 
     add(simPanel2);
+
+    loadParallel = new PrefBoolean(AppPreferences.LOAD_PARALLEL, S.getter("loadParallel"));
+    final var loadPanel = new JPanel(new GridLayout(0, 1));
+    loadPanel.add(loadParallel);
+    circuitCache = new PrefBoolean(AppPreferences.CIRCUIT_CACHE, S.getter("circuitCache"));
+    loadPanel.add(circuitCache);
+    analyzeParallel =
+        new PrefBoolean(AppPreferences.ANALYZE_PARALLEL, S.getter("analyzeParallel"));
+    loadPanel.add(analyzeParallel);
+    add(loadPanel);
     add(Box.createGlue());
   }
 
@@ -90,7 +146,16 @@ class ExperimentalOptions extends OptionsPanel {
   @Override
   public void localeChanged() {
     accel.localeChanged();
+    simValueCache.localeChanged();
     accelRestart.setText(S.get("accelRestartLabel"));
+    simLevelized.localeChanged();
+    simDense.localeChanged();
+    simParallelSubstates.localeChanged();
+    simDecoupled.localeChanged();
+    simFrameRate.localeChanged();
     simRestart.setText(S.get("simRestartLabel"));
+    loadParallel.localeChanged();
+    circuitCache.localeChanged();
+    analyzeParallel.localeChanged();
   }
 }
@@ -0,0 +1,94 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the trace in a compact binary format. After a header of the magic number {@code LTRC},
+ * the format version, the number of pins and the modified-UTF-8 name and the width byte of each,
+ * come records of the ticks at which some pins changed, each made of variable-length unsigned
+ * integers (7 bits per byte, least significant first):
+ *
+ * <ul>
+ *   <li>the number of ticks since the previous record (or since tick 0 for the first one);
+ *   <li>the number of pins that changed, zero for the last record, written when the simulation
+ *       stops;
+ *   <li>for each of them, its index shifted left by one, plus one if it has floating or error
+ *       bits, followed by the bytes of its value, least significant first, then if so by the ones
+ *       of its floating bits and of its error bits, each on (width + 7) / 8 bytes.
+ * </ul>
+ */
+final class BinaryTraceSink extends TraceSink {
+  static final int MAGIC = 0x4c545243; // "LTRC"
+  static final int VERSION = 1;
+
+  private final DataOutputStream data;
+  private long lastTick = 0;
+
+  BinaryTraceSink(OutputStream out, boolean closeOut) {
+    super(out, closeOut);
+    data = new DataOutputStream(out);
+  }
+
+  private void writeVarLong(long value) throws IOException {
+    while ((value & ~0x7fL) != 0) {
+      data.write((int) (value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    data.write((int) value);
+  }
+
+  private void writeBits(long bits, int width) throws IOException {
+    for (var b = 0; b < width; b += 8) {
+      data.write((int) (bits >>> b));
+    }
+  }
+
+  @Override
+  void begin(String circuitName, TraceSampler sampler) throws IOException {
+    data.writeInt(MAGIC);
+    data.writeByte(VERSION);
+    writeVarLong(sampler.size());
+    for (var i = 0; i < sampler.size(); i++) {
+      data.writeUTF(sampler.getName(i));
+      data.writeByte(sampler.getWidth(i));
+    }
+  }
+
+  @Override
+  void sample(long tick, TraceSampler sampler) throws IOException {
+    writeVarLong(tick - lastTick);
+    lastTick = tick;
+    writeVarLong(sampler.getChangedCount());
+    for (var n = 0; n < sampler.getChangedCount(); n++) {
+      final var pin = sampler.getChanged(n);
+      final var width = sampler.getWidth(pin);
+      final var unknown = sampler.getUnknown(pin);
+      final var error = sampler.getError(pin);
+      final var defined = unknown == 0 && error == 0;
+      writeVarLong(((long) pin << 1) | (defined ? 0 : 1));
+      writeBits(sampler.getValue(pin), width);
+      if (!defined) {
+        writeBits(unknown, width);
+        writeBits(error, width);
+      }
+    }
+  }
+
+  @Override
+  void end(long tick) throws IOException {
+    writeVarLong(tick - lastTick);
+    writeVarLong(0);
+    data.flush();
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the trace as comma-separated values: a header with the names of the pins, then a row with
+ * the tick and the values of all the pins for each tick at which one of them changed. The values
+ * are formatted as in the CSV table of {@code --tty}.
+ */
+final class CsvTraceSink extends TraceSink {
+  private final BufferedWriter writer;
+  /** The formatted values of the pins, formatted again only when they change. */
+  private String[] formatted;
+
+  CsvTraceSink(OutputStream out, boolean closeOut) {
+    super(out, closeOut);
+    writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+  }
+
+  private static String quote(String name) {
+    if (name.indexOf(',') < 0 && name.indexOf('"') < 0) return name;
+    return "\"" + name.replace("\"", "\"\"") + "\"";
+  }
+
+  @Override
+  void begin(String circuitName, TraceSampler sampler) throws IOException {
+    formatted = new String[sampler.size()];
+    writer.write("tick");
+    for (var i = 0; i < sampler.size(); i++) {
+      writer.write(',');
+      writer.write(quote(sampler.getName(i)));
+    }
+    writer.write('\n');
+  }
+
+  @Override
+  void sample(long tick, TraceSampler sampler) throws IOException {
+    for (var n = 0; n < sampler.getChangedCount(); n++) {
+      final var pin = sampler.getChanged(n);
+      final var value = sampler.get(pin);
+      formatted[pin] = value.getWidth() <= 6 ? value.toBinaryString() : "0x" + value.toHexString();
+    }
+    writer.write(Long.toString(tick));
+    for (final var value : formatted) {
+      writer.write(',');
+      writer.write(value);
+    }
+    writer.write('\n');
+  }
+
+  @Override
+  void end(long tick) throws IOException {
+    writer.flush();
+  }
+}
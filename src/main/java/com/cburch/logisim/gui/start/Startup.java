@@ -12,6 +12,7 @@ package com.cburch.logisim.gui.start;
 import static com.cburch.logisim.gui.Strings.S;
 
 import com.cburch.logisim.Main;
+import com.cburch.logisim.file.CircuitCache;
 import com.cburch.logisim.file.LoadFailedException;
 import com.cburch.logisim.file.Loader;
 import com.cburch.logisim.file.LogisimFileActions;
@@ -123,6 +124,13 @@ public class Startup implements AWTEventListener {
   /* Testing Xml (circ file) Variable */
   private String testCircPathInput = null;
   private String testCircPathOutput = null;
+  /* Circuit cache command: "build" or "verify", or null to run as usual */
+  private String circuitCacheCommand = null;
+  // Headless simulation trace and stop conditions
+  private String traceFormat = null;
+  private File traceFile = null;
+  private long maxTicks = 0;
+  private double timeBudget = 0;
 
   private Startup(boolean isTty) {
     this.isTty = isTty;
@@ -171,6 +179,10 @@ public class Startup implements AWTEventListener {
   private static final String ARG_TEST_VECTOR_LONG = "test-vector";
   private static final String ARG_NO_SPLASH_LONG = "no-splash";
   private static final String ARG_MAIN_CIRCUIT = "toplevel-circuit";
+  private static final String ARG_CIRCUIT_CACHE_LONG = "circuit-cache";
+  private static final String ARG_TRACE_LONG = "trace";
+  private static final String ARG_MAX_TICKS_LONG = "max-ticks";
+  private static final String ARG_TIME_BUDGET_LONG = "time-budget";
 
   /**
    * Parses provided string expecting it represent boolean option. Accepted values
@@ -331,6 +343,10 @@ public class Startup implements AWTEventListener {
     addOption(opts, "argTestVectorOption", ARG_TEST_VECTOR_LONG, ARG_TEST_VECTOR_SHORT, 2);
     addOption(opts, "argTestCircuitOption", ARG_TEST_CIRCUIT_LONG, ARG_TEST_CIRCUIT_SHORT, 1);     // FIXME add "Option" suffix to key name
     addOption(opts, "argTestCircGenOption", ARG_TEST_CIRC_GEN_LONG, ARG_TEST_CIRC_GEN_SHORT, 2);   // FIXME add "Option" suffix to key name
+    addOption(opts, "argCircuitCacheOption", ARG_CIRCUIT_CACHE_LONG, 1);
+    addOption(opts, "argTraceOption", ARG_TRACE_LONG, 2);
+    addOption(opts, "argMaxTicksOption", ARG_MAX_TICKS_LONG, 1);
+    addOption(opts, "argTimeBudgetOption", ARG_TIME_BUDGET_LONG, 1);
 
     CommandLine cmd;
     try {
@@ -349,7 +365,9 @@ public class Startup implements AWTEventListener {
     // see whether we'll be using any graphics
     var isTty = false;
     var shallClearPreferences = false;
-    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)) {
+    final var cacheArg = cmd.getOptionValue(ARG_CIRCUIT_CACHE_LONG);
+    final var isCacheCommand = "build".equals(cacheArg) || "verify".equals(cacheArg);
+    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG) || isCacheCommand) {
       isTty = true;
       Main.headless = true;
     } else {
@@ -398,6 +416,10 @@ public class Startup implements AWTEventListener {
         case ARG_TEST_CIRCUIT_LONG -> handleArgTestCircuit(startup, opt);
         case ARG_TEST_CIRC_GEN_LONG -> handleArgTestCircGen(startup, opt);
         case ARG_MAIN_CIRCUIT -> handleArgMainCircuit(startup, opt);
+        case ARG_CIRCUIT_CACHE_LONG -> handleArgCircuitCache(startup, opt);
+        case ARG_TRACE_LONG -> handleArgTrace(startup, opt);
+        case ARG_MAX_TICKS_LONG -> handleArgMaxTicks(startup, opt);
+        case ARG_TIME_BUDGET_LONG -> handleArgTimeBudget(startup, opt);
         default -> RC.OK; // should not really happen IRL.
       };
       lastHandlerRc = optHandlerRc;
@@ -430,6 +452,11 @@ public class Startup implements AWTEventListener {
       logger.error(S.get("saveNeedsTtyError"));
       return null;
     }
+    if ((startup.traceFormat != null || startup.maxTicks > 0 || startup.timeBudget > 0)
+        && !startup.isTty) {
+      logger.error(S.get("traceNeedsTtyError"));
+      return null;
+    }
 
     return startup;
   }
@@ -639,6 +666,57 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgCircuitCache(Startup startup, Option opt) {
+    switch (opt.getValue()) {
+      case "use" -> CircuitCache.setMode(CircuitCache.Mode.ON);
+      case "off" -> CircuitCache.setMode(CircuitCache.Mode.OFF);
+      case "build", "verify" -> startup.circuitCacheCommand = opt.getValue();
+      default -> {
+        logger.error(S.get("argCircuitCacheError"));
+        return RC.QUIT;
+      }
+    }
+    return RC.OK;
+  }
+
+  private static RC handleArgTrace(Startup startup, Option opt) {
+    final var format = opt.getValues()[0];
+    if (!TraceSink.isFormat(format)) {
+      logger.error(S.get("argTraceError"));
+      return RC.QUIT;
+    }
+    startup.traceFormat = format;
+    final var fileName = opt.getValues()[1];
+    startup.traceFile = "-".equals(fileName) ? null : new File(fileName);
+    return RC.OK;
+  }
+
+  private static RC handleArgMaxTicks(Startup startup, Option opt) {
+    try {
+      startup.maxTicks = Long.parseLong(opt.getValue());
+    } catch (NumberFormatException ignored) {
+      startup.maxTicks = 0;
+    }
+    if (startup.maxTicks <= 0) {
+      logger.error(S.get("argMaxTicksError"));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
+  private static RC handleArgTimeBudget(Startup startup, Option opt) {
+    try {
+      startup.timeBudget = Double.parseDouble(opt.getValue());
+    } catch (NumberFormatException ignored) {
+      startup.timeBudget = 0;
+    }
+    if (!(startup.timeBudget > 0)) {
+      logger.error(S.get("argTimeBudgetError"));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
 
   /**
    * Handles 4th argument of `--test-fpga` argument which can be either string literal
@@ -805,10 +883,34 @@ public class Startup implements AWTEventListener {
     return Collections.unmodifiableMap(substitutions);
   }
 
+  String getCircuitCacheCommand() {
+    return circuitCacheCommand;
+  }
+
   int getTtyFormat() {
     return ttyFormat;
   }
 
+  /** @return the format of the trace of the simulation, null if it is not traced. */
+  String getTraceFormat() {
+    return traceFormat;
+  }
+
+  /** @return the file of the trace of the simulation, null for the standard output. */
+  File getTraceFile() {
+    return traceFile;
+  }
+
+  /** @return the number of ticks after which the simulation stops, 0 for no limit. */
+  long getMaxTicks() {
+    return maxTicks;
+  }
+
+  /** @return the number of seconds after which the simulation stops, 0 for no limit. */
+  double getTimeBudget() {
+    return timeBudget;
+  }
+
   boolean isFpgaDownload() {
     return doFpgaDownload;
   }
@@ -0,0 +1,113 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The values of the output pins of a circuit simulated from the command line, sampled after each
+ * tick into arrays allocated once, with the pins whose value changed since the previous sample.
+ */
+final class TraceSampler {
+  private final Instance[] pins;
+  private final String[] names;
+  private final int[] widths;
+  private final Value[] current;
+  private final long[] values;
+  private final long[] unknowns;
+  private final long[] errors;
+  private final int[] changed;
+  private int changedCount;
+  private boolean first = true;
+
+  TraceSampler(List<Instance> pins, Map<Instance, String> pinNames) {
+    final var size = pins.size();
+    this.pins = pins.toArray(new Instance[size]);
+    names = new String[size];
+    widths = new int[size];
+    current = new Value[size];
+    values = new long[size];
+    unknowns = new long[size];
+    errors = new long[size];
+    changed = new int[size];
+    for (var i = 0; i < size; i++) {
+      names[i] = pinNames.get(this.pins[i]);
+      widths[i] = this.pins[i].getAttributeValue(StdAttr.WIDTH).getWidth();
+    }
+  }
+
+  /**
+   * Samples the pins, the first sample having all of them changed.
+   *
+   * @return whether a pin changed
+   */
+  boolean sample(CircuitState state) {
+    changedCount = 0;
+    for (var i = 0; i < pins.length; i++) {
+      final var value = Pin.FACTORY.getValue(state.getInstanceState(pins[i]));
+      if (first || (value != current[i] && !value.equals(current[i]))) {
+        current[i] = value;
+        values[i] = value.getValueMask();
+        unknowns[i] = value.getUnknownMask();
+        errors[i] = value.getErrorMask();
+        changed[changedCount++] = i;
+      }
+    }
+    first = false;
+    return changedCount > 0;
+  }
+
+  int size() {
+    return pins.length;
+  }
+
+  String getName(int pin) {
+    return names[pin];
+  }
+
+  int getWidth(int pin) {
+    return widths[pin];
+  }
+
+  Value get(int pin) {
+    return current[pin];
+  }
+
+  /** @return the mask of the bits of the pin that are one. */
+  long getValue(int pin) {
+    return values[pin];
+  }
+
+  /** @return the mask of the bits of the pin that are floating. */
+  long getUnknown(int pin) {
+    return unknowns[pin];
+  }
+
+  /** @return the mask of the bits of the pin that are errors. */
+  long getError(int pin) {
+    return errors[pin];
+  }
+
+  /** @return the number of pins that changed at the last sample. */
+  int getChangedCount() {
+    return changedCount;
+  }
+
+  /** @return the index of the n-th pin that changed at the last sample. */
+  int getChanged(int n) {
+    return changed[n];
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the values of the output pins of a circuit simulated from the command line to a file, as
+ * they change from tick to tick.
+ */
+abstract class TraceSink implements Closeable {
+  static final String FORMAT_VCD = "vcd";
+  static final String FORMAT_BINARY = "bin";
+  static final String FORMAT_CSV = "csv";
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  protected final OutputStream out;
+  private final boolean closeOut;
+
+  protected TraceSink(OutputStream out, boolean closeOut) {
+    this.out = out;
+    this.closeOut = closeOut;
+  }
+
+  static boolean isFormat(String format) {
+    return FORMAT_VCD.equals(format) || FORMAT_BINARY.equals(format) || FORMAT_CSV.equals(format);
+  }
+
+  /**
+   * Creates the sink of a format writing to a file, or to the standard output if the file is
+   * null, in which case the standard output is not closed with the sink.
+   */
+  static TraceSink create(String format, File file) throws IOException {
+    final var closeOut = file != null;
+    final OutputStream out = closeOut
+        ? new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)
+        : System.out;
+    return switch (format) {
+      case FORMAT_VCD -> new VcdTraceSink(out, closeOut);
+      case FORMAT_BINARY -> new BinaryTraceSink(out, closeOut);
+      case FORMAT_CSV -> new CsvTraceSink(out, closeOut);
+      default -> throw new IllegalArgumentException(format);
+    };
+  }
+
+  /** Writes what comes before the samples, the sampler having sampled no tick yet. */
+  abstract void begin(String circuitName, TraceSampler sampler) throws IOException;
+
+  /** Writes the pins that changed at a tick, only called if some did. */
+  abstract void sample(long tick, TraceSampler sampler) throws IOException;
+
+  /** Writes what comes after the samples, the simulation having stopped at a tick. */
+  abstract void end(long tick) throws IOException;
+
+  @Override
+  public void close() throws IOException {
+    if (closeOut) out.close();
+    else out.flush();
+  }
+}
@@ -17,6 +17,7 @@ import com.cburch.logisim.circuit.Analyze;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.CircuitCache;
 import com.cburch.logisim.file.FileStatistics;
 import com.cburch.logisim.file.LoadFailedException;
 import com.cburch.logisim.file.Loader;
@@ -31,9 +32,13 @@ import com.cburch.logisim.std.io.Tty;
 import com.cburch.logisim.std.memory.Ram;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -117,27 +122,12 @@ public class TtyInterface {
         S.get("statsTotalWith"));
   }
 
-  private static void displayTableRow(ArrayList<Value> prevOutputs, ArrayList<Value> curOutputs) {
-    var shouldPrint = false;
-    if (prevOutputs == null) {
-      shouldPrint = true;
-    } else {
-      for (var i = 0; i < curOutputs.size(); i++) {
-        final var a = prevOutputs.get(i);
-        final var b = curOutputs.get(i);
-        if (!a.equals(b)) {
-          shouldPrint = true;
-          break;
-        }
-      }
-    }
-    if (shouldPrint) {
-      for (var i = 0; i < curOutputs.size(); i++) {
-        if (i != 0) System.out.print("\t");
-        System.out.print(curOutputs.get(i));
-      }
-      System.out.println();
+  private static void displayTableRow(TraceSampler sampler) {
+    for (var i = 0; i < sampler.size(); i++) {
+      if (i != 0) System.out.print("\t");
+      System.out.print(sampler.get(i));
     }
+    System.out.println();
   }
 
   private static boolean displayTableRow(boolean showHeader, ArrayList<Value> prevOutputs, ArrayList<Value> curOutputs,
@@ -266,7 +256,32 @@ public class TtyInterface {
     return found;
   }
 
+  /** Builds or verifies the circuit cache of each file given, see the --circuit-cache option. */
+  private static boolean runCircuitCache(Startup args) {
+    final var verify = "verify".equals(args.getCircuitCacheCommand());
+    var ok = true;
+    for (final var file : args.getFilesToOpen()) {
+      try {
+        if (verify
+            ? CircuitCache.verify(file, args.getSubstitutions())
+            : CircuitCache.build(file, args.getSubstitutions())) {
+          System.out.println(S.get(verify ? "ttyCacheVerified" : "ttyCacheBuilt", file.getName()));
+        } else {
+          logger.error("{}", S.get(verify ? "ttyCacheMismatch" : "ttyCacheNotBuilt", file.getName()));
+          ok = false;
+        }
+      } catch (IOException | LoadFailedException e) {
+        logger.error("{}", S.get("ttyLoadError", file.getName()));
+        ok = false;
+      }
+    }
+    return ok;
+  }
+
   public static void run(Startup args) {
+    if (args.getCircuitCacheCommand() != null) {
+      System.exit(runCircuitCache(args) ? 0 : -1);
+    }
     final var fileToOpen = args.getFilesToOpen().get(0);
     final var loader = new Loader(null);
     LogisimFile file;
@@ -292,7 +307,8 @@ public class TtyInterface {
       format &= ~FORMAT_STATISTICS;
       displayStatistics(file, circuit);
     }
-    if (format == 0) { // no simulation remaining to perform, so just exit
+    if (format == 0 && args.getTraceFormat() == null) {
+      // no simulation remaining to perform, so just exit
       System.exit(0);
     }
 
@@ -338,8 +354,7 @@ public class TtyInterface {
     // it's necessary to populate the circuit with substates.
     circState.getPropagator().propagate();
 
-    final var ttyFormat = args.getTtyFormat();
-    final var simCode = runSimulation(circState, outputPins, haltPin, ttyFormat);
+    final var simCode = runSimulation(circState, pinNames, outputPins, haltPin, args);
 
     if (args.getSaveFile() != null) {
       try {
@@ -452,7 +467,9 @@ public class TtyInterface {
     return 0;
   }
 
-  private static int runSimulation(CircuitState circState, ArrayList<Instance> outputPins, Instance haltPin, int format) {
+  private static int runSimulation(CircuitState circState, Map<Instance, String> pinNames,
+      ArrayList<Instance> outputPins, Instance haltPin, Startup args) {
+    final var format = args.getTtyFormat();
     final var showTable = (format & FORMAT_TABLE) != 0;
     final var showSpeed = (format & FORMAT_SPEED) != 0;
     final var showTty = (format & FORMAT_TTY) != 0;
@@ -475,55 +492,92 @@ public class TtyInterface {
       }
     }
 
+    final var tracedPins = new ArrayList<Instance>(outputPins);
+    tracedPins.remove(haltPin);
+    final var sampler = new TraceSampler(tracedPins, pinNames);
+    TraceSink trace = null;
+    final var maxTicks = args.getMaxTicks();
+    final var deadline = args.getTimeBudget() > 0
+        ? System.nanoTime() + (long) (args.getTimeBudget() * 1e9)
+        : 0;
+
     var retCode = 0;
     long tickCount = 0;
     final var start = System.currentTimeMillis();
-    var halted = false;
-    ArrayList<Value> prevOutputs = null;
     final var prop = circState.getPropagator();
-    while (true) {
-      final var curOutputs = new ArrayList<Value>();
-      for (final var pin : outputPins) {
-        final var pinState = circState.getInstanceState(pin);
-        final var val = Pin.FACTORY.getValue(pinState);
-        if (pin == haltPin) {
-          halted |= val.equals(Value.TRUE);
-        } else if (showTable) {
-          curOutputs.add(val);
-        }
-      }
-      if (showTable) {
-        displayTableRow(prevOutputs, curOutputs);
+    // The output is only flushed when a line is complete or the simulation stops, rather than on
+    // each character written, as long runs write a lot of it.
+    final var console = System.out;
+    System.setOut(new PrintStream(
+        new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false));
+    try {
+      if (args.getTraceFormat() != null) {
+        trace = TraceSink.create(args.getTraceFormat(), args.getTraceFile());
+        trace.begin(circState.getCircuit().getName(), sampler);
       }
+      while (true) {
+        if ((showTable || trace != null) && sampler.sample(circState)) {
+          if (showTable) displayTableRow(sampler);
+          if (trace != null) trace.sample(tickCount, sampler);
+        }
 
-      if (halted) {
-        retCode = 0; // normal exit
-        break;
-      }
-      if (prop.isOscillating()) {
-        retCode = 1; // abnormal exit
-        break;
-      }
-      if (keyboardStates != null) {
-        final var buffer = stdinThread.getBuffer();
-        if (buffer != null) {
-          for (final var keyState : keyboardStates) {
-            Keyboard.addToBuffer(keyState, buffer);
+        if (haltPin != null
+            && Pin.FACTORY.getValue(circState.getInstanceState(haltPin)).equals(Value.TRUE)) {
+          retCode = 0; // normal exit
+          break;
+        }
+        if (prop.isOscillating()) {
+          retCode = 1; // abnormal exit
+          break;
+        }
+        if (maxTicks > 0 && tickCount >= maxTicks) {
+          retCode = 2; // limit reached
+          break;
+        }
+        if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+          retCode = 3; // limit reached
+          break;
+        }
+        if (keyboardStates != null) {
+          final var buffer = stdinThread.getBuffer();
+          if (buffer != null) {
+            for (final var keyState : keyboardStates) {
+              Keyboard.addToBuffer(keyState, buffer);
+            }
           }
+          // a prompt may be waiting for the keyboard
+          if (!lastIsNewline) System.out.flush();
         }
+        tickCount++;
+        prop.toggleClocks();
+        prop.propagate();
       }
-      prevOutputs = curOutputs;
-      tickCount++;
-      prop.toggleClocks();
-      prop.propagate();
+      if (trace != null) trace.end(tickCount);
+    } catch (IOException e) {
+      logger.error("{}: {}", S.get("traceIoError"), e.toString());
+      retCode = -1;
+    } finally {
+      if (trace != null) {
+        try {
+          trace.close();
+        } catch (IOException e) {
+          logger.error("{}: {}", S.get("traceIoError"), e.toString());
+          retCode = -1;
+        }
+      }
+      // the console is given back even if the simulation failed
+      if (showTty) ensureLineTerminated();
+      System.out.flush();
+      System.setOut(console);
     }
     final var elapse = System.currentTimeMillis() - start;
-    if (showTty) ensureLineTerminated();
     if (showHalt || retCode != 0) {
-      if (retCode == 0) {
-        logger.error("{}", S.get("ttyHaltReasonPin"));
-      } else if (retCode == 1) {
-        logger.error("{}", S.get("ttyHaltReasonOscillation"));
+      switch (retCode) {
+        case 0 -> logger.error("{}", S.get("ttyHaltReasonPin"));
+        case 1 -> logger.error("{}", S.get("ttyHaltReasonOscillation"));
+        case 2 -> logger.error("{}", S.get("ttyHaltReasonTicks", Long.toString(tickCount)));
+        case 3 -> logger.error("{}", S.get("ttyHaltReasonTimeBudget", Long.toString(tickCount)));
+        default -> { }
       }
     }
     if (showSpeed) {
@@ -535,6 +589,7 @@ public class TtyInterface {
   public static void sendFromTty(char c) {
     lastIsNewline = c == '\n';
     System.out.print(c);
+    if (lastIsNewline) System.out.flush();
   }
 
   // It's possible to avoid using the separate thread using
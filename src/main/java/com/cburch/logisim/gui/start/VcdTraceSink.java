@@ -0,0 +1,98 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import com.cburch.logisim.generated.BuildInfo;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the trace as a Value Change Dump (IEEE 1364), one time unit being one tick. Floating bits
+ * are written as z and error bits as x.
+ */
+final class VcdTraceSink extends TraceSink {
+  private final BufferedWriter writer;
+  private String[] ids;
+  private char[] bits = new char[0];
+
+  VcdTraceSink(OutputStream out, boolean closeOut) {
+    super(out, closeOut);
+    writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII));
+  }
+
+  /** @return the short identifier of a variable, in the printable characters from '!' to '~'. */
+  private static String getId(int index) {
+    final var id = new StringBuilder();
+    do {
+      id.append((char) ('!' + index % 94));
+      index /= 94;
+    } while (index > 0);
+    return id.toString();
+  }
+
+  @Override
+  void begin(String circuitName, TraceSampler sampler) throws IOException {
+    writer.write("$version " + BuildInfo.displayName + " $end\n");
+    writer.write("$comment one time unit per clock tick $end\n");
+    writer.write("$timescale 1ns $end\n");
+    writer.write("$scope module " + circuitName.replaceAll("\\s", "_") + " $end\n");
+    ids = new String[sampler.size()];
+    for (var i = 0; i < sampler.size(); i++) {
+      ids[i] = getId(i);
+      final var width = sampler.getWidth(i);
+      writer.write("$var wire " + width + " " + ids[i] + " "
+          + sampler.getName(i).replaceAll("\\s", "_")
+          + (width > 1 ? " [" + (width - 1) + ":0]" : "") + " $end\n");
+      if (width > bits.length) bits = new char[width];
+    }
+    writer.write("$upscope $end\n");
+    writer.write("$enddefinitions $end\n");
+  }
+
+  @Override
+  void sample(long tick, TraceSampler sampler) throws IOException {
+    writer.write('#');
+    writer.write(Long.toString(tick));
+    writer.write('\n');
+    for (var n = 0; n < sampler.getChangedCount(); n++) {
+      final var pin = sampler.getChanged(n);
+      final var width = sampler.getWidth(pin);
+      final var value = sampler.getValue(pin);
+      final var unknown = sampler.getUnknown(pin);
+      final var error = sampler.getError(pin);
+      for (var b = 0; b < width; b++) {
+        final var mask = 1L << (width - 1 - b);
+        if ((error & mask) != 0) bits[b] = 'x';
+        else if ((unknown & mask) != 0) bits[b] = 'z';
+        else bits[b] = (value & mask) != 0 ? '1' : '0';
+      }
+      if (width > 1) {
+        writer.write('b');
+        writer.write(bits, 0, width);
+        writer.write(' ');
+      } else {
+        writer.write(bits, 0, 1);
+      }
+      writer.write(ids[pin]);
+      writer.write('\n');
+    }
+  }
+
+  @Override
+  void end(long tick) throws IOException {
+    writer.write('#');
+    writer.write(Long.toString(tick));
+    writer.write('\n');
+    writer.flush();
+  }
+}
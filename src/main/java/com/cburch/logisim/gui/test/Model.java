@@ -32,6 +32,8 @@ class Model {
   private TestThread tester;
   private int numPass = 0;
   private int numFail = 0;
+  /** Time spent testing the rows tested so far. */
+  private long testNanos = 0;
   private TestVector vec = null;
   private TestException[] results;
 
@@ -50,6 +52,7 @@ class Model {
     synchronized (this) {
       if (vec == null || results == null) return;
       numPass = numFail = 0;
+      testNanos = 0;
       failed.clear();
       passed.clear();
     }
@@ -86,6 +89,16 @@ class Model {
     return numPass;
   }
 
+  /** @return the number of rows tested per second so far, 0 before the first ones. */
+  public synchronized double getRowsPerSecond() {
+    return testNanos > 0 ? (numPass + numFail) * 1e9 / testNanos : 0;
+  }
+
+  /** Adds the time spent testing rows whose results are about to be set. */
+  public synchronized void addTestTime(long nanos) {
+    testNanos += nanos;
+  }
+
   public Project getProject() {
     return project;
   }
@@ -104,6 +117,7 @@ class Model {
       vec = v;
       results = (v != null ? new TestException[v.data.size()] : null);
       numPass = numFail = 0;
+      testNanos = 0;
       failed.clear();
       passed.clear();
     }
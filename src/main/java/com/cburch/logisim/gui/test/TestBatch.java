@@ -0,0 +1,115 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.FailException;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.proj.Project;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Tests the rows of a test vector in blocks. The rows of a block are independent: they are shared
+ * among several root states cloned from the state of the circuit in the project, and tested in
+ * parallel in the common fork-join pool. Each of these states is reused from one row to the next
+ * and reset in between, so that every row is tested as if in a fresh state, unless the circuit is
+ * combinational and has no floating net: its outputs then only depend on the values driven on its
+ * inputs, so that a row gets the same results without the reset.
+ */
+class TestBatch {
+  /** Number of rows read and tested at once. */
+  static final int BLOCK_ROWS = 1 << 10;
+
+  /** Smallest number of rows worth a task of its own. */
+  private static final int MIN_TASK_ROWS = 64;
+
+  private final Circuit circuit;
+  private final Instance[] pin;
+  private final CircuitState[] states;
+  /** Whether the state has to be reset before its next row. */
+  private final boolean[] needsReset;
+  /** Whether the rows can be tested one after the other without a reset. */
+  private final boolean combinational;
+
+  /**
+   * Creates the states of the batch. This must run on the thread owning the project, as creating a
+   * state registers a listener on the project options.
+   */
+  TestBatch(Project project, Circuit circuit, Instance[] pin) {
+    this(project, circuit, pin, ForkJoinPool.getCommonPoolParallelism());
+  }
+
+  /** Creates a batch testing up to the given number of rows at the same time. */
+  TestBatch(Project project, Circuit circuit, Instance[] pin, int parallelism) {
+    this.circuit = circuit;
+    this.pin = pin;
+    final var base = project.getCircuitState(circuit);
+    states = new CircuitState[Math.max(1, parallelism)];
+    for (var i = 0; i < states.length; i++) {
+      states[i] = base.cloneAsNewRootState();
+    }
+    needsReset = new boolean[states.length];
+    Arrays.fill(needsReset, true);
+    combinational = circuit.isCombinationalWithoutFloatingNets();
+  }
+
+  /** @return the number of rows tested at the same time. */
+  int getParallelism() {
+    return states.length;
+  }
+
+  /**
+   * Tests a block of rows.
+   *
+   * @return the result of every row, in order: null if the row passed, else its failure
+   */
+  TestException[] test(List<Value[]> rows) {
+    final var results = new TestException[rows.size()];
+    final var taskCount =
+        Math.min(states.length, (rows.size() + MIN_TASK_ROWS - 1) / MIN_TASK_ROWS);
+    if (taskCount <= 1) {
+      test(0, rows, results, 0, rows.size());
+      return results;
+    }
+    final var tasks = new ArrayList<ForkJoinTask<?>>();
+    for (var i = 1; i < taskCount; i++) {
+      final var task = i;
+      final var from = rows.size() * i / taskCount;
+      final var to = rows.size() * (i + 1) / taskCount;
+      tasks.add(ForkJoinTask.adapt(() -> test(task, rows, results, from, to)).fork());
+    }
+    test(0, rows, results, 0, rows.size() / taskCount);
+    for (final var task : tasks) {
+      task.join();
+    }
+    return results;
+  }
+
+  private void test(int stateIndex, List<Value[]> rows, TestException[] results, int from, int to) {
+    final var state = states[stateIndex];
+    for (var i = from; i < to; i++) {
+      try {
+        circuit.doTestVector(state, pin, rows.get(i), needsReset[stateIndex]);
+        needsReset[stateIndex] = !combinational;
+      } catch (TestException e) {
+        results[i] = e;
+        // unlike a mismatch, an oscillation leaves the state in no defined condition
+        needsReset[stateIndex] = !combinational || !(e instanceof FailException);
+      }
+    }
+  }
+}
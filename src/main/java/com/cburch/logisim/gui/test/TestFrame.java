@@ -53,6 +53,7 @@ public class TestFrame extends LFrame.SubWindowWithSimulation {
   private final JButton close = new JButton();
   private final JLabel pass = new JLabel();
   private final JLabel fail = new JLabel();
+  private final JLabel speed = new JLabel();
   private Simulator curSimulator = null;
   private Model curModel;
   private int finished;
@@ -74,6 +75,7 @@ public class TestFrame extends LFrame.SubWindowWithSimulation {
     JPanel statusPanel = new JPanel();
     statusPanel.add(pass);
     statusPanel.add(fail);
+    statusPanel.add(speed);
 
     JPanel buttonPanel = new JPanel();
     buttonPanel.add(load);
@@ -253,6 +255,8 @@ public class TestFrame extends LFrame.SubWindowWithSimulation {
     public void testResultsChanged(int numPass, int numFail) {
       pass.setText(S.get("passMessage", Integer.toString(numPass)));
       fail.setText(S.get("failMessage", Integer.toString(numFail)));
+      final var rate = getModel().getRowsPerSecond();
+      speed.setText(rate > 0 ? S.get("testSpeedMessage", String.format("%.0f", rate)) : "");
       finished = numPass + numFail;
     }
 
@@ -19,12 +19,15 @@ import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.FailException;
 import com.cburch.logisim.data.TestException;
 import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
+import java.util.ArrayList;
 
 public class TestThread extends UniquelyNamedThread implements CircuitListener {
 
@@ -32,6 +35,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   private final Circuit circuit;
   private final TestVector vector;
   private Instance[] pin;
+  private final TestBatch batch;
   private Model model;
   private boolean canceled = false;
   private boolean paused = false;
@@ -45,6 +49,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.vector = model.getVector();
 
     matchPins();
+    batch = new TestBatch(project, circuit, pin);
 
     model.getCircuit().addCircuitListener(this);
   }
@@ -57,6 +62,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.vector = vec;
 
     matchPins();
+    batch = new TestBatch(proj, circuit, pin);
   }
 
   // used only for automated testing via command line arguments
@@ -64,7 +70,8 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     System.out.println(S.get("testLoadingVector", vectorname));
     TestVector vec;
     try {
-      vec = new TestVector(vectorname);
+      // the rows are streamed from the file, so that long vectors need not fit in memory
+      vec = TestVector.header(new File(vectorname));
     } catch (Exception e) {
       System.err.println(S.get("testLoadingFailed", e.getMessage()));
       return -1;
@@ -77,29 +84,55 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
       System.err.println(S.get("testSetupFailed", e.getMessage()));
       return -1;
     }
+    final var batch = tester.batch;
 
-    System.out.println(S.get("testRunning", Integer.toString(vec.data.size())));
+    System.out.println(S.get("testRunningBatch", Integer.toString(batch.getParallelism())));
 
+    final var start = System.nanoTime();
     int numPass = 0;
     int numFail = 0;
-    for (int i = 0; i < vec.data.size(); i++) {
-      try {
-        System.out.print((i + 1) + " \r");
-        tester.test(i);
-        numPass++;
-      } catch (FailException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", Integer.toString(i + 1)));
-        for (FailException e1 : e.getAll()) System.out.println("  " + e1.getMessage());
-        numFail++;
-      } catch (TestException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", (i + 1) + " " + e.getMessage()));
-        numFail++;
+    try (final var reader = vec.openRows()) {
+      final var rows = new ArrayList<Value[]>(TestBatch.BLOCK_ROWS);
+      var done = false;
+      while (!done) {
+        rows.clear();
+        while (rows.size() < TestBatch.BLOCK_ROWS) {
+          final var row = reader.next();
+          if (row == null) {
+            done = true;
+            break;
+          }
+          rows.add(row);
+        }
+        final var results = batch.test(rows);
+        for (int i = 0; i < results.length; i++) {
+          final var row = numPass + numFail + 1;
+          if (results[i] == null) {
+            numPass++;
+          } else if (results[i] instanceof FailException e) {
+            System.out.println();
+            System.err.println(S.get("testFailed", Integer.toString(row)));
+            for (FailException e1 : e.getAll()) System.out.println("  " + e1.getMessage());
+            numFail++;
+          } else {
+            System.out.println();
+            System.err.println(S.get("testFailed", row + " " + results[i].getMessage()));
+            numFail++;
+          }
+        }
+        System.out.print((numPass + numFail) + " \r");
       }
+    } catch (Exception e) {
+      System.out.println();
+      System.err.println(S.get("testLoadingFailed", e.getMessage()));
+      return -1;
     }
+    final var seconds = (System.nanoTime() - start) / 1e9;
     System.out.println();
     System.out.println(S.get("testResults", Integer.toString(numPass), Integer.toString(numFail)));
+    final var numRows = numPass + numFail;
+    System.out.println(S.get("testSpeed", Integer.toString(numRows), String.format("%.2f", seconds),
+        String.format("%.0f", seconds > 0 ? numRows / seconds : 0)));
     return 0;
   }
 
@@ -146,7 +179,8 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   @Override
   public void run() {
     try {
-      for (int i = 0; i < vector.data.size() && !canceled; i++) {
+      final var rows = vector.data;
+      for (int i = 0; i < rows.size() && !canceled; i += TestBatch.BLOCK_ROWS) {
         while (paused) {
           if (canceled) return;
           try {
@@ -154,13 +188,13 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
           } catch (InterruptedException ignored) {
           }
         }
-        try {
-          test(i);
-          canceled = canceled || !model.setResult(vector, i, null);
-        } catch (TestException e) {
-          canceled = canceled || !model.setResult(vector, i, e);
+        final var end = Math.min(rows.size(), i + TestBatch.BLOCK_ROWS);
+        final var start = System.nanoTime();
+        final var results = batch.test(rows.subList(i, end));
+        model.addTestTime(System.nanoTime() - start);
+        for (int j = 0; j < results.length && !canceled; j++) {
+          canceled = !model.setResult(vector, i + j, results[j]);
         }
-        Thread.yield();
       }
     } finally {
       model.stop();
@@ -170,8 +204,4 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   public void setPaused(boolean paused) {
     this.paused = paused;
   }
-
-  private void test(int idx) throws TestException {
-    circuit.doTestVector(project, pin, vector.data.get(idx));
-  }
 }
@@ -201,7 +201,8 @@ public final class InstanceComponent implements Component, AttributeListener, To
         getAttributeSet().addAttributeListener(this);
       }
     }
-    if (es != esOld) {
+    if (es != esOld || endsChangedOld != null) {
+      // a new list even if the array was updated in place, see PortBinding.isFor
       endArray = es;
       endList = new UnmodifiableList<>(es);
     }
@@ -305,6 +306,17 @@ public final class InstanceComponent implements Component, AttributeListener, To
     }
   }
 
+  void fireBoundsChanged() {
+    final var listeners = this.listeners;
+    if (listeners != null) {
+      ComponentEvent e = null;
+      for (final var listener : listeners) {
+        if (e == null) e = new ComponentEvent(this);
+        listener.boundsChanged(e);
+      }
+    }
+  }
+
   public void fireInvalidated() {
     final var listeners = this.listeners;
     if (listeners != null) {
@@ -416,7 +428,9 @@ public final class InstanceComponent implements Component, AttributeListener, To
 
   void recomputeBounds() {
     Location p = loc;
+    final var old = bounds;
     bounds = factory.getOffsetBounds(attrs).translate(p.getX(), p.getY());
+    if (!bounds.equals(old)) fireBoundsChanged();
   }
 
   @Override
@@ -447,6 +461,7 @@ public final class InstanceComponent implements Component, AttributeListener, To
     } else {
       field.update(labelAttr, fontAttr, x, y, halign, valign);
     }
+    fireBoundsChanged();
   }
 
   @Override
@@ -11,8 +11,8 @@ package com.cburch.logisim.instance;
 
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.PortBinding;
 import com.cburch.logisim.comp.Component;
-import com.cburch.logisim.comp.EndData;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Value;
@@ -21,6 +21,8 @@ import com.cburch.logisim.proj.Project;
 public class InstanceStateImpl implements InstanceState {
   private CircuitState circuitState;
   private Component component;
+  /** The ports of the component in the circuit state, bound when first accessed. */
+  private PortBinding ports;
 
   public InstanceStateImpl(CircuitState circuitState, Component component) {
     this.circuitState = circuitState;
@@ -84,10 +86,18 @@ public class InstanceStateImpl implements InstanceState {
     return this.getInstance().getPorts().indexOf(port);
   }
 
+  private PortBinding getPorts() {
+    var binding = ports;
+    if (binding == null || !binding.isValidFor(component.getEnds())) {
+      binding = circuitState.getPortBinding(component);
+      ports = binding;
+    }
+    return binding;
+  }
+
   @Override
   public Value getPortValue(int portIndex) {
-    EndData data = component.getEnd(portIndex);
-    return circuitState.getValue(data.getLocation());
+    return getPorts().getValue(portIndex);
   }
 
   @Override
@@ -113,6 +123,7 @@ public class InstanceStateImpl implements InstanceState {
   }
 
   public void repurpose(CircuitState circuitState, Component component) {
+    if (circuitState != this.circuitState || component != this.component) ports = null;
     this.circuitState = circuitState;
     this.component = component;
   }
@@ -124,7 +135,6 @@ public class InstanceStateImpl implements InstanceState {
 
   @Override
   public void setPort(int portIndex, Value value, int delay) {
-    final var end = component.getEnd(portIndex);
-    circuitState.setValue(end.getLocation(), value, component, delay);
+    circuitState.setValue(getPorts().getLocation(portIndex), value, component, delay);
   }
 }
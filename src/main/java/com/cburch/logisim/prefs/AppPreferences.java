@@ -510,6 +510,10 @@ public class AppPreferences {
       create(new PrefMonitorBoolean("NoOpenPinWarnings", false));
   public static final PrefMonitor<Boolean> VhdlKeywordsUpperCase =
       create(new PrefMonitorBoolean("VhdlKeywordsUpperCase", true));
+  public static final PrefMonitor<Boolean> HDL_INCREMENTAL =
+      create(new PrefMonitorBoolean("hdlIncremental", false));
+  public static final PrefMonitor<Boolean> HDL_PARALLEL =
+      create(new PrefMonitorBoolean("hdlParallel", false));
   //file preferences
   public static final PrefMonitor<Boolean> REMOVE_UNUSED_LIBRARIES =
       create(new PrefMonitorBoolean("removeUnusedLibs", false));
@@ -795,13 +799,47 @@ public class AppPreferences {
   public static final String SIM_QUEUE_LINKED = "linked";
   public static final String SIM_QUEUE_LIST_OF_QUEUES = "listOfQueues";
   public static final String SIM_QUEUE_TREE_OF_QUEUES = "treeOfQueues";
+  public static final String SIM_QUEUE_POOLED = "pooled";
   public static final PrefMonitor<String> SIMULATION_QUEUE =
       create(
           new PrefMonitorStringOpts("simQueue",
               new String[] {SIM_QUEUE_DEFAULT, SIM_QUEUE_PRIORITY, SIM_QUEUE_SPLAY,
-                            SIM_QUEUE_LINKED, SIM_QUEUE_LIST_OF_QUEUES, SIM_QUEUE_TREE_OF_QUEUES},
+                            SIM_QUEUE_LINKED, SIM_QUEUE_LIST_OF_QUEUES, SIM_QUEUE_TREE_OF_QUEUES,
+                            SIM_QUEUE_POOLED},
               SIM_QUEUE_DEFAULT)
       );
+  public static final PrefMonitor<Boolean> SIMULATION_LEVELIZED =
+      create(new PrefMonitorBoolean("simLevelized", false));
+  public static final PrefMonitor<Boolean> SIMULATION_DENSE =
+      create(new PrefMonitorBoolean("simDense", false));
+  public static final PrefMonitor<Boolean> SIMULATION_PARALLEL_SUBSTATES =
+      create(new PrefMonitorBoolean("simParallelSubstates", false));
+  public static final PrefMonitor<Boolean> SIMULATION_DECOUPLED =
+      create(new PrefMonitorBoolean("simDecoupled", false));
+  public static final String SIM_FRAME_RATE_15 = "15";
+  public static final String SIM_FRAME_RATE_30 = "30";
+  public static final String SIM_FRAME_RATE_60 = "60";
+  public static final PrefMonitor<String> SIMULATION_FRAME_RATE =
+      create(
+          new PrefMonitorStringOpts(
+              "simFrameRate",
+              new String[] {SIM_FRAME_RATE_15, SIM_FRAME_RATE_30, SIM_FRAME_RATE_60},
+              SIM_FRAME_RATE_30));
+  public static final String SIM_VALUE_CACHE_SMALL = "small";
+  public static final String SIM_VALUE_CACHE_MEDIUM = "medium";
+  public static final String SIM_VALUE_CACHE_LARGE = "large";
+  public static final PrefMonitor<String> SIMULATION_VALUE_CACHE =
+      create(
+          new PrefMonitorStringOpts(
+              "simValueCache",
+              new String[] {SIM_VALUE_CACHE_SMALL, SIM_VALUE_CACHE_MEDIUM, SIM_VALUE_CACHE_LARGE},
+              SIM_VALUE_CACHE_MEDIUM));
+  public static final PrefMonitor<Boolean> LOAD_PARALLEL =
+      create(new PrefMonitorBoolean("loadParallel", false));
+  public static final PrefMonitor<Boolean> CIRCUIT_CACHE =
+      create(new PrefMonitorBoolean("circuitCache", false));
+  public static final PrefMonitor<Boolean> ANALYZE_PARALLEL =
+      create(new PrefMonitorBoolean("analyzeParallel", true));
   public static final PrefMonitor<Boolean> AntiAliassing =
       create(new PrefMonitorBoolean("AntiAliassing", true));
 
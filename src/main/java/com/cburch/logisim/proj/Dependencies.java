@@ -28,14 +28,7 @@ public class Dependencies {
     public void circuitChanged(CircuitEvent e) {
       Component comp;
       switch (e.getAction()) {
-        case CircuitEvent.ACTION_ADD -> {
-          comp = (Component) e.getData();
-          if (comp.getFactory() instanceof SubcircuitFactory factory) {
-            depends.addEdge(e.getCircuit(), factory.getSubcircuit());
-          } else if (comp.getFactory() instanceof VhdlEntity factory) {
-            depends.addEdge(e.getCircuit(), factory.getContent());
-          }
-        }
+        case CircuitEvent.ACTION_ADD -> addEdge(e.getCircuit(), (Component) e.getData());
         case CircuitEvent.ACTION_REMOVE -> {
           comp = (Component) e.getData();
           if (comp.getFactory() instanceof SubcircuitFactory factory) {
@@ -64,6 +57,14 @@ public class Dependencies {
       }
     }
 
+    private void addEdge(Circuit circuit, Component comp) {
+      if (comp.getFactory() instanceof SubcircuitFactory factory) {
+        depends.addEdge(circuit, factory.getSubcircuit());
+      } else if (comp.getFactory() instanceof VhdlEntity factory) {
+        depends.addEdge(circuit, factory.getContent());
+      }
+    }
+
     @Override
     public void libraryChanged(LibraryEvent e) {
       switch (e.getAction()) {
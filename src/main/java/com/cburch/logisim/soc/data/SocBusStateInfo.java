@@ -262,8 +262,6 @@ public class SocBusStateInfo extends JDialog
   }
 
   public void initializeTransaction(SocBusTransaction trans, String busId) {
-    int nrOfReponders = 0;
-    int reponder = -1;
     final var slaves = memMap.getSlaves();
     if (slaves.isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
     else if (trans.isReadTransaction()
@@ -271,15 +269,10 @@ public class SocBusStateInfo extends JDialog
         && !trans.isAtomicTransaction()) {
       trans.setError(SocBusTransaction.NONE_ATOMIC_READ_WRITE_ERROR);
     } else {
-      for (int i = 0; i < slaves.size(); i++) {
-        if (slaves.get(i).canHandleTransaction(trans)) {
-          nrOfReponders++;
-          reponder = i;
-        }
-      }
-      if (nrOfReponders == 0) trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
-      else if (nrOfReponders != 1) trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
-      else slaves.get(reponder).handleTransaction(trans);
+      final var responders = memMap.getResponders(trans.getAddress());
+      if (responders.length == 0) trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
+      else if (responders.length != 1) trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
+      else responders[0].handleTransaction(trans);
     }
     if (!trans.hasError() && !trans.isHidden()) {
       for (SocBusSnifferInterface sniffer : sniffers) sniffer.sniffTransaction(trans);
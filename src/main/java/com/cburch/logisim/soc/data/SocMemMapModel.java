@@ -19,8 +19,10 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.TreeSet;
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
 import javax.swing.JTable;
@@ -32,6 +34,7 @@ public class SocMemMapModel extends AbstractTableModel
 
   private static final long serialVersionUID = 1L;
   private static final long longMask = Long.parseUnsignedLong("FFFFFFFF", 16);
+  private static final SocBusSlaveInterface[] NO_SLAVES = new SocBusSlaveInterface[0];
 
   public static class MemoryMapHeaderRenderer extends JLabel implements TableCellRenderer {
     private static final long serialVersionUID = 1L;
@@ -198,7 +201,50 @@ public class SocMemMapModel extends AbstractTableModel
     }
   }
 
+  /**
+   * The address decoder of the bus: the address space cut in ranges at the start and after the end
+   * of each slave, sorted, and the slaves each range belongs to. More than one slave in a range
+   * means that their memory overlaps there. It is built again when the memory map changes and
+   * replaced as a whole, so that the simulation can use it while it is built.
+   */
+  static class AddressDecoder {
+    private final long[] starts;
+    private final SocBusSlaveInterface[][] responders;
+
+    AddressDecoder(List<SocBusSlaveInterface> slaves) {
+      final var bounds = new TreeSet<Long>();
+      bounds.add(0L);
+      for (final var slave : slaves) {
+        final var start = ((long) slave.getStartAddress()) & longMask;
+        final var size = ((long) slave.getMemorySize()) & longMask;
+        if (size == 0) continue;
+        bounds.add(start);
+        bounds.add(start + size);
+      }
+      starts = new long[bounds.size()];
+      responders = new SocBusSlaveInterface[bounds.size()][];
+      var i = 0;
+      for (final var bound : bounds) {
+        final var inRange = new ArrayList<SocBusSlaveInterface>();
+        for (final var slave : slaves) {
+          final var start = ((long) slave.getStartAddress()) & longMask;
+          final var size = ((long) slave.getMemorySize()) & longMask;
+          if (bound >= start && bound < start + size) inRange.add(slave);
+        }
+        starts[i] = bound;
+        responders[i] = inRange.isEmpty() ? NO_SLAVES : inRange.toArray(NO_SLAVES);
+        i++;
+      }
+    }
+
+    SocBusSlaveInterface[] getResponders(int address) {
+      final var index = Arrays.binarySearch(starts, ((long) address) & longMask);
+      return responders[index >= 0 ? index : -index - 2];
+    }
+  }
+
   private final ArrayList<SocBusSlaveInterface> slaves;
+  private volatile AddressDecoder decoder;
   private final SlaveMap slaveMap;
   private final SlaveInfoRenderer slaveRenderer;
   private final MemoryMapHeaderRenderer headRenderer;
@@ -212,6 +258,7 @@ public class SocMemMapModel extends AbstractTableModel
     slaveRenderer = new SlaveInfoRenderer();
     headRenderer = new MemoryMapHeaderRenderer();
     marked = null;
+    decoder = new AddressDecoder(slaves);
     rebuild();
   }
 
@@ -219,6 +266,7 @@ public class SocMemMapModel extends AbstractTableModel
     if (!slaves.contains(slave)) {
       slaves.add(slave);
       slave.registerListener(this);
+      decoder = new AddressDecoder(slaves);
       rebuild();
     }
   }
@@ -227,6 +275,7 @@ public class SocMemMapModel extends AbstractTableModel
     if (slaves.contains(slave)) {
       slaves.remove(slave);
       slave.removeListener(this);
+      decoder = new AddressDecoder(slaves);
       rebuild();
     }
   }
@@ -235,6 +284,14 @@ public class SocMemMapModel extends AbstractTableModel
     return slaves;
   }
 
+  /**
+   * @return the slaves whose memory contains the address, none, one, or more if their memory
+   *     overlaps there.
+   */
+  public SocBusSlaveInterface[] getResponders(int address) {
+    return decoder.getResponders(address);
+  }
+
   public SlaveInfoRenderer getCellRender() {
     return slaveRenderer;
   }
@@ -281,6 +338,7 @@ public class SocMemMapModel extends AbstractTableModel
 
   @Override
   public void memoryMapChanged() {
+    decoder = new AddressDecoder(slaves);
     rebuild();
   }
 
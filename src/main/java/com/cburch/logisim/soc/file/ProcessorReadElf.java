@@ -174,23 +174,11 @@ public class ProcessorReadElf {
         return false;
       }
       long startAddr = ElfHeader.getLongValue(h.getValue(ElfProgramHeader.P_PADDR));
-      for (int j = 0; j < memSize; j++) {
-        int data = (j < buffer.length) ? buffer[j] : 0;
-        int addr = ElfHeader.getIntValue(ElfHeader.returnCorrectValue(startAddr + (long) j, true));
-        SocBusTransaction trans =
-            new SocBusTransaction(
-                SocBusTransaction.WRITE_TRANSACTION,
-                addr,
-                data,
-                SocBusTransaction.BYTE_ACCESS,
-                "elf");
-        cpu.insertTransaction(trans, true, cState);
-        if (trans.hasError()) {
-          start = startAddr;
-          end = startAddr + memSize - 1;
-          status = MEM_LOAD_ERROR;
-          return false;
-        }
+      if (!loadSegment(buffer, startAddr, (int) memSize, cState)) {
+        start = startAddr;
+        end = startAddr + memSize - 1;
+        status = MEM_LOAD_ERROR;
+        return false;
       }
     }
     cpu.setEntryPointandReset(
@@ -201,6 +189,50 @@ public class ProcessorReadElf {
     return true;
   }
 
+  private static int getByte(byte[] buffer, int index) {
+    return index < buffer.length ? buffer[index] & 0xFF : 0;
+  }
+
+  private boolean write(int address, int data, int accessType, CircuitState cState) {
+    final var trans =
+        new SocBusTransaction(SocBusTransaction.WRITE_TRANSACTION, address, data, accessType, "elf");
+    cpu.insertTransaction(trans, true, cState);
+    return !trans.hasError();
+  }
+
+  /**
+   * Writes a loadable segment to memory, the bytes past the ones read from the file being zero.
+   * Aligned groups of four bytes are written as one word, the memories keeping the byte at the
+   * lowest address in the lowest bits of a word; the other bytes, and the words no slave accepts
+   * as such, are written one byte at a time.
+   */
+  private boolean loadSegment(byte[] buffer, long startAddr, int memSize, CircuitState cState) {
+    var j = 0;
+    while (j < memSize) {
+      final var addr = ElfHeader.getIntValue(ElfHeader.returnCorrectValue(startAddr + (long) j, true));
+      if ((addr & 3) == 0 && memSize - j >= 4) {
+        final var word = getByte(buffer, j)
+            | (getByte(buffer, j + 1) << 8)
+            | (getByte(buffer, j + 2) << 16)
+            | (getByte(buffer, j + 3) << 24);
+        if (write(addr, word, SocBusTransaction.WORD_ACCESS, cState)) {
+          j += 4;
+          continue;
+        }
+        for (var k = 0; k < 4; k++) {
+          if (!write(addr + k, getByte(buffer, j + k), SocBusTransaction.BYTE_ACCESS, cState)) {
+            return false;
+          }
+        }
+        j += 4;
+        continue;
+      }
+      if (!write(addr, getByte(buffer, j), SocBusTransaction.BYTE_ACCESS, cState)) return false;
+      j++;
+    }
+    return true;
+  }
+
   private boolean open() {
     try {
       elfFileStream = new FileInputStream(elfFile);
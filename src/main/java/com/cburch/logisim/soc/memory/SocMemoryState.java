@@ -19,79 +19,29 @@ import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.util.StringUtil;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Random;
 
 public class SocMemoryState implements SocBusSlaveInterface {
 
-  public class SocMemoryInfo implements InstanceData, Cloneable {
-    private class SocMemoryInfoBlock {
-      private final LinkedList<Integer> contents = new LinkedList<>();
-      private int startAddress;
-      private final Random rand = new Random();
-
-      public SocMemoryInfoBlock(int address, int data) {
-        startAddress = (address >> 2) << 2;
-        contents.add(data);
-      }
-
-      public boolean canAddBefore(int address) {
-        final var previousAddress = getStartAddress() - 4;
-        return (address >= previousAddress) && (address < getStartAddress());
-      }
-
-      public boolean canAddAfter(int address) {
-        return (address >= getEndAddress()) && (address < getEndAddress() + 4);
-      }
-
-      public boolean contains(int address) {
-        return (address >= getStartAddress()) && (address < getEndAddress());
-      }
-
-      public boolean canAdd(int address) {
-        return canAddBefore(address) || canAddAfter(address);
-      }
+  private static final int PAGE_BITS = 10;
+  private static final int PAGE_WORDS = 1 << PAGE_BITS;
+  private static final int DIRECTORY_BITS = 10;
+  private static final int DIRECTORIES = 1 << (30 - PAGE_BITS - DIRECTORY_BITS);
 
-      public boolean addInfo(int address, int data) {
-        if (canAddBefore(address)) {
-          contents.addFirst(data);
-          startAddress -= 4;
-          return true;
-        }
-        if (canAddAfter(address)) {
-          contents.add(data);
-          return true;
-        }
-        if (contains(address)) {
-          final var index = (address - startAddress) >> 2;
-          contents.set(index, data);
-          return true;
-        }
-        return false;
-      }
-
-      public int getValue(int address) {
-        final var index = (address - startAddress) >> 2;
-        if (index >= contents.size()) {
-          return rand.nextInt();
-        }
-        return contents.get(index);
-      }
-
-      public int getStartAddress() {
-        return startAddress;
-      }
-
-      public int getEndAddress() {
-        return startAddress + contents.size() * 4;
-      }
-    }
-
-    private final ArrayList<SocMemoryInfoBlock> memInfo;
+  /** The words of a page of memory, with a bit per word telling whether it was written. */
+  private static final class MemoryPage {
+    private final int[] words = new int[PAGE_WORDS];
+    private final long[] written = new long[PAGE_WORDS / 64];
+  }
 
-    public SocMemoryInfo() {
-      memInfo = new ArrayList<>();
-    }
+  /**
+   * The contents of a memory, in pages of 4 KiB created when first written. A page is found from
+   * the address with two array lookups, the word address being split into the index of the
+   * directory, of the page in the directory and of the word in the page. Words never written read
+   * as random values, as in real memory.
+   */
+  public class SocMemoryInfo implements InstanceData, Cloneable {
+    private final MemoryPage[][] directories = new MemoryPage[DIRECTORIES][];
 
     @Override
     public SocMemoryInfo clone() {
@@ -102,51 +52,37 @@ public class SocMemoryState implements SocBusSlaveInterface {
       }
     }
 
+    private MemoryPage getPage(int wordAddress, boolean create) {
+      final var dirIndex = wordAddress >>> (PAGE_BITS + DIRECTORY_BITS);
+      var directory = directories[dirIndex];
+      if (directory == null) {
+        if (!create) return null;
+        directory = new MemoryPage[1 << DIRECTORY_BITS];
+        directories[dirIndex] = directory;
+      }
+      final var pageIndex = (wordAddress >>> PAGE_BITS) & ((1 << DIRECTORY_BITS) - 1);
+      var page = directory[pageIndex];
+      if (page == null && create) {
+        page = new MemoryPage();
+        directory[pageIndex] = page;
+      }
+      return page;
+    }
+
     public int getWord(int address) {
-      for (final var info : memInfo)
-        if (info.contains(address)) return info.getValue(address);
-      return rand.nextInt();
+      final var wordAddress = address >>> 2;
+      final var page = getPage(wordAddress, false);
+      final var index = wordAddress & (PAGE_WORDS - 1);
+      if (page == null || (page.written[index >> 6] & (1L << index)) == 0) return rand.nextInt();
+      return page.words[index];
     }
 
     public void writeWord(int address, int wdata) {
-      final var adders = new ArrayList<SocMemoryInfoBlock>();
-      for (final var info : memInfo) {
-        if (info.contains(address)) {
-          info.addInfo(address, wdata);
-          return;
-        }
-        if (info.canAdd(address)) adders.add(info);
-      }
-      if (adders.isEmpty()) {
-        /* we have to create a new set */
-        memInfo.add(new SocMemoryInfoBlock(address, wdata));
-        return;
-      }
-      if (adders.size() == 1) {
-        /* easy case we can add in front or at the end of an existing one */
-        adders.get(0).addInfo(address, wdata);
-        return;
-      }
-      if (adders.size() > 2) {
-        // FIXME: hardcoded string
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
-      }
-      final var addBefore = adders.get(0).canAddBefore(address)
-                            ? adders.get(0)
-                            : adders.get(1).canAddBefore(address) ? adders.get(1) : null;
-      final var addAfter = adders.get(0).canAddAfter(address)
-                           ? adders.get(0)
-                           : adders.get(1).canAddAfter(address) ? adders.get(1) : null;
-      if (addBefore == null || addAfter == null) {
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
-      }
-      addAfter.addInfo(address, wdata);
-      for (var i = addBefore.getStartAddress(); i < addBefore.getEndAddress(); i += 4) {
-        addAfter.addInfo(i, addBefore.getValue(i));
-      }
-      memInfo.remove(addBefore);
+      final var wordAddress = address >>> 2;
+      final var page = getPage(wordAddress, true);
+      final var index = wordAddress & (PAGE_WORDS - 1);
+      page.words[index] = wdata;
+      page.written[index >> 6] |= 1L << index;
     }
   }
 
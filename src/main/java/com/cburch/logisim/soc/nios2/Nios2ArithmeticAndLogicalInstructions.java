@@ -442,6 +442,10 @@ public class Nios2ArithmeticAndLogicalInstructions implements AssemblerExecution
     return valid;
   }
 
+  public AssemblerExecutionInterface newInstance() {
+    return new Nios2ArithmeticAndLogicalInstructions();
+  }
+
   public String getErrorMessage() {
     return null;
   }
@@ -336,6 +336,10 @@ public class Nios2ComparisonInstructions implements AssemblerExecutionInterface
     return valid;
   }
 
+  public AssemblerExecutionInterface newInstance() {
+    return new Nios2ComparisonInstructions();
+  }
+
   public String getErrorMessage() {
     return null;
   }
@@ -195,6 +195,10 @@ public class Nios2CustomInstructions implements AssemblerExecutionInterface {
     return valid;
   }
 
+  public AssemblerExecutionInterface newInstance() {
+    return new Nios2CustomInstructions();
+  }
+
   public String getErrorMessage() {
     return null;
   }
@@ -249,6 +249,11 @@ public class Nios2DataTransferInstructions implements AssemblerExecutionInterfac
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new Nios2DataTransferInstructions();
+  }
+
   @Override
   public String getErrorMessage() {
     return errorMessage;
@@ -355,6 +355,10 @@ public class Nios2OtherControlInstructions implements AssemblerExecutionInterfac
     return valid;
   }
 
+  public AssemblerExecutionInterface newInstance() {
+    return new Nios2OtherControlInstructions();
+  }
+
   public String getErrorMessage() {
     return null;
   }
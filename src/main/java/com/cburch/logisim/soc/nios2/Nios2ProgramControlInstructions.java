@@ -15,6 +15,7 @@ import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.soc.util.AbstractExecutionUnitWithLabelSupport;
 import com.cburch.logisim.soc.util.AssemblerAsmInstruction;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
@@ -389,6 +390,11 @@ public class Nios2ProgramControlInstructions implements AbstractExecutionUnitWit
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new Nios2ProgramControlInstructions();
+  }
+
   @Override
   public String getErrorMessage() {
     return null;
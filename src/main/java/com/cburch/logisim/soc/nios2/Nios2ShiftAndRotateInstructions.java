@@ -187,6 +187,10 @@ public class Nios2ShiftAndRotateInstructions implements AssemblerExecutionInterf
     return valid;
   }
 
+  public AssemblerExecutionInterface newInstance() {
+    return new Nios2ShiftAndRotateInstructions();
+  }
+
   public String getErrorMessage() {
     return null;
   }
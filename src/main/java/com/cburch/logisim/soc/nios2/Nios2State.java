@@ -36,7 +36,9 @@ import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -73,6 +75,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private final DecodedInstructionCache decodedInstructions;
+    private AssemblerExecutionInterface lastExeUnit;
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
@@ -91,6 +95,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       AbstractTokenMakerFactory atmf = (AbstractTokenMakerFactory) TokenMakerFactory.getDefaultInstance();
       atmf.putMapping(ASSEMBLER.getHighlightStringIdentifier(), "com.cburch.logisim.soc.nios2.Nios2SyntaxHighlighter");
       bPanel = new BreakpointPanel(ASSEMBLER.getHighlightStringIdentifier());
+      decodedInstructions = new DecodedInstructionCache(ASSEMBLER);
       reset();
     }
 
@@ -122,6 +127,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       ienable = 0;
       ipending = 0;
       instrTrace.clear();
+      decodedInstructions.clear();
+      lastExeUnit = null;
       if (visible) repaint();
       simState.reset();
     }
@@ -279,7 +286,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       /* check the simulation state */
       if (!simState.canExecute()) return;
       /* here we handle the custom instructions */
-      if (ASSEMBLER.getExeUnit() != null && ASSEMBLER.getExeUnit() instanceof Nios2CustomInstructions cust) {
+      if (lastExeUnit instanceof Nios2CustomInstructions cust) {
         if (cust.isValid() && cust.waitingOnReady(this, cState)) return;
       }
       Map<Integer, Integer> breakPoints = bPanel.getBreakPoints();
@@ -320,9 +327,9 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       }
       /* decode instruction */
       final var instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
+      final var exe = decodedInstructions.getExeUnit(pc, instruction);
+      lastExeUnit = exe;
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
       while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES)
         instrTrace.removeLast();
@@ -338,7 +345,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
         if (visible) repaint();
         return;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
+      final var trace =
+          new TraceInfo(pc, instruction, decodedInstructions.getAsmInstruction(pc), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -372,6 +380,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
 
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
+      if (trans.isWriteTransaction()) decodedInstructions.invalidate(trans.getAddress());
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
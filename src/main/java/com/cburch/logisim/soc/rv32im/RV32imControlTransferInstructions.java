@@ -16,6 +16,7 @@ import com.cburch.logisim.gui.generic.OptionPane;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.util.AbstractExecutionUnitWithLabelSupport;
 import com.cburch.logisim.soc.util.AssemblerAsmInstruction;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -244,6 +245,11 @@ public class RV32imControlTransferInstructions implements AbstractExecutionUnitW
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new RV32imControlTransferInstructions();
+  }
+
   private boolean decodeBin() {
     int opcode = RV32imSupport.getOpcode(instruction);
     isPcRelative = true;
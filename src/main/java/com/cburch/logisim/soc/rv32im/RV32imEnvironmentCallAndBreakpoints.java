@@ -71,6 +71,11 @@ public class RV32imEnvironmentCallAndBreakpoints implements AssemblerExecutionIn
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new RV32imEnvironmentCallAndBreakpoints();
+  }
+
   private boolean decodeBin() {
     if (RV32imSupport.getOpcode(instruction) == SYSTEM) {
       int funct12 = (instruction >> 20) & 0xFFF;
@@ -184,6 +184,11 @@ public class RV32imIntegerRegisterImmediateInstructions implements AssemblerExec
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new RV32imIntegerRegisterImmediateInstructions();
+  }
+
   private void decodeBin() {
     int opcode = RV32imSupport.getOpcode(instruction);
     switch (opcode) {
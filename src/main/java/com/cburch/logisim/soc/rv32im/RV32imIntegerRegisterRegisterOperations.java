@@ -140,6 +140,11 @@ public class RV32imIntegerRegisterRegisterOperations implements AssemblerExecuti
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new RV32imIntegerRegisterRegisterOperations();
+  }
+
   private boolean decodeBin() {
     if (RV32imSupport.getOpcode(instruction) != OP)
       return false;
@@ -172,6 +172,11 @@ public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterfa
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new RV32imLoadAndStoreInstructions();
+  }
+
   private boolean decodeBin() {
     int opcode = RV32imSupport.getOpcode(instruction);
     if (opcode == LOAD) {
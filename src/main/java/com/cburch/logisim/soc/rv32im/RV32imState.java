@@ -38,6 +38,7 @@ import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -71,6 +72,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private final DecodedInstructionCache decodedInstructions;
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
@@ -91,6 +93,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
           ASSEMBLER.getHighlightStringIdentifier(),
           "com.cburch.logisim.soc.rv32im.RV32imSyntaxHighlighter");
       bPanel = new BreakpointPanel(ASSEMBLER.getHighlightStringIdentifier());
+      decodedInstructions = new DecodedInstructionCache(ASSEMBLER);
       reset();
     }
 
@@ -121,6 +124,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       }
       lastRegisterWritten = -1;
       instrTrace.clear();
+      decodedInstructions.clear();
       if (visible) repaint();
       simState.reset();
     }
@@ -239,9 +243,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       }
       /* decode instruction */
       int instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
+      final var exe = decodedInstructions.getExeUnit(pc, instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
       while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES) instrTrace.removeLast();
       if (exe == null) {
@@ -257,7 +260,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
         if (visible) repaint();
         return;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
+      final var trace =
+          new TraceInfo(pc, instruction, decodedInstructions.getAsmInstruction(pc), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -291,6 +295,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
 
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
+      if (trans.isWriteTransaction()) decodedInstructions.invalidate(trans.getAddress());
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
@@ -131,6 +131,11 @@ public class RV32im_M_ExtensionInstructions implements AssemblerExecutionInterfa
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new RV32im_M_ExtensionInstructions();
+  }
+
   private boolean decodeBin() {
     if (RV32imSupport.getOpcode(instruction) == OP) {
       if (RV32imSupport.getFunct7(instruction) != 1)
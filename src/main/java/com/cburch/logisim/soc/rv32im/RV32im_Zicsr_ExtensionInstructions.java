@@ -336,6 +336,11 @@ public class RV32im_Zicsr_ExtensionInstructions implements AssemblerExecutionInt
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new RV32im_Zicsr_ExtensionInstructions();
+  }
+
   @Override
   public String getErrorMessage() {
     return null;
@@ -88,6 +88,11 @@ public class Rv32imMemoryOrderingInstructions implements AssemblerExecutionInter
     return valid;
   }
 
+  @Override
+  public AssemblerExecutionInterface newInstance() {
+    return new Rv32imMemoryOrderingInstructions();
+  }
+
   private boolean decodeBin() {
     if (RV32imSupport.getOpcode(instruction) == FENCE) {
       if (RV32imSupport.getFunct3(instruction) != 0) return false;
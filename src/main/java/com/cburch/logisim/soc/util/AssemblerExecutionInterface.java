@@ -32,4 +32,12 @@ public interface AssemblerExecutionInterface {
   ArrayList<String> getInstructions();
 
   int getInstructionSizeInBytes(String instruction);
+
+  /**
+   * @return a new execution unit of the same kind, so that a decoded instruction can keep its
+   *     operands in a unit of its own, or null if the unit does not support it.
+   */
+  default AssemblerExecutionInterface newInstance() {
+    return null;
+  }
 }
@@ -0,0 +1,94 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import java.util.Arrays;
+
+/**
+ * The instructions a processor executed, decoded, so that executing one again does not go through
+ * all the execution units of the assembler. Each entry holds the address and the word of an
+ * instruction, and an execution unit of its own in which the operands were decoded; the entries
+ * are indexed by the word address, direct-mapped.
+ *
+ * <p>An entry is used only if the word fetched at its address is the one it was decoded from, so
+ * that memory changed behind the processor's back is seen; the writes of the processor drop the
+ * entries of the words they hit. Execution units that cannot have more instances are decoded
+ * each time, as before.
+ */
+public class DecodedInstructionCache {
+
+  private static final int NR_OF_ENTRIES = 4096;
+
+  private final AssemblerInterface assembler;
+  private final int[] addresses = new int[NR_OF_ENTRIES];
+  private final int[] instructions = new int[NR_OF_ENTRIES];
+  private final boolean[] valid = new boolean[NR_OF_ENTRIES];
+  private final AssemblerExecutionInterface[] exeUnits =
+      new AssemblerExecutionInterface[NR_OF_ENTRIES];
+  private final String[] asmInstructions = new String[NR_OF_ENTRIES];
+  private AssemblerExecutionInterface uncached;
+
+  public DecodedInstructionCache(AssemblerInterface assembler) {
+    this.assembler = assembler;
+  }
+
+  private static int getIndex(int address) {
+    return (address >>> 2) & (NR_OF_ENTRIES - 1);
+  }
+
+  /**
+   * @return the execution unit in which the instruction fetched at the address is decoded, or null
+   *     if no unit knows the instruction.
+   */
+  public AssemblerExecutionInterface getExeUnit(int address, int instruction) {
+    final var index = getIndex(address);
+    if (valid[index] && addresses[index] == address && instructions[index] == instruction) {
+      uncached = null;
+      return exeUnits[index];
+    }
+    assembler.decode(instruction);
+    final var decoded = assembler.getExeUnit();
+    if (decoded == null) return null;
+    var exe = exeUnits[index];
+    if (exe == null || exe.getClass() != decoded.getClass()) exe = decoded.newInstance();
+    if (exe == null) {
+      // the instruction stays decoded in the unit of the assembler
+      valid[index] = false;
+      uncached = decoded;
+      return decoded;
+    }
+    exe.setBinInstruction(instruction);
+    addresses[index] = address;
+    instructions[index] = instruction;
+    exeUnits[index] = exe;
+    asmInstructions[index] = null;
+    valid[index] = true;
+    uncached = null;
+    return exe;
+  }
+
+  /** @return the assembly of the instruction last given by getExeUnit for the address. */
+  public String getAsmInstruction(int address) {
+    if (uncached != null) return uncached.getAsmInstruction();
+    final var index = getIndex(address);
+    if (asmInstructions[index] == null) asmInstructions[index] = exeUnits[index].getAsmInstruction();
+    return asmInstructions[index];
+  }
+
+  /** Drops the instruction containing the byte written at the address. */
+  public void invalidate(int address) {
+    final var index = getIndex(address);
+    if (addresses[index] == (address & ~3)) valid[index] = false;
+  }
+
+  public void clear() {
+    Arrays.fill(valid, false);
+  }
+}
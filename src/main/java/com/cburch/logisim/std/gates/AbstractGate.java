@@ -12,6 +12,7 @@ package com.cburch.logisim.std.gates;
 import com.cburch.logisim.LogisimVersion;
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.circuit.CombinationalLogic;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.comp.TextField;
 import com.cburch.logisim.data.Attribute;
@@ -30,6 +31,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
 import com.cburch.logisim.tools.WireRepair;
 import com.cburch.logisim.tools.WireRepairData;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
@@ -210,6 +212,14 @@ abstract class AbstractGate extends InstanceFactory {
   //
   protected abstract Value getIdentity();
 
+  /**
+   * Tells which GateFunctions.FUNC_* bit mask function gives the same result as computeOutput(),
+   * so that the levelized simulator can evaluate the gate without creating Values.
+   */
+  protected int getMaskFunction(AttributeSet attrs) {
+    return GateFunctions.FUNC_NONE;
+  }
+
   Location getInputOffset(GateAttributes attrs, int index) {
     final var inputs = attrs.inputs;
     final var facing = attrs.facing;
@@ -275,6 +285,14 @@ abstract class AbstractGate extends InstanceFactory {
     if (key == WireRepair.class) {
       return (WireRepair) data -> AbstractGate.this.shouldRepairWire(instance, data);
     }
+    if (key == CombinationalLogic.class) {
+      return (CombinationalLogic) ports -> evaluate(instance, ports);
+    }
+    if (key == DenseLogicComponent.class) {
+      return (DenseLogicComponent) (builder, cells) -> GateFunctions.attachDense(
+          getMaskFunction(instance.getAttributeSet()), (GateAttributes) instance.getAttributeSet(),
+          builder, cells);
+    }
     if (key == ExpressionComputer.class) {
       return (ExpressionComputer)
           expressionMap -> {
@@ -539,6 +557,21 @@ abstract class AbstractGate extends InstanceFactory {
 
   protected abstract void paintShape(InstancePainter painter, int width, int height);
 
+  private void evaluate(Instance instance, CombinationalLogic.Ports ports) {
+    final var attrs = (GateAttributes) instance.getAttributeSet();
+    final var function = getMaskFunction(attrs);
+    var allConnected = function != GateFunctions.FUNC_NONE;
+    for (var i = 1; allConnected && i <= attrs.inputs; i++) {
+      allConnected = ports.isConnected(i);
+    }
+    if (allConnected) {
+      GateFunctions.computeMasks(function, attrs, ports);
+    } else {
+      // what an unconnected input means depends on the project options
+      propagate(ports.getInstanceState());
+    }
+  }
+
   @Override
   public void propagate(InstanceState state) {
     final var attrs = (GateAttributes) state.getAttributeSet();
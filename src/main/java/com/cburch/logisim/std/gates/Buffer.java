@@ -11,6 +11,7 @@ package com.cburch.logisim.std.gates;
 
 import static com.cburch.logisim.std.Strings.S;
 
+import com.cburch.logisim.circuit.CombinationalLogic;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
@@ -28,6 +29,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
 import java.awt.Color;
@@ -124,6 +126,19 @@ class Buffer extends InstanceFactory {
 
   @Override
   public Object getInstanceFeature(final Instance instance, Object key) {
+    if (key == CombinationalLogic.class) {
+      return (CombinationalLogic) ports -> propagate(ports.getInstanceState());
+    }
+    if (key == DenseLogicComponent.class) {
+      return (DenseLogicComponent) (builder, cells) -> {
+        // without input the output is unknown, which the gates it drives would take for zero
+        if (hasThreeStateDrivers(instance.getAttributeSet()) || cells[1] == null) return false;
+        for (var bit = 0; bit < cells[0].length; bit++) {
+          builder.attachBuffer(cells[1][bit], cells[0][bit]);
+        }
+        return true;
+      };
+    }
     if (key == ExpressionComputer.class) {
       return (ExpressionComputer) expressionMap -> {
         final var width = instance.getAttributeValue(StdAttr.WIDTH).getWidth();
@@ -13,6 +13,7 @@ import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
@@ -49,6 +50,11 @@ class EvenParityGate extends AbstractGate {
     return GateFunctions.computeOddParity(inputs, numInputs).not();
   }
 
+  @Override
+  protected int getMaskFunction(AttributeSet attrs) {
+    return GateFunctions.FUNC_ODD | GateFunctions.FUNC_NOT;
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.FALSE;
@@ -9,9 +9,21 @@
 
 package com.cburch.logisim.std.gates;
 
+import com.cburch.logisim.circuit.CombinationalLogic;
 import com.cburch.logisim.data.Value;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
 
 class GateFunctions {
+  // Functions having a bit mask implementation in computeMasks(). FUNC_NOT may be or-ed with any
+  // of the others to negate the result.
+  static final int FUNC_NONE = 0;
+  static final int FUNC_AND = 1;
+  static final int FUNC_OR = 2;
+  static final int FUNC_ODD = 3;
+  static final int FUNC_ONE = 4;
+  static final int FUNC_NOT = 8;
+
   static Value computeAnd(Value[] inputs, int numInputs) {
     var ret = inputs[0];
     for (int i = 1; i < numInputs; i++) {
@@ -47,6 +59,135 @@ class GateFunctions {
     return Value.create(ret);
   }
 
+  /**
+   * Bit mask version of AbstractGate.propagate(), for gates whose inputs are all connected. It
+   * gives the same results as the Value based functions of this class.
+   */
+  static void computeMasks(int function, GateAttributes attrs, CombinationalLogic.Ports ports) {
+    final var width = attrs.width.getWidth();
+    final var mask = width == 64 ? -1L : ~(-1L << width);
+    final var negated = attrs.negated;
+    var bad = 0L; // some input is an error or unknown
+    var zero = 0L; // some input is zero
+    var any = 0L; // some input is one
+    var all = mask; // all inputs are one
+    var twice = 0L; // at least two inputs are one
+    var odd = 0L; // an odd number of inputs are one
+    for (var i = 1; i <= attrs.inputs; i++) {
+      var e = ports.getError(i);
+      var u = ports.getUnknown(i);
+      var v = ports.getValue(i);
+      if (((negated >> (i - 1)) & 1) != 0) {
+        e |= u;
+        u = 0;
+        v = ~v & mask & ~e;
+      }
+      bad |= e | u;
+      zero |= mask & ~(e | u | v);
+      twice |= any & v;
+      any |= v;
+      all &= v;
+      odd ^= v;
+    }
+
+    long error;
+    long value;
+    switch (function & ~FUNC_NOT) {
+      case FUNC_AND -> {
+        error = bad & ~zero;
+        value = all;
+      }
+      case FUNC_OR -> {
+        error = bad & ~any;
+        value = any;
+      }
+      case FUNC_ODD -> {
+        error = bad;
+        value = odd & ~bad;
+      }
+      case FUNC_ONE -> {
+        error = bad;
+        value = any & ~twice & ~bad;
+      }
+      default -> throw new IllegalArgumentException("function " + function);
+    }
+    if ((function & FUNC_NOT) != 0) {
+      value = ~value & mask & ~error;
+    }
+
+    var unknown = 0L;
+    if (attrs.out == GateAttributes.OUTPUT_0Z) {
+      unknown = value;
+      value = 0;
+    } else if (attrs.out == GateAttributes.OUTPUT_Z1) {
+      unknown = mask & ~value & ~error;
+    }
+    ports.set(0, error, unknown, value);
+  }
+
+  /**
+   * Dense logic version of AbstractGate.propagate(): builds every bit of the gate as a chain of two
+   * input gates. Unconnected inputs are left out, as with the default project options; the
+   * translated circuit falls back to the usual propagation when they must give an error instead, or
+   * when its inputs are unknown or errors, which a DenseLogicCircuit would take for zero.
+   *
+   * @return false if the gate can not be translated
+   */
+  static boolean attachDense(int function, GateAttributes attrs, DenseLogicCircuitBuilder builder,
+      int[][] cells) {
+    if (function == FUNC_NONE || attrs.out != GateAttributes.OUTPUT_01) return false;
+    final var inputs = new int[attrs.inputs];
+    var numInputs = 0;
+    for (var i = 1; i <= attrs.inputs; i++) {
+      if (cells[i] != null) inputs[numInputs++] = i;
+    }
+    // "exactly one" only is the same as "odd" for up to two inputs
+    if (numInputs == 0 || ((function & ~FUNC_NOT) == FUNC_ONE && numInputs > 2)) return false;
+
+    final var negate = (function & FUNC_NOT) != 0;
+    int gate;
+    int lastGate;
+    int identity;
+    switch (function & ~FUNC_NOT) {
+      case FUNC_AND -> {
+        gate = DenseLogicCircuit.GATE_AND;
+        lastGate = negate ? DenseLogicCircuit.GATE_NAND : gate;
+        identity = DenseLogicCircuit.LEV_HIGH;
+      }
+      case FUNC_OR -> {
+        gate = DenseLogicCircuit.GATE_OR;
+        lastGate = negate ? DenseLogicCircuit.GATE_NOR : gate;
+        identity = DenseLogicCircuit.LEV_LOW;
+      }
+      default -> {
+        gate = DenseLogicCircuit.GATE_XOR;
+        lastGate = negate ? DenseLogicCircuit.GATE_NXOR : gate;
+        identity = DenseLogicCircuit.LEV_LOW;
+      }
+    }
+    for (var bit = 0; bit < attrs.width.getWidth(); bit++) {
+      var acc = denseInput(attrs, builder, cells, inputs[0], bit);
+      var next = numInputs > 1 ? denseInput(attrs, builder, cells, inputs[1], bit) : identity;
+      for (var i = 2; i < numInputs; i++) {
+        final var cell = builder.addCell(false);
+        builder.attachGate(gate, acc, next, cell);
+        acc = cell;
+        next = denseInput(attrs, builder, cells, inputs[i], bit);
+      }
+      builder.attachGate(lastGate, acc, next, cells[0][bit]);
+    }
+    return true;
+  }
+
+  private static int denseInput(GateAttributes attrs, DenseLogicCircuitBuilder builder,
+      int[][] cells, int port, int bit) {
+    final var cell = cells[port][bit];
+    if (((attrs.negated >> (port - 1)) & 1) == 0) return cell;
+    final var inverted = builder.addCell(false);
+    builder.attachInverter(cell, inverted);
+    return inverted;
+  }
+
   static Value computeOddParity(Value[] inputs, int numInputs) {
     var ret = inputs[0];
     for (int i = 1; i < numInputs; i++) {
@@ -12,6 +12,7 @@ package com.cburch.logisim.std.gates;
 import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.circuit.CombinationalLogic;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.comp.TextField;
 import com.cburch.logisim.data.Attribute;
@@ -30,6 +31,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
 import java.awt.Color;
@@ -140,6 +142,19 @@ class NotGate extends InstanceFactory {
 
   @Override
   protected Object getInstanceFeature(final Instance instance, Object key) {
+    if (key == CombinationalLogic.class) {
+      return (CombinationalLogic) ports -> propagate(ports.getInstanceState());
+    }
+    if (key == DenseLogicComponent.class) {
+      return (DenseLogicComponent) (builder, cells) -> {
+        // without input the output is unknown, which the gates it drives would take for zero
+        if (hasThreeStateDrivers(instance.getAttributeSet()) || cells[1] == null) return false;
+        for (var bit = 0; bit < cells[0].length; bit++) {
+          builder.attachInverter(cells[1][bit], cells[0][bit]);
+        }
+        return true;
+      };
+    }
     if (key == ExpressionComputer.class) {
       return (ExpressionComputer)
           expressionMap -> {
@@ -58,6 +58,15 @@ class XnorGate extends AbstractGate {
     }
   }
 
+  @Override
+  protected int getMaskFunction(AttributeSet attrs) {
+    if (attrs.getValue(GateAttributes.ATTR_XOR) == GateAttributes.XOR_ODD) {
+      return GateFunctions.FUNC_ODD | GateFunctions.FUNC_NOT;
+    } else {
+      return GateFunctions.FUNC_ONE | GateFunctions.FUNC_NOT;
+    }
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.FALSE;
@@ -70,6 +70,15 @@ class XorGate extends AbstractGate {
     }
   }
 
+  @Override
+  protected int getMaskFunction(AttributeSet attrs) {
+    if (attrs.getValue(GateAttributes.ATTR_XOR) == GateAttributes.XOR_ODD) {
+      return GateFunctions.FUNC_ODD;
+    } else {
+      return GateFunctions.FUNC_ONE;
+    }
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.FALSE;
@@ -211,6 +211,22 @@ public final class DenseLogicCircuit {
     }
   }
 
+  /**
+   * Gets the sequential data of a flip-flop: the level its clock had on the last tick.
+   * The index is the one DenseLogicCircuitBuilder.nextSequentialData returned before the
+   * flip-flop was added.
+   */
+  public final int getSequentialData(int index, int[] auxData) {
+    return auxData[updateQueueSize + index];
+  }
+
+  /**
+   * Sets the sequential data of a flip-flop, see getSequentialData.
+   */
+  public final void setSequentialData(int index, int value, int[] auxData) {
+    auxData[updateQueueSize + index] = value;
+  }
+
   /**
    * Simulates the combinatorial part of a tick.
    * This has to be run twice; once to get data into the sequential gates, again to get it out.
@@ -85,6 +85,13 @@ public final class DenseLogicCircuitBuilder {
     attachGate(DenseLogicCircuit.GATE_BUS, from, from, to);
   }
 
+  /**
+   * Shorthand for attaching a NAND gate as an inverter.
+   */
+  public void attachInverter(int from, int to) {
+    attachGate(DenseLogicCircuit.GATE_NAND, from, from, to);
+  }
+
   /**
    * Builds the dense logic circuit.
    */
@@ -199,6 +206,14 @@ public final class DenseLogicCircuitBuilder {
     return gi;
   }
 
+  /**
+   * Returns the index of the sequential data of the next flip-flop added.
+   * See DenseLogicCircuit.getSequentialData.
+   */
+  public int nextSequentialData() {
+    return seqDataSize;
+  }
+
   /**
    * Adds a D-flipflop. Returns the Q line cell.
    */
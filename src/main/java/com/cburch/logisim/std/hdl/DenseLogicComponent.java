@@ -0,0 +1,66 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.std.hdl;
+
+import com.cburch.logisim.instance.InstanceData;
+
+/**
+ * Component feature (see Component.getFeature) of components that can be expressed as a
+ * DenseLogicCircuit, like basic gates and D flip-flops. A circuit built from such components, pins,
+ * clocks and wiring only can be translated as a whole and simulated by the dense simulator.
+ */
+@FunctionalInterface
+public interface DenseLogicComponent {
+  /**
+   * Adds the logic of the component to the builder.
+   *
+   * @param builder the builder of the translated circuit
+   * @param cells the cell of every bit of every port, cells[port][bit]; cells[port] is null for
+   *     inputs that are not connected to anything
+   * @return false if the component can not be translated with its current attributes, in which
+   *     case the circuit is simulated as before
+   */
+  boolean attach(DenseLogicCircuitBuilder builder, int[][] cells);
+
+  /**
+   * Returns the state of the component in the circuit it was last attached to, for components
+   * holding state like flip-flops. The feature is obtained anew for every translation, so it may
+   * keep the cells it attached.
+   *
+   * @return the state, or null if the component holds none
+   */
+  default State getState() {
+    return null;
+  }
+
+  /**
+   * The state of a component in a translated circuit. The dense simulator keeps it in its cells,
+   * while poking, drawing and cloning a circuit state use the InstanceData of the component, so it
+   * is copied to the cells before every simulation and back after it.
+   */
+  interface State {
+    /**
+     * Copies the state of the component into the cells.
+     *
+     * @param data the data of the component in the circuit state, null if it has none yet
+     * @return false if the state can not be held in the cells, like an unknown value, in which case
+     *     the members of the circuit are propagated as usual this time
+     */
+    boolean load(InstanceData data, DenseLogicCircuit circuit, byte[] cells, int[] auxData);
+
+    /**
+     * Copies the state of the component from the cells.
+     *
+     * @param data the data of the component in the circuit state, null if it has none yet
+     * @return the data holding the state, data itself unless it was null
+     */
+    InstanceData store(InstanceData data, DenseLogicCircuit circuit, byte[] cells, int[] auxData);
+  }
+}
@@ -123,7 +123,7 @@ abstract class AbstractFlipFlop extends InstanceFactory {
     }
   }
 
-  private static class StateData extends ClockState implements InstanceData {
+  static class StateData extends ClockState implements InstanceData {
     Value curValue = (AppPreferences.Memory_Startup_Unknown.get()) ? Value.UNKNOWN : Value.FALSE;
   }
 
@@ -13,8 +13,13 @@ import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.gui.icons.FlipFlopIcon;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
 import com.cburch.logisim.util.LineBuffer;
 
 public class DFlipFlop extends AbstractFlipFlop {
@@ -49,6 +54,103 @@ public class DFlipFlop extends AbstractFlipFlop {
         new DFFHDLGeneratorFactory());
   }
 
+  @Override
+  protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == DenseLogicComponent.class) {
+      return new DenseFlipFlop(instance);
+    }
+    return super.getInstanceFeature(instance, key);
+  }
+
+  /**
+   * The flip-flop in a dense circuit: a DFFSR, with an inverter in front of the clock for falling
+   * edges. Level triggered flip-flops become latches, but only when they are not set or reset.
+   * Its state is the Q cell and, for edge triggered flip-flops, the level of the clock on the last
+   * tick, which the StateData of the flip-flop mirrors.
+   */
+  private static class DenseFlipFlop implements DenseLogicComponent, DenseLogicComponent.State {
+    private final Instance instance;
+    private int q;
+    /** Index of the sequential data of the flip-flop, -1 for latches. */
+    private int clockData = -1;
+    private boolean clockInverted;
+
+    DenseFlipFlop(Instance instance) {
+      this.instance = instance;
+    }
+
+    @Override
+    public boolean attach(DenseLogicCircuitBuilder builder, int[][] cells) {
+      final var none = DenseLogicCircuit.LEV_NONE;
+      // the flip-flop keeps its value when D or the clock are unknown, the dense simulator does not
+      if (cells[0] == null || cells[1] == null) return false;
+      final var d = cells[0][0];
+      var clock = cells[1][0];
+      final var reset = cells[4] == null ? none : cells[4][0];
+      final var set = cells[5] == null ? none : cells[5][0];
+      final var trigger = instance.getAttributeValue(StdAttr.TRIGGER);
+      clockInverted = trigger == StdAttr.TRIG_FALLING || trigger == StdAttr.TRIG_LOW;
+      if (clockInverted) {
+        final var inverted = builder.addCell(false);
+        builder.attachInverter(clock, inverted);
+        clock = inverted;
+      }
+      if (trigger == StdAttr.TRIG_RISING || trigger == StdAttr.TRIG_FALLING) {
+        clockData = builder.nextSequentialData();
+        q = builder.addDffsr(clock, d, set, reset);
+      } else if (cells[4] == null && cells[5] == null) {
+        q = builder.addLatch(d, clock);
+      } else {
+        return false;
+      }
+      builder.attachBuffer(q, cells[2][0]);
+      builder.attachInverter(q, cells[3][0]);
+      return true;
+    }
+
+    @Override
+    public State getState() {
+      return this;
+    }
+
+    @Override
+    public boolean load(InstanceData data, DenseLogicCircuit circuit, byte[] cells,
+        int[] auxData) {
+      final var state = data == null ? new StateData() : (StateData) data;
+      // an unknown value, with the "unknown" memory startup preference, or an unknown clock is kept
+      // by the flip-flop, while the dense simulator would make it zero
+      if (!state.curValue.isFullyDefined()) return false;
+      circuit.setCell(q, (byte) toLevel(state.curValue), cells, auxData);
+      if (clockData >= 0) {
+        var clock = state.getLastClock();
+        if (!clock.isFullyDefined()) return false;
+        if (clockInverted) clock = clock.not();
+        circuit.setSequentialData(clockData, toLevel(clock), auxData);
+      }
+      return true;
+    }
+
+    @Override
+    public InstanceData store(
+        InstanceData data, DenseLogicCircuit circuit, byte[] cells, int[] auxData) {
+      final var state = data == null ? new StateData() : (StateData) data;
+      state.curValue = cells[q] == DenseLogicCircuit.LEV_HIGH ? Value.TRUE : Value.FALSE;
+      if (clockData >= 0) {
+        var clock = DenseLogicCircuit.LEV_TO_LS[circuit.getSequentialData(clockData, auxData)];
+        if (clockInverted) clock = clock.not();
+        state.setLastClock(clock);
+      }
+      return state;
+    }
+
+    private static int toLevel(Value v) {
+      if (v == Value.TRUE) return DenseLogicCircuit.LEV_HIGH;
+      if (v == Value.FALSE) return DenseLogicCircuit.LEV_LOW;
+      if (v == Value.ERROR) return DenseLogicCircuit.LEV_ERR;
+      return DenseLogicCircuit.LEV_NONE;
+    }
+  }
+
   @Override
   protected Value computeValue(Value[] inputs, Value curValue) {
     return inputs[0];
@@ -32,6 +32,8 @@ import com.cburch.logisim.proj.Project;
 import java.awt.Window;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 import java.util.WeakHashMap;
@@ -64,19 +66,7 @@ public class Rom extends Mem {
 
     @Override
     public MemContents parse(String value) {
-      final var lineBreak = value.indexOf('\n');
-      final var first = lineBreak < 0 ? value : value.substring(0, lineBreak);
-      final var rest = lineBreak < 0 ? "" : value.substring(lineBreak + 1);
-      final var toks = new StringTokenizer(first);
-      try {
-        final var header = toks.nextToken();
-        if (!header.equals("addr/data:")) return null;
-        final var addr = Integer.parseInt(toks.nextToken());
-        final var data = Integer.parseInt(toks.nextToken());
-        return HexFile.parseFromCircFile(rest, addr, data);
-      } catch (IOException | NoSuchElementException | NumberFormatException e) {
-        return null;
-      }
+      return parseContents(new StringReader(value));
     }
 
     @Override
@@ -117,6 +107,30 @@ public class Rom extends Mem {
 
   public static final Attribute<MemContents> CONTENTS_ATTR = new ContentsAttribute();
 
+  /**
+   * Parses a value of CONTENTS_ATTR, the "addr/data:" header line followed by the words, as it is
+   * read. The file loader uses it to build the contents of large memories without holding their
+   * text.
+   *
+   * @return the contents, or null if they are invalid.
+   */
+  public static MemContents parseContents(Reader value) {
+    try {
+      final var first = new StringBuilder();
+      for (var c = value.read(); c >= 0 && c != '\n'; c = value.read()) {
+        first.append((char) c);
+      }
+      final var toks = new StringTokenizer(first.toString());
+      final var header = toks.nextToken();
+      if (!header.equals("addr/data:")) return null;
+      final var addr = Integer.parseInt(toks.nextToken());
+      final var data = Integer.parseInt(toks.nextToken());
+      return HexFile.parseFromCircFile(value, addr, data);
+    } catch (IOException | NoSuchElementException | NumberFormatException e) {
+      return null;
+    }
+  }
+
   // The following is so that instance's MemListeners aren't freed by the
   // garbage collector until the instance itself is ready to be freed.
   private final WeakHashMap<Instance, MemListener> memListeners;
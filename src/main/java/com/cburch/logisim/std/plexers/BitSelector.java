@@ -11,6 +11,7 @@ package com.cburch.logisim.std.plexers;
 
 import static com.cburch.logisim.std.Strings.S;
 
+import com.cburch.logisim.circuit.CombinationalLogic;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Attributes;
@@ -79,6 +80,14 @@ public class BitSelector extends InstanceFactory {
     return completeName.toString();
   }
 
+  @Override
+  protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == CombinationalLogic.class) {
+      return (CombinationalLogic) ports -> propagate(ports.getInstanceState());
+    }
+    return super.getInstanceFeature(instance, key);
+  }
+
   @Override
   public Bounds getOffsetBounds(AttributeSet attrs) {
     final var facing = attrs.getValue(StdAttr.FACING);
@@ -12,6 +12,7 @@ package com.cburch.logisim.std.wiring;
 import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.circuit.CombinationalLogic;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.data.AbstractAttributeSet;
 import com.cburch.logisim.data.Attribute;
@@ -28,6 +29,8 @@ import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.tools.key.JoinedConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
@@ -158,6 +161,21 @@ public class Constant extends InstanceFactory {
 
   @Override
   protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == CombinationalLogic.class) {
+      return (CombinationalLogic) ports -> propagate(ports.getInstanceState());
+    }
+    if (key == DenseLogicComponent.class) {
+      return (DenseLogicComponent) (builder, cells) -> {
+        final long value = instance.getAttributeValue(ATTR_VALUE);
+        for (var bit = 0; bit < cells[0].length; bit++) {
+          final var level = ((value >> bit) & 1) != 0
+              ? DenseLogicCircuit.LEV_HIGH
+              : DenseLogicCircuit.LEV_LOW;
+          builder.attachBuffer(level, cells[0][bit]);
+        }
+        return true;
+      };
+    }
     if (key == ExpressionComputer.class) return new ConstantExpression(instance);
     return super.getInstanceFeature(instance, key);
   }
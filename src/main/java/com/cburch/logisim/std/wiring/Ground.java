@@ -11,6 +11,7 @@ package com.cburch.logisim.std.wiring;
 
 import static com.cburch.logisim.std.Strings.S;
 
+import com.cburch.logisim.circuit.CombinationalLogic;
 import com.cburch.logisim.circuit.Wire;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
@@ -26,6 +27,8 @@ import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicComponent;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
 import java.awt.Graphics2D;
@@ -83,6 +86,22 @@ public class Ground extends InstanceFactory {
     g.dispose();
   }
 
+  @Override
+  protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == CombinationalLogic.class) {
+      return (CombinationalLogic) ports -> propagate(ports.getInstanceState());
+    }
+    if (key == DenseLogicComponent.class) {
+      return (DenseLogicComponent) (builder, cells) -> {
+        for (final var cell : cells[0]) {
+          builder.attachBuffer(DenseLogicCircuit.LEV_LOW, cell);
+        }
+        return true;
+      };
+    }
+    return super.getInstanceFeature(instance, key);
+  }
+
   @Override
   public Bounds getOffsetBounds(AttributeSet attrs) {
     return Bounds.create(0, -8, 14, 16)
@@ -11,6 +11,7 @@ package com.cburch.logisim.util;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 
 public final class XmlUtil {
 
@@ -70,4 +71,16 @@ public final class XmlUtil {
 
     return dbf;
   }
+
+  /**
+   * Returns instance of XMLInputFactory, for streaming reads, configured like
+   * getHardenedBuilderFactory() against XXE attacks: doctypes and external entities are not
+   * supported.
+   */
+  public static XMLInputFactory getHardenedInputFactory() {
+    final var xif = XMLInputFactory.newFactory();
+    xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return xif;
+  }
 }
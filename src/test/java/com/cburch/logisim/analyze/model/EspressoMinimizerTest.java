@@ -0,0 +1,94 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class EspressoMinimizerTest {
+
+  private static long[] toCover(List<Implicant> implicants) {
+    final var cover = new long[implicants.size()];
+    for (var i = 0; i < cover.length; i++) {
+      cover[i] = EspressoMinimizer.cube(implicants.get(i).unknowns, implicants.get(i).values);
+    }
+    return cover;
+  }
+
+  /**
+   * Minimizes random tables of 5 inputs both with Quine-McCluskey and heuristically: the heuristic
+   * result must be a cover of the table, and cannot have fewer implicants than the exact one.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, AnalyzerModel.FORMAT_PRODUCT_OF_SUMS})
+  public void testAgainstQuineMcCluskey(int format) {
+    final var random = new Random(format);
+    for (var test = 0; test < 50; test++) {
+      final var model = new AnalyzerModel();
+      for (final var name : new String[] {"a", "b", "c", "d", "e"}) {
+        assertDoesNotThrow(() -> model.getInputs().add(Var.parse(name)));
+      }
+      assertDoesNotThrow(() -> model.getOutputs().add(Var.parse("x")));
+      final var table = model.getTruthTable();
+      final var desired = format == AnalyzerModel.FORMAT_SUM_OF_PRODUCTS ? Entry.ONE : Entry.ZERO;
+      final var rows = new byte[table.getRowCount()];
+      for (var row = 0; row < rows.length; row++) {
+        final var kind = random.nextInt(5);
+        final var entry = kind == 0 ? Entry.DONT_CARE : kind < 3 ? Entry.ONE : Entry.ZERO;
+        table.setOutputEntry(row, 0, entry);
+        rows[row] = entry == Entry.DONT_CARE
+            ? EspressoMinimizer.DONT_CARE
+            : entry == desired ? EspressoMinimizer.ON : EspressoMinimizer.OFF;
+      }
+      final var exact = Implicant.computeMinimal(format, model, "x", null);
+      final var heuristic = EspressoMinimizer.computeMinimal(format, model, "x", null);
+      final var minimizer = new EspressoMinimizer(5, rows);
+      assertTrue(minimizer.isCover(toCover(exact)), "Quine-McCluskey gave no cover");
+      assertTrue(minimizer.isCover(toCover(heuristic)), "Espresso gave no cover");
+      assertTrue(heuristic.size() >= exact.size(), "Espresso did better than exact");
+    }
+  }
+
+  /** A sum of eight disjoint products of two of 16 inputs must be found back. */
+  @Test
+  public void testDisjointProducts() {
+    final var rows = new byte[1 << 16];
+    for (var row = 0; row < rows.length; row++) {
+      var on = false;
+      for (var pair = 0; pair < 8; pair++) on |= ((row >> (2 * pair)) & 3) == 3;
+      rows[row] = on ? EspressoMinimizer.ON : EspressoMinimizer.OFF;
+    }
+    final var minimizer = new EspressoMinimizer(16, rows);
+    final var cover = minimizer.minimize(null);
+    assertTrue(minimizer.isCover(cover));
+    assertEquals(8, cover.length);
+  }
+
+  /** A 16-input comparator of two 8-bit numbers is minimized in seconds. */
+  @Test
+  public void testComparator() {
+    final var rows = new byte[1 << 16];
+    for (var row = 0; row < rows.length; row++) {
+      rows[row] = (row >> 8) > (row & 0xff) ? EspressoMinimizer.ON : EspressoMinimizer.OFF;
+    }
+    final var minimizer = new EspressoMinimizer(16, rows);
+    final var cover = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> minimizer.minimize(null));
+    assertTrue(minimizer.isCover(cover));
+  }
+}
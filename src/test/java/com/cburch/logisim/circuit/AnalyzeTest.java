@@ -0,0 +1,166 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.analyze.model.Entry;
+import com.cburch.logisim.analyze.model.TruthTable;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.DFlipFlop;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AnalyzeTest {
+  /** Enough inputs for the table to be computed in parallel. */
+  private static final int INPUTS = 11;
+
+  private boolean wasParallel;
+  private CircuitTestBuilder builder;
+  private Circuit circuit;
+  private final ArrayList<String> outputs = new ArrayList<>();
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  @BeforeEach
+  public void savePreference() {
+    wasParallel = AppPreferences.ANALYZE_PARALLEL.getBoolean();
+  }
+
+  @AfterEach
+  public void restorePreference() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.ANALYZE_PARALLEL, wasParallel);
+  }
+
+  /**
+   * A chain of gates over all inputs, with a D flip-flop clocked by the first input if the circuit
+   * is to be sequential.
+   */
+  private void buildCircuit(boolean sequential) {
+    builder = new CircuitTestBuilder();
+    final var gates = new String[] {"AND Gate", "OR Gate", "XOR Gate"};
+    for (var i = 0; i < INPUTS; i++) {
+      builder.pin(false, "i" + i);
+    }
+    for (var i = 1; i < INPUTS; i++) {
+      final var gate = builder.factory(GatesLibrary._ID, gates[i % gates.length]);
+      builder.gate(gate, "n" + i, i == 1 ? "i0" : "n" + (i - 1), "i" + i);
+    }
+    builder.gate(builder.factory(GatesLibrary._ID, "XOR Gate"), "p", "i3", "i7");
+    outputs.add("n" + (INPUTS - 1));
+    outputs.add("n" + (INPUTS / 2));
+    outputs.add("p");
+    if (sequential) {
+      final var dff = builder.factory(MemoryLibrary._ID, DFlipFlop._ID);
+      final var flipFlop = builder.add(dff, dff.createAttributeSet());
+      builder.connect(flipFlop, 0, "n" + (INPUTS - 1));
+      builder.connect(flipFlop, 1, "i0");
+      builder.connect(flipFlop, 2, "q");
+      outputs.add("q");
+    }
+    for (final var out : outputs) {
+      builder.pin(true, out);
+    }
+    circuit = builder.build();
+  }
+
+  private AnalyzerModel computeTable() {
+    final var pinLabels = new LinkedHashMap<Instance, String>();
+    for (var i = 0; i < INPUTS; i++) {
+      pinLabels.put(Instance.getInstanceFor(builder.getPin("i" + i)), "i" + i);
+    }
+    for (final var out : outputs) {
+      pinLabels.put(Instance.getInstanceFor(builder.getPin(out)), out);
+    }
+    final var model = new AnalyzerModel();
+    Analyze.computeTable(model, builder.getProject(), circuit, pinLabels);
+    return model;
+  }
+
+  /** Computes a row in a fresh root state, as was done for every row before. */
+  private Entry[] computeRow(int row) {
+    final var state = CircuitState.createRootState(builder.getProject(), circuit);
+    for (var i = 0; i < INPUTS; i++) {
+      final var value = TruthTable.isInputSet(row, i, INPUTS) ? Value.TRUE : Value.FALSE;
+      Pin.FACTORY.driveInputPin(state.getInstanceState(builder.getPin("i" + i)), value);
+    }
+    state.getPropagator().propagate();
+    final var ret = new Entry[outputs.size()];
+    for (var i = 0; i < ret.length; i++) {
+      final var v = CircuitTestBuilder.getPin(state, builder.getPin(outputs.get(i)));
+      if (v == Value.TRUE) {
+        ret[i] = Entry.ONE;
+      } else if (v == Value.FALSE) {
+        ret[i] = Entry.ZERO;
+      } else if (v == Value.ERROR) {
+        ret[i] = Entry.BUS_ERROR;
+      } else {
+        ret[i] = Entry.DONT_CARE;
+      }
+    }
+    return ret;
+  }
+
+  private void assertSameRows(AnalyzerModel model) {
+    final var table = model.getTruthTable();
+    assertEquals(1 << INPUTS, table.getRowCount());
+    final var values = new ArrayList<Entry>();
+    for (var row = 0; row < 1 << INPUTS; row++) {
+      final var expected = computeRow(row);
+      for (var col = 0; col < expected.length; col++) {
+        assertEquals(expected[col], table.getOutputEntry(row, col),
+            "output " + outputs.get(col) + " of row " + row);
+        values.add(expected[col]);
+      }
+    }
+    // the rows differ, so that they can not all be right by chance
+    assertTrue(values.contains(Entry.ZERO));
+    assertTrue(values.contains(Entry.ONE));
+  }
+
+  @Test
+  public void testCombinational() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.ANALYZE_PARALLEL, true);
+    buildCircuit(false);
+    assertTrue(circuit.isCombinational());
+    assertSameRows(computeTable());
+  }
+
+  @Test
+  public void testSequential() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.ANALYZE_PARALLEL, true);
+    buildCircuit(true);
+    assertFalse(circuit.isCombinational());
+    assertSameRows(computeTable());
+  }
+
+  @Test
+  public void testNotParallel() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.ANALYZE_PARALLEL, false);
+    buildCircuit(false);
+    assertSameRows(computeTable());
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.fpga.designrulecheck.Netlist;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CircuitHdlGeneratorFactoryTest {
+  @TempDir Path dir;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  /**
+   * A design of three levels: the main circuit holds two instances of a middle circuit and one of
+   * a leaf circuit, which the middle circuit holds two of too.
+   */
+  private static Circuit buildHierarchy() {
+    final var main = new CircuitTestBuilder();
+    final var and = main.factory(GatesLibrary._ID, "AND Gate");
+    final var xor = main.factory(GatesLibrary._ID, "XOR Gate");
+
+    final var leafBuilder = main.addCircuit("leaf");
+    leafBuilder.pin(false, "a");
+    leafBuilder.pin(false, "b");
+    leafBuilder.pin(true, "x");
+    leafBuilder.pin(true, "y");
+    leafBuilder.gate(xor, "x", "a", "b");
+    leafBuilder.gate(and, "y", "a", "b");
+    final var leaf = leafBuilder.build();
+
+    final var middleBuilder = main.addCircuit("middle");
+    middleBuilder.pin(false, "i");
+    middleBuilder.subcircuit(leaf, "i", "m");
+    middleBuilder.subcircuit(leaf, "m0", "n");
+    middleBuilder.pin(true, "n0");
+    middleBuilder.pin(true, "n1");
+    final var middle = middleBuilder.build();
+
+    main.pin(false, "src");
+    main.subcircuit(middle, "src", "p");
+    main.subcircuit(middle, "p0", "q");
+    main.subcircuit(leaf, "p1", "r");
+    for (final var net : new String[] {"q0", "q1", "r0", "r1"}) {
+      main.pin(true, net);
+    }
+    final var root = main.build();
+    for (final var circuit : new Circuit[] {leaf, middle, root}) {
+      circuit.annotate(main.getProject(), false, false);
+    }
+    return root;
+  }
+
+  private static Map<String, String> readFiles(Path root) throws IOException {
+    final var files = new TreeMap<String, String>();
+    try (final var paths = Files.walk(root)) {
+      for (final var path : (Iterable<Path>) paths::iterator) {
+        if (Files.isRegularFile(path)) {
+          files.put(root.relativize(path).toString(), Files.readString(path));
+        }
+      }
+    }
+    return files;
+  }
+
+  @Test
+  public void testParallelGenerationWritesTheSameFiles() throws IOException {
+    final var root = buildHierarchy();
+    assertEquals(
+        Netlist.DRC_PASSED, root.getNetList().designRuleCheckResult(true, new ArrayList<>()));
+    final var generator = (CircuitHdlGeneratorFactory)
+        root.getSubcircuitFactory().getHDLGenerator(root.getStaticAttributes());
+
+    final var sequentialDir = dir.resolve("sequential");
+    final var parallelDir = dir.resolve("parallel");
+    assertTrue(generator.generateAllHDLDescriptions(
+        new HashSet<>(), sequentialDir + File.separator, null));
+    assertTrue(generator.generateAllHDLDescriptionsInParallel(
+        new HashSet<>(), parallelDir.toString()));
+
+    final var sequential = readFiles(sequentialDir);
+    assertFalse(sequential.isEmpty());
+    assertEquals(sequential.keySet(), readFiles(parallelDir).keySet());
+    assertEquals(sequential, readFiles(parallelDir));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.PrefMonitor;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.proj.ProjectActions;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.HashMap;
+
+/**
+ * Builds the main circuit of a new project for the simulation tests. As in the reference circuits
+ * of the benchmarks, every component sits in its own square of a grid and is connected to the
+ * others through tunnels labeled by net, so no wires need to be routed.
+ */
+final class CircuitTestBuilder {
+  private static final int CELL = 1000;
+  private static final int COLUMNS = 16;
+
+  private final Project proj;
+  private final Circuit circuit;
+  private final CircuitMutation xn;
+  private final HashMap<String, Component> pins = new HashMap<>();
+  private int count;
+
+  CircuitTestBuilder() {
+    this(new Project(ProjectActions.createNewFile(null)), null);
+  }
+
+  private CircuitTestBuilder(Project proj, Circuit circuit) {
+    this.proj = proj;
+    this.circuit = circuit == null ? proj.getLogisimFile().getMainCircuit() : circuit;
+    xn = new CircuitMutation(this.circuit);
+  }
+
+  /** Adds another circuit to the project, to be built by the returned builder. */
+  CircuitTestBuilder addCircuit(String name) {
+    final var file = proj.getLogisimFile();
+    final var other = new Circuit(name, file, proj);
+    file.addCircuit(other);
+    return new CircuitTestBuilder(proj, other);
+  }
+
+  /** Returns the factory of a tool of one of the libraries of the project. */
+  ComponentFactory factory(String library, String name) {
+    return ((AddTool) proj.getLogisimFile().getLibrary(library).getTool(name)).getFactory();
+  }
+
+  Component add(ComponentFactory factory, AttributeSet attrs) {
+    final var loc = Location.create(
+        CELL * (count % COLUMNS) + CELL / 2, CELL * (count / COLUMNS) + CELL / 2, false);
+    count++;
+    final var comp = factory.createComponent(loc, attrs);
+    xn.add(comp);
+    return comp;
+  }
+
+  void connect(Component comp, int end, String net) {
+    final var data = comp.getEnd(end);
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, net);
+    attrs.setValue(StdAttr.WIDTH, data.getWidth());
+    xn.add(Tunnel.FACTORY.createComponent(data.getLocation(), attrs));
+  }
+
+  /** Adds a two-input gate. */
+  void gate(ComponentFactory factory, String out, String in0, String in1) {
+    final var attrs = factory.createAttributeSet();
+    attrs.setValue(GateAttributes.ATTR_INPUTS, 2);
+    final var comp = add(factory, attrs);
+    connect(comp, 0, out);
+    connect(comp, 1, in0);
+    connect(comp, 2, in1);
+  }
+
+  /** Adds a 1-bit pin, named after its net. */
+  void pin(boolean output, String net) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(Pin.ATTR_TYPE, output ? Pin.OUTPUT : Pin.INPUT);
+    attrs.setValue(StdAttr.FACING, output ? Direction.WEST : Direction.EAST);
+    attrs.setValue(StdAttr.LABEL, net);
+    final var comp = add(Pin.FACTORY, attrs);
+    connect(comp, 0, net);
+    pins.put(net, comp);
+  }
+
+  /**
+   * Adds an instance of a subcircuit, all its inputs connected to the net in and its outputs to
+   * the nets out0, out1...
+   */
+  void subcircuit(Circuit sub, String in, String out) {
+    final var factory = sub.getSubcircuitFactory();
+    final var comp = add(factory, factory.createAttributeSet());
+    var outputs = 0;
+    for (var i = 0; i < comp.getEnds().size(); i++) {
+      connect(comp, i, comp.getEnd(i).isOutput() ? out + outputs++ : in);
+    }
+  }
+
+  /** Adds the components to the circuit and returns it. */
+  Circuit build() {
+    xn.execute();
+    return circuit;
+  }
+
+  Project getProject() {
+    return proj;
+  }
+
+  static void setPin(CircuitState state, Component pin, boolean value) {
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), value ? Value.TRUE : Value.FALSE);
+    state.markComponentAsDirty(pin);
+  }
+
+  static Value getPin(CircuitState state, Component pin) {
+    return Pin.FACTORY.getValue(state.getInstanceState(pin));
+  }
+
+  Component getPin(String net) {
+    return pins.get(net);
+  }
+
+  /**
+   * Sets a boolean preference and waits for it to be seen: the value is only updated by the
+   * listener of the preferences node, which runs on its own thread.
+   */
+  static void setPref(PrefMonitor<Boolean> pref, boolean value) throws InterruptedException {
+    pref.set(value);
+    final var deadline = System.nanoTime() + 5_000_000_000L;
+    while (pref.getBoolean() != value) {
+      if (System.nanoTime() > deadline) fail("preference " + pref.getIdentifier() + " not set");
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.proj.ProjectActions;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.tools.AddTool;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the queries of a circuit by point and area, which go through its ComponentIndex,
+ * find the same components as testing every component of the circuit.
+ */
+public class ComponentIndexTest {
+  /** The components are placed in a square of that size, over many cells of the index. */
+  private static final int EXTENT = 3000;
+
+  private final Random random = new Random(42);
+  private Circuit circuit;
+  private ComponentFactory and;
+  private Graphics g;
+  private int labels;
+  private int wires;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  @BeforeEach
+  public void newCircuit() {
+    final var proj = new Project(ProjectActions.createNewFile(null));
+    circuit = proj.getLogisimFile().getMainCircuit();
+    circuit.setProject(proj);
+    and = ((AddTool) proj.getLogisimFile().getLibrary(GatesLibrary._ID).getTool("AND Gate"))
+        .getFactory();
+    g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+  }
+
+  @AfterEach
+  public void disposeGraphics() {
+    g.dispose();
+  }
+
+  private Location randomLocation() {
+    return Location.create(10 * random.nextInt(EXTENT / 10), 10 * random.nextInt(EXTENT / 10),
+        false);
+  }
+
+  private Component gate() {
+    final var attrs = and.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, "gate" + labels++);
+    return and.createComponent(randomLocation(), attrs);
+  }
+
+  private Component pin() {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, "pin" + labels++);
+    return Pin.FACTORY.createComponent(randomLocation(), attrs);
+  }
+
+  private Component splitter() {
+    final var factory = SplitterFactory.instance;
+    return factory.createComponent(randomLocation(), factory.createAttributeSet());
+  }
+
+  /** A wire on a row or column of its own, so that wires do not overlap. */
+  private Component wire(int length) {
+    final var at = 10 * ++wires + 5;
+    final var from = 10 * random.nextInt(EXTENT / 10);
+    return wires % 2 == 0
+        ? Wire.create(Location.create(from, at, false), Location.create(from + length, at, false))
+        : Wire.create(Location.create(at, from, false), Location.create(at, from + length, false));
+  }
+
+  private List<Component> addRandom(int count) {
+    final var ret = new ArrayList<Component>();
+    for (var i = 0; i < count; i++) {
+      ret.add(switch (i % 4) {
+        case 0 -> gate();
+        case 1 -> pin();
+        case 2 -> splitter();
+        default -> wire(10 * (1 + random.nextInt(50)));
+      });
+    }
+    final var xn = new CircuitMutation(circuit);
+    xn.addAll(ret);
+    xn.execute();
+    return ret;
+  }
+
+  private static <T> void set(Component comp, Attribute<T> attr, T value, Circuit circuit) {
+    final var xn = new CircuitMutation(circuit);
+    xn.set(comp, attr, value);
+    xn.execute();
+  }
+
+  /** @return the components of the circuit accepted by a test, as the queries used to find them. */
+  private List<Component> scan(Predicate<Component> test) {
+    final var ret = new ArrayList<Component>();
+    for (final var comp : circuit.getComponents()) {
+      if (test.test(comp)) ret.add(comp);
+    }
+    return ret;
+  }
+
+  /**
+   * Compares a query with a scan. The components other than wires come in the order of the
+   * circuit; the wires, kept in a set by the circuit, in any order.
+   */
+  private static void assertSameComponents(List<Component> expected, Collection<Component> actual,
+      String query) {
+    final var expectedComps = new ArrayList<Component>();
+    final var expectedWires = new HashSet<Component>();
+    for (final var comp : expected) {
+      if (comp instanceof Wire) expectedWires.add(comp); else expectedComps.add(comp);
+    }
+    final var actualComps = new ArrayList<Component>();
+    final var actualWires = new HashSet<Component>();
+    for (final var comp : actual) {
+      if (comp instanceof Wire) actualWires.add(comp); else actualComps.add(comp);
+    }
+    assertEquals(expectedComps, actualComps, query);
+    assertEquals(expectedWires, actualWires, query);
+  }
+
+  /** @return points in and around each component and its label, and random points. */
+  private List<Location> probePoints() {
+    final var ret = new ArrayList<Location>();
+    for (final var comp : circuit.getComponents()) {
+      ret.add(comp.getLocation());
+      for (final var bds : List.of(comp.getBounds(), comp.getBounds(g))) {
+        for (var d = -1; d <= 1; d++) {
+          ret.add(Location.create(bds.getX() + d, bds.getY() + d, false));
+          ret.add(Location.create(bds.getX() + bds.getWidth() + d, bds.getY() + bds.getHeight() + d,
+              false));
+          ret.add(Location.create(bds.getCenterX() + d, bds.getCenterY(), false));
+        }
+      }
+    }
+    for (var i = 0; i < 200; i++) {
+      ret.add(Location.create(random.nextInt(EXTENT + 200) - 100,
+          random.nextInt(EXTENT + 200) - 100, false));
+    }
+    return ret;
+  }
+
+  /** @return areas of every size, from a few pixels to more than the whole circuit. */
+  private List<Bounds> probeAreas() {
+    final var ret = new ArrayList<Bounds>();
+    for (var i = 0; i < 200; i++) {
+      final var size = 1 << random.nextInt(13);
+      ret.add(Bounds.create(random.nextInt(EXTENT) - size / 2, random.nextInt(EXTENT) - size / 2,
+          1 + random.nextInt(size), 1 + random.nextInt(size)));
+    }
+    ret.add(Bounds.create(-100_000, -100_000, 200_000, 200_000));
+    return ret;
+  }
+
+  private void assertMatchesScan() {
+    for (final var pt : probePoints()) {
+      assertSameComponents(scan(c -> c.contains(pt)), circuit.getAllContaining(pt),
+          "containing " + pt);
+      assertSameComponents(scan(c -> c.contains(pt, g)), circuit.getAllContaining(pt, g),
+          "containing with labels " + pt);
+    }
+    for (final var bds : probeAreas()) {
+      assertSameComponents(scan(c -> bds.contains(c.getBounds())), circuit.getAllWithin(bds),
+          "within " + bds);
+      assertSameComponents(scan(c -> bds.contains(c.getBounds(g))), circuit.getAllWithin(bds, g),
+          "within with labels " + bds);
+    }
+  }
+
+  /** @return the number of components of an index kept aside for their size. */
+  private int getLargeCount(String index) throws ReflectiveOperationException {
+    final var indexField = Circuit.class.getDeclaredField(index);
+    indexField.setAccessible(true);
+    final var largeField = ComponentIndex.class.getDeclaredField("large");
+    largeField.setAccessible(true);
+    return ((List<?>) largeField.get(indexField.get(circuit))).size();
+  }
+
+  @Test
+  public void testAddAndRemove() {
+    final var comps = addRandom(400);
+    assertMatchesScan();
+
+    final var xn = new CircuitMutation(circuit);
+    for (var i = 0; i < comps.size(); i += 3) {
+      xn.remove(comps.get(i));
+    }
+    xn.execute();
+    assertMatchesScan();
+
+    addRandom(100);
+    assertMatchesScan();
+  }
+
+  @Test
+  public void testBoundsChanges() {
+    final var comps = addRandom(200);
+    assertMatchesScan();
+
+    for (var i = 0; i < comps.size(); i++) {
+      final var comp = comps.get(i);
+      if (comp.getFactory() == and) {
+        if (i % 8 == 0) {
+          set(comp, StdAttr.FACING, Direction.NORTH, circuit);
+        } else {
+          set(comp, StdAttr.LABEL, "aMuchLongerLabel" + labels++, circuit);
+        }
+      } else if (comp.getFactory() == Pin.FACTORY) {
+        set(comp, StdAttr.LABEL_LOC, Direction.SOUTH, circuit);
+      } else if (comp.getFactory() == SplitterFactory.instance) {
+        if (i % 8 == 2) {
+          set(comp, SplitterAttributes.ATTR_FANOUT, 8, circuit);
+        } else {
+          set(comp, StdAttr.FACING, Direction.WEST, circuit);
+        }
+      }
+    }
+    assertMatchesScan();
+  }
+
+  @Test
+  public void testLargeComponents() throws ReflectiveOperationException {
+    addRandom(200);
+    final var pin = pin();
+    final var xn = new CircuitMutation(circuit);
+    xn.add(pin);
+    // spans more than the cells kept by the grid
+    xn.add(wire(40_000));
+    xn.execute();
+    assertEquals(1, getLargeCount("wireIndex"));
+    assertEquals(0, getLargeCount("compIndex"));
+    assertMatchesScan();
+
+    // a label wide enough for the pin to go to the large components, then back
+    set(pin, StdAttr.LABEL_FONT, new Font("SansSerif", Font.BOLD, 600), circuit);
+    set(pin, StdAttr.LABEL, "aLabelAsWideAsTheCircuit" + labels++, circuit);
+    assertEquals(1, getLargeCount("compIndex"));
+    assertMatchesScan();
+
+    set(pin, StdAttr.LABEL, "p", circuit);
+    assertEquals(0, getLargeCount("compIndex"));
+    assertMatchesScan();
+
+    final var remove = new CircuitMutation(circuit);
+    remove.remove(pin);
+    for (final var wire : circuit.getWires()) {
+      if (wire.getLength() > 10_000) remove.remove(wire);
+    }
+    remove.execute();
+    assertEquals(0, getLargeCount("wireIndex"));
+    assertTrue(circuit.getAllContaining(pin.getLocation(), g).stream()
+        .noneMatch(c -> c == pin));
+    assertMatchesScan();
+  }
+}
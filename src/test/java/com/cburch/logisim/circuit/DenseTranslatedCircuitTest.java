@@ -0,0 +1,292 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeOption;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.InstancePoker;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.DFlipFlop;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import java.awt.event.KeyEvent;
+import javax.swing.JPanel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DenseTranslatedCircuitTest {
+  private static final int WIDTH = 3;
+  private static final int D = 0;
+  private static final int CLK = 1;
+  private static final int Q = 2;
+
+  private boolean wasDense;
+  private CircuitTestBuilder builder;
+  private Circuit circuit;
+  private Component[] flipFlops;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  @BeforeEach
+  public void savePreference() {
+    wasDense = AppPreferences.SIMULATION_DENSE.getBoolean();
+  }
+
+  @AfterEach
+  public void restorePreference() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_DENSE, wasDense);
+  }
+
+  /**
+   * A synchronous counter made of D flip-flops and gates, counting the rising edges of the input
+   * clk on the outputs q.
+   */
+  private void buildCounter() {
+    builder = new CircuitTestBuilder();
+    final var and = builder.factory(GatesLibrary._ID, "AND Gate");
+    final var xor = builder.factory(GatesLibrary._ID, "XOR Gate");
+    final var dff = builder.factory(MemoryLibrary._ID, DFlipFlop._ID);
+    builder.pin(false, "clk");
+    flipFlops = new Component[WIDTH];
+    for (var i = 0; i < WIDTH; i++) {
+      flipFlops[i] = builder.add(dff, dff.createAttributeSet());
+      builder.connect(flipFlops[i], D, "d" + i);
+      builder.connect(flipFlops[i], CLK, "clk");
+      builder.connect(flipFlops[i], Q, "q" + i);
+      builder.pin(true, "q" + i);
+      // bit i toggles when all the bits below are set, and bit 0 always does
+      builder.gate(xor, "d" + i, "q" + i, i == 0 ? "one" : "t" + i);
+      if (i > 1) builder.gate(and, "t" + i, "t" + (i - 1), "q" + (i - 1));
+    }
+    builder.pin(false, "one");
+    builder.connect(flipFlops[0], Q, "t1");
+    circuit = builder.build();
+  }
+
+  private CircuitState newState(boolean dense) {
+    final var state = CircuitState.createRootState(builder.getProject(), circuit);
+    state.getPropagator().setDenseTranslated(dense);
+    CircuitTestBuilder.setPin(state, builder.getPin("one"), true);
+    CircuitTestBuilder.setPin(state, builder.getPin("clk"), false);
+    state.getPropagator().propagate();
+    return state;
+  }
+
+  private void tick(CircuitState state) {
+    for (final var level : new boolean[] {true, false}) {
+      CircuitTestBuilder.setPin(state, builder.getPin("clk"), level);
+      state.getPropagator().propagate();
+    }
+  }
+
+  private int getCount(CircuitState state) {
+    var count = 0;
+    for (var i = 0; i < WIDTH; i++) {
+      final var v = CircuitTestBuilder.getPin(state, builder.getPin("q" + i));
+      assertTrue(v.isFullyDefined(), "output " + i + " is " + v);
+      if (v == Value.TRUE) count |= 1 << i;
+    }
+    return count;
+  }
+
+  private void setPin(CircuitState state, String net, Value value) {
+    final var pin = builder.getPin(net);
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin);
+    state.getPropagator().propagate();
+  }
+
+  private void assertSameOutput(CircuitState reference, CircuitState dense, String net) {
+    final var pin = builder.getPin(net);
+    assertEquals(CircuitTestBuilder.getPin(reference, pin), CircuitTestBuilder.getPin(dense, pin),
+        "output " + net);
+  }
+
+  /** Types a digit on a flip-flop, as with the Poke tool. */
+  private static void poke(CircuitState state, Component flipFlop, char value)
+      throws ReflectiveOperationException {
+    // the poker of the flip-flops is not visible outside their package
+    final var poker = (InstancePoker) Class.forName(DFlipFlop.class.getSuperclass().getName()
+        + "$Poker").getDeclaredConstructor().newInstance();
+    final var event =
+        new KeyEvent(new JPanel(), KeyEvent.KEY_TYPED, 0, 0, KeyEvent.VK_UNDEFINED, value);
+    poker.keyTyped(state.getInstanceState(flipFlop), event);
+    state.getPropagator().propagate();
+  }
+
+  @Test
+  public void testSameResultsAsPropagator() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_DENSE, true);
+    buildCounter();
+    final var dense = newState(true);
+    final var reference = newState(false);
+
+    for (var i = 0; i < 3 << WIDTH; i++) {
+      assertEquals(i % (1 << WIDTH), getCount(reference));
+      assertEquals(getCount(reference), getCount(dense), "after " + i + " ticks");
+      tick(dense);
+      tick(reference);
+    }
+
+    // the counter was really simulated by the dense simulator
+    final var evaluation = dense.getWireData().getCompiledEvaluation(true, false);
+    assertInstanceOf(DenseTranslatedCircuit.class, evaluation.getCircuit());
+  }
+
+  @Test
+  public void testFlipFlopState() throws InterruptedException, ReflectiveOperationException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_DENSE, true);
+    buildCounter();
+    final var dense = newState(true);
+    final var reference = newState(false);
+    for (var i = 0; i < 3; i++) {
+      tick(dense);
+      tick(reference);
+    }
+
+    // poking a flip-flop changes the state the dense simulator goes on from
+    poke(dense, flipFlops[WIDTH - 1], '1');
+    poke(reference, flipFlops[WIDTH - 1], '1');
+    assertEquals(7, getCount(reference));
+    assertEquals(7, getCount(dense));
+    tick(dense);
+    tick(reference);
+    assertEquals(0, getCount(reference));
+    assertEquals(0, getCount(dense));
+    tick(dense);
+    tick(reference);
+
+    // and a clone of the state holds the values of the dense simulator
+    final var clone = dense.cloneAsNewRootState();
+    assertTrue(clone.getPropagator().isDenseTranslated());
+    // a clone starts without the values the pins drive, like one of the reference state
+    final var referenceClone = reference.cloneAsNewRootState();
+    for (var i = 0; i < 1 << WIDTH; i++) {
+      assertEquals(getCount(referenceClone), getCount(clone), "after " + i + " ticks");
+      tick(clone);
+      tick(referenceClone);
+    }
+  }
+
+  @Test
+  public void testUnknownInput() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_DENSE, true);
+    buildCounter();
+    final var dense = newState(true);
+    final var reference = newState(false);
+    tick(dense);
+    tick(reference);
+
+    // the flip-flops keep their values while their inputs are unknown or errors
+    for (final var one : new Value[] {Value.UNKNOWN, Value.ERROR, Value.TRUE}) {
+      setPin(dense, "one", one);
+      setPin(reference, "one", one);
+      for (var i = 0; i < 3; i++) {
+        tick(dense);
+        tick(reference);
+        for (var bit = 0; bit < WIDTH; bit++) {
+          assertSameOutput(reference, dense, "q" + bit);
+        }
+      }
+    }
+    assertEquals(getCount(reference), getCount(dense));
+    final var evaluation = dense.getWireData().getCompiledEvaluation(true, false);
+    assertInstanceOf(DenseTranslatedCircuit.class, evaluation.getCircuit());
+  }
+
+  @Test
+  public void testFloatingInput() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_DENSE, true);
+    builder = new CircuitTestBuilder();
+    final var and = builder.factory(GatesLibrary._ID, "AND Gate");
+    final var or = builder.factory(GatesLibrary._ID, "OR Gate");
+    builder.pin(false, "a");
+    // nothing drives the net f
+    builder.gate(and, "x", "a", "f");
+    builder.gate(or, "y", "x", "a");
+    builder.pin(true, "x");
+    builder.pin(true, "y");
+    circuit = builder.build();
+
+    final var dense = CircuitState.createRootState(builder.getProject(), circuit);
+    dense.getPropagator().setDenseTranslated(true);
+    final var reference = CircuitState.createRootState(builder.getProject(), circuit);
+    for (final var a : new Value[] {Value.FALSE, Value.TRUE}) {
+      setPin(dense, "a", a);
+      setPin(reference, "a", a);
+      assertSameOutput(reference, dense, "x");
+      assertSameOutput(reference, dense, "y");
+    }
+    assertFalse(CircuitTestBuilder.getPin(dense, builder.getPin("x")).isFullyDefined());
+    assertNull(dense.getWireData().getCompiledEvaluation(true, false));
+  }
+
+  @Test
+  public void testUnconnectedInputError() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_DENSE, true);
+    builder = new CircuitTestBuilder();
+    final var and = builder.factory(GatesLibrary._ID, "AND Gate");
+    builder.pin(false, "a");
+    final var attrs = and.createAttributeSet();
+    attrs.setValue(GateAttributes.ATTR_INPUTS, 3);
+    final var gate = builder.add(and, attrs);
+    builder.connect(gate, 0, "x");
+    builder.connect(gate, 1, "a");
+    builder.connect(gate, 2, "a");
+    builder.pin(true, "x");
+    circuit = builder.build();
+
+    final var opts = builder.getProject().getOptions().getAttributeSet();
+    for (final var undefined :
+        new AttributeOption[] {Options.GATE_UNDEFINED_IGNORE, Options.GATE_UNDEFINED_ERROR}) {
+      opts.setValue(Options.ATTR_GATE_UNDEFINED, undefined);
+      final var dense = CircuitState.createRootState(builder.getProject(), circuit);
+      dense.getPropagator().setDenseTranslated(true);
+      final var reference = CircuitState.createRootState(builder.getProject(), circuit);
+      for (final var a : new Value[] {Value.TRUE, Value.FALSE, Value.TRUE}) {
+        setPin(dense, "a", a);
+        setPin(reference, "a", a);
+        assertSameOutput(reference, dense, "x");
+      }
+      final var x = CircuitTestBuilder.getPin(dense, builder.getPin("x"));
+      assertEquals(undefined == Options.GATE_UNDEFINED_ERROR ? Value.ERROR : Value.TRUE, x);
+      assertInstanceOf(DenseTranslatedCircuit.class,
+          dense.getWireData().getCompiledEvaluation(true, false).getCircuit());
+    }
+  }
+
+  @Test
+  public void testNotBuiltWhenDisabled() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_DENSE, false);
+    buildCounter();
+    final var state = newState(false);
+    assertFalse(state.getPropagator().isDenseTranslated());
+    tick(state);
+    tick(state);
+    assertEquals(2, getCount(state));
+    assertNull(state.getWireData().getCompiledEvaluation(true, false));
+  }
+}
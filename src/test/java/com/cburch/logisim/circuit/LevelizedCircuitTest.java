@@ -0,0 +1,198 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.PullResistor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LevelizedCircuitTest {
+  private static final int WIDTH = 3;
+
+  private boolean wasLevelized;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  @BeforeEach
+  public void savePreference() {
+    wasLevelized = AppPreferences.SIMULATION_LEVELIZED.getBoolean();
+  }
+
+  @AfterEach
+  public void restorePreference() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_LEVELIZED, wasLevelized);
+  }
+
+  /** A ripple-carry adder made of gates, adding the inputs a and b into the outputs s. */
+  private static CircuitTestBuilder buildAdder() {
+    final var b = new CircuitTestBuilder();
+    final var and = b.factory(GatesLibrary._ID, "AND Gate");
+    final var or = b.factory(GatesLibrary._ID, "OR Gate");
+    final var xor = b.factory(GatesLibrary._ID, "XOR Gate");
+    for (var i = 0; i < WIDTH; i++) {
+      b.pin(false, "a" + i);
+      b.pin(false, "b" + i);
+      b.pin(true, "s" + i);
+      b.gate(xor, "x" + i, "a" + i, "b" + i);
+      b.gate(and, "g" + i, "a" + i, "b" + i);
+      if (i == 0) {
+        b.gate(or, "s0", "x0", "x0");
+        b.gate(or, "c1", "g0", "g0");
+      } else {
+        b.gate(xor, "s" + i, "x" + i, "c" + i);
+        b.gate(and, "p" + i, "x" + i, "c" + i);
+        b.gate(or, "c" + (i + 1), "g" + i, "p" + i);
+      }
+    }
+    b.pin(true, "c" + WIDTH);
+    return b;
+  }
+
+  private static void setInputs(CircuitTestBuilder b, CircuitState state, int a, int c) {
+    for (var i = 0; i < WIDTH; i++) {
+      CircuitTestBuilder.setPin(state, b.getPin("a" + i), ((a >> i) & 1) != 0);
+      CircuitTestBuilder.setPin(state, b.getPin("b" + i), ((c >> i) & 1) != 0);
+    }
+    state.getPropagator().propagate();
+  }
+
+  private static int getSum(CircuitTestBuilder b, CircuitState state) {
+    var sum = 0;
+    for (var i = 0; i <= WIDTH; i++) {
+      final var v = CircuitTestBuilder.getPin(state, b.getPin(i == WIDTH ? "c" + i : "s" + i));
+      assertTrue(v.isFullyDefined(), "output " + i + " is " + v);
+      if (v == Value.TRUE) sum |= 1 << i;
+    }
+    return sum;
+  }
+
+  @Test
+  public void testSameResultsAsPropagator() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_LEVELIZED, true);
+    final var b = buildAdder();
+    final var circuit = b.build();
+
+    final var levelized = CircuitState.createRootState(b.getProject(), circuit);
+    assertTrue(levelized.getPropagator().isLevelized());
+    final var reference = CircuitState.createRootState(b.getProject(), circuit);
+    reference.getPropagator().setLevelized(false);
+
+    for (var a = 0; a < 1 << WIDTH; a++) {
+      for (var c = 0; c < 1 << WIDTH; c++) {
+        setInputs(b, levelized, a, c);
+        setInputs(b, reference, a, c);
+        assertEquals(a + c, getSum(b, reference));
+        assertEquals(getSum(b, reference), getSum(b, levelized), a + " + " + c);
+      }
+    }
+
+    // the adder was really evaluated as a levelized circuit
+    final var evaluation = levelized.getWireData().getCompiledEvaluation(false, true);
+    assertInstanceOf(LevelizedCircuit.class, evaluation.getCircuit());
+    assertTrue(((LevelizedCircuit) evaluation.getCircuit()).isComplete());
+    assertTrue(circuit.isCombinational());
+  }
+
+  /**
+   * The adder with a pull resistor on one of its nets, and a NOR latch, set by s and reset by r,
+   * whose output q goes through a gate into z.
+   */
+  private static CircuitTestBuilder buildPartial() {
+    final var b = buildAdder();
+    final var nor = b.factory(GatesLibrary._ID, "NOR Gate");
+    final var and = b.factory(GatesLibrary._ID, "AND Gate");
+    final var pull = b.add(PullResistor.FACTORY, PullResistor.FACTORY.createAttributeSet());
+    b.connect(pull, 0, "p1");
+    b.pin(false, "s");
+    b.pin(false, "r");
+    b.gate(nor, "q", "r", "nq");
+    b.gate(nor, "nq", "s", "q");
+    b.gate(and, "z", "q", "a0");
+    b.pin(true, "q");
+    b.pin(true, "z");
+    return b;
+  }
+
+  @Test
+  public void testPartiallyLevelized() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_LEVELIZED, true);
+    final var b = buildPartial();
+    final var circuit = b.build();
+
+    final var levelized = CircuitState.createRootState(b.getProject(), circuit);
+    final var reference = CircuitState.createRootState(b.getProject(), circuit);
+    reference.getPropagator().setLevelized(false);
+
+    for (var a = 0; a < 1 << WIDTH; a++) {
+      for (var c = 0; c < 1 << WIDTH; c++) {
+        // set, hold, then reset the latch
+        final var step = (a + c) % 3;
+        for (final var state : new CircuitState[] {levelized, reference}) {
+          CircuitTestBuilder.setPin(state, b.getPin("s"), step == 0);
+          CircuitTestBuilder.setPin(state, b.getPin("r"), step == 2);
+          setInputs(b, state, a, c);
+        }
+        assertEquals(a + c, getSum(b, reference));
+        assertEquals(getSum(b, reference), getSum(b, levelized), a + " + " + c);
+        for (final var pin : new String[] {"q", "z"}) {
+          final var expected = CircuitTestBuilder.getPin(reference, b.getPin(pin));
+          assertTrue(expected.isFullyDefined(), pin + " is " + expected);
+          assertEquals(expected, CircuitTestBuilder.getPin(levelized, b.getPin(pin)),
+              pin + " after " + a + " + " + c);
+        }
+      }
+    }
+
+    // all the gates but the two of the loop and the one driving the pulled net are levelized
+    final var evaluation = levelized.getWireData().getCompiledEvaluation(false, true);
+    final var program = assertInstanceOf(LevelizedCircuit.class, evaluation.getCircuit());
+    assertFalse(program.isComplete());
+    var members = 0;
+    var gates = 0;
+    for (final var comp : circuit.getNonWires()) {
+      if (comp.getFeature(CombinationalLogic.class) == null) continue;
+      gates++;
+      if (program.isMember(comp)) members++;
+    }
+    assertEquals(gates - 3, members);
+    assertFalse(circuit.isCombinational());
+  }
+
+  @Test
+  public void testNotBuiltWhenDisabled() throws InterruptedException {
+    CircuitTestBuilder.setPref(AppPreferences.SIMULATION_LEVELIZED, false);
+    final var b = buildAdder();
+    final var circuit = b.build();
+
+    final var state = CircuitState.createRootState(b.getProject(), circuit);
+    assertFalse(state.getPropagator().isLevelized());
+    setInputs(b, state, 5, 6);
+    assertEquals(11, getSum(b, state));
+    assertNull(state.getWireData().getCompiledEvaluation(false, true));
+
+    // telling whether the circuit is combinational does not need the levelized circuit
+    assertTrue(circuit.isCombinational());
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.memory.Ram;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class ParallelSubstatesTest {
+  private static final int INPUTS = 4;
+
+  /** An event added to the queue of a propagator, in the state at path. */
+  private record Event(int time, int serial, String path, Location loc, int cause, Value val) {}
+
+  private CircuitTestBuilder builder;
+  private Circuit leaf;
+  private Circuit shared;
+  private Circuit root;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  /**
+   * A main circuit holding instances of a leaf circuit made of gates, of a middle circuit holding
+   * two leaves, and of a circuit holding a RAM, which is not processed in the pool.
+   */
+  private void buildDesign() {
+    builder = new CircuitTestBuilder();
+    final var and = builder.factory(GatesLibrary._ID, "AND Gate");
+    final var or = builder.factory(GatesLibrary._ID, "OR Gate");
+    final var xor = builder.factory(GatesLibrary._ID, "XOR Gate");
+
+    final var leafBuilder = builder.addCircuit("leaf");
+    leafBuilder.pin(false, "a");
+    leafBuilder.gate(and, "n1", "a", "a");
+    leafBuilder.gate(or, "n2", "n1", "a");
+    leafBuilder.gate(xor, "x", "n2", "n1");
+    leafBuilder.gate(and, "y", "n2", "a");
+    leafBuilder.pin(true, "x");
+    leafBuilder.pin(true, "y");
+    leaf = leafBuilder.build();
+
+    final var middleBuilder = builder.addCircuit("middle");
+    middleBuilder.pin(false, "i");
+    middleBuilder.subcircuit(leaf, "i", "m");
+    middleBuilder.subcircuit(leaf, "m1", "n");
+    middleBuilder.pin(true, "n0");
+    middleBuilder.pin(true, "m0");
+    final var middle = middleBuilder.build();
+
+    final var sharedBuilder = builder.addCircuit("shared");
+    final var ram = builder.factory(MemoryLibrary._ID, Ram._ID);
+    sharedBuilder.add(ram, ram.createAttributeSet());
+    sharedBuilder.pin(false, "s");
+    sharedBuilder.gate(or, "t", "s", "s");
+    sharedBuilder.pin(true, "t");
+    shared = sharedBuilder.build();
+
+    for (var k = 0; k < INPUTS; k++) {
+      builder.pin(false, "p" + k);
+      builder.subcircuit(k % 2 == 0 ? leaf : middle, "p" + k, "o" + k);
+      builder.subcircuit(shared, "p" + k, "r" + k);
+      builder.pin(true, "o" + k + "0");
+      builder.pin(true, "o" + k + "1");
+      builder.pin(true, "r" + k + "0");
+    }
+    root = builder.build();
+  }
+
+  /** @return the subcircuit components leading from the root state to a state. */
+  private static String path(CircuitState state) {
+    final var ret = new StringBuilder();
+    for (var s = state; s.getParentState() != null; s = s.getParentState()) {
+      ret.insert(0, "/" + System.identityHashCode(s.getSubcircuit()));
+    }
+    return ret.toString();
+  }
+
+  /** Records every event added to the queue of the propagator of a root state, in order. */
+  private static List<Event> recordEvents(CircuitState state) throws ReflectiveOperationException {
+    final var prop = state.getPropagator();
+    final var field = Propagator.class.getDeclaredField("toProcess");
+    field.setAccessible(true);
+    final var queue = (Propagator.EventQueue) field.get(prop);
+    final var events = new ArrayList<Event>();
+    field.set(prop, new Propagator.EventQueue() {
+      @Override
+      public void add(int timeKey, int serialNumber, CircuitState s, Location loc, Component cause,
+          Value val) {
+        events.add(new Event(timeKey, serialNumber, path(s), loc, System.identityHashCode(cause),
+            val));
+        queue.add(timeKey, serialNumber, s, loc, cause, val);
+      }
+
+      @Override
+      public void clear() {
+        queue.clear();
+      }
+
+      @Override
+      public void dispatch(int timeKey, PropagationPoints changedPoints) {
+        queue.dispatch(timeKey, changedPoints);
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return queue.isEmpty();
+      }
+
+      @Override
+      public int peekTime() {
+        return queue.peekTime();
+      }
+
+      @Override
+      public int size() {
+        return queue.size();
+      }
+    });
+    return events;
+  }
+
+  /**
+   * @return the events, their times and serial numbers counted from those of the first one, the
+   *     state having been simulated for some time before.
+   */
+  private static List<String> relative(List<Event> events) {
+    final var ret = new ArrayList<String>();
+    final var first = events.isEmpty() ? null : events.get(0);
+    for (final var e : events) {
+      ret.add((e.time - first.time) + " #" + (e.serial - first.serial) + " " + e.path + " " + e.loc
+          + " " + e.cause + " " + e.val);
+    }
+    return ret;
+  }
+
+  /**
+   * Resets the state and changes its inputs many times, in different orders.
+   *
+   * @return the events of each change of the inputs
+   */
+  private List<List<String>> run(CircuitState state, List<Event> events, boolean parallel) {
+    final var prop = state.getPropagator();
+    prop.setParallelSubstates(parallel);
+    prop.reset();
+    while (prop.propagate()) {
+      // until the state is stable
+    }
+    final var ret = new ArrayList<List<String>>();
+    for (var i = 0; i < 4 << INPUTS; i++) {
+      final var bits = (i * 7) % (1 << INPUTS);
+      events.clear();
+      for (var k = 0; k < INPUTS; k++) {
+        CircuitTestBuilder.setPin(state, builder.getPin("p" + k), ((bits >> k) & 1) != 0);
+      }
+      prop.propagate();
+      ret.add(relative(events));
+    }
+    return ret;
+  }
+
+  @Test
+  public void testOwnStateOnly() {
+    buildDesign();
+    assertTrue(leaf.hasOwnStateOnly());
+    assertFalse(shared.hasOwnStateOnly());
+    assertFalse(root.hasOwnStateOnly());
+  }
+
+  @Test
+  public void testSameEventsAsSequential() throws ReflectiveOperationException {
+    buildDesign();
+    // the substates of a state are processed in the order of their set, which differs from one
+    // state to another, so both runs are made in the same state
+    final var state = CircuitState.createRootState(builder.getProject(), root);
+    final var events = recordEvents(state);
+    final var expected = run(state, events, false);
+    final var actual = run(state, events, true);
+
+    var total = 0;
+    for (var i = 0; i < expected.size(); i++) {
+      final var expectedEvents = expected.get(i);
+      final var actualEvents = actual.get(i);
+      for (var e = 0; e < expectedEvents.size(); e++) {
+        assertTrue(e < actualEvents.size(), "event " + e + " missing after change " + i);
+        assertEquals(expectedEvents.get(e), actualEvents.get(e), "event " + e + " of change " + i);
+      }
+      assertEquals(expectedEvents.size(), actualEvents.size(), "events of change " + i);
+      total += expectedEvents.size();
+    }
+    assertTrue(total > 0);
+  }
+}
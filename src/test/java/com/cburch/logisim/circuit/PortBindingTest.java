@@ -0,0 +1,117 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.InstanceStateImpl;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PortBindingTest {
+  private CircuitTestBuilder builder;
+  private Circuit circuit;
+  private Component gate;
+  private CircuitState state;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  /** x = a and b, propagated with a and b set. */
+  @BeforeEach
+  public void buildCircuit() {
+    builder = new CircuitTestBuilder();
+    builder.pin(false, "a");
+    builder.pin(false, "b");
+    final var and = builder.factory(GatesLibrary._ID, "AND Gate");
+    final var attrs = and.createAttributeSet();
+    attrs.setValue(GateAttributes.ATTR_INPUTS, 2);
+    gate = builder.add(and, attrs);
+    builder.connect(gate, 0, "x");
+    builder.connect(gate, 1, "a");
+    builder.connect(gate, 2, "b");
+    builder.pin(true, "x");
+    circuit = builder.build();
+    state = CircuitState.createRootState(builder.getProject(), circuit);
+    CircuitTestBuilder.setPin(state, builder.getPin("a"), true);
+    CircuitTestBuilder.setPin(state, builder.getPin("b"), true);
+    state.getPropagator().propagate();
+  }
+
+  /** @return the binding an InstanceStateImpl reads its ports through. */
+  private static PortBinding getPorts(InstanceStateImpl instanceState)
+      throws ReflectiveOperationException {
+    final var field = InstanceStateImpl.class.getDeclaredField("ports");
+    field.setAccessible(true);
+    return (PortBinding) field.get(instanceState);
+  }
+
+  @Test
+  public void testRebuiltAfterSetWireData() {
+    final var binding = state.getPortBinding(gate);
+    assertSame(binding, state.getPortBinding(gate));
+    assertEquals(Value.TRUE, binding.getValue(0));
+
+    state.setWireData(state.getWireData());
+    assertFalse(binding.isValidFor(gate.getEnds()));
+    final var rebuilt = state.getPortBinding(gate);
+    assertNotSame(binding, rebuilt);
+    assertTrue(rebuilt.isValidFor(gate.getEnds()));
+    assertEquals(Value.TRUE, rebuilt.getValue(0));
+  }
+
+  @Test
+  public void testRebuiltAfterEndChange() {
+    final var binding = state.getPortBinding(gate);
+    assertEquals(3, gate.getEnds().size());
+
+    // the ends of the gate change in place
+    final var xn = new CircuitMutation(circuit);
+    xn.set(gate, GateAttributes.ATTR_INPUTS, 3);
+    xn.execute();
+    assertEquals(4, gate.getEnds().size());
+    assertFalse(binding.isValidFor(gate.getEnds()));
+    final var rebuilt = state.getPortBinding(gate);
+    assertNotSame(binding, rebuilt);
+    for (var i = 0; i < gate.getEnds().size(); i++) {
+      assertEquals(gate.getEnd(i).getLocation(), rebuilt.getLocation(i));
+    }
+  }
+
+  @Test
+  public void testInstanceStateAfterRebuild() throws ReflectiveOperationException {
+    // kept across propagations, as the poker and logger adapters do
+    final var instanceState = new InstanceStateImpl(state, gate);
+    assertEquals(Value.TRUE, instanceState.getPortValue(0));
+    final var binding = getPorts(instanceState);
+    assertSame(state.getPortBinding(gate), binding);
+
+    state.setWireData(state.getWireData());
+    CircuitTestBuilder.setPin(state, builder.getPin("b"), false);
+    state.getPropagator().propagate();
+    assertEquals(Value.FALSE, instanceState.getPortValue(0));
+    assertEquals(Value.FALSE, instanceState.getPortValue(2));
+    final var rebuilt = getPorts(instanceState);
+    assertNotSame(binding, rebuilt);
+    assertSame(state.getPortBinding(gate), rebuilt);
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.std.memory.Rom;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CircuitCacheTest {
+  private static final String LIBRARY = """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="4.0.0dev" version="1.0">
+        <lib desc="#Wiring" name="0"/>
+        <lib desc="#Gates" name="1"/>
+        <main name="inverter"/>
+        <circuit name="inverter">
+          <a name="circuit" val="inverter"/>
+          <comp lib="0" loc="(100,100)" name="Pin"/>
+          <comp lib="1" loc="(200,100)" name="NOT Gate"/>
+          <comp lib="0" loc="(300,100)" name="Pin">
+            <a name="facing" val="west"/>
+            <a name="output" val="true"/>
+          </comp>
+          <wire from="(100,100)" to="(170,100)"/>
+          <wire from="(200,100)" to="(300,100)"/>
+        </circuit>
+      </project>
+      """;
+
+  private static final String PROJECT = """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="4.0.0dev" version="1.0">
+        <lib desc="#Wiring" name="0"/>
+        <lib desc="#Gates" name="1"/>
+        <lib desc="#Memory" name="4"/>
+        <lib desc="file#library.circ" name="9"/>
+        <main name="top"/>
+        <circuit name="top">
+          <a name="circuit" val="top"/>
+          <comp lib="0" loc="(110,140)" name="Pin">
+            <a name="label" val="a"/>
+          </comp>
+          <comp lib="1" loc="(190,160)" name="AND Gate"/>
+          <comp lib="4" loc="(400,200)" name="ROM">
+            <a name="addrWidth" val="12"/>
+            <a name="contents">addr/data: 12 8
+      1 2 3 ff 4000*0 7
+      </a>
+          </comp>
+          <comp loc="(300,300)" name="sub"/>
+          <comp lib="9" loc="(300,500)" name="inverter"/>
+          <wire from="(110,140)" to="(140,140)"/>
+          <wire from="(140,140)" to="(140,180)"/>
+        </circuit>
+        <circuit name="sub">
+          <a name="circuit" val="sub"/>
+          <comp lib="0" loc="(100,100)" name="Pin"/>
+        </circuit>
+      </project>
+      """;
+
+  @TempDir Path dir;
+  private String home;
+  private File source;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  @BeforeEach
+  public void useTemporaryHome() throws IOException {
+    // the caches are written in the home directory
+    home = System.getProperty("user.home");
+    System.setProperty("user.home", dir.resolve("home").toString());
+    Files.writeString(dir.resolve("library.circ"), LIBRARY, StandardCharsets.UTF_8);
+    source = dir.resolve("project.circ").toFile();
+    Files.writeString(source.toPath(), PROJECT, StandardCharsets.UTF_8);
+  }
+
+  @AfterEach
+  public void restoreHome() {
+    System.setProperty("user.home", home);
+    CircuitCache.setMode(null);
+  }
+
+  private File[] caches() {
+    final var ret = CircuitCache.getDirectory().listFiles((d, name) -> name.endsWith(".bin"));
+    return ret == null ? new File[0] : ret;
+  }
+
+  private byte[] load(CircuitCache.Mode mode) throws LoadFailedException {
+    CircuitCache.setMode(mode);
+    final var loader = new Loader(null);
+    final var file = loader.openLogisimFile(source, Map.of());
+    final var out = new ByteArrayOutputStream();
+    file.write(out, loader, source, null);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testBuildThenUseAndVerify() throws Exception {
+    final var fromXml = load(CircuitCache.Mode.OFF);
+    assertEquals(0, caches().length);
+
+    assertTrue(CircuitCache.build(source, Map.of()));
+    // the project and the library it uses
+    assertEquals(2, caches().length);
+    assertTrue(CircuitCache.verify(source, Map.of()));
+
+    final var fromCache = load(CircuitCache.Mode.REQUIRED);
+    assertArrayEquals(fromXml, fromCache);
+    final var text = new String(fromCache, StandardCharsets.UTF_8);
+    assertTrue(text.contains("name=\"inverter\""), text);
+    assertTrue(text.contains("4000*0"), text);
+
+    // a cache is only used by the file it was written for
+    Files.writeString(source.toPath(), PROJECT.replace("(300,300)", "(300,400)"));
+    assertFalse(CircuitCache.verify(source, Map.of()));
+    assertTrue(CircuitCache.build(source, Map.of()));
+    assertTrue(CircuitCache.verify(source, Map.of()));
+  }
+
+  @Test
+  public void testRomContentsFromCache() throws Exception {
+    assertTrue(CircuitCache.build(source, Map.of()));
+    CircuitCache.setMode(CircuitCache.Mode.REQUIRED);
+    final var file = new Loader(null).openLogisimFile(source, Map.of());
+    var found = false;
+    for (final var comp : file.getCircuit("top").getNonWires()) {
+      if (comp.getFactory() instanceof Rom) {
+        final var contents = comp.getAttributeSet().getValue(Rom.CONTENTS_ATTR);
+        assertNotNull(contents);
+        assertEquals(0xffL, contents.get(3));
+        assertEquals(0L, contents.get(4003));
+        assertEquals(7L, contents.get(4004));
+        found = true;
+      }
+    }
+    assertTrue(found);
+  }
+
+  private File cache(Path cacheDir, String name, int size, long age) throws IOException {
+    final var file = cacheDir.resolve(name).toFile();
+    Files.write(file.toPath(), new byte[size]);
+    assertTrue(file.setLastModified(System.currentTimeMillis() - age));
+    return file;
+  }
+
+  @Test
+  public void testPrune() throws IOException {
+    final var cacheDir = Files.createDirectories(dir.resolve("caches"));
+    final var hour = 60L * 60 * 1000;
+    final var kept = new ArrayList<File>();
+    final var deleted = new ArrayList<File>();
+    final var written = cache(cacheDir, "written.bin", 400, 0);
+    kept.add(cache(cacheDir, "recent.bin", 300, hour));
+    kept.add(cache(cacheDir, "older.bin", 200, 2 * hour));
+    // over the size once the more recent ones are kept
+    deleted.add(cache(cacheDir, "oldest.bin", 200, 3 * hour));
+    deleted.add(cache(cacheDir, "expired.bin", 10, 1000 * hour));
+    deleted.add(cache(cacheDir, "circuit1.tmp", 10, 48 * hour));
+    kept.add(cache(cacheDir, "circuit2.tmp", 10, hour));
+    kept.add(cache(cacheDir, "other.txt", 10, 1000 * hour));
+
+    CircuitCache.prune(cacheDir.toFile(), written, 1000, 100 * hour);
+    assertTrue(written.isFile());
+    for (final var file : kept) {
+      assertTrue(file.isFile(), file.getName());
+    }
+    for (final var file : deleted) {
+      assertFalse(file.exists(), file.getName());
+    }
+
+    // the cache just written is kept even when it is too large or old by itself
+    assertTrue(written.setLastModified(System.currentTimeMillis() - 1000 * hour));
+    CircuitCache.prune(cacheDir.toFile(), written, 100, 100 * hour);
+    assertTrue(written.isFile());
+    assertFalse(kept.get(0).exists());
+    assertFalse(kept.get(1).exists());
+  }
+
+  @Test
+  public void testReplayMarksUse() throws Exception {
+    assertTrue(CircuitCache.build(source, Map.of()));
+    final var hour = 60L * 60 * 1000;
+    for (final var file : caches()) {
+      assertTrue(file.setLastModified(System.currentTimeMillis() - 1000 * hour));
+    }
+    load(CircuitCache.Mode.REQUIRED);
+    for (final var file : caches()) {
+      assertTrue(System.currentTimeMillis() - file.lastModified() < hour, file.getName());
+    }
+  }
+}
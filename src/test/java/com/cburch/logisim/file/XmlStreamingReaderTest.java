@@ -0,0 +1,365 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitEvent;
+import com.cburch.logisim.circuit.CircuitMutator;
+import com.cburch.logisim.circuit.CircuitTransaction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.prefs.PrefMonitor;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.memory.MemContents;
+import com.cburch.logisim.std.memory.Rom;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.WiringLibrary;
+import com.cburch.logisim.tools.EditTool;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+
+public class XmlStreamingReaderTest {
+  private static final String PROJECT = """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="4.0.0dev" version="1.0">
+        This file is intended to be loaded by Logisim-evolution.
+        <!-- a comment between the top-level elements -->
+        <lib desc="#Wiring" name="0"/>
+        <lib desc="#Gates" name="1"/>
+        <lib desc="#Memory" name="4"/>
+        <lib desc="#Base" name="8"/>
+        <main name="top"/>
+        <options>
+          <a name="simlimit" val="1000"/>
+        </options>
+        <circuit name="top">
+          <a name="circuit" val="top"/>
+          <!-- a comment in a circuit -->
+          <comp lib="0" loc="(110,140)" name="Pin"/>
+          <comp lib="0" loc="(110,180)" name="Pin"/>
+          <comp lib="1" loc="(190,160)" name="AND Gate"/>
+          <comp lib="4" loc="(400,200)" name="ROM">
+            <a name="addrWidth" val="4"/>
+            <a name="contents">addr/data: 4 8
+      1 2 3 ff
+      </a>
+          </comp>
+          <comp loc="(300,300)" name="sub"/>
+          <wire from="(110,140)" to="(140,140)"/>
+          <wire from="(110,180)" to="(140,180)"/>
+        </circuit>
+        <circuit name="sub">
+          <a name="circuit" val="sub"/>
+          <comp lib="0" loc="(100,100)" name="Pin"/>
+        </circuit>
+      </project>
+      """;
+
+  /** A file whose circuits use one another, enough of them to be built in parallel. */
+  private static final String NESTED_PROJECT = """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="4.0.0dev" version="1.0">
+        <lib desc="#Wiring" name="0"/>
+        <lib desc="#Gates" name="1"/>
+        <main name="main"/>
+        <circuit name="main">
+          <a name="circuit" val="main"/>
+          <comp lib="0" loc="(100,100)" name="Pin">
+            <a name="label" val="a"/>
+          </comp>
+          <comp loc="(200,100)" name="sub2"/>
+          <comp loc="(200,300)" name="sub1"/>
+          <wire from="(100,100)" to="(200,100)"/>
+        </circuit>
+        <circuit name="sub1">
+          <a name="circuit" val="sub1"/>
+          <comp lib="0" loc="(100,100)" name="Pin">
+            <a name="label" val="in"/>
+          </comp>
+          <comp lib="1" loc="(200,100)" name="NOT Gate"/>
+          <comp lib="0" loc="(300,100)" name="Pin">
+            <a name="facing" val="west"/>
+            <a name="output" val="true"/>
+            <a name="label" val="out"/>
+          </comp>
+          <wire from="(100,100)" to="(170,100)"/>
+          <wire from="(200,100)" to="(300,100)"/>
+        </circuit>
+        <circuit name="sub2">
+          <a name="circuit" val="sub2"/>
+          <comp lib="0" loc="(100,100)" name="Pin"/>
+          <comp loc="(200,100)" name="sub1"/>
+          <comp loc="(200,200)" name="sub1"/>
+          <wire from="(100,100)" to="(200,100)"/>
+        </circuit>
+      </project>
+      """;
+
+  /** A file of Logisim 2.1, before the Edit tool and the Wiring library. */
+  private static final String LEGACY_PROJECT = """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="2.1.0" version="1.0">
+        <lib desc="#Base" name="0"/>
+        <lib desc="#Gates" name="1"/>
+        <main name="main"/>
+        <toolbar>
+          <tool lib="0" name="Poke Tool"/>
+          <tool lib="0" name="Select Tool"/>
+          <tool lib="0" name="Wiring Tool"/>
+        </toolbar>
+        <circuit name="main">
+          <a name="label" val="main"/>
+          <comp lib="0" loc="(100,100)" name="Pin">
+            <a name="output" val="true"/>
+          </comp>
+          <comp lib="1" loc="(200,100)" name="Constant"/>
+        </circuit>
+      </project>
+      """;
+
+  @BeforeAll
+  public static void setUp() {
+    Main.headless = true;
+  }
+
+  private static LogisimFile read(byte[] data, Loader loader) throws Exception {
+    return LogisimFile.loadSub(new ByteArrayInputStream(data), loader);
+  }
+
+  private static byte[] write(LogisimFile file, Loader loader) {
+    final var out = new ByteArrayOutputStream();
+    file.write(out, loader);
+    return out.toByteArray();
+  }
+
+  private static void setPref(PrefMonitor<Boolean> pref, boolean value)
+      throws InterruptedException {
+    pref.set(value);
+    final var deadline = System.nanoTime() + 5_000_000_000L;
+    while (pref.getBoolean() != value) {
+      if (System.nanoTime() > deadline) fail("preference " + pref.getIdentifier() + " not set");
+      Thread.sleep(10);
+    }
+  }
+
+  private static void assertSameCircuits(LogisimFile expected, LogisimFile actual) {
+    assertEquals(expected.getCircuitCount(), actual.getCircuitCount());
+    for (final var circ : expected.getCircuits()) {
+      final var other = actual.getCircuit(circ.getName());
+      assertNotNull(other, circ.getName());
+      assertEquals(circ.getNonWires().size(), other.getNonWires().size(), circ.getName());
+      assertEquals(circ.getWires().size(), other.getWires().size(), circ.getName());
+    }
+    assertEquals(expected.getMainCircuit().getName(), actual.getMainCircuit().getName());
+  }
+
+  @Test
+  public void testIndentedFileWithTextAndComments() throws Exception {
+    final var loader = new Loader(null);
+    final var file = read(PROJECT.getBytes(StandardCharsets.UTF_8), loader);
+    assertEquals(2, file.getCircuitCount());
+    final var top = file.getCircuit("top");
+    assertEquals(5, top.getNonWires().size());
+    assertEquals(2, top.getWires().size());
+    assertEquals(1000, file.getOptions().getAttributeSet().getValue(Options.ATTR_SIM_LIMIT));
+
+    MemContents contents = null;
+    for (final var comp : top.getNonWires()) {
+      if (comp.getFactory().getName().equals("ROM")) {
+        contents = comp.getAttributeSet().getValue(Rom.CONTENTS_ATTR);
+      }
+    }
+    assertNotNull(contents);
+    assertEquals(1L, contents.get(0));
+    assertEquals(0xffL, contents.get(3));
+    assertEquals(0L, contents.get(4));
+  }
+
+  @Test
+  public void testSaveLoadRoundTrip() throws Exception {
+    final var loader = new Loader(null);
+    final var file = read(PROJECT.getBytes(StandardCharsets.UTF_8), loader);
+
+    // the writer indents its output and puts a notice in the project element
+    final var saved = write(file, loader);
+    final var text = new String(saved, StandardCharsets.UTF_8);
+    assertTrue(text.contains("\n  <circuit"), text);
+
+    final var reloaded = read(saved, loader);
+    assertSameCircuits(file, reloaded);
+    assertEquals(text, new String(write(reloaded, loader), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testLegacyRepairs() throws Exception {
+    final var file = read(LEGACY_PROJECT.getBytes(StandardCharsets.UTF_8), new Loader(null));
+
+    // the pin and the constant moved to the Wiring library, which the file did not have
+    assertNotNull(file.getLibrary(WiringLibrary._ID));
+    final var main = file.getCircuit("main");
+    assertEquals(2, main.getNonWires().size());
+    for (final var comp : main.getNonWires()) {
+      if (comp.getFactory().getName().equals(Pin._ID)) {
+        assertEquals(Pin.OUTPUT, comp.getAttributeSet().getValue(Pin.ATTR_TYPE));
+      } else {
+        assertEquals("Constant", comp.getFactory().getName());
+      }
+    }
+
+    // the Select and Wiring tools of the toolbar became the Edit tool
+    final var names = new ArrayList<String>();
+    for (final var tool : file.getOptions().getToolbarData().getContents()) {
+      if (tool != null) names.add(tool.getName());
+    }
+    assertTrue(names.contains(EditTool._ID), names.toString());
+    assertEquals(2, names.size(), names.toString());
+  }
+
+  @Test
+  public void testParallelLoadSameAsSequential() throws Exception {
+    final var wasParallel = AppPreferences.LOAD_PARALLEL.getBoolean();
+    final var data = NESTED_PROJECT.getBytes(StandardCharsets.UTF_8);
+    final var loader = new Loader(null);
+    final LogisimFile sequential;
+    final LogisimFile parallel;
+    try {
+      setPref(AppPreferences.LOAD_PARALLEL, false);
+      sequential = read(data, loader);
+      setPref(AppPreferences.LOAD_PARALLEL, true);
+      parallel = read(data, loader);
+    } finally {
+      setPref(AppPreferences.LOAD_PARALLEL, wasParallel);
+    }
+    assertSameCircuits(sequential, parallel);
+    assertEquals(new String(write(sequential, loader), StandardCharsets.UTF_8),
+        new String(write(parallel, loader), StandardCharsets.UTF_8));
+
+    // the circuits know where they are used, whichever way they were built
+    for (final var file : List.of(sequential, parallel)) {
+      final var sub1 = file.getCircuit("sub1");
+      final var users = new ArrayList<String>();
+      for (final var circ : sub1.getCircuitsUsingThis()) {
+        if (!users.contains(circ.getName())) users.add(circ.getName());
+      }
+      users.sort(null);
+      assertEquals(List.of("main", "sub2"), users);
+      final var depends = new Project(file).getDependencies();
+      assertFalse(depends.canRemove(sub1));
+      assertFalse(depends.canRemove(file.getCircuit("sub2")));
+      assertTrue(depends.canRemove(file.getCircuit("main")));
+    }
+  }
+
+  @Test
+  public void testBulkAddEvents() throws Exception {
+    final var file = read(NESTED_PROJECT.getBytes(StandardCharsets.UTF_8), new Loader(null));
+    final var proj = new Project(file);
+    final var extra = new Circuit("extra", file, proj);
+    file.addCircuit(extra);
+    final var main = file.getCircuit("main");
+    final var added = new ArrayList<Object>();
+    main.addCircuitListener(e -> {
+      if (e.getAction() == CircuitEvent.ACTION_ADD) added.add(e.getData());
+    });
+
+    // each component added in bulk is reported, as it would be when added alone
+    final var pin = Pin.FACTORY.createComponent(Location.create(500, 500, false),
+        Pin.FACTORY.createAttributeSet());
+    final var sub = extra.getSubcircuitFactory().createComponent(Location.create(700, 500, false),
+        extra.getSubcircuitFactory().createAttributeSet());
+    // as when a file is loaded, not through CircuitMutation, which adds them one at a time
+    new CircuitTransaction() {
+      @Override
+      protected Map<Circuit, Integer> getAccessedCircuits() {
+        return Map.of(main, READ_WRITE);
+      }
+
+      @Override
+      protected void run(CircuitMutator mutator) {
+        mutator.addAll(main, List.of(pin, sub));
+      }
+    }.execute();
+    assertEquals(2, added.size());
+    assertTrue(added.containsAll(List.of(pin, sub)));
+    assertFalse(proj.getDependencies().canRemove(extra));
+    assertFalse(proj.getDependencies().canAdd(extra, main));
+  }
+
+  @Test
+  public void testContentsOfOtherFactories() throws Exception {
+    // a circuit may be named as the ROM, and a component of another factory may have an attribute
+    // named contents: neither holds the contents of a memory
+    final var project = """
+        <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+        <project source="4.0.0dev" version="1.0">
+          <lib desc="#Wiring" name="0"/>
+          <lib desc="#Gates" name="1"/>
+          <lib desc="#Memory" name="4"/>
+          <main name="main"/>
+          <circuit name="main">
+            <a name="circuit" val="main"/>
+            <comp lib="1" loc="(200,100)" name="AND Gate">
+              <a name="contents">not the contents of a memory</a>
+            </comp>
+            <comp loc="(300,300)" name="ROM">
+              <a name="contents">v2.0 raw
+        zz
+        </a>
+            </comp>
+            <comp lib="4" loc="(400,400)" name="ROM">
+              <a name="contents">addr/data: 8 8
+        5
+        </a>
+            </comp>
+          </circuit>
+          <circuit name="ROM">
+            <a name="circuit" val="ROM"/>
+            <comp lib="0" loc="(100,100)" name="Pin"/>
+          </circuit>
+        </project>
+        """;
+    final var loader = new Loader(null);
+    final var file = new LogisimFile(loader);
+    final var parsed = new ArrayList<Element>();
+    final var context = new XmlReader(loader, null).new ReadContext(file) {
+      @Override
+      void setParsedValue(Element attrElt, Object value) {
+        parsed.add(attrElt);
+        super.setParsedValue(attrElt, value);
+      }
+    };
+    new XmlStreamingReader(context, null)
+        .read(new ByteArrayInputStream(project.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(1, parsed.size());
+    assertEquals("(400,400)", ((Element) parsed.get(0).getParentNode()).getAttribute("loc"));
+
+    final var main = file.getCircuit("main");
+    assertEquals(3, main.getNonWires().size());
+    for (final var comp : main.getNonWires()) {
+      if (comp.getFactory() instanceof Rom) {
+        assertEquals(5L, comp.getAttributeSet().getValue(Rom.CONTENTS_ATTR).get(0));
+      }
+    }
+  }
+}
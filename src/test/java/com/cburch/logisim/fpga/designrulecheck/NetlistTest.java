@@ -0,0 +1,188 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.designrulecheck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.proj.ProjectActions;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.ArrayList;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NetlistTest {
+  private Project proj;
+  private Circuit main;
+  private Circuit sub;
+  private int count;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  @BeforeEach
+  public void buildDesign() {
+    proj = new Project(ProjectActions.createNewFile(null));
+    main = proj.getLogisimFile().getMainCircuit();
+    main.setProject(proj);
+    sub = new Circuit("inverter", proj.getLogisimFile(), proj);
+    proj.getLogisimFile().addCircuit(sub);
+
+    var xn = new CircuitMutation(sub);
+    pin(xn, false, "a");
+    final var not = factory("NOT Gate");
+    final var gate = add(xn, not, "gate");
+    connect(xn, gate, 0, "x");
+    connect(xn, gate, 1, "a");
+    pin(xn, true, "x");
+    xn.execute();
+
+    xn = new CircuitMutation(main);
+    pin(xn, false, "i");
+    final var instance = add(xn, sub.getSubcircuitFactory(), "inst");
+    connect(xn, instance, 0, "i");
+    connect(xn, instance, 1, "o");
+    pin(xn, true, "o");
+    xn.execute();
+  }
+
+  private ComponentFactory factory(String name) {
+    return ((AddTool) proj.getLogisimFile().getLibrary(GatesLibrary._ID).getTool(name))
+        .getFactory();
+  }
+
+  private Location nextLocation() {
+    final var ret = Location.create(1000 * (count % 16) + 500, 1000 * (count / 16) + 500, false);
+    count++;
+    return ret;
+  }
+
+  private Component add(CircuitMutation xn, ComponentFactory factory, String label) {
+    final var attrs = factory.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    final var comp = factory.createComponent(nextLocation(), attrs);
+    xn.add(comp);
+    return comp;
+  }
+
+  private static void connect(CircuitMutation xn, Component comp, int end, String net) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, net);
+    attrs.setValue(StdAttr.WIDTH, comp.getEnd(end).getWidth());
+    xn.add(Tunnel.FACTORY.createComponent(comp.getEnd(end).getLocation(), attrs));
+  }
+
+  private void pin(CircuitMutation xn, boolean output, String label) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(Pin.ATTR_TYPE, output ? Pin.OUTPUT : Pin.INPUT);
+    attrs.setValue(StdAttr.FACING, output ? Direction.WEST : Direction.EAST);
+    attrs.setValue(StdAttr.LABEL, label);
+    final var comp = Pin.FACTORY.createComponent(nextLocation(), attrs);
+    xn.add(comp);
+    connect(xn, comp, 0, label);
+  }
+
+  private int check() {
+    return main.getNetList().designRuleCheckResult(true, new ArrayList<>());
+  }
+
+  private static Component find(Circuit circuit, String label) {
+    for (final var comp : circuit.getNonWires()) {
+      if (label.equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) return comp;
+    }
+    throw new AssertionError(label);
+  }
+
+  @Test
+  public void testChecksKeptUntilChange() {
+    assertEquals(Netlist.DRC_PASSED, check());
+    assertTrue(main.getNetList().hasValidLocalChecks());
+    assertTrue(sub.getNetList().hasValidLocalChecks());
+    final var mainNet = main.getNetList().getAllNets().get(0);
+    final var subNet = sub.getNetList().getAllNets().get(0);
+
+    // poking and simulating the components invalidates them, not the checks
+    Instance.getInstanceFor(find(sub, "a")).fireInvalidated();
+    Instance.getInstanceFor(find(main, "inst")).fireInvalidated();
+    assertTrue(main.getNetList().hasValidLocalChecks());
+    assertTrue(sub.getNetList().hasValidLocalChecks());
+
+    // the netlists are reused by the next check
+    assertEquals(Netlist.DRC_PASSED, check());
+    assertSame(mainNet, main.getNetList().getAllNets().get(0));
+    assertSame(subNet, sub.getNetList().getAllNets().get(0));
+  }
+
+  @Test
+  public void testChangeInMainCircuit() {
+    assertEquals(Netlist.DRC_PASSED, check());
+    final var subNet = sub.getNetList().getAllNets().get(0);
+    final var mainNet = main.getNetList().getAllNets().get(0);
+
+    final var xn = new CircuitMutation(main);
+    pin(xn, false, "j");
+    xn.execute();
+    // the subcircuit does not depend on the circuits using it
+    assertFalse(main.getNetList().hasValidLocalChecks());
+    assertTrue(sub.getNetList().hasValidLocalChecks());
+
+    assertEquals(Netlist.DRC_PASSED, check());
+    assertSame(subNet, sub.getNetList().getAllNets().get(0));
+    assertNotSame(mainNet, main.getNetList().getAllNets().get(0));
+  }
+
+  @Test
+  public void testAttributeChangeInSubcircuit() {
+    assertEquals(Netlist.DRC_PASSED, check());
+    final var subNet = sub.getNetList().getAllNets().get(0);
+
+    final var xn = new CircuitMutation(sub);
+    xn.set(find(sub, "gate"), StdAttr.LABEL, "inverter_gate");
+    xn.execute();
+    // the circuits using it refer to its ports
+    assertFalse(sub.getNetList().hasValidLocalChecks());
+    assertFalse(main.getNetList().hasValidLocalChecks());
+
+    assertEquals(Netlist.DRC_PASSED, check());
+    assertTrue(sub.getNetList().hasValidLocalChecks());
+    assertNotSame(subNet, sub.getNetList().getAllNets().get(0));
+  }
+
+  @Test
+  public void testRemoval() {
+    assertEquals(Netlist.DRC_PASSED, check());
+    final var xn = new CircuitMutation(main);
+    xn.remove(find(main, "inst"));
+    xn.execute();
+    assertFalse(main.getNetList().hasValidLocalChecks());
+    assertTrue(sub.getNetList().hasValidLocalChecks());
+    check();
+    assertTrue(main.getNetList().hasValidLocalChecks());
+  }
+}
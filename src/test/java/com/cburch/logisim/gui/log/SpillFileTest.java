@@ -0,0 +1,84 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class SpillFileTest {
+  /** Four slots in a segment of 16 MiB. */
+  private static final int SLOT = 1 << 22;
+
+  @Test
+  public void testSlotsKeepTheirValues() throws IOException {
+    final var file = new SpillFile(SLOT);
+    try {
+      // the fifth slot is in the second segment
+      final var offsets = new long[6];
+      for (var i = 0; i < offsets.length; i++) {
+        offsets[i] = file.allocate();
+        file.putLong(offsets[i], 1000L + i);
+        file.putLong(offsets[i] + SLOT - 9, -i);
+        file.putByte(offsets[i] + SLOT - 1, (byte) i);
+      }
+      assertEquals(offsets.length, Arrays.stream(offsets).distinct().count());
+      for (var i = 0; i < offsets.length; i++) {
+        assertEquals(1000L + i, file.getLong(offsets[i]));
+        assertEquals(-i, file.getLong(offsets[i] + SLOT - 9));
+        assertEquals((byte) i, file.getByte(offsets[i] + SLOT - 1));
+      }
+    } finally {
+      file.close();
+    }
+  }
+
+  @Test
+  public void testReleasedSlotsAreUsedAgain() throws IOException {
+    final var file = new SpillFile(SLOT);
+    try {
+      assertTrue(file.isUnused());
+      final var a = file.allocate();
+      final var b = file.allocate();
+      assertNotEquals(a, b);
+      assertFalse(file.isUnused());
+      file.release(a);
+      assertFalse(file.isUnused());
+      assertEquals(a, file.allocate());
+      file.release(a);
+      file.release(b);
+      assertTrue(file.isUnused());
+    } finally {
+      file.close();
+    }
+  }
+
+  @Test
+  public void testCloseDeletesTheFile() throws IOException {
+    final var file = new SpillFile(SLOT);
+    final var offset = file.allocate();
+    file.putLong(offset, 42);
+    assertTrue(file.getFile().exists());
+    file.close();
+    assertFalse(file.getFile().exists());
+    // a slot still in use can be read, as by the chronogram while Logisim exits
+    assertEquals(42, file.getLong(offset));
+    // closing again does nothing, and nothing is allocated any more
+    file.close();
+    file.release(offset);
+    assertThrows(IOException.class, file::allocate);
+  }
+}
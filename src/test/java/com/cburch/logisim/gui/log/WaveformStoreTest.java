@@ -0,0 +1,149 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.data.Value;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class WaveformStoreTest {
+  /** Enough samples for most of the chunks to be spilled. */
+  private static final int SAMPLES = 10_000;
+
+  private WaveformStore store;
+
+  /** Sample i holds the value i and starts at time 10 + 2 i. */
+  private void fill(int samples) {
+    store = new WaveformStore(10);
+    for (var i = 0; i < samples; i++) {
+      store.add(Value.createKnown(32, i), 2);
+    }
+  }
+
+  @AfterEach
+  public void releaseSpilledChunks() {
+    // the slots of the store are released, so that the next test starts without a spill file
+    store.clear(0);
+    assertNull(WaveformStore.getSpillFile());
+  }
+
+  @Test
+  public void testSamplesAreKeptWhenSpilled() {
+    fill(SAMPLES);
+    assertNotNull(WaveformStore.getSpillFile());
+    assertEquals(0, store.getFirst());
+    assertEquals(SAMPLES, store.getSize());
+    assertEquals(10, store.getStartTime());
+    assertEquals(10 + 2 * SAMPLES, store.getEndTime());
+    for (var i = 0; i < SAMPLES; i++) {
+      assertEquals(10 + 2 * i, store.getTime(i));
+      assertEquals(2, store.getDuration(i));
+      assertEquals(i, store.getValue(i).toLongValue());
+    }
+    assertEquals(-1, store.find(9));
+    assertEquals(0, store.find(10));
+    assertEquals(1234, store.find(10 + 2 * 1234 + 1));
+    assertEquals(SAMPLES - 1, store.find(10 + 2 * SAMPLES - 1));
+    assertEquals(-1, store.find(10 + 2 * SAMPLES));
+
+    store.setValue(5, Value.createKnown(32, 42));
+    assertEquals(42, store.getValue(5).toLongValue());
+  }
+
+  @Test
+  public void testDroppedSamples() {
+    fill(SAMPLES);
+    store.dropBefore(5000);
+    assertEquals(5000, store.getFirst());
+    assertEquals(10 + 2 * 5000, store.getStartTime());
+    assertEquals(-1, store.find(10 + 2 * 4999));
+    assertEquals(6000, store.find(10 + 2 * 6000));
+    // a reader asking for a dropped sample gets the oldest one kept
+    assertEquals(5000, store.getValue(10).toLongValue());
+    assertEquals(10 + 2 * 5000, store.getTime(10));
+    for (var i = 5000; i < SAMPLES; i++) {
+      assertEquals(i, store.getValue(i).toLongValue());
+    }
+  }
+
+  @Test
+  public void testLongRunWithHistoryLimit() {
+    // the chunks kept are moved to the start of their array as the older ones are dropped
+    fill(0);
+    final var limit = 3000;
+    for (var i = 0; i < 100 * SAMPLES; i++) {
+      store.add(Value.createKnown(32, i), 2);
+      if (store.getSize() - store.getFirst() > limit) store.dropBefore(store.getSize() - limit);
+    }
+    assertEquals(100L * SAMPLES - limit, store.getFirst());
+    for (var i = store.getFirst(); i < store.getSize(); i++) {
+      assertEquals(10 + 2 * i, store.getTime(i));
+      assertEquals(i, store.getValue(i).toLongValue());
+      assertEquals(i, store.find(10 + 2 * i + 1));
+    }
+    assertEquals(-1, store.find(10 + 2 * store.getFirst() - 1));
+  }
+
+  @Test
+  public void testSpillFileClosedWhenUnused() {
+    fill(SAMPLES);
+    final var file = WaveformStore.getSpillFile();
+    assertNotNull(file);
+    assertFalse(file.isUnused());
+    store.clear(100);
+    assertTrue(store.isEmpty());
+    assertEquals(100, store.getStartTime());
+    assertEquals(-1, store.find(100));
+    assertNull(WaveformStore.getSpillFile());
+    assertFalse(file.getFile().exists());
+
+    // the store goes on with another file
+    store.add(Value.createKnown(32, 7), 3);
+    assertEquals(7, store.getValue(0).toLongValue());
+    assertEquals(103, store.getEndTime());
+  }
+
+  @Test
+  public void testReadersDuringDrops() throws InterruptedException {
+    fill(SAMPLES);
+    final var failure = new AtomicReference<Throwable>();
+    final var reader = new Thread(() -> {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          final var end = store.getEndTime();
+          final var i = store.find(end - 2 * SAMPLES);
+          if (i < 0) continue;
+          // the sample may have been dropped meanwhile, giving a newer one
+          final var v = store.getValue(i).toLongValue();
+          if (v < i || store.getTime(i) < 10 + 2L * i) {
+            throw new AssertionError("sample " + i + " read as " + v);
+          }
+        }
+      } catch (Throwable t) {
+        failure.set(t);
+      }
+    });
+    reader.start();
+    for (var i = SAMPLES; i < 20 * SAMPLES; i++) {
+      store.add(Value.createKnown(32, i), 2);
+      if (i % 1000 == 0) store.dropBefore(i - SAMPLES);
+    }
+    reader.interrupt();
+    reader.join();
+    assertNull(failure.get());
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.FailException;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.proj.ProjectActions;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.DFlipFlop;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.PullResistor;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.std.wiring.WiringLibrary;
+import com.cburch.logisim.tools.AddTool;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestBatchTest {
+  /** Enough tasks for the rows to be sharded, whatever the number of cores. */
+  private static final int PARALLELISM = 4;
+  private static final int ROWS = 1000;
+
+  private Project proj;
+  private Circuit circuit;
+  private CircuitMutation xn;
+  private final LinkedHashMap<String, Component> pins = new LinkedHashMap<>();
+  private int count;
+
+  @BeforeAll
+  public static void setup() {
+    Main.headless = true;
+  }
+
+  @BeforeEach
+  public void newProject() {
+    proj = new Project(ProjectActions.createNewFile(null));
+    circuit = proj.getLogisimFile().getMainCircuit();
+    xn = new CircuitMutation(circuit);
+  }
+
+  // Builds the circuit as CircuitTestBuilder does, every component connected through tunnels.
+
+  private ComponentFactory factory(String library, String name) {
+    return ((AddTool) proj.getLogisimFile().getLibrary(library).getTool(name)).getFactory();
+  }
+
+  private Component add(ComponentFactory factory, AttributeSet attrs) {
+    final var loc = Location.create(1000 * (count % 16) + 500, 1000 * (count / 16) + 500, false);
+    count++;
+    final var comp = factory.createComponent(loc, attrs);
+    xn.add(comp);
+    return comp;
+  }
+
+  private void connect(Component comp, int end, String net) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, net);
+    attrs.setValue(StdAttr.WIDTH, comp.getEnd(end).getWidth());
+    xn.add(Tunnel.FACTORY.createComponent(comp.getEnd(end).getLocation(), attrs));
+  }
+
+  private void gate(String name, String out, String in0, String in1) {
+    final var factory = factory(GatesLibrary._ID, name);
+    final var attrs = factory.createAttributeSet();
+    attrs.setValue(GateAttributes.ATTR_INPUTS, 2);
+    final var comp = add(factory, attrs);
+    connect(comp, 0, out);
+    connect(comp, 1, in0);
+    connect(comp, 2, in1);
+  }
+
+  private void pin(boolean output, String net) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(Pin.ATTR_TYPE, output ? Pin.OUTPUT : Pin.INPUT);
+    attrs.setValue(StdAttr.FACING, output ? Direction.WEST : Direction.EAST);
+    attrs.setValue(StdAttr.LABEL, net);
+    final var comp = add(Pin.FACTORY, attrs);
+    connect(comp, 0, net);
+    pins.put(net, comp);
+  }
+
+  private Instance[] build() {
+    xn.execute();
+    final var ret = new Instance[pins.size()];
+    var i = 0;
+    for (final var comp : pins.values()) {
+      ret[i++] = Instance.getInstanceFor(comp);
+    }
+    return ret;
+  }
+
+  /** x = (a and b) xor c */
+  private Instance[] buildCombinational() {
+    pin(false, "a");
+    pin(false, "b");
+    pin(false, "c");
+    gate("AND Gate", "n", "a", "b");
+    gate("XOR Gate", "x", "n", "c");
+    pin(true, "x");
+    return build();
+  }
+
+  /** A D flip-flop q, clocked by clk. */
+  private Instance[] buildSequential() {
+    pin(false, "d");
+    pin(false, "clk");
+    final var dff = factory(MemoryLibrary._ID, DFlipFlop._ID);
+    final var flipFlop = add(dff, dff.createAttributeSet());
+    connect(flipFlop, 0, "d");
+    connect(flipFlop, 1, "clk");
+    connect(flipFlop, 2, "q");
+    pin(true, "q");
+    return build();
+  }
+
+  /** Random input values, followed by the outputs each row gets in a fresh state. */
+  private List<Value[]> rows(Instance[] pin, int inputs) {
+    final var random = new Random(42);
+    final var ret = new ArrayList<Value[]>();
+    for (var r = 0; r < ROWS; r++) {
+      final var row = new Value[pin.length];
+      final var state = CircuitState.createRootState(proj, circuit);
+      for (var i = 0; i < inputs; i++) {
+        row[i] = random.nextBoolean() ? Value.TRUE : Value.FALSE;
+        Pin.FACTORY.driveInputPin(state.getInstanceState(pin[i]), row[i]);
+      }
+      state.getPropagator().propagate();
+      for (var i = inputs; i < pin.length; i++) {
+        row[i] = Pin.FACTORY.getValue(state.getInstanceState(pin[i]));
+      }
+      ret.add(row);
+    }
+    return ret;
+  }
+
+  @Test
+  public void testFailuresInRowOrder() {
+    final var pin = buildCombinational();
+    assertTrue(circuit.isCombinationalWithoutFloatingNets());
+    final var rows = rows(pin, 3);
+    // every seventh row expects the wrong output
+    for (var r = 3; r < ROWS; r += 7) {
+      final var row = rows.get(r);
+      row[3] = row[3].not();
+    }
+
+    final var sharded = new TestBatch(proj, circuit, pin, PARALLELISM).test(rows);
+    final var serial = new TestBatch(proj, circuit, pin, 1).test(rows);
+    assertEquals(ROWS, sharded.length);
+    for (var r = 0; r < ROWS; r++) {
+      if (r % 7 == 3) {
+        final var e = assertInstanceOf(FailException.class, sharded[r], "row " + r);
+        assertEquals(rows.get(r)[3], e.getExpected());
+        assertNotNull(serial[r]);
+      } else {
+        assertNull(sharded[r], "row " + r);
+        assertNull(serial[r]);
+      }
+    }
+  }
+
+  @Test
+  public void testSequentialRows() throws TestException {
+    final var pin = buildSequential();
+    assertFalse(circuit.isCombinational());
+    final var rows = rows(pin, 2);
+
+    final var results = new TestBatch(proj, circuit, pin, PARALLELISM).test(rows);
+    for (var r = 0; r < ROWS; r++) {
+      assertNull(results[r], "row " + r);
+    }
+
+    // the rows only pass because the flip-flop is reset before each of them
+    final var state = CircuitState.createRootState(proj, circuit);
+    var failures = 0;
+    for (final var row : rows) {
+      try {
+        circuit.doTestVector(state, pin, row, false);
+      } catch (FailException e) {
+        failures++;
+      }
+    }
+    assertTrue(failures > 0);
+  }
+
+  @Test
+  public void testResetAfterOscillation() {
+    // x = not(en and x) oscillates when en is set, starting from the value of its pull resistor
+    pin(false, "en");
+    gate("NAND Gate", "x", "en", "x");
+    final var pull = factory(WiringLibrary._ID, PullResistor._ID);
+    connect(add(pull, pull.createAttributeSet()), 0, "x");
+    pin(true, "x");
+    final var pin = build();
+    assertFalse(circuit.isCombinational());
+    final var rows = new ArrayList<Value[]>();
+    for (var r = 0; r < ROWS / 4; r++) {
+      final var en = r % 3 == 0;
+      rows.add(new Value[] {en ? Value.TRUE : Value.FALSE, Value.TRUE});
+    }
+
+    final var results = new TestBatch(proj, circuit, pin, PARALLELISM).test(rows);
+    for (var r = 0; r < rows.size(); r++) {
+      if (r % 3 == 0) {
+        assertNotNull(results[r], "row " + r);
+        assertFalse(results[r] instanceof FailException, "row " + r);
+      } else {
+        assertNull(results[r], "row " + r);
+      }
+    }
+  }
+
+  @Test
+  public void testFloatingNet() {
+    pin(false, "a");
+    // nothing drives f
+    gate("AND Gate", "x", "a", "f");
+    pin(true, "x");
+    build();
+    assertTrue(circuit.isCombinational());
+    assertFalse(circuit.isCombinationalWithoutFloatingNets());
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.instance.InstanceComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class SocMemMapModelTest {
+  /** A slave answering its memory range, as SocMemoryState does. */
+  private record Slave(String name, int start, int size) implements SocBusSlaveInterface {
+    @Override
+    public boolean canHandleTransaction(SocBusTransaction trans) {
+      final var addr = SocSupport.convUnsignedInt(trans.getAddress());
+      final var first = SocSupport.convUnsignedInt(start);
+      return addr >= first && addr < first + SocSupport.convUnsignedInt(size);
+    }
+
+    @Override
+    public void handleTransaction(SocBusTransaction trans) {
+      // not used
+    }
+
+    @Override
+    public Integer getStartAddress() {
+      return start;
+    }
+
+    @Override
+    public Integer getMemorySize() {
+      return size;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public void registerListener(SocBusSlaveListener l) {
+      // not used
+    }
+
+    @Override
+    public void removeListener(SocBusSlaveListener l) {
+      // not used
+    }
+
+    @Override
+    public InstanceComponent getComponent() {
+      return null;
+    }
+  }
+
+  private static final List<SocBusSlaveInterface> SLAVES = List.of(
+      new Slave("boot", 0, 0x400),
+      new Slave("ram", 0x1000, 0x1000),
+      // overlaps the end of ram
+      new Slave("overlap", 0x1800, 0x1000),
+      // a gap from 0x2800 to 0x4000
+      new Slave("pio", 0x4000, 0x10),
+      new Slave("empty", 0x5000, 0),
+      // ends past the 32-bit address space, which it does not wrap around
+      new Slave("high", 0xffff_ff00, 0x200),
+      // ends exactly at the end of the address space
+      new Slave("top", 0xffff_fff0, 0x10));
+
+  /** The responders found by asking every slave, as was done for each transaction before. */
+  private static SocBusSlaveInterface[] scan(int address) {
+    final var trans = new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, address, 0,
+        SocBusTransaction.WORD_ACCESS, null);
+    final var ret = new ArrayList<SocBusSlaveInterface>();
+    for (final var slave : SLAVES) {
+      if (slave.canHandleTransaction(trans)) ret.add(slave);
+    }
+    return ret.toArray(new SocBusSlaveInterface[0]);
+  }
+
+  private static String names(SocBusSlaveInterface[] slaves) {
+    final var ret = new ArrayList<String>();
+    for (final var slave : slaves) ret.add(slave.getName());
+    return String.join(",", ret);
+  }
+
+  @Test
+  public void testSameAsScan() {
+    final var decoder = new SocMemMapModel.AddressDecoder(SLAVES);
+    final var addresses = new ArrayList<Integer>(List.of(0, -1, Integer.MAX_VALUE,
+        Integer.MIN_VALUE));
+    for (final var slave : SLAVES) {
+      final int start = slave.getStartAddress();
+      final int end = start + slave.getMemorySize();
+      for (var d = -2; d <= 2; d++) {
+        addresses.add(start + d);
+        addresses.add(end + d);
+      }
+    }
+    final var random = new Random(1);
+    for (var i = 0; i < 10000; i++) {
+      addresses.add(random.nextInt());
+      addresses.add(random.nextInt(0x6000));
+    }
+    for (final int address : addresses) {
+      assertArrayEquals(scan(address), decoder.getResponders(address),
+          "address " + Integer.toHexString(address));
+    }
+  }
+
+  @Test
+  public void testRanges() {
+    final var decoder = new SocMemMapModel.AddressDecoder(SLAVES);
+    assertEquals("boot", names(decoder.getResponders(0x3ff)));
+    assertEquals("", names(decoder.getResponders(0x400)));
+    assertEquals("ram", names(decoder.getResponders(0x17ff)));
+    assertEquals("ram,overlap", names(decoder.getResponders(0x1800)));
+    assertEquals("ram,overlap", names(decoder.getResponders(0x1fff)));
+    assertEquals("overlap", names(decoder.getResponders(0x2000)));
+    assertEquals("", names(decoder.getResponders(0x2800)));
+    assertEquals("", names(decoder.getResponders(0x3fff)));
+    assertEquals("pio", names(decoder.getResponders(0x4000)));
+    assertEquals("", names(decoder.getResponders(0x5000)));
+    assertEquals("high", names(decoder.getResponders(0xffff_ff00)));
+    assertEquals("high,top", names(decoder.getResponders(0xffff_fff0)));
+    assertEquals("high,top", names(decoder.getResponders(0xffff_ffff)));
+    // the part of high past the end of the address space is not at its start
+    assertEquals("boot", names(decoder.getResponders(0x10)));
+  }
+
+  @Test
+  public void testNoSlaves() {
+    final var decoder = new SocMemMapModel.AddressDecoder(List.of());
+    assertEquals(0, decoder.getResponders(0).length);
+    assertEquals(0, decoder.getResponders(-1).length);
+  }
+}